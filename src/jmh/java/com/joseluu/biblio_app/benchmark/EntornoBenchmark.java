@@ -0,0 +1,109 @@
+package com.joseluu.biblio_app.benchmark;
+
+import com.joseluu.biblio_app.BiblioAppApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Aplicación arrancada sin servidor web sobre una base de datos H2 en memoria,
+ * con el catálogo y los socios precargados.
+ *
+ * <p>
+ * Las filas se insertan por JDBC en lotes con ids consecutivos y después se
+ * adelantan las secuencias de Hibernate, de modo que las altas posteriores
+ * desde los servicios no colisionan con los datos sembrados. Las tareas programadas se
+ * desactivan para que no compitan con la medida.
+ * </p>
+ */
+final class EntornoBenchmark implements AutoCloseable {
+
+    private static final int LOTE = 5_000;
+
+    private final ConfigurableApplicationContext contexto;
+    private final long[] libros;
+    private final long[] socios;
+
+    private EntornoBenchmark(ConfigurableApplicationContext contexto, long[] libros, long[] socios) {
+        this.contexto = contexto;
+        this.libros = libros;
+        this.socios = socios;
+    }
+
+    /**
+     * Arranca la aplicación y siembra la base de datos.
+     *
+     * @param libros número de libros
+     * @param socios número de socios
+     * @return entorno listo para medir
+     */
+    static EntornoBenchmark arrancar(int libros, int socios) {
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(BiblioAppApplication.class)
+                .web(WebApplicationType.NONE)
+                // Como argumentos para que prevalezcan sobre application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.flyway.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--biblio.retrasos.habilitado=false",
+                        "--biblio.notificaciones.habilitado=false",
+                        "--biblio.historial.instantaneas.habilitado=false",
+                        "--logging.level.root=WARN");
+        JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+        long[] idsLibros = sembrar(jdbc, libros,
+                "insert into libro (id, titulo, autor, categoria, isbn, disponible) values (?, ?, ?, ?, ?, true)",
+                "libro_seq", (id, i) -> new Object[]{id, "Libro " + i, "Autor " + (i % 1000),
+                        "Categoria " + (i % 20), String.format("978%010d", i)});
+        long[] idsSocios = sembrar(jdbc, socios,
+                "insert into socio (id, nombre, email, prestamos_activos) values (?, ?, ?, 0)",
+                "socio_seq", (id, i) -> new Object[]{id, "Socio " + i, "socio" + i + "@benchmark.local"});
+        return new EntornoBenchmark(contexto, idsLibros, idsSocios);
+    }
+
+    /**
+     * Obtiene un bean del contexto.
+     */
+    <T> T bean(Class<T> tipo) {
+        return contexto.getBean(tipo);
+    }
+
+    long[] libros() {
+        return libros;
+    }
+
+    long[] socios() {
+        return socios;
+    }
+
+    @Override
+    public void close() {
+        contexto.close();
+    }
+
+    private static long[] sembrar(JdbcTemplate jdbc, int filas, String sql, String secuencia, Fila fila) {
+        long[] ids = new long[filas];
+        List<Object[]> lote = new ArrayList<>(LOTE);
+        for (int i = 0; i < filas; i++) {
+            ids[i] = i + 1;
+            lote.add(fila.valores(ids[i], i));
+            if (lote.size() == LOTE || i == filas - 1) {
+                jdbc.batchUpdate(sql, lote);
+                lote.clear();
+            }
+        }
+        // La secuencia reserva bloques de 50 ids (optimizador pooled): se salta por encima de los sembrados
+        jdbc.execute("alter sequence " + secuencia + " restart with " + (filas + 100));
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface Fila {
+        Object[] valores(long id, int i);
+    }
+}
@@ -0,0 +1,57 @@
+package com.joseluu.biblio_app.benchmark;
+
+import com.joseluu.biblio_app.dto.Pagina;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.service.LibroService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listado del catálogo: lectura completa frente a una página por cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LibroServiceBenchmark {
+
+    /**
+     * Libros sembrados; los socios son una décima parte.
+     */
+    @Param({"10000"})
+    public int volumen;
+
+    private EntornoBenchmark entorno;
+    private LibroService libroService;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        entorno = EntornoBenchmark.arrancar(volumen, Math.max(1, volumen / 10));
+        libroService = entorno.bean(LibroService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        entorno.close();
+    }
+
+    @Benchmark
+    public List<Libro> listarLibros() {
+        return libroService.listarLibros();
+    }
+
+    @Benchmark
+    public Pagina<Libro> listarLibrosPaginados() {
+        return libroService.listarLibrosPaginados(null, 50);
+    }
+}
@@ -0,0 +1,123 @@
+package com.joseluu.biblio_app.benchmark;
+
+import com.joseluu.biblio_app.dto.ResultadoLote;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.service.PrestamoService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alta y devolución de préstamos a través de {@link PrestamoService}.
+ *
+ * <p>
+ * Cada operación usa el siguiente libro y el siguiente socio en orden
+ * circular. El préstamo que deja abierto {@code guardarPrestamo} se devuelve
+ * tras cada invocación, fuera de la medida, de modo que su libro vuelve a
+ * estar disponible cuando le toca otra vez, por muchas invocaciones que
+ * quepan en una iteración.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PrestamoServiceBenchmark {
+
+    @Param({"10000"})
+    public int volumen;
+
+    private EntornoBenchmark entorno;
+    private PrestamoService prestamoService;
+    private long[] libros;
+    private long[] socios;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        entorno = EntornoBenchmark.arrancar(volumen, volumen);
+        prestamoService = entorno.bean(PrestamoService.class);
+        libros = entorno.libros();
+        socios = entorno.socios();
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() {
+        entorno.close();
+    }
+
+    /**
+     * Alta individual, tal como la hace el formulario de préstamos.
+     */
+    @Benchmark
+    public Prestamo guardarPrestamo(PrestamoAbierto abierto) {
+        Prestamo prestamo = prestamoService.guardarPrestamo(nuevoPrestamo());
+        abierto.id = prestamo.getId();
+        return prestamo;
+    }
+
+    /**
+     * Alta y devolución de un préstamo.
+     */
+    @Benchmark
+    public Long prestarYDevolver() {
+        Long id = prestamoService.guardarPrestamo(nuevoPrestamo()).getId();
+        prestamoService.devolverPrestamo(id);
+        return id;
+    }
+
+    /**
+     * Préstamo de tres libros en lote y devolución en lote.
+     */
+    @Benchmark
+    public ResultadoLote prestarYDevolverLote() {
+        long socio = socios[siguiente % socios.length];
+        List<Long> ids = new ArrayList<>(3);
+        for (int i = 0; i < 3; i++) {
+            ids.add(libros[siguiente++ % libros.length]);
+        }
+        ResultadoLote prestados = prestamoService.prestarLibros(socio, ids);
+        return prestamoService.devolverPrestamos(prestados.prestamos());
+    }
+
+    /**
+     * Préstamo creado en la última invocación de {@link #guardarPrestamo}.
+     */
+    @State(Scope.Thread)
+    public static class PrestamoAbierto {
+
+        private Long id;
+
+        @TearDown(Level.Invocation)
+        public void devolver(PrestamoServiceBenchmark benchmark) {
+            if (id != null) {
+                benchmark.prestamoService.devolverPrestamo(id);
+                id = null;
+            }
+        }
+    }
+
+    private Prestamo nuevoPrestamo() {
+        int i = siguiente++;
+        Libro libro = new Libro();
+        libro.setId(libros[i % libros.length]);
+        Socio socio = new Socio();
+        socio.setId(socios[i % socios.length]);
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(libro);
+        prestamo.setSocio(socio);
+        return prestamo;
+    }
+}
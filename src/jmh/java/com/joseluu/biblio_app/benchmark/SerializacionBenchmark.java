@@ -0,0 +1,81 @@
+package com.joseluu.biblio_app.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de libros y préstamos con la misma configuración de
+ * Jackson que usa la aplicación en las respuestas REST.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacionBenchmark {
+
+    private ObjectMapper mapper;
+    private Libro libro;
+    private Prestamo prestamo;
+    private List<Libro> pagina;
+
+    @Setup
+    public void preparar() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        libro = libro(1);
+        Socio socio = new Socio();
+        socio.setId(1L);
+        socio.setNombre("Socio de prueba");
+        socio.setEmail("socio@benchmark.local");
+        prestamo = new Prestamo();
+        prestamo.setId(1L);
+        prestamo.setLibro(libro);
+        prestamo.setSocio(socio);
+        prestamo.setFechaPrestamo(LocalDate.of(2025, 1, 10));
+        prestamo.setFechaFin(LocalDate.of(2025, 1, 24));
+        prestamo.setEstado(Prestamo.Estado.ACTIVO);
+        pagina = new ArrayList<>();
+        for (int i = 1; i <= 50; i++) {
+            pagina.add(libro(i));
+        }
+    }
+
+    @Benchmark
+    public String serializarLibro() throws JsonProcessingException {
+        return mapper.writeValueAsString(libro);
+    }
+
+    @Benchmark
+    public String serializarPrestamo() throws JsonProcessingException {
+        return mapper.writeValueAsString(prestamo);
+    }
+
+    @Benchmark
+    public String serializarPaginaLibros() throws JsonProcessingException {
+        return mapper.writeValueAsString(pagina);
+    }
+
+    private static Libro libro(int i) {
+        Libro libro = new Libro();
+        libro.setId((long) i);
+        libro.setTitulo("El nombre de la rosa " + i);
+        libro.setAutor("Umberto Eco");
+        libro.setCategoria("Novela");
+        libro.setIsbn(String.format("978%010d", i));
+        return libro;
+    }
+}
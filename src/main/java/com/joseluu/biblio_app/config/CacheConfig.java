@@ -0,0 +1,97 @@
+package com.joseluu.biblio_app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Configuración de las cachés en memoria de la aplicación.
+ *
+ * <p>
+ * Cada caché tiene su propio tamaño máximo y tiempo de vida, configurables
+ * mediante {@code biblio.cache.<nombre>.tamanio-maximo} y
+ * {@code biblio.cache.<nombre>.ttl}. Las cachés registran estadísticas, que
+ * Actuator publica como métricas {@code cache.gets}, {@code cache.puts} y
+ * {@code cache.evictions}.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Caché de libros y socios por id con Caffeine.</li>
+ *   <li><b>V7</b> – Cachés de claves calientes ISBN → id y email → id.</li>
+ * </ul>
+ *
+ * <p>
+ * El gestor se envuelve en {@link TransactionAwareCacheManagerProxy}: las
+ * escrituras y expulsiones hechas dentro de una transacción se aplican al
+ * confirmarla, de modo que otra petición no puede volver a cachear el valor
+ * antiguo mientras la transacción sigue abierta.
+ * </p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    /**
+     * Caché de libros por id.
+     */
+    public static final String LIBROS = "libros";
+
+    /**
+     * Caché de socios por id.
+     */
+    public static final String SOCIOS = "socios";
+
+    /**
+     * Caché de ISBN normalizado → id de libro.
+     *
+     * <p>
+     * Solo guarda el id: el libro se resuelve después con la caché
+     * {@link #LIBROS}, que ya se invalida con cada préstamo y devolución. Esta
+     * caché solo cambia cuando un libro se modifica o se elimina.
+     * </p>
+     */
+    public static final String ISBN_LIBROS = "isbn-libros";
+
+    /**
+     * Caché de email normalizado → id de socio.
+     */
+    public static final String EMAIL_SOCIOS = "email-socios";
+
+    @Bean
+    public CacheManager cacheManager(
+            @Value("${biblio.cache.libros.tamanio-maximo:10000}") long tamanioLibros,
+            @Value("${biblio.cache.libros.ttl:10m}") Duration ttlLibros,
+            @Value("${biblio.cache.socios.tamanio-maximo:10000}") long tamanioSocios,
+            @Value("${biblio.cache.socios.ttl:10m}") Duration ttlSocios,
+            @Value("${biblio.cache.isbn-libros.tamanio-maximo:10000}") long tamanioIsbn,
+            @Value("${biblio.cache.isbn-libros.ttl:10m}") Duration ttlIsbn,
+            @Value("${biblio.cache.email-socios.tamanio-maximo:10000}") long tamanioEmail,
+            @Value("${biblio.cache.email-socios.ttl:10m}") Duration ttlEmail) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // Sin creación dinámica: solo existen las cachés registradas aquí
+        cacheManager.setCacheNames(List.of());
+        cacheManager.registerCustomCache(LIBROS, crear(tamanioLibros, ttlLibros));
+        cacheManager.registerCustomCache(SOCIOS, crear(tamanioSocios, ttlSocios));
+        cacheManager.registerCustomCache(ISBN_LIBROS, crear(tamanioIsbn, ttlIsbn));
+        cacheManager.registerCustomCache(EMAIL_SOCIOS, crear(tamanioEmail, ttlEmail));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    private static Cache<Object, Object> crear(long tamanioMaximo, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(tamanioMaximo)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+}
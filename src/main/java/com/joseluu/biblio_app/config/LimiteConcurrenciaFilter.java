@@ -0,0 +1,104 @@
+package com.joseluu.biblio_app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Límite de peticiones atendidas a la vez cuando Tomcat usa hilos virtuales.
+ *
+ * <p>
+ * Con hilos de plataforma el tamaño del pool de Tomcat limita la concurrencia.
+ * Con hilos virtuales ({@code spring.threads.virtual.enabled=true}) cada
+ * petición tiene su propio hilo y no hay límite: en un pico, cientos de
+ * peticiones esperarían a la vez una de las pocas conexiones JDBC y acabarían
+ * fallando por {@code connection-timeout} tras retener memoria y sockets.
+ * </p>
+ *
+ * <p>
+ * Este filtro deja pasar como mucho {@code biblio.concurrencia.maximo-peticiones}
+ * peticiones. Las demás esperan un permiso hasta
+ * {@code biblio.concurrencia.espera-maxima} y después reciben un 503 con
+ * {@code Retry-After}. Conviene que el máximo sea un múltiplo pequeño del
+ * pool de conexiones (no todas las peticiones están en la base de datos todo
+ * el tiempo) y que la espera sea menor que el {@code connection-timeout} de
+ * Hikari, para que la cola se forme aquí y no en el pool.
+ * </p>
+ *
+ * <p>
+ * Las rutas de Actuator quedan fuera del límite para que las sondas de salud
+ * respondan durante una sobrecarga.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Control de concurrencia para el modo de hilos virtuales.</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class LimiteConcurrenciaFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(LimiteConcurrenciaFilter.class);
+
+    private final Semaphore permisos;
+    private final long esperaMaximaMs;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param maximoPeticiones peticiones atendidas a la vez como máximo
+     * @param esperaMaxima     espera máxima de un permiso antes de responder 503
+     */
+    public LimiteConcurrenciaFilter(@Value("${biblio.concurrencia.maximo-peticiones:80}") int maximoPeticiones,
+                                    @Value("${biblio.concurrencia.espera-maxima:2s}") Duration esperaMaxima) {
+        // Semáforo justo: en un pico se atiende antes a quien lleva más tiempo esperando
+        this.permisos = new Semaphore(maximoPeticiones, true);
+        this.esperaMaximaMs = esperaMaxima.toMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean concedido;
+        try {
+            concedido = permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            concedido = false;
+        }
+        if (!concedido) {
+            log.debug("Petición rechazada por sobrecarga: {} {}", request.getMethod(), request.getRequestURI());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Servidor ocupado, inténtelo de nuevo");
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            permisos.release();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.joseluu.biblio_app.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Configuración de las métricas publicadas en el puerto de gestión.
+ *
+ * <p>
+ * Las métricas se exportan en formato Prometheus en
+ * {@code /actuator/prometheus} del puerto {@code management.server.port}:
+ * </p>
+ * <ul>
+ *   <li>{@code http.server.requests}: cada petición, con la etiqueta
+ *   {@code controlador} ({@code Clase#metodo} del manejador) añadida aquí.</li>
+ *   <li>{@code biblio.servicio}: cada método de servicio
+ *   ({@link MetricasServiciosAspect}).</li>
+ *   <li>{@code spring.data.repository.invocations}: cada llamada a un
+ *   repositorio, registrada por Spring Data.</li>
+ *   <li>{@code hikaricp.connections.*}: uso, esperas y tiempo de obtención de
+ *   conexiones del pool.</li>
+ * </ul>
+ *
+ * <p>
+ * Los percentiles se publican como histogramas de cubos acotados
+ * ({@code management.metrics.distribution.*}) y se calculan en Prometheus con
+ * {@code histogram_quantile}: registrar una medida es incrementar un contador,
+ * sin las ventanas deslizantes que necesitan los percentiles calculados en la
+ * aplicación, y los cubos se pueden agregar entre instancias.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Métricas por manejador, servicio, repositorio y pool de conexiones.</li>
+ * </ul>
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Añade a las métricas de peticiones el manejador que las atendió.
+     *
+     * <p>
+     * Varias rutas pueden compartir manejador y una ruta puede tener varios
+     * (por tipo de contenido, como la importación JSON y CSV), así que la
+     * etiqueta {@code uri} no basta para saber qué método hay que optimizar.
+     * </p>
+     *
+     * @return convención de observación de las peticiones HTTP
+     */
+    @Bean
+    public ServerRequestObservationConvention convencionPeticiones() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object manejador = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                String controlador = manejador instanceof HandlerMethod metodo
+                        ? metodo.getBeanType().getSimpleName() + "#" + metodo.getMethod().getName()
+                        : "none";
+                return super.getLowCardinalityKeyValues(context).and(KeyValue.of("controlador", controlador));
+            }
+        };
+    }
+}
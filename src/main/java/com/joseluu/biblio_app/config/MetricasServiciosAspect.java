@@ -0,0 +1,84 @@
+package com.joseluu.biblio_app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Temporizador de todos los métodos públicos de los servicios.
+ *
+ * <p>
+ * Cada llamada se registra en el timer {@code biblio.servicio} con las
+ * etiquetas {@code servicio}, {@code metodo} y {@code excepcion}
+ * ({@code none} si terminó bien). El aspecto se ejecuta antes que el de
+ * transacciones, así que el tiempo incluye la confirmación.
+ * </p>
+ *
+ * <p>
+ * Los timers de las llamadas correctas se guardan por método para no buscar
+ * el medidor en el registro en cada llamada; las excepciones, poco
+ * frecuentes, se registran sin caché.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Métricas de latencia por método de servicio.</li>
+ * </ul>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MetricasServiciosAspect {
+
+    /**
+     * Nombre del timer de los métodos de servicio.
+     */
+    public static final String METRICA = "biblio.servicio";
+
+    private final MeterRegistry registry;
+    private final Map<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param registry registro de métricas
+     */
+    public MetricasServiciosAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("within(com.joseluu.biblio_app.service..*) && @within(org.springframework.stereotype.Service)"
+            + " && execution(public * *(..))")
+    public Object medir(ProceedingJoinPoint punto) throws Throwable {
+        Method metodo = ((MethodSignature) punto.getSignature()).getMethod();
+        Timer.Sample muestra = Timer.start(registry);
+        try {
+            Object resultado = punto.proceed();
+            muestra.stop(timers.computeIfAbsent(metodo, m -> timer(punto, m, "none")));
+            return resultado;
+        } catch (Throwable e) {
+            muestra.stop(timer(punto, metodo, e.getClass().getSimpleName()));
+            throw e;
+        }
+    }
+
+    private Timer timer(ProceedingJoinPoint punto, Method metodo, String excepcion) {
+        return Timer.builder(METRICA)
+                .description("Duración de los métodos de servicio")
+                .tag("servicio", AopUtils.getTargetClass(punto.getTarget()).getSimpleName())
+                .tag("metodo", metodo.getName())
+                .tag("excepcion", excepcion)
+                .register(registry);
+    }
+}
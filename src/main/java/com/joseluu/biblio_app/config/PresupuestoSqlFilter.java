@@ -0,0 +1,115 @@
+package com.joseluu.biblio_app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Presupuesto de sentencias SQL y tiempo de base de datos por petición.
+ *
+ * <p>
+ * Mide las sentencias que ejecuta cada petición HTTP en su hilo (ver
+ * {@link SentenciasSqlConfig}) y registra un aviso con el método, la ruta y
+ * los valores medidos cuando supera {@code biblio.sql.presupuesto.sentencias}
+ * o {@code biblio.sql.presupuesto.tiempo}. Un listado que crece con los
+ * datos (el típico N+1 al recorrer {@code prestamos} de libros y socios)
+ * aparece en el log en cuanto pasa del límite.
+ * </p>
+ *
+ * <p>
+ * Con {@code biblio.sql.cabeceras=true} (perfil {@code dev}) la respuesta
+ * incluye las cabeceras {@value #CABECERA_SENTENCIAS} y
+ * {@value #CABECERA_TIEMPO}. Para poder añadirlas después de pintar la vista,
+ * que también puede consultar la base de datos, el cuerpo se retiene en
+ * memoria hasta el final: por eso no se activa en producción. Las rutas de
+ * {@code biblio.sql.rutas-streaming} (la exportación NDJSON de préstamos)
+ * nunca se retienen, ni siquiera con las cabeceras activas: su cuerpo sale
+ * según se genera y solo se vigila el presupuesto en el log.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Vigilancia del número de sentencias SQL por petición.</li>
+ *   <li><b>V7</b> – Las respuestas en streaming no se retienen en memoria.</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class PresupuestoSqlFilter extends OncePerRequestFilter {
+
+    /**
+     * Cabecera con el número de sentencias de la petición.
+     */
+    public static final String CABECERA_SENTENCIAS = "X-Sql-Sentencias";
+
+    /**
+     * Cabecera con el tiempo de base de datos de la petición, en milisegundos.
+     */
+    public static final String CABECERA_TIEMPO = "X-Sql-Tiempo-Ms";
+
+    private static final Logger log = LoggerFactory.getLogger(PresupuestoSqlFilter.class);
+
+    private final long maximoSentencias;
+    private final long maximoTiempoMs;
+    private final boolean cabeceras;
+    private final Set<String> rutasStreaming;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param maximoSentencias sentencias por petición a partir de las cuales se avisa
+     * @param maximoTiempo     tiempo de base de datos por petición a partir del cual se avisa
+     * @param cabeceras        si se añaden las cabeceras con los valores medidos
+     * @param rutasStreaming   rutas cuya respuesta no se retiene para añadir las cabeceras
+     */
+    public PresupuestoSqlFilter(@Value("${biblio.sql.presupuesto.sentencias:30}") long maximoSentencias,
+                                @Value("${biblio.sql.presupuesto.tiempo:500ms}") Duration maximoTiempo,
+                                @Value("${biblio.sql.cabeceras:false}") boolean cabeceras,
+                                @Value("${biblio.sql.rutas-streaming:/api/prestamos/exportacion}") String[] rutasStreaming) {
+        this.maximoSentencias = maximoSentencias;
+        this.maximoTiempoMs = maximoTiempo.toMillis();
+        this.cabeceras = cabeceras;
+        this.rutasStreaming = Set.copyOf(Arrays.asList(rutasStreaming));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long sentenciasInicio = SentenciasSqlConfig.sentencias();
+        long tiempoInicio = SentenciasSqlConfig.tiempoMs();
+        boolean retener = cabeceras
+                && !rutasStreaming.contains(UrlPathHelper.defaultInstance.getPathWithinApplication(request));
+        ContentCachingResponseWrapper retenida = retener ? new ContentCachingResponseWrapper(response) : null;
+        try {
+            filterChain.doFilter(request, retenida != null ? retenida : response);
+        } finally {
+            long sentencias = SentenciasSqlConfig.sentencias() - sentenciasInicio;
+            long tiempoMs = SentenciasSqlConfig.tiempoMs() - tiempoInicio;
+            if (sentencias > maximoSentencias || tiempoMs > maximoTiempoMs) {
+                log.warn("Presupuesto SQL superado en {} {}: {} sentencias (máximo {}), {} ms de base de datos (máximo {} ms)",
+                        request.getMethod(), request.getRequestURI(), sentencias, maximoSentencias,
+                        tiempoMs, maximoTiempoMs);
+            }
+            if (retenida != null) {
+                retenida.setHeader(CABECERA_SENTENCIAS, Long.toString(sentencias));
+                retenida.setHeader(CABECERA_TIEMPO, Long.toString(tiempoMs));
+                retenida.copyBodyToResponse();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.joseluu.biblio_app.config;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Recuento de las sentencias SQL ejecutadas por cada hilo.
+ *
+ * <p>
+ * El {@link DataSource} se envuelve con datasource-proxy, que cuenta las
+ * sentencias y el tiempo de base de datos del hilo que las ejecuta. Los
+ * contadores son acumulados: quien quiera medir un tramo (una petición, un
+ * test) toma los valores al principio y al final y resta, sin ponerlos a cero,
+ * de modo que varias medidas anidadas no se pisan.
+ * </p>
+ *
+ * <p>
+ * Lo usan {@link PresupuestoSqlFilter} para vigilar cada petición HTTP y los
+ * tests para comprobar el número máximo de sentencias de un endpoint.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Recuento de sentencias y tiempo de base de datos por hilo.</li>
+ * </ul>
+ */
+@Configuration
+public class SentenciasSqlConfig {
+
+    /**
+     * Nombre del origen de datos en los contadores de datasource-proxy.
+     */
+    public static final String ORIGEN = "biblio";
+
+    /**
+     * Envuelve el origen de datos de la aplicación con el contador de sentencias.
+     *
+     * <p>
+     * Estático para que se registre antes que el resto de beans. Spring Boot
+     * sigue encontrando el pool de Hikari detrás del proxy para sus métricas.
+     * </p>
+     *
+     * @return post-procesador que sustituye el {@link DataSource} por su proxy
+     */
+    @Bean
+    public static BeanPostProcessor proxySentenciasSql() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource origen && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(origen)
+                            .name(ORIGEN)
+                            .countQuery()
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Sentencias ejecutadas hasta ahora por el hilo actual.
+     *
+     * @return total acumulado del hilo
+     */
+    public static long sentencias() {
+        QueryCount cuenta = QueryCountHolder.get(ORIGEN);
+        return cuenta == null ? 0 : cuenta.getTotal();
+    }
+
+    /**
+     * Tiempo de base de datos acumulado por el hilo actual.
+     *
+     * @return milisegundos acumulados del hilo
+     */
+    public static long tiempoMs() {
+        QueryCount cuenta = QueryCountHolder.get(ORIGEN);
+        return cuenta == null ? 0 : cuenta.getTime();
+    }
+}
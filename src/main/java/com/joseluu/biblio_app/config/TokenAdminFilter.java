@@ -0,0 +1,97 @@
+package com.joseluu.biblio_app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Protege la API de administración ({@value #RUTA}) con un token compartido.
+ *
+ * <p>
+ * Las peticiones deben llevar la cabecera {@value #CABECERA} con el valor de
+ * {@code biblio.admin.token}; si falta o no coincide se responde 401. Sin
+ * token configurado (el valor por defecto) la API de administración queda
+ * cerrada con 403: iniciar grabaciones JFR o forzar recolecciones completas
+ * no puede quedar abierto por descuido.
+ * </p>
+ *
+ * <p>
+ * La aplicación no usa Spring Security; un filtro basta para una sola
+ * credencial de operación. La comparación es de tiempo constante para no
+ * revelar el token por la duración de la respuesta.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Token de acceso a la API de administración.</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class TokenAdminFilter extends OncePerRequestFilter {
+
+    /**
+     * Prefijo de las rutas protegidas.
+     */
+    public static final String RUTA = "/api/admin/";
+
+    /**
+     * Cabecera con el token de administración.
+     */
+    public static final String CABECERA = "X-Admin-Token";
+
+    private static final Logger log = LoggerFactory.getLogger(TokenAdminFilter.class);
+
+    private final byte[] token;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param token token de administración; vacío para cerrar la API
+     */
+    public TokenAdminFilter(@Value("${biblio.admin.token:}") String token) {
+        this.token = token.isBlank() ? null : token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * La ruta se toma del servlet, ya decodificada y sin parámetros de ruta
+     * ({@code ;x=1}), que es la que usa Spring MVC para elegir el
+     * controlador. La URI original no sirve: {@code /api;x=1/admin/...} o
+     * {@code /api/%61dmin/...} llegan al mismo controlador sin empezar por
+     * {@value #RUTA}.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = request.getServletPath() + (request.getPathInfo() != null ? request.getPathInfo() : "");
+        return !ruta.startsWith(RUTA);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (token == null) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "API de administración deshabilitada: falta biblio.admin.token");
+            return;
+        }
+        String recibido = request.getHeader(CABECERA);
+        if (recibido == null || !MessageDigest.isEqual(token, recibido.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Acceso rechazado a {} {} desde {}", request.getMethod(), request.getRequestURI(),
+                    request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token de administración no válido");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,92 @@
+package com.joseluu.biblio_app.config;
+
+import com.joseluu.biblio_app.service.Traza;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tramos de controladores, servicios y repositorios en la traza de la petición.
+ *
+ * <p>
+ * Cada llamada a un método de estas capas abre un tramo
+ * {@code Clase.metodo} hijo del que estuviera abierto, con la capa
+ * ({@code controlador}, {@code servicio} o {@code repositorio}) y la clase
+ * de la excepción si termina con error. Los repositorios se nombran por su
+ * interfaz ({@code PrestamoRepository.findVencidos}), no por la
+ * implementación de Spring Data.
+ * </p>
+ *
+ * <p>
+ * Fuera de una petición trazada (tareas programadas, hilos del despachador
+ * de notificaciones) no hay traza en el hilo y la llamada sigue sin más
+ * coste que leer el {@code ThreadLocal}. Se ejecuta justo después del
+ * aspecto de métricas y antes que el de transacciones: el tramo de un
+ * servicio incluye la confirmación.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas de peticiones con tramos por capa.</li>
+ * </ul>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@ConditionalOnProperty(name = "biblio.trazas.habilitado", havingValue = "true", matchIfMissing = true)
+public class TrazasAspect {
+
+    private final Map<Class<?>, String> nombresRepositorios = new ConcurrentHashMap<>();
+
+    @Around("within(com.joseluu.biblio_app.controller..*) && (@within(org.springframework.stereotype.Controller)"
+            + " || @within(org.springframework.web.bind.annotation.RestController))")
+    public Object trazarControlador(ProceedingJoinPoint punto) throws Throwable {
+        return trazar(punto, "controlador");
+    }
+
+    @Around("within(com.joseluu.biblio_app.service..*) && @within(org.springframework.stereotype.Service)"
+            + " && execution(public * *(..))")
+    public Object trazarServicio(ProceedingJoinPoint punto) throws Throwable {
+        return trazar(punto, "servicio");
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object trazarRepositorio(ProceedingJoinPoint punto) throws Throwable {
+        return trazar(punto, "repositorio");
+    }
+
+    private Object trazar(ProceedingJoinPoint punto, String capa) throws Throwable {
+        Traza traza = Traza.actual();
+        if (traza == null) {
+            return punto.proceed();
+        }
+        Traza.Tramo tramo = traza.iniciarTramo(nombreClase(punto, capa) + "." + punto.getSignature().getName(), capa);
+        try {
+            Object resultado = punto.proceed();
+            traza.terminarTramo(tramo, null);
+            return resultado;
+        } catch (Throwable e) {
+            traza.terminarTramo(tramo, e.getClass().getSimpleName());
+            throw e;
+        }
+    }
+
+    private String nombreClase(ProceedingJoinPoint punto, String capa) {
+        if (!"repositorio".equals(capa)) {
+            return AopUtils.getTargetClass(punto.getTarget()).getSimpleName();
+        }
+        return nombresRepositorios.computeIfAbsent(punto.getThis().getClass(), proxy -> {
+            Class<?>[] interfaces = AopProxyUtils.proxiedUserInterfaces(punto.getThis());
+            return interfaces.length > 0 ? interfaces[0].getSimpleName() : proxy.getSimpleName();
+        });
+    }
+}
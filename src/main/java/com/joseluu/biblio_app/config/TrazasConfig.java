@@ -0,0 +1,58 @@
+package com.joseluu.biblio_app.config;
+
+import com.joseluu.biblio_app.service.Traza;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Tramo del pintado de las vistas Thymeleaf en la traza de la petición.
+ *
+ * <p>
+ * El pintado ocurre después de que el controlador devuelva, fuera de los
+ * tramos de {@link TrazasAspect}; las consultas perezosas que dispare la
+ * plantilla quedan así dentro del tramo {@code vista <nombre>} y no sueltas
+ * bajo la raíz.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas de peticiones con tramos por capa.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "biblio.trazas.habilitado", havingValue = "true", matchIfMissing = true)
+public class TrazasConfig implements WebMvcConfigurer {
+
+    private static final String ATRIBUTO_TRAMO = TrazasConfig.class.getName() + ".vista";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+
+            @Override
+            public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                   ModelAndView modelAndView) {
+                Traza traza = Traza.actual();
+                if (traza != null && modelAndView != null && modelAndView.getViewName() != null) {
+                    request.setAttribute(ATRIBUTO_TRAMO,
+                            traza.iniciarTramo("vista " + modelAndView.getViewName(), "vista"));
+                }
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                        Exception ex) {
+                Traza traza = Traza.actual();
+                if (traza != null && request.getAttribute(ATRIBUTO_TRAMO) instanceof Traza.Tramo tramo) {
+                    traza.terminarTramo(tramo, ex != null ? ex.getClass().getSimpleName() : null);
+                }
+            }
+        });
+    }
+}
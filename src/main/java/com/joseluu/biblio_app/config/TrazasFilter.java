@@ -0,0 +1,112 @@
+package com.joseluu.biblio_app.config;
+
+import com.joseluu.biblio_app.service.Traza;
+import com.joseluu.biblio_app.service.TrazasService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Abre una traza por petición HTTP.
+ *
+ * <p>
+ * El id de la traza se toma de la cabecera W3C {@code traceparent} si el
+ * cliente la envía (y entonces su indicador de muestreo obliga a exportarla)
+ * o se genera uno nuevo. El id se devuelve en la cabecera
+ * {@value #CABECERA_TRAZA} y se pone en el MDC como {@value #MDC_TRAZA}, así
+ * que todas las líneas de log de la petición lo llevan
+ * ({@code logging.pattern.correlation}).
+ * </p>
+ *
+ * <p>
+ * Al terminar, el tramo raíz recibe como nombre el método y el patrón de la
+ * ruta ({@code GET /api/prestamos/libro/{libroId}}), no la URI concreta, para
+ * poder agrupar las trazas lentas por manejador, y la traza se entrega a
+ * {@link TrazasService}. Se ejecuta justo después del límite de concurrencia:
+ * la espera por el límite no cuenta en la traza, pero sí todo lo demás,
+ * incluidos los filtros posteriores y el pintado de la vista.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas de peticiones con tramos por capa.</li>
+ * </ul>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+@ConditionalOnProperty(name = "biblio.trazas.habilitado", havingValue = "true", matchIfMissing = true)
+public class TrazasFilter extends OncePerRequestFilter {
+
+    /**
+     * Cabecera de respuesta con el id de la traza.
+     */
+    public static final String CABECERA_TRAZA = "X-Trace-Id";
+
+    /**
+     * Clave del id de la traza en el MDC.
+     */
+    public static final String MDC_TRAZA = "traceId";
+
+    /**
+     * {@code version-traceid-parentid-flags}; los ids a cero no son válidos.
+     */
+    private static final Pattern TRACEPARENT =
+            Pattern.compile("^[0-9a-f]{2}-([0-9a-f]{32})-[0-9a-f]{16}-([0-9a-f]{2})$");
+
+    private final TrazasService trazasService;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param trazasService registro de trazas terminadas
+     */
+    public TrazasFilter(TrazasService trazasService) {
+        this.trazasService = trazasService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String traceId = null;
+        boolean muestreada = false;
+        String traceparent = request.getHeader("traceparent");
+        if (traceparent != null) {
+            Matcher partes = TRACEPARENT.matcher(traceparent.trim());
+            if (partes.matches() && !partes.group(1).chars().allMatch(c -> c == '0')) {
+                traceId = partes.group(1);
+                muestreada = (Integer.parseInt(partes.group(2), 16) & 1) == 1;
+            }
+        }
+
+        Traza traza = Traza.abrir(traceId, muestreada, request.getMethod(), trazasService.maximoTramos());
+        MDC.put(MDC_TRAZA, traza.traceId());
+        response.setHeader(CABECERA_TRAZA, traza.traceId());
+        String error = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            error = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            if (error == null && response.getStatus() >= 500) {
+                error = "HTTP " + response.getStatus();
+            }
+            Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String nombre = request.getMethod() + " " + (patron != null ? patron : request.getRequestURI());
+            trazasService.registrar(traza.cerrar(nombre, error, trazasService::muestrear));
+            MDC.remove(MDC_TRAZA);
+        }
+    }
+}
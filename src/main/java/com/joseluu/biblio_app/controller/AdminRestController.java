@@ -0,0 +1,182 @@
+package com.joseluu.biblio_app.controller;
+
+import com.joseluu.biblio_app.dto.GrabacionJfr;
+import com.joseluu.biblio_app.dto.HistogramaClases;
+import com.joseluu.biblio_app.dto.TrazaRegistrada;
+import com.joseluu.biblio_app.service.DiagnosticoService;
+import com.joseluu.biblio_app.service.TrazasService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.management.JMException;
+import java.io.IOException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Controlador REST de diagnóstico para administradores.
+ *
+ * <p>
+ * Todas las rutas exigen la cabecera {@code X-Admin-Token}
+ * (ver {@link com.joseluu.biblio_app.config.TokenAdminFilter}).
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/admin")
+@Tag(
+        name = "Administración",
+        description = "Diagnóstico del rendimiento de la aplicación. Requiere la cabecera X-Admin-Token"
+)
+public class AdminRestController {
+
+    private final TrazasService trazasService;
+    private final DiagnosticoService diagnosticoService;
+
+    public AdminRestController(TrazasService trazasService, DiagnosticoService diagnosticoService) {
+        this.trazasService = trazasService;
+        this.diagnosticoService = diagnosticoService;
+    }
+
+    @Operation(
+            summary = "Trazas lentas",
+            description = "Obtiene las últimas peticiones que superaron biblio.trazas.umbral-lentas, "
+                    + "de la más reciente a la más antigua, con el desglose de tramos por capa"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Trazas lentas guardadas en memoria"
+    )
+    @GetMapping("/trazas/lentas")
+    public List<TrazaRegistrada> listarTrazasLentas(
+            @Parameter(description = "Número máximo de trazas")
+            @RequestParam(defaultValue = "20") int limite) {
+        return trazasService.listarLentas(limite);
+    }
+
+    @Operation(
+            summary = "Traza lenta por id",
+            description = "Obtiene una traza lenta por el id devuelto en la cabecera X-Trace-Id"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Traza encontrada"),
+            @ApiResponse(responseCode = "404", description = "La traza no fue lenta o ya salió del buffer")
+    })
+    @GetMapping("/trazas/lentas/{traceId}")
+    public ResponseEntity<TrazaRegistrada> obtenerTrazaLenta(@PathVariable String traceId) {
+        return ResponseEntity.of(trazasService.obtenerLenta(traceId));
+    }
+
+    @Operation(
+            summary = "Iniciar grabación JFR",
+            description = "Inicia una grabación de JDK Flight Recorder que se detiene sola al cumplir la duración. "
+                    + "Perfil default (sobrecarga ~1 %) o profile (más muestras de pila y asignaciones)"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Grabación iniciada"),
+            @ApiResponse(responseCode = "400", description = "Perfil o duración no válidos"),
+            @ApiResponse(responseCode = "409", description = "Ya hay una grabación en curso")
+    })
+    @PostMapping("/jfr")
+    public GrabacionJfr iniciarGrabacion(
+            @Parameter(description = "Configuración de JFR: default o profile")
+            @RequestParam(defaultValue = "profile") String perfil,
+            @Parameter(description = "Duración en segundos")
+            @RequestParam(defaultValue = "60") long segundos) throws IOException, ParseException {
+        return diagnosticoService.iniciarGrabacion(perfil, Duration.ofSeconds(segundos));
+    }
+
+    @Operation(
+            summary = "Estado de la grabación JFR",
+            description = "Obtiene el estado de la última grabación lanzada"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Estado de la grabación"),
+            @ApiResponse(responseCode = "404", description = "No se ha lanzado ninguna grabación")
+    })
+    @GetMapping("/jfr")
+    public ResponseEntity<GrabacionJfr> obtenerGrabacion() {
+        return ResponseEntity.of(diagnosticoService.obtenerGrabacion());
+    }
+
+    @Operation(
+            summary = "Detener grabación JFR",
+            description = "Detiene la grabación en curso antes de cumplir su duración y escribe el archivo"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Grabación detenida"),
+            @ApiResponse(responseCode = "404", description = "No se ha lanzado ninguna grabación")
+    })
+    @PostMapping("/jfr/detener")
+    public ResponseEntity<GrabacionJfr> detenerGrabacion() {
+        return ResponseEntity.of(diagnosticoService.detenerGrabacion());
+    }
+
+    @Operation(
+            summary = "Descargar grabación JFR",
+            description = "Descarga el archivo .jfr de la última grabación, para abrirlo con JDK Mission Control "
+                    + "o jfr print"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Archivo de la grabación"),
+            @ApiResponse(responseCode = "404", description = "No hay grabación terminada")
+    })
+    @GetMapping("/jfr/archivo")
+    public ResponseEntity<Resource> descargarGrabacion() throws IOException {
+        return diagnosticoService.abrirGrabacion()
+                .map(this::adjunto)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(
+            summary = "Histograma de clases",
+            description = "Obtiene las clases que más memoria ocupan en el heap. Con vivos=true cuenta solo "
+                    + "los objetos alcanzables, lo que fuerza una recolección completa (pausa)"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Histograma de clases"
+    )
+    @GetMapping("/histograma")
+    public HistogramaClases histogramaClases(
+            @Parameter(description = "Número máximo de clases")
+            @RequestParam(defaultValue = "30") int limite,
+            @Parameter(description = "Contar solo objetos vivos (fuerza una recolección completa)")
+            @RequestParam(defaultValue = "false") boolean vivos) throws JMException {
+        return diagnosticoService.histogramaClases(limite, vivos);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleEstadoNoValido(IllegalStateException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
+    private ResponseEntity<Resource> adjunto(DiagnosticoService.ArchivoGrabacion archivo) {
+        // El flujo ya está abierto: lo cierra el conversor al terminar de escribirlo
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(archivo.tamanio())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(archivo.nombre()).build().toString())
+                .body(new InputStreamResource(archivo.contenido()));
+    }
+}
@@ -1,16 +1,25 @@
 package com.joseluu.biblio_app.controller;
 
+import com.joseluu.biblio_app.dto.Pagina;
+import com.joseluu.biblio_app.dto.ResultadoImportacion;
 import com.joseluu.biblio_app.entity.Libro;
 import com.joseluu.biblio_app.entity.Prestamo;
 import com.joseluu.biblio_app.entity.Socio;
 import com.joseluu.biblio_app.service.BibliotecaService;
+import com.joseluu.biblio_app.service.ImportacionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -25,24 +34,31 @@ import java.util.List;
 public class BibliotecaController {
 
     private final BibliotecaService service;
+    private final ImportacionService importacionService;
 
-    public BibliotecaController(BibliotecaService service) {
+    public BibliotecaController(BibliotecaService service, ImportacionService importacionService) {
         this.service = service;
+        this.importacionService = importacionService;
     }
 
     // ====================== LIBROS ======================
 
     @Operation(
             summary = "Listar libros",
-            description = "Obtiene la lista completa de libros registrados en la biblioteca"
-    )
-    @ApiResponse(
-            responseCode = "200",
-            description = "Listado de libros obtenido correctamente"
+            description = "Obtiene una página de libros ordenados por id. "
+                    + "Para pedir la página siguiente se reenvía el cursor devuelto en 'siguiente'"
     )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página de libros obtenida correctamente"),
+            @ApiResponse(responseCode = "400", description = "Cursor de paginación no válido")
+    })
     @GetMapping("/libros")
-    public List<Libro> getAllLibros() {
-        return service.getAllLibros();
+    public Pagina<Libro> getAllLibros(
+            @Parameter(description = "Cursor de continuación devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Número de libros por página")
+            @RequestParam(required = false) Integer tamanio) {
+        return service.getLibros(cursor, tamanio);
     }
 
     @Operation(
@@ -59,6 +75,33 @@ public class BibliotecaController {
         return service.saveLibro(libro);
     }
 
+    @Operation(
+            summary = "Importar libros (JSON)",
+            description = "Importa un array JSON de libros en lotes. Las filas con errores "
+                    + "(datos obligatorios, ISBN duplicado...) se informan sin abortar la importación"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Importación procesada; el cuerpo indica las filas rechazadas"
+    )
+    @PostMapping(value = "/libros/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResultadoImportacion importarLibros(InputStream cuerpo) throws IOException {
+        return importacionService.importarLibrosJson(cuerpo);
+    }
+
+    @Operation(
+            summary = "Importar libros (CSV)",
+            description = "Importa libros desde CSV con cabecera titulo,autor,isbn,categoria"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Importación procesada; el cuerpo indica las filas rechazadas"
+    )
+    @PostMapping(value = "/libros/lote", consumes = "text/csv")
+    public ResultadoImportacion importarLibrosCsv(InputStream cuerpo) throws IOException {
+        return importacionService.importarLibrosCsv(cuerpo);
+    }
+
     // ====================== SOCIOS ======================
 
     @Operation(
@@ -88,6 +131,33 @@ public class BibliotecaController {
         return service.saveSocio(socio);
     }
 
+    @Operation(
+            summary = "Importar socios (JSON)",
+            description = "Importa un array JSON de socios en lotes. Las filas con errores "
+                    + "(datos obligatorios, email duplicado...) se informan sin abortar la importación"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Importación procesada; el cuerpo indica las filas rechazadas"
+    )
+    @PostMapping(value = "/socios/lote", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResultadoImportacion importarSocios(InputStream cuerpo) throws IOException {
+        return importacionService.importarSociosJson(cuerpo);
+    }
+
+    @Operation(
+            summary = "Importar socios (CSV)",
+            description = "Importa socios desde CSV con cabecera nombre,email"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Importación procesada; el cuerpo indica las filas rechazadas"
+    )
+    @PostMapping(value = "/socios/lote", consumes = "text/csv")
+    public ResultadoImportacion importarSociosCsv(InputStream cuerpo) throws IOException {
+        return importacionService.importarSociosCsv(cuerpo);
+    }
+
     // ====================== PRÉSTAMOS ======================
 
     @Operation(
@@ -103,6 +173,22 @@ public class BibliotecaController {
         return service.getAllPrestamos();
     }
 
+    @Operation(
+            summary = "Exportar préstamos",
+            description = "Descarga el histórico completo de préstamos en formato NDJSON "
+                    + "(un préstamo por línea), generado en streaming"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Exportación generada correctamente"
+    )
+    @GetMapping(value = "/prestamos/exportacion", produces = "application/x-ndjson")
+    public void exportarPrestamos(HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        service.exportarPrestamos(response.getOutputStream());
+    }
+
     @Operation(
             summary = "Crear préstamo",
             description = "Registra un nuevo préstamo en la biblioteca"
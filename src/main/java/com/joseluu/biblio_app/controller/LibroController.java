@@ -1,13 +1,13 @@
 package com.joseluu.biblio_app.controller;
 
+import com.joseluu.biblio_app.dto.Pagina;
 import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.service.BusquedaService;
 import com.joseluu.biblio_app.service.LibroService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 /**
  * Controlador MVC para gestionar libros de la biblioteca.
  *
@@ -21,6 +21,8 @@ import java.util.List;
  *   <li><b>V1</b> – Servicio básico y repositorio de libros.</li>
  *   <li><b>V4</b> – CRUD completo de libros en MVC.</li>
  *   <li><b>V6</b> – Posible mejora futura: validación de campos y manejo de errores en vistas.</li>
+ *   <li><b>V7</b> – Listado paginado por cursor.</li>
+ *   <li><b>V7</b> – Búsqueda en el catálogo por título, autor y categoría.</li>
  * </ul>
  */
 @Controller
@@ -28,29 +30,67 @@ import java.util.List;
 public class LibroController {
 
     private final LibroService libroService;
+    private final BusquedaService busquedaService;
 
     /**
      * Constructor que inyecta el servicio de libros.
      *
-     * @param libroService servicio para manejar libros
+     * @param libroService    servicio para manejar libros
+     * @param busquedaService servicio de búsqueda del catálogo
      */
-    public LibroController(LibroService libroService) {
+    public LibroController(LibroService libroService, BusquedaService busquedaService) {
         this.libroService = libroService;
+        this.busquedaService = busquedaService;
     }
 
     /**
-     * Muestra la lista de todos los libros.
+     * Muestra una página del listado de libros.
      *
-     * @param model objeto Model para pasar datos a la vista
-     * @return vista "libros" con la lista de libros
+     * <p>
+     * V7 - Solo se cargan los libros de la página pedida; el enlace a la página
+     * siguiente lleva el cursor de continuación.
+     * </p>
+     *
+     * @param cursor  cursor de continuación o {@code null} para la primera página
+     * @param tamanio tamaño de página o {@code null} para el valor por defecto
+     * @param model   objeto Model para pasar datos a la vista
+     * @return vista "libros" con la página de libros
      */
     @GetMapping
-    public String listarLibros(Model model) {
-        List<Libro> libros = libroService.listarLibros();
-        model.addAttribute("libros", libros);
+    public String listarLibros(@RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) Integer tamanio,
+                               Model model) {
+        Pagina<Libro> pagina = libroService.listarLibrosPaginados(cursor, tamanio);
+        model.addAttribute("libros", pagina.contenido());
+        model.addAttribute("siguiente", pagina.siguiente());
+        model.addAttribute("tamanio", pagina.tamanio());
         return "libros";
     }
 
+    /**
+     * Muestra los resultados de una búsqueda en el catálogo.
+     *
+     * <p>
+     * V7 - Resultados ordenados por relevancia y paginados, servidos desde el
+     * índice de búsqueda en memoria.
+     * </p>
+     *
+     * @param q       texto a buscar
+     * @param pagina  número de página (desde 0)
+     * @param tamanio tamaño de página o {@code null} para el valor por defecto
+     * @param model   objeto Model para pasar datos a la vista
+     * @return vista "buscarLibros" con los resultados
+     */
+    @GetMapping("/buscar")
+    public String buscarLibros(@RequestParam(required = false) String q,
+                               @RequestParam(required = false) Integer pagina,
+                               @RequestParam(required = false) Integer tamanio,
+                               Model model) {
+        model.addAttribute("q", q);
+        model.addAttribute("resultado", busquedaService.buscar(q, pagina, tamanio));
+        return "buscarLibros";
+    }
+
     /**
      * Muestra el formulario para crear un nuevo libro.
      *
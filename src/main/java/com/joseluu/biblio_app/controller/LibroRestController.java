@@ -1,7 +1,15 @@
 package com.joseluu.biblio_app.controller;
 
+import com.joseluu.biblio_app.dto.LibroEncontrado;
+import com.joseluu.biblio_app.dto.Pagina;
+import com.joseluu.biblio_app.dto.ResultadoBusqueda;
+import com.joseluu.biblio_app.dto.Sugerencia;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.service.BusquedaService;
 import com.joseluu.biblio_app.service.LibroService;
+import com.joseluu.biblio_app.service.SugerenciasService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -9,6 +17,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 /**
  * Controlador REST para gestionar libros vía API.
  */
@@ -21,9 +31,80 @@ import org.springframework.web.bind.annotation.*;
 public class LibroRestController {
 
     private final LibroService libroService;
+    private final BusquedaService busquedaService;
+    private final SugerenciasService sugerenciasService;
 
-    public LibroRestController(LibroService libroService) {
+    public LibroRestController(LibroService libroService, BusquedaService busquedaService,
+                               SugerenciasService sugerenciasService) {
         this.libroService = libroService;
+        this.busquedaService = busquedaService;
+        this.sugerenciasService = sugerenciasService;
+    }
+
+    @Operation(
+            summary = "Buscar libros",
+            description = "Busca por título, autor y categoría sin distinguir mayúsculas ni tildes. "
+                    + "Cada palabra puede ser completa o un prefijo; los resultados se ordenan por relevancia"
+    )
+    @ApiResponse(responseCode = "200", description = "Página de resultados")
+    @GetMapping("/buscar")
+    public ResultadoBusqueda<LibroEncontrado> buscar(
+            @Parameter(description = "Texto a buscar", example = "senor anillos")
+            @RequestParam String q,
+            @Parameter(description = "Número de página, empezando en 0")
+            @RequestParam(required = false) Integer pagina,
+            @Parameter(description = "Número de resultados por página")
+            @RequestParam(required = false) Integer tamanio) {
+        return busquedaService.buscar(q, pagina, tamanio);
+    }
+
+    @Operation(
+            summary = "Sugerir libros",
+            description = "Autocompletado por el inicio del título, de cualquiera de sus palabras o del ISBN"
+    )
+    @ApiResponse(responseCode = "200", description = "Sugerencias encontradas")
+    @GetMapping("/sugerencias")
+    public List<Sugerencia> sugerir(
+            @Parameter(description = "Texto escrito", example = "quij")
+            @RequestParam String q,
+            @Parameter(description = "Número máximo de sugerencias")
+            @RequestParam(required = false) Integer limite,
+            @Parameter(description = "Sugerir solo libros sin préstamo en curso")
+            @RequestParam(defaultValue = "false") boolean disponibles) {
+        return sugerenciasService.sugerirLibros(q, limite, disponibles);
+    }
+
+    @Operation(
+            summary = "Listar libros disponibles",
+            description = "Obtiene una página de libros sin préstamo en curso, ordenados por id"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Página de libros disponibles"),
+            @ApiResponse(responseCode = "400", description = "Cursor de paginación no válido")
+    })
+    @GetMapping("/disponibles")
+    public Pagina<Libro> listarDisponibles(
+            @Parameter(description = "Cursor de continuación devuelto por la página anterior")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Número de libros por página")
+            @RequestParam(required = false) Integer tamanio) {
+        return libroService.listarLibrosDisponiblesPaginados(cursor, tamanio);
+    }
+
+    @Operation(
+            summary = "Obtener libro por ISBN",
+            description = "Busca un libro por su ISBN. Se aceptan guiones y espacios, y un ISBN-10 "
+                    + "se convierte a ISBN-13 antes de buscarlo"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Libro encontrado"),
+            @ApiResponse(responseCode = "404", description = "Libro no encontrado")
+    })
+    @GetMapping("/isbn/{isbn}")
+    public Libro obtenerPorIsbn(
+            @Parameter(description = "ISBN-10 o ISBN-13, con o sin guiones", example = "978-84-376-0494-7")
+            @PathVariable String isbn) {
+        return libroService.obtenerLibroPorId(libroService.obtenerIdPorIsbn(isbn));
     }
 
     @Operation(
@@ -32,7 +113,8 @@ public class LibroRestController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Libro eliminado correctamente"),
-            @ApiResponse(responseCode = "404", description = "Libro no encontrado")
+            @ApiResponse(responseCode = "404", description = "Libro no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El libro tiene préstamos en curso")
     })
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
@@ -1,5 +1,6 @@
 package com.joseluu.biblio_app.controller;
 
+import com.joseluu.biblio_app.dto.PrestamoResumen;
 import com.joseluu.biblio_app.entity.Libro;
 import com.joseluu.biblio_app.entity.Prestamo;
 import com.joseluu.biblio_app.entity.Socio;
@@ -8,6 +9,7 @@ import com.joseluu.biblio_app.service.PrestamoService;
 import com.joseluu.biblio_app.service.SocioService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -25,6 +27,9 @@ import java.util.List;
  *   <li><b>V1</b> – Alta básica de préstamo, listado y baja sin lógica de penalización ni días.</li>
  *   <li><b>V3</b> – Se puede extender para aplicar reglas de negocio (máximo 3 préstamos, fechas, penalizaciones).</li>
  *   <li><b>V4</b> – Integración con MVC para formularios y vistas HTML.</li>
+ *   <li><b>V7</b> – Listado basado en una proyección cargada con una sola consulta.</li>
+ *   <li><b>V7</b> – Las reglas de préstamo se aplican en {@link PrestamoService}.</li>
+ *   <li><b>V7</b> – El formulario elige libro y socio con autocompletado en lugar de listas completas.</li>
  * </ul>
  *
  * <p>
@@ -60,6 +65,7 @@ public class PrestamoController {
      *
      * <p>
      * V1 – Listado de préstamos.
+     * V7 – Se usa la proyección {@link PrestamoResumen} para evitar consultas N+1.
      * </p>
      *
      * @param model objeto Model para pasar datos a la vista
@@ -67,7 +73,7 @@ public class PrestamoController {
      */
     @GetMapping
     public String listarPrestamos(Model model) {
-        List<Prestamo> prestamos = prestamoService.listarPrestamos();
+        List<PrestamoResumen> prestamos = prestamoService.listarResumenPrestamos();
         model.addAttribute("prestamos", prestamos);
         return "prestamos";
     }
@@ -77,25 +83,43 @@ public class PrestamoController {
      *
      * <p>
      * V1 – Formulario para dar de alta un préstamo.
+     * V7 – Libro y socio se eligen con autocompletado contra
+     * {@code /api/libros/sugerencias} y {@code /api/socios/sugerencias}: la
+     * página ya no carga todos los libros disponibles ni todos los socios.
      * </p>
      *
      * @param model objeto Model para pasar datos a la vista
-     * @return vista "nuevoPrestamo" con libros y socios disponibles
+     * @return vista "nuevoPrestamo"
      */
     @GetMapping("/nuevo")
     public String mostrarFormularioPrestamo(Model model) {
         model.addAttribute("prestamo", new Prestamo());
-        model.addAttribute("libros", libroService.listarLibros());
-        model.addAttribute("socios", socioService.listarSocios());
         return "nuevoPrestamo";
     }
 
+    /**
+     * Limita los campos que se enlazan desde el formulario de préstamos.
+     *
+     * <p>
+     * V7 – El formulario solo envía libro y socio. Sin esta lista, un id o un
+     * estado añadidos a la petición convertían el alta en la modificación de
+     * otro préstamo.
+     * </p>
+     *
+     * @param binder enlazador del formulario
+     */
+    @InitBinder("prestamo")
+    public void limitarCamposPrestamo(WebDataBinder binder) {
+        binder.setAllowedFields("libro.id", "socio.id");
+    }
+
     /**
      * Guarda un préstamo nuevo, asignando libro y socio reales.
      *
      * <p>
      * V1 – Guardado básico de préstamo con estado ACTIVO.
      * V3 – Podría integrarse para aplicar reglas de negocio (fechas, máximo préstamos, penalizaciones).
+     * V7 – Si el préstamo incumple las reglas se muestra la vista de error.
      * </p>
      *
      * @param prestamo objeto Prestamo enviado desde el formulario
@@ -0,0 +1,212 @@
+package com.joseluu.biblio_app.controller;
+
+import com.joseluu.biblio_app.dto.ResultadoLote;
+import com.joseluu.biblio_app.dto.ResultadoReconstruccion;
+import com.joseluu.biblio_app.dto.SolicitudPrestamos;
+import com.joseluu.biblio_app.entity.EventoPrestamo;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.exception.PrestamoNoEncontradoException;
+import com.joseluu.biblio_app.service.HistorialPrestamosService;
+import com.joseluu.biblio_app.service.PrestamoService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controlador REST para consultas y operaciones sobre préstamos vía API.
+ */
+@RestController
+@RequestMapping("/api/prestamos")
+@Tag(
+        name = "Préstamos",
+        description = "Operaciones REST sobre préstamos"
+)
+public class PrestamoRestController {
+
+    private final PrestamoService prestamoService;
+    private final HistorialPrestamosService historialService;
+
+    public PrestamoRestController(PrestamoService prestamoService, HistorialPrestamosService historialService) {
+        this.prestamoService = prestamoService;
+        this.historialService = historialService;
+    }
+
+    @Operation(
+            summary = "Préstamos en curso de un socio",
+            description = "Obtiene los préstamos activos o retrasados de un socio"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Préstamos en curso del socio"
+    )
+    @GetMapping("/socio/{socioId}/en-curso")
+    public List<Prestamo> listarEnCursoDeSocio(@PathVariable Long socioId) {
+        return prestamoService.listarPrestamosEnCursoDeSocio(socioId);
+    }
+
+    @Operation(
+            summary = "Histórico de préstamos de un libro",
+            description = "Obtiene todos los préstamos de un libro, del más reciente al más antiguo"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Préstamos del libro"
+    )
+    @GetMapping("/libro/{libroId}")
+    public List<Prestamo> listarDeLibro(@PathVariable Long libroId) {
+        return prestamoService.listarPrestamosDeLibro(libroId);
+    }
+
+    @Operation(
+            summary = "Préstamos vencidos",
+            description = "Obtiene los préstamos retrasados o activos con la fecha fin superada"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Préstamos vencidos"
+    )
+    @GetMapping("/vencidos")
+    public List<Prestamo> listarVencidos() {
+        return prestamoService.listarPrestamosVencidos();
+    }
+
+    @Operation(
+            summary = "Prestar varios libros",
+            description = "Presta a un socio varios libros en una sola transacción. Los libros que no se "
+                    + "pueden prestar se devuelven en la lista de errores y el resto se presta"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Préstamos creados y libros rechazados"),
+            @ApiResponse(responseCode = "400", description = "Falta el socio o la lista de libros"),
+            @ApiResponse(responseCode = "404", description = "Socio no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El socio está penalizado")
+    })
+    @PostMapping("/lote")
+    public ResultadoLote prestarLote(@RequestBody SolicitudPrestamos solicitud) {
+        return prestamoService.prestarLibros(solicitud.socioId(), solicitud.libroIds());
+    }
+
+    @Operation(
+            summary = "Devolver varios préstamos",
+            description = "Devuelve varios préstamos en una sola transacción. Los préstamos inexistentes "
+                    + "o ya devueltos se devuelven en la lista de errores y el resto se procesa"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Préstamos devueltos y préstamos rechazados"),
+            @ApiResponse(responseCode = "400", description = "Lista de préstamos vacía")
+    })
+    @PostMapping("/devoluciones")
+    public ResultadoLote devolverLote(@RequestBody List<Long> prestamoIds) {
+        return prestamoService.devolverPrestamos(prestamoIds);
+    }
+
+    @Operation(
+            summary = "Devolver préstamo",
+            description = "Marca un préstamo como devuelto; si ya estaba devuelto no tiene efecto"
+    )
+    @ApiResponse(responseCode = "204", description = "Préstamo devuelto")
+    @PostMapping("/{id}/devolucion")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void devolver(@PathVariable Long id) {
+        prestamoService.devolverPrestamo(id);
+    }
+
+    @Operation(
+            summary = "Recalcular contadores de préstamos",
+            description = "Recalcula el número de préstamos en curso de cada socio a partir de los préstamos registrados"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Número de socios actualizados"
+    )
+    @PostMapping("/contadores/recalculo")
+    public int recalcularContadores() {
+        return prestamoService.recalcularContadores();
+    }
+
+    @Operation(
+            summary = "Renovar préstamo",
+            description = "Amplía la fecha fin de un préstamo activo que no haya vencido, hasta el máximo de renovaciones"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Préstamo renovado"),
+            @ApiResponse(responseCode = "404", description = "Préstamo no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El préstamo no se puede renovar")
+    })
+    @PostMapping("/{id}/renovacion")
+    public Prestamo renovar(@PathVariable Long id) {
+        return prestamoService.renovarPrestamo(id);
+    }
+
+    @Operation(
+            summary = "Historial de un préstamo",
+            description = "Obtiene los eventos de un préstamo (alta, renovaciones, retraso, devolución y baja) en orden"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Eventos del préstamo"),
+            @ApiResponse(responseCode = "404", description = "El préstamo no tiene historial")
+    })
+    @GetMapping("/{id}/historial")
+    public List<EventoPrestamo> historial(@PathVariable Long id) {
+        List<EventoPrestamo> eventos = historialService.listarEventos(id);
+        if (eventos.isEmpty()) {
+            throw new PrestamoNoEncontradoException("Préstamo con id " + id + " sin historial");
+        }
+        return eventos;
+    }
+
+    @Operation(
+            summary = "Actualizar instantáneas",
+            description = "Incorpora a las instantáneas de préstamos los eventos registrados desde la última actualización"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Número de eventos incorporados"
+    )
+    @PostMapping("/historial/instantaneas")
+    public long actualizarInstantaneas() {
+        return historialService.actualizarInstantaneas();
+    }
+
+    @Operation(
+            summary = "Reconstruir préstamos",
+            description = "Recalcula el estado de los préstamos a partir de su historial y lo compara con la tabla; "
+                    + "con aplicar=true corrige las diferencias"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Resumen de la reconstrucción"
+    )
+    @PostMapping("/historial/reconstruccion")
+    public ResultadoReconstruccion reconstruir(
+            @Parameter(description = "Corregir las diferencias encontradas")
+            @RequestParam(defaultValue = "false") boolean aplicar) {
+        return historialService.reconstruir(aplicar);
+    }
+
+    @Operation(
+            summary = "Inicializar historial",
+            description = "Registra el estado actual de los préstamos que aún no tienen historial"
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Número de préstamos registrados"
+    )
+    @PostMapping("/historial/inicializacion")
+    public long inicializarHistorial() {
+        return historialService.registrarPrestamosSinHistorial();
+    }
+}
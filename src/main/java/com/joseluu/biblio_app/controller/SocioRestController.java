@@ -1,17 +1,28 @@
 package com.joseluu.biblio_app.controller;
 
+import com.joseluu.biblio_app.dto.ResultadoRecalculo;
+import com.joseluu.biblio_app.dto.Sugerencia;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.service.PenalizacionService;
 import com.joseluu.biblio_app.service.SocioService;
+import com.joseluu.biblio_app.service.SugerenciasService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 /**
  * Controlador REST para manejar operaciones sobre socios vía API.
  */
@@ -24,9 +35,43 @@ import org.springframework.web.bind.annotation.RestController;
 public class SocioRestController {
 
     private final SocioService socioService;
+    private final PenalizacionService penalizacionService;
+    private final SugerenciasService sugerenciasService;
 
-    public SocioRestController(SocioService socioService) {
+    public SocioRestController(SocioService socioService, PenalizacionService penalizacionService,
+                               SugerenciasService sugerenciasService) {
         this.socioService = socioService;
+        this.penalizacionService = penalizacionService;
+        this.sugerenciasService = sugerenciasService;
+    }
+
+    @Operation(
+            summary = "Sugerir socios",
+            description = "Autocompletado por el inicio del nombre, de cualquiera de sus palabras o del email"
+    )
+    @ApiResponse(responseCode = "200", description = "Sugerencias encontradas")
+    @GetMapping("/sugerencias")
+    public List<Sugerencia> sugerir(
+            @Parameter(description = "Texto escrito", example = "garc")
+            @RequestParam String q,
+            @Parameter(description = "Número máximo de sugerencias")
+            @RequestParam(required = false) Integer limite) {
+        return sugerenciasService.sugerirSocios(q, limite);
+    }
+
+    @Operation(
+            summary = "Obtener socio por email",
+            description = "Busca un socio por su email sin distinguir mayúsculas"
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Socio encontrado"),
+            @ApiResponse(responseCode = "404", description = "Socio no encontrado")
+    })
+    @GetMapping("/email/{email}")
+    public Socio obtenerPorEmail(
+            @Parameter(description = "Email del socio", example = "juan@email.com")
+            @PathVariable String email) {
+        return socioService.obtenerSocioPorId(socioService.obtenerIdPorEmail(email));
     }
 
     @Operation(
@@ -35,11 +80,23 @@ public class SocioRestController {
     )
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Socio eliminado correctamente"),
-            @ApiResponse(responseCode = "404", description = "Socio no encontrado")
+            @ApiResponse(responseCode = "404", description = "Socio no encontrado"),
+            @ApiResponse(responseCode = "409", description = "El socio tiene préstamos en curso")
     })
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void eliminarSocio(@PathVariable Long id) {
         socioService.eliminarSocio(id);
     }
+
+    @Operation(
+            summary = "Recalcular penalizaciones",
+            description = "Reconstruye la fecha de fin de penalización de todos los socios a partir "
+                    + "de sus devoluciones tardías, procesando los socios en particiones paralelas"
+    )
+    @ApiResponse(responseCode = "200", description = "Recálculo completado")
+    @PostMapping("/penalizaciones/recalculo")
+    public ResultadoRecalculo recalcularPenalizaciones() {
+        return penalizacionService.recalcularTodas();
+    }
 }
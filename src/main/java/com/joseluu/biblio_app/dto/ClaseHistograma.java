@@ -0,0 +1,23 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Fila del histograma de clases del heap.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Histograma de clases bajo demanda.</li>
+ * </ul>
+ *
+ * @param posicion   posición por bytes ocupados (1 = la que más ocupa)
+ * @param clase      nombre de la clase ({@code [B} para {@code byte[]})
+ * @param instancias número de instancias
+ * @param bytes      bytes ocupados por las instancias (tamaño superficial)
+ */
+@Schema(
+        name = "ClaseHistograma",
+        description = "Instancias y bytes de una clase en el heap"
+)
+public record ClaseHistograma(int posicion, String clase, long instancias, long bytes) {
+}
@@ -0,0 +1,18 @@
+package com.joseluu.biblio_app.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Devolución realizada después de la fecha fin de un préstamo.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Datos mínimos para el recálculo masivo de penalizaciones.</li>
+ * </ul>
+ *
+ * @param socioId         socio que realizó el préstamo
+ * @param fechaFin        fecha límite de devolución
+ * @param fechaDevolucion fecha real de devolución
+ */
+public record DevolucionTardia(Long socioId, LocalDate fechaFin, LocalDate fechaDevolucion) {
+}
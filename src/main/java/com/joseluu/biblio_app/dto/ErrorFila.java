@@ -0,0 +1,22 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Error asociado a una fila concreta de una operación masiva.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Informe de errores por fila en operaciones masivas.</li>
+ * </ul>
+ *
+ * @param fila    posición de la fila en la entrada (empezando en 1)
+ * @param clave   valor que identifica la fila (ISBN, email, id...), si se conoce
+ * @param mensaje descripción del error
+ */
+@Schema(
+        name = "ErrorFila",
+        description = "Error de una fila en una operación masiva"
+)
+public record ErrorFila(int fila, String clave, String mensaje) {
+}
@@ -0,0 +1,66 @@
+package com.joseluu.biblio_app.dto;
+
+import com.joseluu.biblio_app.entity.EventoPrestamo;
+import com.joseluu.biblio_app.entity.Prestamo;
+
+import java.time.LocalDate;
+
+/**
+ * Estado de un préstamo, tal como queda en la tabla o tras aplicar su historial.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Reconstrucción de préstamos a partir del historial de eventos.</li>
+ * </ul>
+ *
+ * @param prestamoId      identificador del préstamo
+ * @param libroId         libro prestado
+ * @param socioId         socio del préstamo
+ * @param estado          estado del préstamo
+ * @param fechaPrestamo   fecha del alta
+ * @param fechaFin        fecha límite de devolución
+ * @param fechaDevolucion fecha real de devolución, si ya se ha devuelto
+ */
+public record EstadoPrestamo(Long prestamoId, Long libroId, Long socioId, Prestamo.Estado estado,
+                             LocalDate fechaPrestamo, LocalDate fechaFin, LocalDate fechaDevolucion) {
+
+    /**
+     * Estado actual de un préstamo cargado, con su libro y su socio.
+     *
+     * @param prestamo préstamo
+     * @return estado del préstamo
+     */
+    public static EstadoPrestamo de(Prestamo prestamo) {
+        return new EstadoPrestamo(prestamo.getId(), prestamo.getLibro().getId(), prestamo.getSocio().getId(),
+                prestamo.getEstado(), prestamo.getFechaPrestamo(), prestamo.getFechaFin(), prestamo.getFechaDevolucion());
+    }
+
+    /**
+     * Estado de un préstamo recién dado de alta.
+     *
+     * @param alta evento {@link EventoPrestamo.Tipo#ALTA}
+     * @return préstamo activo con las fechas del alta
+     */
+    public static EstadoPrestamo alta(EventoPrestamo alta) {
+        return new EstadoPrestamo(alta.getPrestamoId(), alta.getLibroId(), alta.getSocioId(),
+                Prestamo.Estado.ACTIVO, alta.getFecha(), alta.getFechaFin(), null);
+    }
+
+    /**
+     * Aplica a este estado un evento de renovación, retraso o devolución.
+     *
+     * @param evento evento a aplicar
+     * @return estado tras el evento
+     */
+    public EstadoPrestamo aplicar(EventoPrestamo evento) {
+        return switch (evento.getTipo()) {
+            case RENOVACION -> new EstadoPrestamo(prestamoId, libroId, socioId,
+                    estado, fechaPrestamo, evento.getFechaFin(), fechaDevolucion);
+            case RETRASO -> new EstadoPrestamo(prestamoId, libroId, socioId,
+                    Prestamo.Estado.RETRASADO, fechaPrestamo, fechaFin, fechaDevolucion);
+            case DEVOLUCION -> new EstadoPrestamo(prestamoId, libroId, socioId,
+                    Prestamo.Estado.DEVUELTO, fechaPrestamo, fechaFin, evento.getFecha());
+            default -> this;
+        };
+    }
+}
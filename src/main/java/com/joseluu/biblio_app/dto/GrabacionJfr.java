@@ -0,0 +1,28 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * Estado de la grabación de JDK Flight Recorder lanzada desde la API de administración.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Perfilado bajo demanda con JFR.</li>
+ * </ul>
+ *
+ * @param id                identificador de la grabación en la JVM
+ * @param perfil            configuración de JFR ({@code default} o {@code profile})
+ * @param estado            estado de la grabación ({@code RUNNING}, {@code STOPPED}...)
+ * @param inicio            instante de inicio
+ * @param duracionSegundos  duración pedida; la grabación se detiene sola al cumplirse
+ * @param tamanioBytes      tamaño del archivo {@code .jfr} una vez detenida (0 mientras graba)
+ */
+@Schema(
+        name = "GrabacionJfr",
+        description = "Grabación de JDK Flight Recorder en curso o lista para descargar"
+)
+public record GrabacionJfr(long id, String perfil, String estado, Instant inicio, long duracionSegundos,
+                           long tamanioBytes) {
+}
@@ -0,0 +1,27 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Resumen del histograma de clases del heap.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Histograma de clases bajo demanda.</li>
+ * </ul>
+ *
+ * @param soloVivos        si solo cuenta objetos alcanzables (exige una recolección completa)
+ * @param totalInstancias  instancias de todas las clases
+ * @param totalBytes       bytes de todas las clases
+ * @param duracionMs       tiempo que tardó la JVM en calcularlo
+ * @param clases           clases que más ocupan, de mayor a menor
+ */
+@Schema(
+        name = "HistogramaClases",
+        description = "Clases que más memoria ocupan en el heap"
+)
+public record HistogramaClases(boolean soloVivos, long totalInstancias, long totalBytes, long duracionMs,
+                               List<ClaseHistograma> clases) {
+}
@@ -0,0 +1,26 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Libro devuelto por la búsqueda del catálogo.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Resultado de la búsqueda en memoria, sin acceso a la base de datos.</li>
+ * </ul>
+ *
+ * @param id         identificador del libro
+ * @param titulo     título
+ * @param autor      autor
+ * @param categoria  categoría
+ * @param isbn       ISBN
+ * @param puntuacion relevancia respecto a la consulta (mayor es mejor)
+ */
+@Schema(
+        name = "LibroEncontrado",
+        description = "Libro encontrado en la búsqueda del catálogo"
+)
+public record LibroEncontrado(Long id, String titulo, String autor, String categoria, String isbn,
+                              int puntuacion) {
+}
@@ -0,0 +1,21 @@
+package com.joseluu.biblio_app.dto;
+
+import com.joseluu.biblio_app.entity.Notificacion;
+
+/**
+ * Mensaje ya compuesto, listo para entregarlo a un emisor de notificaciones.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Envío asíncrono de notificaciones desde la bandeja de salida.</li>
+ * </ul>
+ *
+ * @param notificacionId notificación de la bandeja de salida
+ * @param tipo           tipo de notificación
+ * @param destinatario   email del socio
+ * @param asunto         asunto del mensaje
+ * @param cuerpo         texto del mensaje
+ */
+public record MensajeNotificacion(Long notificacionId, Notificacion.Tipo tipo, String destinatario,
+                                  String asunto, String cuerpo) {
+}
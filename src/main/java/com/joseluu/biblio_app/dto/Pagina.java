@@ -0,0 +1,113 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados obtenida mediante paginación por clave (keyset).
+ *
+ * <p>
+ * En lugar de usar desplazamientos ({@code OFFSET}), cada página se pide a partir
+ * del último identificador devuelto, de modo que la consulta siempre recorre un
+ * número acotado de filas, independientemente del tamaño de la tabla.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Paginación por cursor para listados de gran volumen.</li>
+ * </ul>
+ *
+ * <p>
+ * El cursor de continuación es opaco para el cliente: solo debe reenviarse
+ * tal cual para obtener la página siguiente.
+ * </p>
+ *
+ * @param contenido elementos de la página actual
+ * @param siguiente cursor para pedir la página siguiente o {@code null} si no hay más
+ * @param tamanio   tamaño de página aplicado
+ * @param <T>       tipo de los elementos
+ */
+@Schema(
+        name = "Pagina",
+        description = "Página de resultados con cursor de continuación"
+)
+public record Pagina<T>(List<T> contenido, String siguiente, int tamanio) {
+
+    private static final String PREFIJO_CURSOR = "id:";
+
+    /**
+     * Construye una página a partir de las filas leídas de la base de datos.
+     *
+     * <p>
+     * Se espera que {@code filas} contenga como mucho {@code tamanio + 1} elementos:
+     * el elemento sobrante solo sirve para saber si existe una página siguiente.
+     * </p>
+     *
+     * @param filas   filas leídas (hasta {@code tamanio + 1})
+     * @param tamanio tamaño de página solicitado
+     * @param clave   función que obtiene la clave de ordenación de cada elemento
+     * @param <T>     tipo de los elementos
+     * @return página con su cursor de continuación
+     */
+    public static <T> Pagina<T> de(List<T> filas, int tamanio, Function<T, Long> clave) {
+        if (filas.size() <= tamanio) {
+            return new Pagina<>(filas, null, tamanio);
+        }
+        List<T> contenido = filas.subList(0, tamanio);
+        String siguiente = codificarCursor(clave.apply(contenido.get(tamanio - 1)));
+        return new Pagina<>(List.copyOf(contenido), siguiente, tamanio);
+    }
+
+    /**
+     * Codifica el último identificador de una página como cursor opaco.
+     *
+     * @param ultimoId último identificador devuelto
+     * @return cursor en Base64 apto para URLs
+     */
+    public static String codificarCursor(Long ultimoId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + ultimoId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido del cliente.
+     *
+     * @param cursor cursor opaco o {@code null} para empezar desde el principio
+     * @return último identificador ya devuelto ({@code 0} si no hay cursor)
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static long decodificarCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!valor.startsWith(PREFIJO_CURSOR)) {
+                throw new IllegalArgumentException("Cursor de paginación no válido");
+            }
+            return Long.parseLong(valor.substring(PREFIJO_CURSOR.length()));
+        } catch (IllegalArgumentException ex) {
+            // NumberFormatException también es IllegalArgumentException
+            throw new IllegalArgumentException("Cursor de paginación no válido", ex);
+        }
+    }
+
+    /**
+     * Ajusta el tamaño de página pedido por el cliente a los límites configurados.
+     *
+     * @param solicitado tamaño pedido o {@code null} para usar el valor por defecto
+     * @param porDefecto tamaño por defecto
+     * @param maximo     tamaño máximo permitido
+     * @return tamaño de página efectivo, entre 1 y {@code maximo}
+     */
+    public static int ajustarTamanio(Integer solicitado, int porDefecto, int maximo) {
+        if (solicitado == null) {
+            return Math.min(porDefecto, maximo);
+        }
+        return Math.max(1, Math.min(solicitado, maximo));
+    }
+}
@@ -0,0 +1,46 @@
+package com.joseluu.biblio_app.dto;
+
+import com.joseluu.biblio_app.entity.Prestamo;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de solo lectura de un préstamo para los listados.
+ *
+ * <p>
+ * Contiene únicamente los datos que muestra la vista de préstamos, incluyendo
+ * el título del libro y el nombre del socio, de forma que todo el listado se
+ * obtiene con una única consulta con {@code JOIN} en lugar de cargar cada
+ * {@link com.joseluu.biblio_app.entity.Libro} y
+ * {@link com.joseluu.biblio_app.entity.Socio} por separado.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Listado de préstamos sin consultas N+1.</li>
+ * </ul>
+ *
+ * <p>
+ * Spring Data JPA genera la implementación a partir de los alias de la consulta.
+ * </p>
+ */
+public interface PrestamoResumen {
+
+    Long getId();
+
+    Long getLibroId();
+
+    String getLibroTitulo();
+
+    Long getSocioId();
+
+    String getSocioNombre();
+
+    LocalDate getFechaPrestamo();
+
+    LocalDate getFechaFin();
+
+    LocalDate getFechaDevolucion();
+
+    Prestamo.Estado getEstado();
+}
@@ -0,0 +1,35 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Página de resultados de una búsqueda.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Resultados ordenados por relevancia y paginados por número de página.</li>
+ * </ul>
+ *
+ * @param resultados resultados de la página
+ * @param total      número total de coincidencias
+ * @param pagina     número de página (empezando en 0)
+ * @param tamanio    tamaño de página aplicado
+ * @param <T>        tipo de los resultados
+ */
+@Schema(
+        name = "ResultadoBusqueda",
+        description = "Página de resultados de una búsqueda ordenados por relevancia"
+)
+public record ResultadoBusqueda<T>(List<T> resultados, int total, int pagina, int tamanio) {
+
+    /**
+     * Indica si hay más resultados después de esta página.
+     *
+     * @return {@code true} si existe una página siguiente
+     */
+    public boolean haySiguiente() {
+        return ((long) pagina + 1) * tamanio < total;
+    }
+}
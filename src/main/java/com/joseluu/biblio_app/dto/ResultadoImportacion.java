@@ -0,0 +1,24 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de libros o socios.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Importación masiva con informe de errores por fila.</li>
+ * </ul>
+ *
+ * @param procesadas número de filas leídas de la entrada
+ * @param importadas número de filas guardadas correctamente
+ * @param errores    filas rechazadas y motivo
+ */
+@Schema(
+        name = "ResultadoImportacion",
+        description = "Resumen de una importación masiva"
+)
+public record ResultadoImportacion(int procesadas, int importadas, List<ErrorFila> errores) {
+}
@@ -0,0 +1,24 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Resultado de un alta o devolución de varios préstamos en una sola operación.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Préstamos y devoluciones en lote con informe de errores por elemento.</li>
+ * </ul>
+ *
+ * @param procesados número de elementos recibidos
+ * @param prestamos  ids de los préstamos creados o devueltos
+ * @param errores    elementos rechazados y motivo
+ */
+@Schema(
+        name = "ResultadoLote",
+        description = "Resumen de un alta o devolución de préstamos en lote"
+)
+public record ResultadoLote(int procesados, List<Long> prestamos, List<ErrorFila> errores) {
+}
@@ -0,0 +1,23 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Resumen de un recálculo masivo de penalizaciones.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Recálculo de penalizaciones por particiones.</li>
+ * </ul>
+ *
+ * @param socios       socios procesados
+ * @param actualizados socios cuya fecha de fin de penalización ha cambiado
+ * @param particiones  particiones procesadas en paralelo
+ * @param milisegundos duración total
+ */
+@Schema(
+        name = "ResultadoRecalculo",
+        description = "Resumen del recálculo de penalizaciones"
+)
+public record ResultadoRecalculo(long socios, long actualizados, int particiones, long milisegundos) {
+}
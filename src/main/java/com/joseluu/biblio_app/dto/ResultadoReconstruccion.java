@@ -0,0 +1,26 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Resultado de una reconstrucción de préstamos a partir del historial.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Reconstrucción de préstamos por particiones en paralelo.</li>
+ * </ul>
+ *
+ * @param prestamos    préstamos con historial revisados
+ * @param incompletos  préstamos cuyo historial no empieza por el alta (anteriores al historial)
+ * @param diferencias  préstamos cuya fila no coincide con el historial
+ * @param corregidos   filas corregidas (0 si solo se ha comprobado)
+ * @param particiones  particiones procesadas en paralelo
+ * @param milisegundos duración total
+ */
+@Schema(
+        name = "ResultadoReconstruccion",
+        description = "Resumen de una reconstrucción de préstamos desde el historial"
+)
+public record ResultadoReconstruccion(long prestamos, long incompletos, long diferencias, long corregidos,
+                                      int particiones, long milisegundos) {
+}
@@ -0,0 +1,25 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Petición de préstamo de varios libros a un mismo socio.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Préstamos en lote desde el mostrador.</li>
+ * </ul>
+ *
+ * @param socioId  socio que se lleva los libros
+ * @param libroIds libros a prestar
+ */
+@Schema(
+        name = "SolicitudPrestamos",
+        description = "Libros que un socio se lleva a la vez"
+)
+public record SolicitudPrestamos(
+        @Schema(example = "1") Long socioId,
+        @Schema(example = "[3, 7, 12]") List<Long> libroIds) {
+}
@@ -0,0 +1,22 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Sugerencia de autocompletado.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Autocompletado de libros y socios en el formulario de préstamos.</li>
+ * </ul>
+ *
+ * @param id      identificador del libro o socio
+ * @param texto   texto principal (título o nombre)
+ * @param detalle texto secundario (autor e ISBN, o email)
+ */
+@Schema(
+        name = "Sugerencia",
+        description = "Sugerencia de autocompletado de un libro o socio"
+)
+public record Sugerencia(Long id, String texto, String detalle) {
+}
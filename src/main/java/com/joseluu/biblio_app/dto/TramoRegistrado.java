@@ -0,0 +1,27 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Tramo (span) terminado de una traza.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas de peticiones con tramos por capa.</li>
+ * </ul>
+ *
+ * @param id             identificador del tramo (16 caracteres hexadecimales)
+ * @param padre          tramo que lo contiene, o {@code null} en la raíz
+ * @param nombre         operación: {@code GET /ruta}, {@code Clase.metodo} o vista
+ * @param capa           {@code http}, {@code controlador}, {@code servicio}, {@code repositorio} o {@code vista}
+ * @param inicioMicros   inicio relativo al de la traza
+ * @param duracionMicros duración
+ * @param error          clase de la excepción, o {@code null} si terminó bien
+ */
+@Schema(
+        name = "TramoRegistrado",
+        description = "Tramo de una traza con su capa, inicio relativo y duración"
+)
+public record TramoRegistrado(String id, String padre, String nombre, String capa,
+                              long inicioMicros, long duracionMicros, String error) {
+}
@@ -0,0 +1,30 @@
+package com.joseluu.biblio_app.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Traza terminada de una petición.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas de peticiones con tramos por capa.</li>
+ * </ul>
+ *
+ * @param traceId     identificador de la traza (32 caracteres hexadecimales, formato W3C)
+ * @param nombre      operación raíz ({@code GET /ruta})
+ * @param inicio      instante de inicio
+ * @param duracionMs  duración total
+ * @param muestreada  si se ha elegido para exportar
+ * @param tramos      tramos en orden de inicio; el primero es la raíz
+ * @param descartados tramos no registrados por superar el máximo por traza
+ */
+@Schema(
+        name = "TrazaRegistrada",
+        description = "Traza de una petición con sus tramos de controlador, servicio, repositorio y vista"
+)
+public record TrazaRegistrada(String traceId, String nombre, Instant inicio, long duracionMs, boolean muestreada,
+                              List<TramoRegistrado> tramos, int descartados) {
+}
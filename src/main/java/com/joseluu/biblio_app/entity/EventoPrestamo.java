@@ -0,0 +1,147 @@
+package com.joseluu.biblio_app.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Evento del historial de un préstamo: alta, renovación, retraso, devolución o baja.
+ *
+ * <p>
+ * El historial solo admite inserciones: un evento no se modifica ni se borra
+ * nunca, ni siquiera cuando se elimina el préstamo. Por eso guarda los ids de
+ * préstamo, libro y socio como columnas simples y no como relaciones.
+ * </p>
+ *
+ * <p>
+ * Los eventos de un mismo préstamo se escriben con su fila bloqueada, así que
+ * el orden de id es el orden en que ocurrieron.
+ * </p>
+ */
+@Entity
+@Immutable
+@Table(
+        name = "evento_prestamo",
+        indexes = {
+                @Index(name = "idx_evento_prestamo", columnList = "prestamo_id, id"),
+                @Index(name = "idx_evento_registrado", columnList = "registrado")
+        }
+)
+@Schema(
+        name = "EventoPrestamo",
+        description = "Evento del historial de un préstamo"
+)
+public class EventoPrestamo {
+
+    // Ids reservados en bloques de 50 (optimizador pooled): compatible con inserciones en lote JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "evento_prestamo_seq")
+    @SequenceGenerator(name = "evento_prestamo_seq", sequenceName = "evento_prestamo_seq", allocationSize = 50)
+    @Schema(example = "120", description = "Identificador del evento; su orden es el orden del historial")
+    private Long id;
+
+    @Column(name = "prestamo_id", nullable = false)
+    @Schema(example = "10", description = "Préstamo al que pertenece el evento")
+    private Long prestamoId;
+
+    @Column(name = "libro_id", nullable = false)
+    @Schema(example = "5", description = "Libro prestado")
+    private Long libroId;
+
+    @Column(name = "socio_id", nullable = false)
+    @Schema(example = "1", description = "Socio del préstamo")
+    private Long socioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Schema(example = "ALTA", description = "Tipo de evento")
+    private Tipo tipo;
+
+    // Puede faltar en devoluciones de préstamos anteriores al historial, que no guardaban la fecha
+    @Column
+    @Schema(example = "2025-01-10", description = "Fecha en que ocurrió el hecho")
+    private LocalDate fecha;
+
+    @Column(name = "fecha_fin")
+    @Schema(example = "2025-01-24", description = "Fecha límite de devolución vigente tras el evento")
+    private LocalDate fechaFin;
+
+    @Column(nullable = false)
+    @Schema(description = "Momento en que se registró el evento")
+    private Instant registrado;
+
+    /**
+     * Tipos de evento del historial.
+     */
+    @Schema(description = "Tipos de evento del historial de un préstamo")
+    public enum Tipo {
+        ALTA,
+        RENOVACION,
+        RETRASO,
+        DEVOLUCION,
+        BAJA
+    }
+
+    protected EventoPrestamo() {
+    }
+
+    /**
+     * Crea un evento nuevo.
+     *
+     * @param prestamoId préstamo al que pertenece
+     * @param libroId    libro prestado
+     * @param socioId    socio del préstamo
+     * @param tipo       tipo de evento
+     * @param fecha      fecha del hecho
+     * @param fechaFin   fecha límite vigente tras el evento
+     */
+    public EventoPrestamo(Long prestamoId, Long libroId, Long socioId, Tipo tipo,
+                          LocalDate fecha, LocalDate fechaFin) {
+        this.prestamoId = prestamoId;
+        this.libroId = libroId;
+        this.socioId = socioId;
+        this.tipo = tipo;
+        this.fecha = fecha;
+        this.fechaFin = fechaFin;
+        this.registrado = Instant.now();
+    }
+
+    // =======================
+    // ======== GETTERS ======
+    // =======================
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public Long getLibroId() {
+        return libroId;
+    }
+
+    public Long getSocioId() {
+        return socioId;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public LocalDate getFecha() {
+        return fecha;
+    }
+
+    public LocalDate getFechaFin() {
+        return fechaFin;
+    }
+
+    public Instant getRegistrado() {
+        return registrado;
+    }
+}
@@ -0,0 +1,126 @@
+package com.joseluu.biblio_app.entity;
+
+import com.joseluu.biblio_app.dto.EstadoPrestamo;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDate;
+
+/**
+ * Instantánea del estado de un préstamo tras aplicar su historial hasta un evento.
+ *
+ * <p>
+ * Permite reconstruir un préstamo leyendo solo los eventos posteriores a
+ * {@code ultimoEvento} en lugar de todo su historial. Solo existe para
+ * préstamos cuyo historial empieza por el alta. Una instantánea de un
+ * préstamo dado de baja conserva su último estado con {@code eliminado = true}.
+ * </p>
+ */
+@Entity
+@Table(
+        name = "instantanea_prestamo",
+        indexes = @Index(name = "idx_instantanea_ultimo_evento", columnList = "ultimo_evento")
+)
+public class InstantaneaPrestamo implements Persistable<Long> {
+
+    @Id
+    @Column(name = "prestamo_id")
+    private Long prestamoId;
+
+    @Column(name = "libro_id", nullable = false)
+    private Long libroId;
+
+    @Column(name = "socio_id", nullable = false)
+    private Long socioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Prestamo.Estado estado;
+
+    @Column(name = "fecha_prestamo")
+    private LocalDate fechaPrestamo;
+
+    @Column(name = "fecha_fin")
+    private LocalDate fechaFin;
+
+    @Column(name = "fecha_devolucion")
+    private LocalDate fechaDevolucion;
+
+    @Column(nullable = false)
+    private boolean eliminado;
+
+    @Column(name = "ultimo_evento", nullable = false)
+    private Long ultimoEvento;
+
+    // El id lo asigna la aplicación: sin esta marca save() haría una consulta previa para cada instantánea nueva
+    @Transient
+    private boolean nueva;
+
+    protected InstantaneaPrestamo() {
+    }
+
+    /**
+     * Crea la instantánea de un préstamo que aún no tenía ninguna.
+     *
+     * @param prestamoId identificador del préstamo
+     */
+    public InstantaneaPrestamo(Long prestamoId) {
+        this.prestamoId = prestamoId;
+        this.nueva = true;
+    }
+
+    /**
+     * Último estado conocido del préstamo.
+     *
+     * @return estado guardado (también para préstamos dados de baja)
+     */
+    public EstadoPrestamo getEstadoPrestamo() {
+        return new EstadoPrestamo(prestamoId, libroId, socioId, estado, fechaPrestamo, fechaFin, fechaDevolucion);
+    }
+
+    /**
+     * Guarda un nuevo estado en la instantánea.
+     *
+     * @param nuevoEstado  último estado conocido del préstamo
+     * @param eliminado    si el préstamo está dado de baja
+     * @param ultimoEvento id del último evento aplicado
+     */
+    public void actualizar(EstadoPrestamo nuevoEstado, boolean eliminado, Long ultimoEvento) {
+        this.libroId = nuevoEstado.libroId();
+        this.socioId = nuevoEstado.socioId();
+        this.estado = nuevoEstado.estado();
+        this.fechaPrestamo = nuevoEstado.fechaPrestamo();
+        this.fechaFin = nuevoEstado.fechaFin();
+        this.fechaDevolucion = nuevoEstado.fechaDevolucion();
+        this.eliminado = eliminado;
+        this.ultimoEvento = ultimoEvento;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marcarGuardada() {
+        this.nueva = false;
+    }
+
+    // =======================
+    // ======== GETTERS ======
+    // =======================
+
+    @Override
+    public Long getId() {
+        return prestamoId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nueva;
+    }
+
+    public boolean isEliminado() {
+        return eliminado;
+    }
+
+    public Long getUltimoEvento() {
+        return ultimoEvento;
+    }
+}
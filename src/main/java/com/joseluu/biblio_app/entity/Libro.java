@@ -1,8 +1,10 @@
 package com.joseluu.biblio_app.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
@@ -10,15 +12,20 @@ import java.util.List;
  * Entidad que representa un libro en la biblioteca.
  */
 @Entity
-@Table(name = "libro")
+@Table(
+        name = "libro",
+        indexes = @Index(name = "idx_libro_disponible", columnList = "disponible, id")
+)
 @Schema(
         name = "Libro",
         description = "Representa un libro disponible en la biblioteca"
 )
 public class Libro {
 
+    // Ids reservados en bloques de 50 (optimizador pooled): compatible con inserciones en lote JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "libro_seq")
+    @SequenceGenerator(name = "libro_seq", sequenceName = "libro_seq", allocationSize = 50)
     @Schema(
             example = "5",
             description = "Identificador único del libro",
@@ -53,6 +60,17 @@ public class Libro {
     )
     private String categoria;
 
+    // Solo se modifica con actualizaciones directas desde PrestamoService, nunca al guardar el libro
+    @ColumnDefault("true")
+    @Column(nullable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(
+            example = "true",
+            description = "Indica si el libro está disponible (no tiene un préstamo en curso)",
+            accessMode = Schema.AccessMode.READ_ONLY
+    )
+    private boolean disponible = true;
+
     @JsonIgnore
     @OneToMany(mappedBy = "libro", cascade = CascadeType.ALL, orphanRemoval = true)
     @Schema(hidden = true)
@@ -102,6 +120,14 @@ public class Libro {
         this.categoria = categoria;
     }
 
+    public boolean isDisponible() {
+        return disponible;
+    }
+
+    public void setDisponible(boolean disponible) {
+        this.disponible = disponible;
+    }
+
     public List<Prestamo> getPrestamos() {
         return prestamos;
     }
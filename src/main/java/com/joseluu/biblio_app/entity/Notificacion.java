@@ -0,0 +1,191 @@
+package com.joseluu.biblio_app.entity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Notificación pendiente de enviar a un socio (bandeja de salida).
+ *
+ * <p>
+ * Se inserta en la misma transacción que el cambio del préstamo que la
+ * origina, así que una notificación existe si y solo si el cambio se ha
+ * confirmado. El envío lo hace después un despachador en segundo plano; la
+ * notificación solo guarda el préstamo y el tipo, y el texto se compone al
+ * enviarla con los datos vigentes en ese momento.
+ * </p>
+ *
+ * <p>
+ * {@code programada} es el momento a partir del cual se puede enviar. El
+ * despachador la adelanta al reclamarla (plazo de reserva) y la retrasa tras
+ * cada fallo (reintento con espera exponencial).
+ * </p>
+ */
+@Entity
+@Table(
+        name = "notificacion",
+        indexes = {
+                @Index(name = "idx_notificacion_pendiente", columnList = "estado, programada"),
+                @Index(name = "idx_notificacion_prestamo", columnList = "prestamo_id")
+        }
+)
+@Schema(
+        name = "Notificacion",
+        description = "Notificación a un socio pendiente de envío o ya procesada"
+)
+public class Notificacion {
+
+    // Ids reservados en bloques de 50 (optimizador pooled): compatible con inserciones en lote JDBC
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notificacion_seq")
+    @SequenceGenerator(name = "notificacion_seq", sequenceName = "notificacion_seq", allocationSize = 50)
+    @Schema(example = "40", description = "Identificador de la notificación")
+    private Long id;
+
+    @Column(name = "prestamo_id", nullable = false)
+    @Schema(example = "10", description = "Préstamo que origina la notificación")
+    private Long prestamoId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    @Schema(example = "RECORDATORIO_VENCIMIENTO", description = "Tipo de notificación")
+    private Tipo tipo;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    @Schema(example = "PENDIENTE", description = "Estado del envío")
+    private Estado estado;
+
+    @Column(nullable = false)
+    @Schema(description = "Momento a partir del cual se puede enviar")
+    private Instant programada;
+
+    @Column(nullable = false)
+    @Schema(example = "0", description = "Intentos de envío realizados")
+    private int intentos;
+
+    @Column(nullable = false)
+    @Schema(description = "Momento en que se creó la notificación")
+    private Instant creada;
+
+    @Column
+    @Schema(description = "Momento en que se envió o se descartó")
+    private Instant procesada;
+
+    @Column(name = "ultimo_error", length = 500)
+    @Schema(description = "Error del último intento fallido")
+    private String ultimoError;
+
+    /**
+     * Tipos de notificación.
+     */
+    @Schema(description = "Tipos de notificación a socios")
+    public enum Tipo {
+        CONFIRMACION_PRESTAMO,
+        RECORDATORIO_VENCIMIENTO
+    }
+
+    /**
+     * Estados de una notificación.
+     */
+    @Schema(description = "Estados de envío de una notificación")
+    public enum Estado {
+        PENDIENTE,
+        ENVIADA,
+        FALLIDA,
+        DESCARTADA
+    }
+
+    protected Notificacion() {
+    }
+
+    /**
+     * Crea una notificación pendiente.
+     *
+     * @param prestamoId préstamo que la origina
+     * @param tipo       tipo de notificación
+     * @param programada momento a partir del cual se puede enviar
+     */
+    public Notificacion(Long prestamoId, Tipo tipo, Instant programada) {
+        this.prestamoId = prestamoId;
+        this.tipo = tipo;
+        this.estado = Estado.PENDIENTE;
+        this.programada = programada;
+        this.creada = Instant.now();
+    }
+
+    /**
+     * Registra un intento de envío fallido.
+     *
+     * @param error     descripción del error
+     * @param siguiente momento del siguiente intento, o {@code null} si no se reintenta
+     */
+    public void registrarFallo(String error, Instant siguiente) {
+        this.ultimoError = error == null || error.length() <= 500 ? error : error.substring(0, 500);
+        if (siguiente == null) {
+            this.estado = Estado.FALLIDA;
+            this.procesada = Instant.now();
+        } else {
+            this.programada = siguiente;
+        }
+    }
+
+    /**
+     * Reserva la notificación para un intento de envío.
+     *
+     * @param hasta fin del plazo de reserva; si no se confirma antes, se vuelve a reclamar
+     */
+    public void reclamar(Instant hasta) {
+        this.intentos++;
+        this.programada = hasta;
+    }
+
+    /**
+     * Descarta la notificación sin enviarla.
+     */
+    public void descartar() {
+        this.estado = Estado.DESCARTADA;
+        this.procesada = Instant.now();
+    }
+
+    // =======================
+    // ======== GETTERS ======
+    // =======================
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPrestamoId() {
+        return prestamoId;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public Instant getProgramada() {
+        return programada;
+    }
+
+    public int getIntentos() {
+        return intentos;
+    }
+
+    public Instant getCreada() {
+        return creada;
+    }
+
+    public Instant getProcesada() {
+        return procesada;
+    }
+
+    public String getUltimoError() {
+        return ultimoError;
+    }
+}
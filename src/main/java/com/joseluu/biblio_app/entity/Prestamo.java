@@ -1,5 +1,6 @@
 package com.joseluu.biblio_app.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 
@@ -7,16 +8,37 @@ import java.time.LocalDate;
 
 /**
  * Entidad que representa un préstamo de libro realizado por un socio.
+ *
+ * <p>
+ * Los índices compuestos cubren los accesos habituales: préstamos en curso de
+ * un socio, préstamos de un libro y préstamos vencidos por fecha fin.
+ * </p>
+ *
+ * <p>
+ * La restricción única sobre {@code libro_activo} garantiza en base de datos
+ * que un libro no tenga dos préstamos en curso a la vez.
+ * </p>
  */
 @Entity
+@Table(
+        name = "prestamo",
+        indexes = {
+                @Index(name = "idx_prestamo_socio_estado", columnList = "socio_id, estado"),
+                @Index(name = "idx_prestamo_libro_estado", columnList = "libro_id, estado"),
+                @Index(name = "idx_prestamo_estado_fecha_fin", columnList = "estado, fecha_fin")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_prestamo_libro_activo", columnNames = "libro_activo")
+)
 @Schema(
         name = "Prestamo",
         description = "Representa el préstamo de un libro realizado por un socio"
 )
 public class Prestamo {
 
+    // Ids reservados en bloques de 50 (optimizador pooled): compatible con inserciones en lote JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prestamo_seq")
+    @SequenceGenerator(name = "prestamo_seq", sequenceName = "prestamo_seq", allocationSize = 50)
     @Schema(
             example = "10",
             description = "Identificador único del préstamo",
@@ -52,6 +74,20 @@ public class Prestamo {
     )
     private LocalDate fechaFin;
 
+    @Column(name = "fecha_devolucion")
+    @Schema(
+            example = "2025-01-27",
+            description = "Fecha real de devolución del libro (si ya se ha devuelto)",
+            nullable = true
+    )
+    private LocalDate fechaDevolucion;
+
+    // Id del libro mientras el préstamo está en curso, null al devolverlo: la restricción única ignora los null
+    @JsonIgnore
+    @Column(name = "libro_activo")
+    @Schema(hidden = true)
+    private Long libroActivo;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     @Schema(
@@ -134,6 +170,22 @@ public class Prestamo {
         this.fechaFin = fechaFin;
     }
 
+    public LocalDate getFechaDevolucion() {
+        return fechaDevolucion;
+    }
+
+    public void setFechaDevolucion(LocalDate fechaDevolucion) {
+        this.fechaDevolucion = fechaDevolucion;
+    }
+
+    public Long getLibroActivo() {
+        return libroActivo;
+    }
+
+    public void setLibroActivo(Long libroActivo) {
+        this.libroActivo = libroActivo;
+    }
+
     public Estado getEstado() {
         return estado;
     }
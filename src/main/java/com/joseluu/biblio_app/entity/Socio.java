@@ -1,8 +1,10 @@
 package com.joseluu.biblio_app.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,7 +20,8 @@ import java.util.List;
 public class Socio {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "socio_seq")
+    @SequenceGenerator(name = "socio_seq", sequenceName = "socio_seq", allocationSize = 50)
     @Schema(
             example = "1",
             description = "Identificador único del socio",
@@ -48,6 +51,17 @@ public class Socio {
     )
     private LocalDate fechaFinPenalizacion;
 
+    // Contador de préstamos en curso: solo cambia con actualizaciones atómicas desde PrestamoService
+    @ColumnDefault("0")
+    @Column(name = "prestamos_activos", nullable = false, insertable = false, updatable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Schema(
+            example = "2",
+            description = "Número de préstamos en curso (activos o retrasados) del socio",
+            accessMode = Schema.AccessMode.READ_ONLY
+    )
+    private int prestamosActivos;
+
     @JsonIgnore
     @OneToMany(mappedBy = "socio", cascade = CascadeType.ALL, orphanRemoval = true)
     @Schema(
@@ -91,6 +105,14 @@ public class Socio {
         this.fechaFinPenalizacion = fechaFinPenalizacion;
     }
 
+    public int getPrestamosActivos() {
+        return prestamosActivos;
+    }
+
+    public void setPrestamosActivos(int prestamosActivos) {
+        this.prestamosActivos = prestamosActivos;
+    }
+
     public List<Prestamo> getPrestamos() {
         return prestamos;
     }
@@ -15,6 +15,8 @@ import org.springframework.web.servlet.ModelAndView;
  * <h3>Versionado del proyecto</h3>
  * <ul>
  *   <li><b>V6</b> – Gestión de errores centralizada en MVC mediante @ControllerAdvice.</li>
+ *   <li><b>V7</b> – Préstamos rechazados por las reglas de préstamo.</li>
+ *   <li><b>V7</b> – Préstamos inexistentes.</li>
  * </ul>
  *
  * <p>
@@ -47,4 +49,38 @@ public class GlobalExceptionHandler {
         mv.addObject("mensaje", ex.getMessage());
         return mv;
     }
+
+    /**
+     * Maneja la excepción {@link PrestamoNoEncontradoException}.
+     *
+     * <p>
+     * V7 - Muestra una vista de error con mensaje descriptivo.
+     * </p>
+     *
+     * @param ex excepción lanzada cuando no se encuentra un préstamo
+     * @return {@link ModelAndView} con la vista "error" y mensaje de la excepción
+     */
+    @ExceptionHandler(PrestamoNoEncontradoException.class)
+    public ModelAndView handlePrestamoNotFound(PrestamoNoEncontradoException ex) {
+        ModelAndView mv = new ModelAndView("error");
+        mv.addObject("mensaje", ex.getMessage());
+        return mv;
+    }
+
+    /**
+     * Maneja la excepción {@link PrestamoNoPermitidoException}.
+     *
+     * <p>
+     * V7 - Muestra la regla de préstamo incumplida.
+     * </p>
+     *
+     * @param ex excepción lanzada cuando el préstamo no está permitido
+     * @return {@link ModelAndView} con la vista "error" y mensaje de la excepción
+     */
+    @ExceptionHandler(PrestamoNoPermitidoException.class)
+    public ModelAndView handlePrestamoNoPermitido(PrestamoNoPermitidoException ex) {
+        ModelAndView mv = new ModelAndView("error");
+        mv.addObject("mensaje", ex.getMessage());
+        return mv;
+    }
 }
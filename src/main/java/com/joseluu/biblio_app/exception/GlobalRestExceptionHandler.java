@@ -1,11 +1,16 @@
 package com.joseluu.biblio_app.exception;
 
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
-@RestControllerAdvice
+// Prioridad sobre GlobalExceptionHandler para que la API responda con códigos HTTP y no con vistas
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RestControllerAdvice(annotations = RestController.class)
 public class GlobalRestExceptionHandler {
 
     @ExceptionHandler(LibroNoEncontradoException.class)
@@ -21,4 +26,25 @@ public class GlobalRestExceptionHandler {
                 .status(HttpStatus.NOT_FOUND)
                 .body(ex.getMessage());
     }
+
+    @ExceptionHandler(PrestamoNoEncontradoException.class)
+    public ResponseEntity<String> handlePrestamoNoEncontrado(PrestamoNoEncontradoException ex) {
+        return ResponseEntity
+                .status(HttpStatus.NOT_FOUND)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(PrestamoNoPermitidoException.class)
+    public ResponseEntity<String> handlePrestamoNoPermitido(PrestamoNoPermitidoException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleArgumentoNoValido(IllegalArgumentException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
 }
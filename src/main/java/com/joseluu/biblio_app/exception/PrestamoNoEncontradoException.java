@@ -0,0 +1,30 @@
+package com.joseluu.biblio_app.exception;
+
+/**
+ * Excepción que se lanza cuando un préstamo no es encontrado en el sistema.
+ *
+ * <p>
+ * Se utiliza al intentar renovar o consultar el historial de un préstamo
+ * inexistente.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Renovación e historial de préstamos.</li>
+ * </ul>
+ *
+ * <p>
+ * En controladores REST se mapea a un código HTTP {@code 404 Not Found}.
+ * </p>
+ */
+public class PrestamoNoEncontradoException extends RuntimeException {
+
+    /**
+     * Constructor que crea una nueva excepción con un mensaje descriptivo.
+     *
+     * @param mensaje mensaje que describe la causa del error
+     */
+    public PrestamoNoEncontradoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,30 @@
+package com.joseluu.biblio_app.exception;
+
+/**
+ * Excepción que se lanza cuando un préstamo incumple las reglas de préstamo.
+ *
+ * <p>
+ * Se utiliza cuando el socio ha alcanzado el máximo de préstamos en curso,
+ * tiene una penalización vigente o el libro ya está prestado.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Reglas de préstamo (máximo de préstamos, penalizaciones, libro prestado).</li>
+ * </ul>
+ *
+ * <p>
+ * En controladores REST se mapea a un código HTTP {@code 409 Conflict}.
+ * </p>
+ */
+public class PrestamoNoPermitidoException extends RuntimeException {
+
+    /**
+     * Constructor que crea una nueva excepción con un mensaje descriptivo.
+     *
+     * @param mensaje mensaje que describe la regla incumplida
+     */
+    public PrestamoNoPermitidoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,118 @@
+package com.joseluu.biblio_app.repository;
+
+import com.joseluu.biblio_app.entity.EventoPrestamo;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Repositorio JPA para el historial de eventos de préstamos ({@link EventoPrestamo}).
+ *
+ * <p>
+ * El historial solo crece: no hay métodos de modificación y la entidad es
+ * inmutable para Hibernate.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Historial de eventos, instantáneas y reconstrucción de préstamos.</li>
+ * </ul>
+ */
+public interface EventoPrestamoRepository extends JpaRepository<EventoPrestamo, Long> {
+
+    /**
+     * Obtiene el historial completo de un préstamo.
+     *
+     * <p>
+     * V7 - Recorrido de rango sobre el índice {@code (prestamo_id, id)}.
+     * </p>
+     *
+     * @param prestamoId identificador del préstamo
+     * @return eventos del préstamo en orden
+     */
+    List<EventoPrestamo> findByPrestamoIdOrderByIdAsc(Long prestamoId);
+
+    /**
+     * Cuenta los eventos de un tipo de un préstamo.
+     *
+     * @param prestamoId identificador del préstamo
+     * @param tipo       tipo de evento
+     * @return número de eventos
+     */
+    long countByPrestamoIdAndTipo(Long prestamoId, EventoPrestamo.Tipo tipo);
+
+    /**
+     * Obtiene el siguiente bloque de eventos pendientes de pasar a las instantáneas.
+     *
+     * <p>
+     * V7 - Paginación por clave sobre el id. Solo se leen eventos hasta
+     * {@code hasta}, el último id por debajo del cual no quedan transacciones
+     * sin confirmar.
+     * </p>
+     *
+     * @param desde  último evento ya aplicado
+     * @param hasta  último evento que se puede aplicar
+     * @param limite tamaño máximo del bloque
+     * @return eventos en orden de id
+     */
+    @Query("select e from EventoPrestamo e where e.id > :desde and e.id <= :hasta order by e.id")
+    List<EventoPrestamo> findParaInstantanea(Long desde, Long hasta, Limit limite);
+
+    /**
+     * Obtiene el mayor id de evento guardado.
+     *
+     * @return último id, o 0 si no hay eventos
+     */
+    @Query("select coalesce(max(e.id), 0) from EventoPrestamo e")
+    long findUltimoId();
+
+    /**
+     * Obtiene el menor y el mayor id de préstamo con eventos.
+     *
+     * @return array con {@code [min, max]}; ambos {@code null} si no hay eventos
+     */
+    @Query("select min(e.prestamoId), max(e.prestamoId) from EventoPrestamo e")
+    List<Object[]> findRangoPrestamos();
+
+    /**
+     * Obtiene un bloque de ids de préstamo con eventos dentro de un rango, en orden.
+     *
+     * @param desde  último id de préstamo ya procesado (excluido)
+     * @param hasta  último id de préstamo de la partición (incluido)
+     * @param limite tamaño máximo del bloque
+     * @return ids de préstamo del bloque
+     */
+    @Query("""
+            select distinct e.prestamoId from EventoPrestamo e
+            where e.prestamoId > :desde and e.prestamoId <= :hasta
+            order by e.prestamoId
+            """)
+    List<Long> findPrestamosEnRango(Long desde, Long hasta, Limit limite);
+
+    /**
+     * Obtiene los eventos de varios préstamos posteriores a un evento.
+     *
+     * @param prestamoIds ids de los préstamos
+     * @param desde       eventos con id mayor que este
+     * @return eventos ordenados por préstamo y por id
+     */
+    @Query("""
+            select e from EventoPrestamo e
+            where e.prestamoId in :prestamoIds and e.id > :desde
+            order by e.prestamoId, e.id
+            """)
+    List<EventoPrestamo> findPorPrestamosDesde(Collection<Long> prestamoIds, Long desde);
+
+    /**
+     * Devuelve cuáles de los préstamos indicados tienen algún evento.
+     *
+     * @param prestamoIds ids de los préstamos
+     * @return subconjunto de ids con historial
+     */
+    @Query("select distinct e.prestamoId from EventoPrestamo e where e.prestamoId in :prestamoIds")
+    Set<Long> findPrestamosConHistorial(Collection<Long> prestamoIds);
+}
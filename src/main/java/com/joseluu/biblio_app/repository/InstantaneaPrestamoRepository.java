@@ -0,0 +1,28 @@
+package com.joseluu.biblio_app.repository;
+
+import com.joseluu.biblio_app.entity.InstantaneaPrestamo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * Repositorio JPA para las instantáneas de préstamos ({@link InstantaneaPrestamo}).
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Historial de eventos, instantáneas y reconstrucción de préstamos.</li>
+ * </ul>
+ */
+public interface InstantaneaPrestamoRepository extends JpaRepository<InstantaneaPrestamo, Long> {
+
+    /**
+     * Obtiene el último evento incluido en las instantáneas.
+     *
+     * <p>
+     * V7 - Se resuelve con el índice {@code ultimo_evento}.
+     * </p>
+     *
+     * @return id del último evento aplicado, o 0 si no hay instantáneas
+     */
+    @Query("select coalesce(max(i.ultimoEvento), 0) from InstantaneaPrestamo i")
+    long findUltimoEvento();
+}
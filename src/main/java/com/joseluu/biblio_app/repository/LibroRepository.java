@@ -1,7 +1,21 @@
 package com.joseluu.biblio_app.repository;
 
+import com.joseluu.biblio_app.config.CacheConfig;
 import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import jakarta.persistence.LockModeType;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repositorio JPA para la entidad {@link Libro}.
@@ -16,6 +30,15 @@ import org.springframework.data.jpa.repository.JpaRepository;
  *   <li><b>V1</b> – Acceso básico a datos de libros mediante JPA.</li>
  *   <li><b>V4</b> – Soporte para CRUD completo de libros.</li>
  *   <li><b>V5</b> – Utilización desde controladores REST.</li>
+ *   <li><b>V7</b> – Paginación por clave (keyset) sobre el identificador.</li>
+ *   <li><b>V7</b> – Comprobación de ISBN existentes para importaciones masivas.</li>
+ *   <li><b>V7</b> – Índice de disponibilidad mantenido por los préstamos.</li>
+ *   <li><b>V7</b> – Reserva atómica del libro en el alta de préstamos.</li>
+ *   <li><b>V7</b> – Las actualizaciones directas de disponibilidad invalidan la caché de libros.</li>
+ *   <li><b>V7</b> – Filtro de disponibilidad para el autocompletado.</li>
+ *   <li><b>V7</b> – Búsqueda del id por ISBN con caché de claves calientes.</li>
+ *   <li><b>V7</b> – Lectura con bloqueo y cambio de disponibilidad de varios libros para préstamos en lote.</li>
+ *   <li><b>V7</b> – Recálculo de la disponibilidad a partir de los préstamos.</li>
  * </ul>
  *
  * <p>
@@ -34,4 +57,175 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * </p>
  */
 public interface LibroRepository extends JpaRepository<Libro, Long> {
+
+    /**
+     * Obtiene los libros con identificador mayor que el indicado, ordenados por id.
+     *
+     * <p>
+     * V7 - Base de la paginación por clave: la consulta se resuelve como un
+     * recorrido de rango sobre la clave primaria y nunca lee más de
+     * {@code limite} filas.
+     * </p>
+     *
+     * @param id     último identificador ya devuelto
+     * @param limite número máximo de filas a leer
+     * @return libros siguientes en orden de id
+     */
+    List<Libro> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    /**
+     * Devuelve cuáles de los ISBN indicados ya están registrados.
+     *
+     * <p>
+     * V7 - Una sola consulta por lote de importación, resuelta con el índice
+     * único de la columna {@code isbn}.
+     * </p>
+     *
+     * @param isbns ISBN a comprobar
+     * @return subconjunto de ISBN que ya existen
+     */
+    @Query("select l.isbn from Libro l where l.isbn in :isbns")
+    Set<String> findIsbnsExistentes(Collection<String> isbns);
+
+    /**
+     * Obtiene el id del libro con el ISBN indicado.
+     *
+     * <p>
+     * V7 - Se resuelve con el índice único de {@code isbn}. El resultado se
+     * guarda en la caché {@code isbn-libros}; los ISBN inexistentes no se
+     * cachean para que un libro recién dado de alta se encuentre al momento.
+     * </p>
+     *
+     * @param isbn ISBN ya normalizado con {@code Isbn.normalizar}
+     * @return id del libro, si existe
+     */
+    @Cacheable(cacheNames = CacheConfig.ISBN_LIBROS, key = "#p0", unless = "#result == null")
+    @Query("select l.id from Libro l where l.isbn = :isbn")
+    Optional<Long> findIdByIsbn(String isbn);
+
+    /**
+     * Obtiene todos los libros disponibles para préstamo.
+     *
+     * <p>
+     * V7 - Se resuelve con el índice {@code (disponible, id)}: el coste depende
+     * del número de libros disponibles, no del histórico de préstamos.
+     * </p>
+     *
+     * @return libros disponibles ordenados por id
+     */
+    List<Libro> findByDisponibleTrueOrderByIdAsc();
+
+    /**
+     * Obtiene una página de libros disponibles a partir de un id.
+     *
+     * <p>
+     * V7 - Paginación por clave sobre el índice {@code (disponible, id)}.
+     * </p>
+     *
+     * @param id     último identificador ya devuelto
+     * @param limite número máximo de filas a leer
+     * @return libros disponibles siguientes en orden de id
+     */
+    List<Libro> findByDisponibleTrueAndIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    /**
+     * Marca un libro como prestado solo si sigue disponible.
+     *
+     * <p>
+     * V7 - Comprobación y cambio en una sola sentencia: de varias altas
+     * simultáneas sobre el mismo libro solo una actualiza la fila; el resto
+     * espera al bloqueo y después ya no cumple la condición.
+     * </p>
+     *
+     * @param id identificador del libro
+     * @return 1 si se ha reservado, 0 si el libro no existe o ya está prestado
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.LIBROS, key = "#p0")
+    @Query("update Libro l set l.disponible = false where l.id = :id and l.disponible = true")
+    int reservarLibro(Long id);
+
+    /**
+     * Obtiene varios libros bloqueando sus filas hasta el final de la transacción.
+     *
+     * <p>
+     * V7 - Préstamos en lote: una sola consulta resuelve y bloquea todos los
+     * libros, en orden de id para que dos lotes simultáneos no puedan
+     * bloquearse mutuamente.
+     * </p>
+     *
+     * @param ids identificadores de los libros
+     * @return libros encontrados, ordenados por id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from Libro l where l.id in :ids order by l.id")
+    List<Libro> findAllParaActualizar(Collection<Long> ids);
+
+    /**
+     * Marca varios libros como disponibles o prestados en una sola sentencia.
+     *
+     * <p>
+     * V7 - Préstamos y devoluciones en lote. No expulsa nada de la caché de
+     * libros: {@code @CacheEvict} solo admite una clave, y vaciar la caché
+     * entera en cada lote la dejaría sin efecto. Quien la llama expulsa cada
+     * id a través de {@link org.springframework.cache.CacheManager}.
+     * </p>
+     *
+     * @param ids        identificadores de los libros
+     * @param disponible nuevo valor de disponibilidad
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @Query("update Libro l set l.disponible = :disponible where l.id in :ids")
+    int actualizarDisponibilidad(Collection<Long> ids, boolean disponible);
+
+    /**
+     * Recalcula la disponibilidad de todos los libros.
+     *
+     * <p>
+     * V7 - Reparación de datos: un libro está disponible si no tiene ningún
+     * préstamo en los estados indicados.
+     * </p>
+     *
+     * @param enCurso estados que cuentan como préstamo en curso
+     * @return número de libros actualizados
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.LIBROS, allEntries = true)
+    @Query("""
+            update Libro l set l.disponible =
+                case when exists (select p.id from Prestamo p where p.libro = l and p.estado in :enCurso)
+                     then false else true end
+            """)
+    int recalcularDisponibilidad(Collection<Prestamo.Estado> enCurso);
+
+    /**
+     * Devuelve cuáles de los libros indicados están disponibles.
+     *
+     * <p>
+     * V7 - Una consulta por clave primaria sobre las sugerencias de autocompletado.
+     * </p>
+     *
+     * @param ids libros a comprobar
+     * @return subconjunto de ids sin préstamo en curso
+     */
+    @Query("select l.id from Libro l where l.id in :ids and l.disponible = true")
+    Set<Long> findIdsDisponibles(Collection<Long> ids);
+
+    /**
+     * Marca un libro como disponible o prestado.
+     *
+     * <p>
+     * V7 - Actualización directa de una sola fila por clave primaria, ejecutada
+     * en la misma transacción que el alta o la devolución del préstamo.
+     * </p>
+     *
+     * @param id         identificador del libro
+     * @param disponible nuevo valor de disponibilidad
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.LIBROS, key = "#p0")
+    @Query("update Libro l set l.disponible = :disponible where l.id = :id")
+    int actualizarDisponibilidad(Long id, boolean disponible);
 }
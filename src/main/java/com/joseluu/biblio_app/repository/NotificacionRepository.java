@@ -0,0 +1,116 @@
+package com.joseluu.biblio_app.repository;
+
+import com.joseluu.biblio_app.entity.Notificacion;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio JPA para la bandeja de salida de notificaciones ({@link Notificacion}).
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Bandeja de salida de notificaciones con reclamación por bloques.</li>
+ * </ul>
+ */
+public interface NotificacionRepository extends JpaRepository<Notificacion, Long> {
+
+    /**
+     * Obtiene y bloquea el siguiente bloque de notificaciones listas para enviar.
+     *
+     * <p>
+     * V7 - Recorrido de rango sobre el índice {@code (estado, programada)}. Las
+     * filas bloqueadas por otra instancia se saltan ({@code SKIP LOCKED}, tiempo
+     * de espera -2), de modo que varios despachadores pueden repartirse la
+     * bandeja sin esperarse entre sí.
+     * </p>
+     *
+     * @param estado estado pendiente
+     * @param ahora  instante actual
+     * @param limite tamaño máximo del bloque
+     * @return notificaciones reclamables, de la más antigua a la más reciente
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select n from Notificacion n where n.estado = :estado and n.programada <= :ahora order by n.programada, n.id")
+    List<Notificacion> findParaEnviar(Notificacion.Estado estado, Instant ahora, Limit limite);
+
+    /**
+     * Marca varias notificaciones como enviadas.
+     *
+     * @param ids       notificaciones enviadas
+     * @param estado    estado de enviada
+     * @param procesada momento del envío
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @Query("update Notificacion n set n.estado = :estado, n.procesada = :procesada, n.ultimoError = null "
+            + "where n.id in :ids")
+    int marcar(Collection<Long> ids, Notificacion.Estado estado, Instant procesada);
+
+    /**
+     * Cambia el momento de envío de las notificaciones pendientes de un tipo de un préstamo.
+     *
+     * <p>
+     * V7 - Reprogramación de recordatorios al renovar un préstamo.
+     * </p>
+     *
+     * @param prestamoId préstamo
+     * @param tipo       tipo de notificación
+     * @param pendiente  estado pendiente
+     * @param programada nuevo momento de envío
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @Query("update Notificacion n set n.programada = :programada "
+            + "where n.prestamoId = :prestamoId and n.tipo = :tipo and n.estado = :pendiente")
+    int reprogramar(Long prestamoId, Notificacion.Tipo tipo, Notificacion.Estado pendiente, Instant programada);
+
+    /**
+     * Descarta las notificaciones pendientes de un tipo de varios préstamos.
+     *
+     * <p>
+     * V7 - Un préstamo devuelto o eliminado ya no necesita recordatorio.
+     * </p>
+     *
+     * @param prestamoIds préstamos
+     * @param tipo        tipo de notificación
+     * @param pendiente   estado pendiente
+     * @param descartada  estado descartado
+     * @param procesada   momento del descarte
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @Query("update Notificacion n set n.estado = :descartada, n.procesada = :procesada "
+            + "where n.prestamoId in :prestamoIds and n.tipo = :tipo and n.estado = :pendiente")
+    int descartar(Collection<Long> prestamoIds, Notificacion.Tipo tipo, Notificacion.Estado pendiente,
+                  Notificacion.Estado descartada, Instant procesada);
+
+    /**
+     * Borra las notificaciones ya procesadas antes de un instante.
+     *
+     * @param estados estados finales a borrar
+     * @param antes   instante límite de procesado
+     * @return número de filas borradas
+     */
+    @Modifying
+    @Query("delete from Notificacion n where n.estado in :estados and n.procesada < :antes")
+    int borrarProcesadas(Collection<Notificacion.Estado> estados, Instant antes);
+
+    /**
+     * Cuenta las notificaciones en un estado.
+     *
+     * @param estado estado a contar
+     * @return número de notificaciones
+     */
+    long countByEstado(Notificacion.Estado estado);
+}
@@ -1,7 +1,25 @@
 package com.joseluu.biblio_app.repository;
 
+import com.joseluu.biblio_app.dto.DevolucionTardia;
+import com.joseluu.biblio_app.dto.EstadoPrestamo;
+import com.joseluu.biblio_app.dto.PrestamoResumen;
 import com.joseluu.biblio_app.entity.Prestamo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repositorio JPA para la entidad {@link Prestamo}.
@@ -17,6 +35,15 @@ import org.springframework.data.jpa.repository.JpaRepository;
  *   <li><b>V3</b> – Base para la implementación de reglas de negocio
  *       (préstamos activos, penalizaciones, bloqueos).</li>
  *   <li><b>V5</b> – Uso desde controladores REST para exposición de la API.</li>
+ *   <li><b>V7</b> – Consultas de lectura optimizadas (proyecciones con JOIN y lectura en streaming).</li>
+ *   <li><b>V7</b> – Consultas por socio, libro y vencimiento apoyadas en índices compuestos.</li>
+ *   <li><b>V7</b> – Actualizaciones masivas de estado por bloques.</li>
+ *   <li><b>V7</b> – Devoluciones tardías por bloques de socios para el recálculo de penalizaciones.</li>
+ *   <li><b>V7</b> – Lectura con bloqueo para devoluciones y bajas concurrentes.</li>
+ *   <li><b>V7</b> – Lectura con bloqueo de varios préstamos para devoluciones en lote.</li>
+ *   <li><b>V7</b> – Consultas y escritura directa para la reconstrucción desde el historial.</li>
+ *   <li><b>V7</b> – Lectura por bloques de préstamos con libro y socio para las notificaciones.</li>
+ *   <li><b>V7</b> – Los listados por socio, por libro y de vencidos cargan libro y socio en la misma consulta.</li>
  * </ul>
  *
  * <p>
@@ -36,4 +63,287 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * </p>
  */
 public interface PrestamoRepository extends JpaRepository<Prestamo, Long> {
+
+    /**
+     * Obtiene el listado resumido de préstamos con el título del libro y el
+     * nombre del socio.
+     *
+     * <p>
+     * V7 - Una sola sentencia SQL con {@code JOIN}, independientemente del número
+     * de préstamos: evita la carga individual de cada libro y socio (N+1).
+     * </p>
+     *
+     * @return resumen de todos los préstamos ordenados por id
+     */
+    @Query("""
+            select p.id as id,
+                   l.id as libroId,
+                   l.titulo as libroTitulo,
+                   s.id as socioId,
+                   s.nombre as socioNombre,
+                   p.fechaPrestamo as fechaPrestamo,
+                   p.fechaFin as fechaFin,
+                   p.fechaDevolucion as fechaDevolucion,
+                   p.estado as estado
+            from Prestamo p
+            join p.libro l
+            join p.socio s
+            order by p.id
+            """)
+    List<PrestamoResumen> findAllResumen();
+
+    /**
+     * Recorre todos los préstamos, con su libro y su socio, como un flujo.
+     *
+     * <p>
+     * V7 - Las filas se leen del cursor de la base de datos en bloques de tamaño
+     * fijo y se materializan a medida que se consumen, sin construir la lista
+     * completa en memoria. Debe consumirse dentro de una transacción y cerrarse
+     * al terminar.
+     * </p>
+     *
+     * @return flujo de préstamos ordenados por id
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from Prestamo p join fetch p.libro join fetch p.socio order by p.id")
+    Stream<Prestamo> streamAllConLibroYSocio();
+
+    /**
+     * Obtiene los préstamos de un socio en los estados indicados.
+     *
+     * <p>
+     * V7 - Recorrido de rango sobre el índice {@code (socio_id, estado)}. El
+     * libro y el socio se cargan en la misma consulta.
+     * </p>
+     *
+     * @param socioId identificador del socio
+     * @param estados estados buscados
+     * @return préstamos del socio en esos estados
+     */
+    @EntityGraph(attributePaths = {"libro", "socio"})
+    List<Prestamo> findBySocioIdAndEstadoIn(Long socioId, Collection<Prestamo.Estado> estados);
+
+    /**
+     * Cuenta los préstamos de un socio en los estados indicados.
+     *
+     * <p>
+     * V7 - Se resuelve solo con el índice {@code (socio_id, estado)}.
+     * </p>
+     *
+     * @param socioId identificador del socio
+     * @param estados estados buscados
+     * @return número de préstamos
+     */
+    long countBySocioIdAndEstadoIn(Long socioId, Collection<Prestamo.Estado> estados);
+
+    /**
+     * Obtiene los préstamos de un libro en los estados indicados.
+     *
+     * <p>
+     * V7 - Recorrido de rango sobre el índice {@code (libro_id, estado)}.
+     * </p>
+     *
+     * @param libroId identificador del libro
+     * @param estados estados buscados
+     * @return préstamos del libro en esos estados
+     */
+    List<Prestamo> findByLibroIdAndEstadoIn(Long libroId, Collection<Prestamo.Estado> estados);
+
+    /**
+     * Obtiene el histórico de préstamos de un libro, del más reciente al más antiguo.
+     *
+     * <p>
+     * V7 - Usa el prefijo {@code libro_id} del índice {@code (libro_id, estado)}.
+     * El libro y los socios se cargan en la misma consulta.
+     * </p>
+     *
+     * @param libroId identificador del libro
+     * @return préstamos del libro
+     */
+    @EntityGraph(attributePaths = {"libro", "socio"})
+    List<Prestamo> findByLibroIdOrderByFechaPrestamoDesc(Long libroId);
+
+    /**
+     * Obtiene los préstamos vencidos: los ya marcados como retrasados y los
+     * activos cuya fecha fin es anterior a la indicada.
+     *
+     * <p>
+     * V7 - Ambas condiciones son rangos del índice {@code (estado, fecha_fin)}.
+     * El libro y el socio se cargan en la misma consulta.
+     * </p>
+     *
+     * @param retrasado estado {@link Prestamo.Estado#RETRASADO}
+     * @param activo    estado {@link Prestamo.Estado#ACTIVO}
+     * @param fecha     fecha de referencia (normalmente hoy)
+     * @return préstamos vencidos ordenados por fecha fin
+     */
+    @EntityGraph(attributePaths = {"libro", "socio"})
+    @Query("""
+            select p from Prestamo p
+            where p.estado = :retrasado
+               or (p.estado = :activo and p.fechaFin < :fecha)
+            order by p.fechaFin
+            """)
+    List<Prestamo> findVencidos(Prestamo.Estado retrasado, Prestamo.Estado activo, LocalDate fecha);
+
+    /**
+     * Obtiene un bloque de ids de préstamos en un estado con la fecha fin anterior a la indicada.
+     *
+     * <p>
+     * V7 - Se lee en el orden del índice {@code (estado, fecha_fin)}, sin ordenación
+     * adicional, y como mucho {@code limite} filas.
+     * </p>
+     *
+     * @param estado estado de los préstamos
+     * @param fecha  fecha de referencia
+     * @param limite tamaño máximo del bloque
+     * @return ids del bloque
+     */
+    @Query("select p.id from Prestamo p where p.estado = :estado and p.fechaFin < :fecha order by p.fechaFin")
+    List<Long> findIdsPorEstadoConFechaFinAnterior(Prestamo.Estado estado, LocalDate fecha, Limit limite);
+
+    /**
+     * Cambia el estado de un conjunto de préstamos con una única sentencia UPDATE.
+     *
+     * <p>
+     * V7 - Solo se modifican los préstamos que siguen en el estado {@code actual},
+     * de modo que no se pisan cambios hechos entre la lectura y la actualización.
+     * </p>
+     *
+     * @param ids    ids de los préstamos
+     * @param actual estado que deben tener para ser actualizados
+     * @param nuevo  nuevo estado
+     * @return número de préstamos actualizados
+     */
+    @Modifying
+    @Query("update Prestamo p set p.estado = :nuevo where p.id in :ids and p.estado = :actual")
+    int actualizarEstado(Collection<Long> ids, Prestamo.Estado actual, Prestamo.Estado nuevo);
+
+    /**
+     * Obtiene las devoluciones tardías de un bloque de socios.
+     *
+     * <p>
+     * V7 - Base del recálculo masivo de penalizaciones. Se apoya en el índice
+     * {@code (socio_id, estado)} y devuelve solo las columnas necesarias,
+     * ordenadas por socio y fecha de devolución.
+     * </p>
+     *
+     * @param socioIds ids de los socios del bloque
+     * @param devuelto estado {@link Prestamo.Estado#DEVUELTO}
+     * @return devoluciones posteriores a la fecha fin
+     */
+    @Query("""
+            select new com.joseluu.biblio_app.dto.DevolucionTardia(p.socio.id, p.fechaFin, p.fechaDevolucion)
+            from Prestamo p
+            where p.socio.id in :socioIds
+              and p.estado = :devuelto
+              and p.fechaDevolucion > p.fechaFin
+            order by p.socio.id, p.fechaDevolucion
+            """)
+    List<DevolucionTardia> findDevolucionesTardias(Collection<Long> socioIds, Prestamo.Estado devuelto);
+
+    /**
+     * Obtiene un préstamo bloqueando su fila hasta el final de la transacción.
+     *
+     * <p>
+     * V7 - Evita que dos devoluciones o bajas simultáneas del mismo préstamo
+     * liberen dos veces el libro y el contador del socio.
+     * </p>
+     *
+     * @param id identificador del préstamo
+     * @return préstamo bloqueado, si existe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Prestamo p where p.id = :id")
+    Optional<Prestamo> findParaActualizar(Long id);
+
+    /**
+     * Obtiene varios préstamos, con su libro y su socio, bloqueando sus filas.
+     *
+     * <p>
+     * V7 - Una sola consulta para toda una devolución en lote. Las filas se
+     * bloquean en orden de id, igual que en cualquier otro lote, para que dos
+     * lotes simultáneos no puedan bloquearse mutuamente.
+     * </p>
+     *
+     * @param ids identificadores de los préstamos
+     * @return préstamos encontrados, ordenados por id
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Prestamo p join fetch p.libro join fetch p.socio where p.id in :ids order by p.id")
+    List<Prestamo> findAllParaActualizar(Collection<Long> ids);
+
+    /**
+     * Obtiene varios préstamos con su libro y su socio.
+     *
+     * <p>
+     * V7 - Una consulta por bloque de notificaciones para componer los mensajes.
+     * </p>
+     *
+     * @param ids identificadores de los préstamos
+     * @return préstamos encontrados
+     */
+    @Query("select p from Prestamo p join fetch p.libro join fetch p.socio where p.id in :ids")
+    List<Prestamo> findAllConLibroYSocio(Collection<Long> ids);
+
+    /**
+     * Obtiene el estado de varios préstamos sin cargar entidades.
+     *
+     * <p>
+     * V7 - Una consulta por clave primaria que devuelve solo las columnas que
+     * registra el historial, para compararlas con el estado reconstruido.
+     * </p>
+     *
+     * @param ids identificadores de los préstamos
+     * @return estado de los préstamos encontrados
+     */
+    @Query("""
+            select new com.joseluu.biblio_app.dto.EstadoPrestamo(
+                p.id, p.libro.id, p.socio.id, p.estado, p.fechaPrestamo, p.fechaFin, p.fechaDevolucion)
+            from Prestamo p
+            where p.id in :ids
+            """)
+    List<EstadoPrestamo> findEstados(Collection<Long> ids);
+
+    /**
+     * Obtiene un bloque de ids de préstamos que aún no tienen ningún evento en el historial.
+     *
+     * <p>
+     * V7 - Para registrar una única vez los préstamos anteriores al historial.
+     * </p>
+     *
+     * @param desde  último id ya procesado
+     * @param limite tamaño máximo del bloque
+     * @return ids en orden
+     */
+    @Query("""
+            select p.id from Prestamo p
+            where p.id > :desde
+              and not exists (select e.id from EventoPrestamo e where e.prestamoId = p.id)
+            order by p.id
+            """)
+    List<Long> findIdsSinHistorial(Long desde, Limit limite);
+
+    /**
+     * Inserta un préstamo conservando su id.
+     *
+     * <p>
+     * V7 - Solo para reconstruir desde el historial un préstamo que falta en la
+     * tabla: el id generado por la secuencia no puede fijarse con JPA.
+     * </p>
+     *
+     * @return número de filas insertadas
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = """
+            insert into prestamo (id, libro_id, socio_id, estado, fecha_prestamo, fecha_inicio,
+                                  fecha_fin, fecha_devolucion, libro_activo)
+            values (:id, :libroId, :socioId, :estado, :fechaPrestamo, :fechaPrestamo,
+                    :fechaFin, :fechaDevolucion, :libroActivo)
+            """)
+    int insertarConId(Long id, Long libroId, Long socioId, String estado, LocalDate fechaPrestamo,
+                      LocalDate fechaFin, LocalDate fechaDevolucion, Long libroActivo);
 }
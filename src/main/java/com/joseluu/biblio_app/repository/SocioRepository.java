@@ -1,7 +1,22 @@
 package com.joseluu.biblio_app.repository;
 
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.entity.Prestamo;
 import com.joseluu.biblio_app.entity.Socio;
+import jakarta.persistence.LockModeType;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * Repositorio JPA para la entidad {@link Socio}.
@@ -16,6 +31,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
  *   <li><b>V1</b> – Acceso básico a datos mediante repositorios JPA.</li>
  *   <li><b>V4</b> – Soporte para CRUD completo de socios.</li>
  *   <li><b>V5</b> – Utilización desde controladores REST.</li>
+ *   <li><b>V7</b> – Comprobación de emails existentes para importaciones masivas.</li>
+ *   <li><b>V7</b> – Recorrido por rangos de id para procesos masivos.</li>
+ *   <li><b>V7</b> – Contador atómico de préstamos en curso.</li>
+ *   <li><b>V7</b> – Las actualizaciones directas del contador invalidan la caché de socios.</li>
+ *   <li><b>V7</b> – Paginación por clave (keyset) sobre el identificador.</li>
+ *   <li><b>V7</b> – Búsqueda del id por email con caché de claves calientes.</li>
+ *   <li><b>V7</b> – Lectura con bloqueo y ajuste del contador para préstamos en lote.</li>
  * </ul>
  *
  * <p>
@@ -32,4 +54,153 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * automáticamente la lógica necesaria en tiempo de ejecución.
  */
 public interface SocioRepository extends JpaRepository<Socio, Long> {
+
+    /**
+     * Devuelve cuáles de los emails indicados ya están registrados.
+     *
+     * <p>
+     * V7 - Una sola consulta por lote de importación sobre el índice único de
+     * la columna {@code email}.
+     * </p>
+     *
+     * @param emails emails a comprobar
+     * @return subconjunto de emails que ya existen
+     */
+    @Query("select s.email from Socio s where s.email in :emails")
+    Set<String> findEmailsExistentes(Collection<String> emails);
+
+    /**
+     * Obtiene el id del socio con el email indicado.
+     *
+     * <p>
+     * V7 - Se resuelve con el índice único de {@code email}. El resultado se
+     * guarda en la caché {@code email-socios}; los emails inexistentes no se
+     * cachean.
+     * </p>
+     *
+     * @param email email ya normalizado con {@code SocioService.normalizarEmail}
+     * @return id del socio, si existe
+     */
+    @Cacheable(cacheNames = CacheConfig.EMAIL_SOCIOS, key = "#p0", unless = "#result == null")
+    @Query("select s.id from Socio s where s.email = :email")
+    Optional<Long> findIdByEmail(String email);
+
+    /**
+     * Obtiene los socios con identificador mayor que el indicado, ordenados por id.
+     *
+     * @param id     último identificador ya leído
+     * @param limite número máximo de filas a leer
+     * @return socios siguientes en orden de id
+     */
+    List<Socio> findByIdGreaterThanOrderByIdAsc(Long id, Limit limite);
+
+    /**
+     * Obtiene el menor y el mayor id de socio registrados.
+     *
+     * @return array con {@code [min, max]}; ambos {@code null} si no hay socios
+     */
+    @Query("select min(s.id), max(s.id) from Socio s")
+    List<Object[]> findRangoIds();
+
+    /**
+     * Obtiene un bloque de ids de socio dentro de un rango, en orden.
+     *
+     * <p>
+     * V7 - Paginación por clave sobre la clave primaria, usada para repartir
+     * procesos masivos en particiones.
+     * </p>
+     *
+     * @param desde  último id ya procesado (excluido)
+     * @param hasta  último id de la partición (incluido)
+     * @param limite tamaño máximo del bloque
+     * @return ids del bloque
+     */
+    @Query("select s.id from Socio s where s.id > :desde and s.id <= :hasta order by s.id")
+    List<Long> findIdsEnRango(Long desde, Long hasta, Limit limite);
+
+    /**
+     * Reserva un préstamo para el socio si cumple las reglas de préstamo.
+     *
+     * <p>
+     * V7 - Comprobación y reserva en una sola sentencia sobre la fila del socio:
+     * la base de datos serializa las altas concurrentes del mismo socio, así que
+     * el contador nunca supera el máximo.
+     * </p>
+     *
+     * @param id      identificador del socio
+     * @param maximo  número máximo de préstamos en curso
+     * @param hoy     fecha actual (la penalización debe haber terminado antes)
+     * @return 1 si se ha reservado, 0 si el socio no existe o no puede recibir préstamos
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.SOCIOS, key = "#p0")
+    @Query("""
+            update Socio s set s.prestamosActivos = s.prestamosActivos + 1
+            where s.id = :id
+              and s.prestamosActivos < :maximo
+              and (s.fechaFinPenalizacion is null or s.fechaFinPenalizacion < :hoy)
+            """)
+    int reservarPrestamo(Long id, int maximo, LocalDate hoy);
+
+    /**
+     * Libera un préstamo en curso del socio.
+     *
+     * @param id identificador del socio
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.SOCIOS, key = "#p0")
+    @Query("update Socio s set s.prestamosActivos = s.prestamosActivos - 1 where s.id = :id and s.prestamosActivos > 0")
+    int liberarPrestamo(Long id);
+
+    /**
+     * Obtiene un socio bloqueando su fila hasta el final de la transacción.
+     *
+     * <p>
+     * V7 - Préstamos en lote: con la fila bloqueada, el contador leído sigue
+     * siendo válido hasta que se actualiza con {@link #sumarPrestamos}.
+     * </p>
+     *
+     * @param id identificador del socio
+     * @return socio bloqueado, si existe
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from Socio s where s.id = :id")
+    Optional<Socio> findParaActualizar(Long id);
+
+    /**
+     * Suma (o resta, si es negativa) una cantidad al contador de préstamos en curso.
+     *
+     * <p>
+     * V7 - Préstamos y devoluciones en lote. Sin condición: quien llama ya ha
+     * comprobado las reglas sobre la fila bloqueada.
+     * </p>
+     *
+     * @param id       identificador del socio
+     * @param cantidad préstamos añadidos (positiva) o devueltos (negativa)
+     * @return número de filas actualizadas
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.SOCIOS, key = "#p0")
+    @Query("update Socio s set s.prestamosActivos = s.prestamosActivos + :cantidad where s.id = :id")
+    int sumarPrestamos(Long id, int cantidad);
+
+    /**
+     * Recalcula el contador de préstamos en curso de todos los socios.
+     *
+     * <p>
+     * V7 - Reparación de datos: deja el contador igual al número real de
+     * préstamos en los estados indicados.
+     * </p>
+     *
+     * @param enCurso estados que cuentan como préstamo en curso
+     * @return número de socios actualizados
+     */
+    @Modifying
+    @CacheEvict(cacheNames = CacheConfig.SOCIOS, allEntries = true)
+    @Query("""
+            update Socio s set s.prestamosActivos =
+                (select count(p) from Prestamo p where p.socio.id = s.id and p.estado in :enCurso)
+            """)
+    int recalcularPrestamosActivos(Collection<Prestamo.Estado> enCurso);
 }
@@ -0,0 +1,137 @@
+package com.joseluu.biblio_app.scheduler;
+
+import com.joseluu.biblio_app.dto.EstadoPrestamo;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.service.HistorialPrestamosService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Tarea programada que marca como {@link Prestamo.Estado#RETRASADO} los préstamos
+ * activos cuya fecha fin ya ha pasado.
+ *
+ * <p>
+ * Trabaja por bloques: cada bloque lee como mucho {@code tamanioBloque} ids en el
+ * orden del índice {@code (estado, fecha_fin)} y los actualiza con una única
+ * sentencia UPDATE en una transacción corta, de modo que los bloqueos se
+ * mantienen poco tiempo aunque haya millones de préstamos vencidos. Los
+ * préstamos actualizados dejan de cumplir el filtro, así que el siguiente
+ * bloque empieza directamente por los pendientes.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Barrido automático de préstamos retrasados.</li>
+ *   <li><b>V7</b> – Los préstamos marcados se registran en su historial.</li>
+ * </ul>
+ *
+ * <p>
+ * Publica las métricas {@code biblio.retrasos.procesados} (préstamos marcados)
+ * y {@code biblio.retrasos.duracion} (duración de cada ejecución).
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "biblio.retrasos.habilitado", havingValue = "true", matchIfMissing = true)
+public class BarridoRetrasosJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BarridoRetrasosJob.class);
+
+    private final PrestamoRepository prestamoRepository;
+    private final HistorialPrestamosService historialService;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter procesados;
+    private final Timer duracion;
+
+    /**
+     * Número máximo de préstamos actualizados por transacción.
+     */
+    private final int tamanioBloque;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param prestamoRepository  repositorio de préstamos
+     * @param historialService    historial de eventos de los préstamos
+     * @param transactionTemplate plantilla para ejecutar cada bloque en su propia transacción
+     * @param meterRegistry       registro de métricas
+     * @param tamanioBloque       préstamos por bloque
+     */
+    public BarridoRetrasosJob(PrestamoRepository prestamoRepository,
+                              HistorialPrestamosService historialService,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${biblio.retrasos.tamanio-bloque:1000}") int tamanioBloque) {
+        this.prestamoRepository = prestamoRepository;
+        this.historialService = historialService;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanioBloque = tamanioBloque;
+        this.procesados = Counter.builder("biblio.retrasos.procesados")
+                .description("Préstamos marcados como retrasados")
+                .register(meterRegistry);
+        this.duracion = Timer.builder("biblio.retrasos.duracion")
+                .description("Duración de cada barrido de préstamos retrasados")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta el barrido según la expresión cron {@code biblio.retrasos.cron}.
+     */
+    @Scheduled(cron = "${biblio.retrasos.cron:0 15 2 * * *}")
+    public void ejecutarProgramado() {
+        marcarRetrasados(LocalDate.now());
+    }
+
+    /**
+     * Marca como retrasados los préstamos activos con fecha fin anterior a {@code hoy}.
+     *
+     * @param hoy fecha de referencia
+     * @return número de préstamos marcados
+     */
+    public long marcarRetrasados(LocalDate hoy) {
+        Timer.Sample muestra = Timer.start();
+        long total = 0;
+        int bloques = 0;
+
+        int actualizados;
+        do {
+            Integer resultado = transactionTemplate.execute(estado -> actualizarBloque(hoy));
+            actualizados = resultado == null ? 0 : resultado;
+            total += actualizados;
+            bloques++;
+            procesados.increment(actualizados);
+        } while (actualizados > 0);
+
+        long nanos = muestra.stop(duracion);
+        log.info("Barrido de retrasos: {} préstamos marcados en {} bloques ({} ms)",
+                total, bloques, nanos / 1_000_000);
+        return total;
+    }
+
+    private int actualizarBloque(LocalDate hoy) {
+        List<Long> ids = prestamoRepository.findIdsPorEstadoConFechaFinAnterior(
+                Prestamo.Estado.ACTIVO, hoy, Limit.of(tamanioBloque));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int actualizados = prestamoRepository.actualizarEstado(ids, Prestamo.Estado.ACTIVO, Prestamo.Estado.RETRASADO);
+        // Un préstamo devuelto entre la lectura y el UPDATE no se ha marcado: solo se registran los retrasados
+        List<EstadoPrestamo> marcados = prestamoRepository.findEstados(ids).stream()
+                .filter(p -> p.estado() == Prestamo.Estado.RETRASADO)
+                .toList();
+        historialService.registrarRetrasos(marcados, hoy);
+        return actualizados;
+    }
+}
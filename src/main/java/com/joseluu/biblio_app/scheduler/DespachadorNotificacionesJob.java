@@ -0,0 +1,236 @@
+package com.joseluu.biblio_app.scheduler;
+
+import com.joseluu.biblio_app.dto.MensajeNotificacion;
+import com.joseluu.biblio_app.service.EmisorNotificaciones;
+import com.joseluu.biblio_app.service.NotificacionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Despachador en segundo plano de la bandeja de salida de notificaciones.
+ *
+ * <p>
+ * En cada ejecución reclama bloques de notificaciones listas y reparte los
+ * envíos entre un grupo fijo de hilos propio, separado de los hilos que
+ * atienden peticiones. Aplica contrapresión: nunca hay más de
+ * {@code biblio.notificaciones.maximo-en-vuelo} envíos reclamados sin
+ * terminar; cuando se alcanza el límite deja de reclamar y el resto espera en
+ * la tabla hasta la siguiente ejecución. Así, un servidor de correo lento o
+ * un pico de notificaciones solo retrasa los envíos y no consume memoria ni
+ * conexiones de la aplicación.
+ * </p>
+ *
+ * <p>
+ * Los envíos correctos se confirman por bloques con una sola sentencia; los
+ * fallidos se reprograman con espera exponencial. Varias instancias pueden
+ * ejecutar el despachador a la vez: cada una salta las filas que otra tiene
+ * bloqueadas.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Despacho asíncrono de notificaciones con contrapresión y reintentos.</li>
+ *   <li><b>V7</b> – Exclusión mutua con {@code ReentrantLock}, compatible con hilos virtuales.</li>
+ * </ul>
+ *
+ * <p>
+ * Publica las métricas {@code biblio.notificaciones.enviadas},
+ * {@code biblio.notificaciones.fallos} y {@code biblio.notificaciones.en-vuelo}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "biblio.notificaciones.habilitado", havingValue = "true", matchIfMissing = true)
+public class DespachadorNotificacionesJob {
+
+    private static final Logger log = LoggerFactory.getLogger(DespachadorNotificacionesJob.class);
+
+    private final NotificacionService notificacionService;
+    private final EmisorNotificaciones emisor;
+    private final ExecutorService ejecutor;
+    private final Counter enviadas;
+    private final Counter fallos;
+
+    /**
+     * Notificaciones reclamadas por bloque.
+     */
+    private final int tamanioLote;
+
+    /**
+     * Envíos reclamados y no terminados como máximo.
+     */
+    private final int maximoEnVuelo;
+
+    /**
+     * Antigüedad de las notificaciones procesadas que se borran.
+     */
+    private final Duration retencion;
+
+    private final AtomicInteger enVuelo = new AtomicInteger();
+
+    /**
+     * Evita dos despachos simultáneos. Es un {@link ReentrantLock} y no
+     * {@code synchronized} porque el despacho hace E/S y, con hilos virtuales,
+     * un monitor retenido durante la E/S fija el hilo a su portador.
+     */
+    private final ReentrantLock despachando = new ReentrantLock();
+
+    /**
+     * Envíos terminados con éxito pendientes de confirmar en la base de datos.
+     */
+    private final Queue<Long> porConfirmar = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param notificacionService bandeja de salida
+     * @param emisor              emisor de notificaciones configurado
+     * @param meterRegistry       registro de métricas
+     * @param hilos               hilos de envío
+     * @param tamanioLote         notificaciones reclamadas por bloque
+     * @param maximoEnVuelo       envíos en curso como máximo
+     * @param retencion           antigüedad de las notificaciones procesadas que se borran
+     */
+    public DespachadorNotificacionesJob(NotificacionService notificacionService,
+                                        EmisorNotificaciones emisor,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${biblio.notificaciones.hilos:4}") int hilos,
+                                        @Value("${biblio.notificaciones.tamanio-lote:100}") int tamanioLote,
+                                        @Value("${biblio.notificaciones.maximo-en-vuelo:200}") int maximoEnVuelo,
+                                        @Value("${biblio.notificaciones.retencion:7d}") Duration retencion) {
+        this.notificacionService = notificacionService;
+        this.emisor = emisor;
+        this.tamanioLote = tamanioLote;
+        this.maximoEnVuelo = maximoEnVuelo;
+        this.retencion = retencion;
+        AtomicInteger contador = new AtomicInteger();
+        this.ejecutor = Executors.newFixedThreadPool(Math.max(1, hilos), tarea -> {
+            Thread hilo = new Thread(tarea, "notificaciones-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.enviadas = Counter.builder("biblio.notificaciones.enviadas")
+                .description("Notificaciones entregadas al emisor")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("biblio.notificaciones.fallos")
+                .description("Intentos de envío fallidos")
+                .register(meterRegistry);
+        Gauge.builder("biblio.notificaciones.en-vuelo", enVuelo, AtomicInteger::get)
+                .description("Envíos reclamados y aún no terminados")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ejecuta el despacho cada {@code biblio.notificaciones.intervalo} (ISO-8601), contado desde el final de la ejecución anterior.
+     */
+    @Scheduled(fixedDelayString = "${biblio.notificaciones.intervalo:PT5S}",
+            initialDelayString = "${biblio.notificaciones.intervalo:PT5S}")
+    public void ejecutarProgramado() {
+        despachar();
+    }
+
+    /**
+     * Borra las notificaciones procesadas más antiguas que {@code biblio.notificaciones.retencion}.
+     */
+    @Scheduled(cron = "${biblio.notificaciones.purga.cron:0 30 3 * * *}")
+    public void purgar() {
+        int borradas = notificacionService.purgar(retencion);
+        log.info("Purga de notificaciones: {} borradas", borradas);
+    }
+
+    /**
+     * Reclama y pone en envío notificaciones mientras haya huecos libres.
+     *
+     * @return número de notificaciones puestas en envío
+     */
+    public int despachar() {
+        despachando.lock();
+        try {
+            return despacharBloques();
+        } finally {
+            despachando.unlock();
+        }
+    }
+
+    private int despacharBloques() {
+        confirmar();
+        int total = 0;
+        while (true) {
+            int huecos = maximoEnVuelo - enVuelo.get();
+            if (huecos <= 0) {
+                log.debug("Despacho de notificaciones en espera: {} envíos en vuelo", enVuelo.get());
+                break;
+            }
+            List<MensajeNotificacion> bloque = notificacionService.reclamar(Math.min(huecos, tamanioLote));
+            if (bloque.isEmpty()) {
+                break;
+            }
+            for (MensajeNotificacion mensaje : bloque) {
+                enVuelo.incrementAndGet();
+                ejecutor.execute(() -> enviar(mensaje));
+            }
+            total += bloque.size();
+            confirmar();
+        }
+        if (total > 0) {
+            log.info("Despacho de notificaciones: {} puestas en envío", total);
+        }
+        return total;
+    }
+
+    /**
+     * Espera a que terminen los envíos en curso y confirma los terminados.
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        ejecutor.shutdown();
+        ejecutor.awaitTermination(10, TimeUnit.SECONDS);
+        confirmar();
+    }
+
+    private void enviar(MensajeNotificacion mensaje) {
+        try {
+            emisor.enviar(mensaje);
+            porConfirmar.add(mensaje.notificacionId());
+            enviadas.increment();
+        } catch (RuntimeException e) {
+            fallos.increment();
+            boolean reintento = notificacionService.registrarFallo(mensaje.notificacionId(), e.toString());
+            log.warn("Error enviando la notificación {} a {}{}: {}", mensaje.notificacionId(),
+                    mensaje.destinatario(), reintento ? "" : " (no se reintentará)", e.toString());
+        } finally {
+            enVuelo.decrementAndGet();
+        }
+    }
+
+    /**
+     * Confirma con una sola sentencia los envíos terminados desde la última confirmación.
+     */
+    private void confirmar() {
+        List<Long> ids = new ArrayList<>();
+        for (Long id = porConfirmar.poll(); id != null; id = porConfirmar.poll()) {
+            ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            notificacionService.confirmarEnvios(ids);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.joseluu.biblio_app.scheduler;
+
+import com.joseluu.biblio_app.service.HistorialPrestamosService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tarea programada que incorpora a las instantáneas de préstamos los eventos
+ * registrados desde la ejecución anterior.
+ *
+ * <p>
+ * Con las instantáneas al día, la reconstrucción de un préstamo solo tiene
+ * que aplicar los eventos posteriores a su instantánea.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Actualización periódica de las instantáneas de préstamos.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "biblio.historial.instantaneas.habilitado", havingValue = "true", matchIfMissing = true)
+public class InstantaneasPrestamosJob {
+
+    private final HistorialPrestamosService historialService;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param historialService historial de eventos de los préstamos
+     */
+    public InstantaneasPrestamosJob(HistorialPrestamosService historialService) {
+        this.historialService = historialService;
+    }
+
+    /**
+     * Ejecuta la actualización según la expresión cron {@code biblio.historial.instantaneas.cron}.
+     */
+    @Scheduled(cron = "${biblio.historial.instantaneas.cron:0 45 2 * * *}")
+    public void ejecutarProgramado() {
+        historialService.actualizarInstantaneas();
+    }
+}
@@ -1,14 +1,27 @@
 package com.joseluu.biblio_app.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.joseluu.biblio_app.dto.Pagina;
 import com.joseluu.biblio_app.entity.Libro;
 import com.joseluu.biblio_app.entity.Prestamo;
 import com.joseluu.biblio_app.entity.Socio;
 import com.joseluu.biblio_app.repository.LibroRepository;
 import com.joseluu.biblio_app.repository.PrestamoRepository;
 import com.joseluu.biblio_app.repository.SocioRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Servicio general de la biblioteca.
@@ -22,6 +35,8 @@ import java.util.List;
  * <ul>
  *   <li><b>V1</b> – Servicio básico para acceso a datos y operaciones mínimas.</li>
  *   <li><b>V4</b> – Soporte inicial para operaciones CRUD (sin lógica avanzada).</li>
+ *   <li><b>V7</b> – El listado de libros se delega en {@link LibroService} con paginación por cursor.</li>
+ *   <li><b>V7</b> – Exportación en streaming (NDJSON) del histórico de préstamos.</li>
  * </ul>
  *
  * <p>
@@ -58,19 +73,67 @@ public class BibliotecaService {
      */
     private final PrestamoRepository prestamoRepositorio;
 
+    /**
+     * Servicio especializado de libros.
+     *
+     * V7 - Lógica de paginación del catálogo.
+     */
+    private final LibroService libroService;
+
+    /**
+     * Servicio especializado de préstamos.
+     *
+     * V7 - Las altas mantienen la disponibilidad de los libros.
+     */
+    private final PrestamoService prestamoService;
+
+    /**
+     * Contexto de persistencia, usado para liberar entidades durante la exportación.
+     *
+     * V7 - Exportación en memoria constante.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * Serializador JSON configurado por Spring Boot.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Número de préstamos exportados entre cada vaciado del contexto de persistencia.
+     *
+     * V7 - Configurable mediante {@code biblio.exportacion.intervalo-limpieza}.
+     */
+    private final int intervaloLimpieza;
+
     /**
      * Constructor con inyección de dependencias.
      *
      * @param libroRepositorio repositorio de libros
      * @param socioRepositorio repositorio de socios
      * @param prestamoRepositorio repositorio de préstamos
+     * @param libroService servicio de libros
+     * @param prestamoService servicio de préstamos
+     * @param entityManager contexto de persistencia
+     * @param objectMapper serializador JSON
+     * @param intervaloLimpieza préstamos exportados entre cada limpieza del contexto
      */
     public BibliotecaService(LibroRepository libroRepositorio,
                              SocioRepository socioRepositorio,
-                             PrestamoRepository prestamoRepositorio) {
+                             PrestamoRepository prestamoRepositorio,
+                             LibroService libroService,
+                             PrestamoService prestamoService,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             @Value("${biblio.exportacion.intervalo-limpieza:1000}") int intervaloLimpieza) {
         this.libroRepositorio = libroRepositorio;
         this.socioRepositorio = socioRepositorio;
         this.prestamoRepositorio = prestamoRepositorio;
+        this.libroService = libroService;
+        this.prestamoService = prestamoService;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.intervaloLimpieza = intervaloLimpieza;
     }
 
     /* =======================
@@ -78,16 +141,21 @@ public class BibliotecaService {
        ======================= */
 
     /**
-     * Obtiene el listado completo de libros.
+     * Obtiene una página del listado de libros.
      *
      * <p>
      * V1 - Listado básico de libros.
      * </p>
+     * <p>
+     * V7 - Paginación por cursor en lugar de cargar el catálogo completo.
+     * </p>
      *
-     * @return lista de libros
+     * @param cursor  cursor de continuación o {@code null} para la primera página
+     * @param tamanio tamaño de página o {@code null} para el valor por defecto
+     * @return página de libros
      */
-    public List<Libro> getAllLibros() {
-        return libroRepositorio.findAll();
+    public Pagina<Libro> getLibros(String cursor, Integer tamanio) {
+        return libroService.listarLibrosPaginados(cursor, tamanio);
     }
 
     /**
@@ -152,17 +220,61 @@ public class BibliotecaService {
         return prestamoRepositorio.findAll();
     }
 
+    /**
+     * Exporta todos los préstamos en formato NDJSON (un objeto JSON por línea).
+     *
+     * <p>
+     * V7 - Los préstamos se leen con un cursor de la base de datos y se escriben
+     * según se reciben. Cada {@code intervaloLimpieza} préstamos se vuelca la
+     * salida y se vacía el contexto de persistencia, por lo que el consumo de
+     * memoria no depende del número de préstamos exportados.
+     * </p>
+     *
+     * @param salida flujo donde se escribe la exportación (no se cierra)
+     * @return número de préstamos exportados
+     * @throws IOException si falla la escritura en la salida
+     */
+    @Transactional(readOnly = true)
+    public long exportarPrestamos(OutputStream salida) throws IOException {
+        ObjectWriter escritor = objectMapper.writerFor(Prestamo.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long total = 0;
+        try (Stream<Prestamo> prestamos = prestamoRepositorio.streamAllConLibroYSocio();
+             JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+            generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generador.setRootValueSeparator(new SerializedString("\n"));
+
+            Iterator<Prestamo> it = prestamos.iterator();
+            while (it.hasNext()) {
+                escritor.writeValue(generador, it.next());
+                total++;
+                if (total % intervaloLimpieza == 0) {
+                    // V7 - Se liberan los préstamos ya escritos
+                    generador.flush();
+                    entityManager.clear();
+                }
+            }
+            if (total > 0) {
+                generador.writeRaw('\n');
+            }
+        }
+        return total;
+    }
+
     /**
      * Guarda un préstamo en la base de datos.
      *
      * <p>
      * V1 - Alta básica de préstamos sin reglas de negocio avanzadas.
      * </p>
+     * <p>
+     * V7 - Se delega en {@link PrestamoService} para mantener la disponibilidad del libro.
+     * </p>
      *
      * @param prestamo préstamo a guardar
      * @return préstamo persistido
      */
     public Prestamo savePrestamo(Prestamo prestamo) {
-        return prestamoRepositorio.save(prestamo);
+        return prestamoService.guardarPrestamo(prestamo);
     }
 }
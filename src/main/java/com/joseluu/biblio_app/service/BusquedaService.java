@@ -0,0 +1,320 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.LibroEncontrado;
+import com.joseluu.biblio_app.dto.Pagina;
+import com.joseluu.biblio_app.dto.ResultadoBusqueda;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Búsqueda de texto en el catálogo mediante un índice invertido en memoria.
+ *
+ * <p>
+ * Cada término normalizado de título, autor y categoría apunta a los libros
+ * que lo contienen. Los términos se guardan ordenados, de modo que una
+ * búsqueda por prefijo es un recorrido de rango sobre el índice y nunca una
+ * lectura completa de la tabla ({@code LIKE '%...%'}).
+ * </p>
+ *
+ * <p>
+ * La normalización pasa a minúsculas y elimina tildes y diéresis, así que
+ * {@code "senor"} encuentra {@code "Señor"}. Todas las palabras de la consulta
+ * deben aparecer en el libro (como palabra completa o como prefijo).
+ * </p>
+ *
+ * <p>
+ * Relevancia: cada palabra suma el peso del campo donde aparece (título 3,
+ * autor 2, categoría 1), el doble si coincide con la palabra completa.
+ * </p>
+ *
+ * <p>
+ * Los candidatos salen de la palabra más selectiva de la consulta; el resto de
+ * palabras se comprueban con una búsqueda binaria sobre los términos ordenados
+ * de cada candidato, así que el coste depende de la palabra menos frecuente y
+ * no del tamaño del catálogo.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Índice invertido construido al arrancar y actualizado en cada alta, modificación y baja.</li>
+ * </ul>
+ */
+@Service
+public class BusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(BusquedaService.class);
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int PESO_TITULO = 3;
+    private static final int PESO_AUTOR = 2;
+    private static final int PESO_CATEGORIA = 1;
+
+    /**
+     * Número de libros leídos por consulta al construir el índice.
+     */
+    private static final int BLOQUE_CARGA = 1000;
+
+    /**
+     * Término normalizado → (id del libro → peso del campo donde aparece).
+     */
+    private final ConcurrentSkipListMap<String, Map<Long, Integer>> terminos = new ConcurrentSkipListMap<>();
+
+    /**
+     * Libros indexados, para devolver resultados y quitar sus términos al modificarlos.
+     */
+    private final Map<Long, Documento> documentos = new ConcurrentHashMap<>();
+
+    private final LibroRepository libroRepository;
+    private final int tamanioPorDefecto;
+    private final int tamanioMaximo;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param libroRepository   repositorio de libros
+     * @param tamanioPorDefecto tamaño de página por defecto
+     * @param tamanioMaximo     tamaño de página máximo
+     */
+    public BusquedaService(LibroRepository libroRepository,
+                           @Value("${biblio.paginacion.tamanio-defecto:50}") int tamanioPorDefecto,
+                           @Value("${biblio.paginacion.tamanio-maximo:500}") int tamanioMaximo) {
+        this.libroRepository = libroRepository;
+        this.tamanioPorDefecto = tamanioPorDefecto;
+        this.tamanioMaximo = tamanioMaximo;
+    }
+
+    /**
+     * Construye el índice con todo el catálogo al arrancar la aplicación.
+     *
+     * <p>
+     * El catálogo se lee por bloques ordenados por id para no cargarlo entero
+     * en memoria como entidades.
+     * </p>
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        long desde = 0;
+        List<Libro> bloque;
+        do {
+            bloque = libroRepository.findByIdGreaterThanOrderByIdAsc(desde, Limit.of(BLOQUE_CARGA));
+            bloque.forEach(this::indexar);
+            if (!bloque.isEmpty()) {
+                desde = bloque.get(bloque.size() - 1).getId();
+            }
+        } while (bloque.size() == BLOQUE_CARGA);
+        log.info("Índice de búsqueda construido: {} libros, {} términos ({} ms)",
+                documentos.size(), terminos.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Añade o actualiza un libro en el índice.
+     *
+     * @param libro libro guardado (con id)
+     */
+    public synchronized void indexar(Libro libro) {
+        eliminar(libro.getId());
+
+        Map<String, Integer> pesos = new TreeMap<>();
+        aniadirTerminos(pesos, libro.getTitulo(), PESO_TITULO);
+        aniadirTerminos(pesos, libro.getAutor(), PESO_AUTOR);
+        aniadirTerminos(pesos, libro.getCategoria(), PESO_CATEGORIA);
+
+        documentos.put(libro.getId(), new Documento(
+                new LibroEncontrado(libro.getId(), libro.getTitulo(), libro.getAutor(),
+                        libro.getCategoria(), libro.getIsbn(), 0),
+                pesos.keySet().toArray(String[]::new),
+                pesos.values().stream().mapToInt(Integer::intValue).toArray()));
+        pesos.forEach((termino, peso) ->
+                terminos.computeIfAbsent(termino, t -> new ConcurrentHashMap<>()).put(libro.getId(), peso));
+    }
+
+    /**
+     * Quita un libro del índice.
+     *
+     * @param id identificador del libro
+     */
+    public synchronized void eliminar(Long id) {
+        Documento anterior = documentos.remove(id);
+        if (anterior == null) {
+            return;
+        }
+        for (String termino : anterior.terminos()) {
+            terminos.computeIfPresent(termino, (t, libros) -> {
+                libros.remove(id);
+                return libros.isEmpty() ? null : libros;
+            });
+        }
+    }
+
+    /**
+     * Busca libros por título, autor o categoría.
+     *
+     * @param consulta palabras a buscar
+     * @param pagina   número de página (desde 0) o {@code null} para la primera
+     * @param tamanio  tamaño de página o {@code null} para el valor por defecto
+     * @return página de resultados ordenados por relevancia y, a igualdad, por id
+     */
+    public ResultadoBusqueda<LibroEncontrado> buscar(String consulta, Integer pagina, Integer tamanio) {
+        int limite = Pagina.ajustarTamanio(tamanio, tamanioPorDefecto, tamanioMaximo);
+        int numeroPagina = pagina == null ? 0 : Math.max(0, pagina);
+
+        List<String> palabras = terminosDe(consulta);
+        if (palabras.isEmpty()) {
+            return new ResultadoBusqueda<>(List.of(), 0, numeroPagina, limite);
+        }
+
+        // Candidatos: libros que contienen la palabra más selectiva
+        String masSelectiva = palabras.get(0);
+        long menorFrecuencia = Long.MAX_VALUE;
+        for (String palabra : palabras) {
+            long frecuencia = rango(palabra).values().stream().mapToLong(Map::size).sum();
+            if (frecuencia < menorFrecuencia) {
+                menorFrecuencia = frecuencia;
+                masSelectiva = palabra;
+            }
+        }
+        Map<Long, Integer> puntuaciones = puntuar(masSelectiva);
+
+        // El resto de palabras se comprueban sobre los términos de cada candidato
+        for (String palabra : palabras) {
+            if (palabra.equals(masSelectiva)) {
+                continue;
+            }
+            puntuaciones.entrySet().removeIf(entrada -> {
+                Documento documento = documentos.get(entrada.getKey());
+                int puntuacion = documento == null ? 0 : documento.puntuar(palabra);
+                entrada.setValue(entrada.getValue() + puntuacion);
+                return puntuacion == 0;
+            });
+        }
+        if (puntuaciones.isEmpty()) {
+            return new ResultadoBusqueda<>(List.of(), 0, numeroPagina, limite);
+        }
+        // En long: con páginas muy altas el producto no cabe en un int
+        long inicio = (long) numeroPagina * limite;
+        if (inicio >= puntuaciones.size()) {
+            return new ResultadoBusqueda<>(List.of(), puntuaciones.size(), numeroPagina, limite);
+        }
+
+        // Solo se ordenan los resultados necesarios hasta la página pedida
+        long necesarios = inicio + limite;
+        Comparator<Map.Entry<Long, Integer>> orden = Map.Entry.<Long, Integer>comparingByValue()
+                .reversed()
+                .thenComparing(Map.Entry.comparingByKey());
+        PriorityQueue<Map.Entry<Long, Integer>> mejores = new PriorityQueue<>(orden.reversed());
+        for (Map.Entry<Long, Integer> entrada : puntuaciones.entrySet()) {
+            mejores.add(entrada);
+            if (mejores.size() > necesarios) {
+                mejores.poll();
+            }
+        }
+        List<Map.Entry<Long, Integer>> ordenados = new ArrayList<>(mejores);
+        ordenados.sort(orden);
+
+        List<LibroEncontrado> resultados = new ArrayList<>();
+        for (int i = (int) inicio; i < ordenados.size(); i++) {
+            Documento documento = documentos.get(ordenados.get(i).getKey());
+            if (documento != null) {
+                LibroEncontrado l = documento.libro();
+                resultados.add(new LibroEncontrado(l.id(), l.titulo(), l.autor(), l.categoria(), l.isbn(),
+                        ordenados.get(i).getValue()));
+            }
+        }
+        return new ResultadoBusqueda<>(resultados, puntuaciones.size(), numeroPagina, limite);
+    }
+
+    /**
+     * Normaliza un texto para comparar sin distinguir mayúsculas ni tildes.
+     *
+     * @param texto texto original
+     * @return texto en minúsculas y sin marcas diacríticas
+     */
+    public static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Divide un texto en términos normalizados.
+     *
+     * @param texto texto original (puede ser {@code null})
+     * @return términos no vacíos, en orden
+     */
+    static List<String> terminosDe(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARADORES.split(normalizar(texto)))
+                .filter(t -> !t.isEmpty())
+                .toList();
+    }
+
+    private static void aniadirTerminos(Map<String, Integer> pesos, String texto, int peso) {
+        for (String termino : terminosDe(texto)) {
+            pesos.merge(termino, peso, Math::max);
+        }
+    }
+
+    /**
+     * Términos del índice que son la palabra indicada o empiezan por ella.
+     */
+    private NavigableMap<String, Map<Long, Integer>> rango(String palabra) {
+        return terminos.subMap(palabra, true, palabra + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Libros que contienen una palabra o un término que empieza por ella, con su mejor puntuación.
+     */
+    private Map<Long, Integer> puntuar(String palabra) {
+        Map<Long, Integer> puntuaciones = new HashMap<>();
+        rango(palabra).forEach((termino, libros) -> {
+            int multiplicador = termino.equals(palabra) ? 2 : 1;
+            libros.forEach((id, peso) -> puntuaciones.merge(id, peso * multiplicador, Math::max));
+        });
+        return puntuaciones;
+    }
+
+    /**
+     * Libro indexado: datos para mostrar y sus términos ordenados con el peso de cada uno.
+     */
+    private record Documento(LibroEncontrado libro, String[] terminos, int[] pesos) {
+
+        /**
+         * Mejor puntuación de una palabra en este libro, o 0 si no aparece.
+         */
+        int puntuar(String palabra) {
+            int posicion = Arrays.binarySearch(terminos, palabra);
+            int i = posicion >= 0 ? posicion : -posicion - 1;
+            int mejor = 0;
+            for (; i < terminos.length && terminos[i].startsWith(palabra); i++) {
+                mejor = Math.max(mejor, pesos[i] * (terminos[i].length() == palabra.length() ? 2 : 1));
+            }
+            return mejor;
+        }
+    }
+}
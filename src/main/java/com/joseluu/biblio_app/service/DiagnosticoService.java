@@ -0,0 +1,282 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.ClaseHistograma;
+import com.joseluu.biblio_app.dto.GrabacionJfr;
+import com.joseluu.biblio_app.dto.HistogramaClases;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Diagnóstico de la JVM en producción sin acceso a la máquina.
+ *
+ * <p>
+ * Sustituye a {@code jcmd} para dos casos:
+ * </p>
+ * <ul>
+ *   <li><b>Grabaciones JFR</b>: una sola a la vez, con la configuración
+ *   {@code default} (sobrecarga ~1 %, apta para dejarla minutos) o
+ *   {@code profile} (muestreo de pila más frecuente y asignaciones, ~2 %).
+ *   La grabación se escribe en {@code biblio.diagnostico.jfr.directorio}
+ *   al detenerse, sola al cumplir su duración o a petición, y se conserva
+ *   hasta que empieza la siguiente; una descarga en curso no se corta
+ *   aunque empiece otra grabación.</li>
+ *   <li><b>Histograma de clases</b>: el comando de diagnóstico
+ *   {@code GC.class_histogram} de la JVM. Contar solo los objetos vivos
+ *   exige una recolección completa, es decir, una pausa proporcional al
+ *   heap.</li>
+ * </ul>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Perfilado bajo demanda con JFR e histograma de clases.</li>
+ *   <li><b>V7</b> – La grabación se descarga desde el archivo abierto con el cerrojo tomado.</li>
+ * </ul>
+ */
+@Service
+public class DiagnosticoService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagnosticoService.class);
+
+    /**
+     * Fila del histograma: {@code   1:   12345   678900  [B (java.base@21)}.
+     */
+    private static final Pattern FILA_HISTOGRAMA = Pattern.compile("^\\s*(\\d+):\\s+(\\d+)\\s+(\\d+)\\s+(\\S+).*$");
+    private static final Pattern TOTAL_HISTOGRAMA = Pattern.compile("^Total\\s+(\\d+)\\s+(\\d+)\\s*$");
+
+    private final Path directorio;
+    private final Duration duracionMaxima;
+
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private Recording grabacion;
+    private String perfil;
+    private Path archivo;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param directorio     directorio de los archivos {@code .jfr}; vacío para el temporal del sistema
+     * @param duracionMaxima duración máxima admitida para una grabación
+     */
+    public DiagnosticoService(@Value("${biblio.diagnostico.jfr.directorio:}") String directorio,
+                              @Value("${biblio.diagnostico.jfr.duracion-maxima:10m}") Duration duracionMaxima) {
+        this.directorio = Path.of(directorio.isBlank() ? System.getProperty("java.io.tmpdir") : directorio);
+        this.duracionMaxima = duracionMaxima;
+    }
+
+    // ====================== JFR ======================
+
+    /**
+     * Inicia una grabación JFR que se detiene sola al cumplir su duración.
+     *
+     * @param perfil   configuración de JFR: {@code default} o {@code profile}
+     * @param duracion duración de la grabación
+     * @return grabación iniciada
+     * @throws IllegalArgumentException si el perfil no existe o la duración no es válida
+     * @throws IllegalStateException    si ya hay una grabación en curso
+     */
+    public GrabacionJfr iniciarGrabacion(String perfil, Duration duracion) throws IOException, ParseException {
+        if (duracion.isNegative() || duracion.isZero() || duracion.compareTo(duracionMaxima) > 0) {
+            throw new IllegalArgumentException("La duración debe estar entre 1 s y " + duracionMaxima.toSeconds() + " s");
+        }
+        if (!"default".equals(perfil) && !"profile".equals(perfil)) {
+            throw new IllegalArgumentException("Perfil JFR no válido: " + perfil + " (default o profile)");
+        }
+        cerrojo.lock();
+        try {
+            if (grabacion != null && grabacion.getState() == RecordingState.RUNNING) {
+                throw new IllegalStateException("Ya hay una grabación JFR en curso (id " + grabacion.getId() + ")");
+            }
+            descartarGrabacion();
+            Files.createDirectories(directorio);
+            Recording nueva = new Recording(Configuration.getConfiguration(perfil));
+            nueva.setName("biblio-app-" + perfil);
+            nueva.setToDisk(true);
+            nueva.setDuration(duracion);
+            // Con el id, dos grabaciones en el mismo segundo no comparten archivo
+            archivo = directorio.resolve("biblio-app-" + Instant.now().getEpochSecond() + "-" + nueva.getId() + ".jfr");
+            nueva.setDestination(archivo);
+            nueva.start();
+            grabacion = nueva;
+            this.perfil = perfil;
+            log.info("Grabación JFR {} iniciada: perfil {}, {} s, destino {}",
+                    nueva.getId(), perfil, duracion.toSeconds(), archivo);
+            return estado(nueva);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Detiene la grabación en curso y escribe su archivo.
+     *
+     * @return grabación detenida, o vacío si no hay ninguna
+     */
+    public Optional<GrabacionJfr> detenerGrabacion() {
+        cerrojo.lock();
+        try {
+            if (grabacion == null) {
+                return Optional.empty();
+            }
+            if (grabacion.getState() == RecordingState.RUNNING) {
+                grabacion.stop();
+                log.info("Grabación JFR {} detenida a petición", grabacion.getId());
+            }
+            return Optional.of(estado(grabacion));
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Estado de la última grabación.
+     *
+     * @return grabación, o vacío si no se ha lanzado ninguna
+     */
+    public Optional<GrabacionJfr> obtenerGrabacion() {
+        cerrojo.lock();
+        try {
+            return Optional.ofNullable(grabacion).map(this::estado);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Abre el archivo de la última grabación, si ya está detenida.
+     *
+     * <p>
+     * El archivo se abre con el cerrojo tomado y se entrega abierto: si
+     * mientras se descarga empieza otra grabación y lo borra, la descarga
+     * sigue leyendo del archivo ya abierto. Quien lo recibe debe cerrar el
+     * flujo.
+     * </p>
+     *
+     * @return archivo {@code .jfr} abierto, o vacío si no hay grabación terminada
+     * @throws IOException si no se puede abrir el archivo
+     */
+    public Optional<ArchivoGrabacion> abrirGrabacion() throws IOException {
+        cerrojo.lock();
+        try {
+            if (grabacion == null || grabacion.getState() == RecordingState.RUNNING
+                    || grabacion.getState() == RecordingState.NEW || !Files.exists(archivo)) {
+                return Optional.empty();
+            }
+            return Optional.of(new ArchivoGrabacion(archivo.getFileName().toString(), Files.size(archivo),
+                    Files.newInputStream(archivo)));
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @PreDestroy
+    void detener() {
+        cerrojo.lock();
+        try {
+            descartarGrabacion();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Cierra la grabación anterior y borra su archivo; se llama con el cerrojo tomado.
+     */
+    private void descartarGrabacion() {
+        if (grabacion == null) {
+            return;
+        }
+        grabacion.close();
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            log.warn("No se pudo borrar la grabación JFR {}: {}", archivo, e.getMessage());
+        }
+        grabacion = null;
+    }
+
+    private GrabacionJfr estado(Recording r) {
+        long tamanio = 0;
+        if (r.getState() != RecordingState.RUNNING) {
+            try {
+                tamanio = Files.exists(archivo) ? Files.size(archivo) : 0;
+            } catch (IOException e) {
+                tamanio = 0;
+            }
+        }
+        return new GrabacionJfr(r.getId(), perfil, r.getState().name(), r.getStartTime(),
+                r.getDuration() != null ? r.getDuration().toSeconds() : 0, tamanio);
+    }
+
+    /**
+     * Archivo de una grabación JFR abierto para su descarga.
+     *
+     * @param nombre    nombre del archivo
+     * @param tamanio   tamaño en bytes
+     * @param contenido flujo abierto sobre el archivo
+     */
+    public record ArchivoGrabacion(String nombre, long tamanio, InputStream contenido) {
+    }
+
+    // ====================== HISTOGRAMA ======================
+
+    /**
+     * Obtiene las clases que más memoria ocupan.
+     *
+     * @param limite    número máximo de clases
+     * @param soloVivos si solo cuenta objetos alcanzables; fuerza una recolección completa
+     * @return histograma resumido
+     */
+    public HistogramaClases histogramaClases(int limite, boolean soloVivos) throws JMException {
+        long inicio = System.nanoTime();
+        String salida = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                new ObjectName("com.sun.management:type=DiagnosticCommand"),
+                "gcClassHistogram",
+                new Object[]{soloVivos ? new String[0] : new String[]{"-all"}},
+                new String[]{String[].class.getName()});
+        long duracionMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        List<ClaseHistograma> clases = new ArrayList<>();
+        long totalInstancias = 0;
+        long totalBytes = 0;
+        for (String linea : salida.split("\n")) {
+            Matcher fila = FILA_HISTOGRAMA.matcher(linea);
+            if (fila.matches()) {
+                if (clases.size() < limite) {
+                    clases.add(new ClaseHistograma(Integer.parseInt(fila.group(1)), fila.group(4),
+                            Long.parseLong(fila.group(2)), Long.parseLong(fila.group(3))));
+                }
+                continue;
+            }
+            Matcher total = TOTAL_HISTOGRAMA.matcher(linea);
+            if (total.matches()) {
+                totalInstancias = Long.parseLong(total.group(1));
+                totalBytes = Long.parseLong(total.group(2));
+            }
+        }
+        log.info("Histograma de clases calculado en {} ms (solo vivos: {})", duracionMs, soloVivos);
+        return new HistogramaClases(soloVivos, totalInstancias, totalBytes, duracionMs, clases);
+    }
+}
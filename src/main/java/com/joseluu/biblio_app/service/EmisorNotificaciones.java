@@ -0,0 +1,35 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.MensajeNotificacion;
+
+/**
+ * Canal de entrega de las notificaciones a los socios.
+ *
+ * <p>
+ * El despachador llama a {@link #enviar} desde sus propios hilos, nunca desde
+ * una petición ni dentro de una transacción, así que una implementación puede
+ * bloquear (por ejemplo, esperando al servidor SMTP). Debe ser segura para
+ * llamadas concurrentes. Un envío que lanza una excepción se reintenta más
+ * tarde; la entrega es «al menos una vez».
+ * </p>
+ *
+ * <p>
+ * La implementación activa se elige con {@code biblio.notificaciones.emisor}:
+ * {@code log} (por defecto) o {@code smtp}.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Emisores de notificaciones intercambiables.</li>
+ * </ul>
+ */
+public interface EmisorNotificaciones {
+
+    /**
+     * Entrega un mensaje.
+     *
+     * @param mensaje mensaje a entregar
+     * @throws RuntimeException si la entrega falla y debe reintentarse
+     */
+    void enviar(MensajeNotificacion mensaje);
+}
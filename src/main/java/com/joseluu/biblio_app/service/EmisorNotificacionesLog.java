@@ -0,0 +1,74 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.MensajeNotificacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Emisor de notificaciones para desarrollo y pruebas: escribe cada mensaje en
+ * el log y, si se configura {@code biblio.notificaciones.archivo}, lo añade al
+ * final de ese archivo.
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Emisor local de notificaciones (log y archivo).</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "biblio.notificaciones.emisor", havingValue = "log", matchIfMissing = true)
+public class EmisorNotificacionesLog implements EmisorNotificaciones {
+
+    private static final Logger log = LoggerFactory.getLogger(EmisorNotificacionesLog.class);
+
+    /**
+     * Archivo donde se añaden los mensajes, o {@code null} para usar solo el log.
+     */
+    private final Path archivo;
+
+    /**
+     * Un único hilo escribe a la vez para que los mensajes no se mezclen.
+     */
+    private final ReentrantLock escribiendo = new ReentrantLock();
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param archivo ruta del archivo de mensajes; vacía para no escribir archivo
+     */
+    public EmisorNotificacionesLog(@Value("${biblio.notificaciones.archivo:}") String archivo) {
+        this.archivo = archivo.isBlank() ? null : Path.of(archivo);
+    }
+
+    @Override
+    public void enviar(MensajeNotificacion mensaje) {
+        log.info("Notificación {} a {}: {}", mensaje.notificacionId(), mensaje.destinatario(), mensaje.asunto());
+        if (archivo == null) {
+            return;
+        }
+        String texto = "--- " + Instant.now() + " #" + mensaje.notificacionId() + " " + mensaje.tipo() + "\n"
+                + "Para: " + mensaje.destinatario() + "\n"
+                + "Asunto: " + mensaje.asunto() + "\n\n"
+                + mensaje.cuerpo() + "\n\n";
+        escribiendo.lock();
+        try {
+            Files.writeString(archivo, texto, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la notificación en " + archivo, e);
+        } finally {
+            escribiendo.unlock();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.MensajeNotificacion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emisor de notificaciones por correo electrónico.
+ *
+ * <p>
+ * Usa el {@link JavaMailSender} que Spring Boot configura a partir de las
+ * propiedades {@code spring.mail.*}. Los tiempos de espera de conexión y
+ * lectura deben fijarse ({@code spring.mail.properties.mail.smtp.*timeout})
+ * para que un servidor lento no retenga indefinidamente los hilos del
+ * despachador.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Envío de notificaciones por SMTP.</li>
+ * </ul>
+ */
+@Component
+@ConditionalOnProperty(name = "biblio.notificaciones.emisor", havingValue = "smtp")
+public class EmisorNotificacionesSmtp implements EmisorNotificaciones {
+
+    private final JavaMailSender mailSender;
+    private final String remitente;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param mailSender cliente SMTP
+     * @param remitente  dirección del remitente
+     */
+    public EmisorNotificacionesSmtp(JavaMailSender mailSender,
+                                    @Value("${biblio.notificaciones.remitente:biblioteca@localhost}") String remitente) {
+        this.mailSender = mailSender;
+        this.remitente = remitente;
+    }
+
+    @Override
+    public void enviar(MensajeNotificacion mensaje) {
+        SimpleMailMessage correo = new SimpleMailMessage();
+        correo.setFrom(remitente);
+        correo.setTo(mensaje.destinatario());
+        correo.setSubject(mensaje.asunto());
+        correo.setText(mensaje.cuerpo());
+        mailSender.send(correo);
+    }
+}
@@ -0,0 +1,697 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.EstadoPrestamo;
+import com.joseluu.biblio_app.dto.ResultadoReconstruccion;
+import com.joseluu.biblio_app.entity.EventoPrestamo;
+import com.joseluu.biblio_app.entity.InstantaneaPrestamo;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.repository.EventoPrestamoRepository;
+import com.joseluu.biblio_app.repository.InstantaneaPrestamoRepository;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Historial de eventos de los préstamos.
+ *
+ * <p>
+ * Cada cambio de un préstamo (alta, renovación, retraso, devolución y baja)
+ * añade un evento en la misma transacción que modifica la tabla de
+ * préstamos. El historial solo recibe inserciones, así que escribir en él es
+ * barato y conserva todo lo ocurrido, incluida la fecha límite original de
+ * cada préstamo y sus renovaciones.
+ * </p>
+ *
+ * <p>
+ * A partir del historial se ofrecen:
+ * </p>
+ * <ul>
+ *   <li><b>Instantáneas</b>: el estado de cada préstamo tras su último evento
+ *   procesado. Se actualizan de forma incremental, leyendo solo los eventos
+ *   posteriores al último incluido.</li>
+ *   <li><b>Reconstrucción</b>: recalcula el estado de cada préstamo desde su
+ *   instantánea más los eventos posteriores y lo compara con la tabla de
+ *   préstamos; opcionalmente corrige las diferencias. Los préstamos se
+ *   reparten en particiones por rango de id que se procesan en paralelo.</li>
+ * </ul>
+ *
+ * <p>
+ * El orden de los eventos de un préstamo es su orden de id: se escriben con
+ * la fila del préstamo bloqueada y los ids de una misma instancia de la
+ * aplicación son crecientes. Con varias instancias habría que reducir el
+ * {@code allocationSize} de la secuencia a 1.
+ * </p>
+ *
+ * <p>
+ * Los ids no llegan confirmados en orden: una transacción lenta puede
+ * confirmar el evento 10 después de que otra haya confirmado el 11. Por eso
+ * el servicio lleva la cuenta de los registros cuya transacción no ha
+ * terminado, y las instantáneas solo avanzan hasta el último id por debajo
+ * del cual todas han terminado.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Historial de eventos, instantáneas y reconstrucción de préstamos.</li>
+ *   <li><b>V7</b> – Exclusión mutua con {@code ReentrantLock}, compatible con hilos virtuales.</li>
+ * </ul>
+ */
+@Service
+public class HistorialPrestamosService {
+
+    private static final Logger log = LoggerFactory.getLogger(HistorialPrestamosService.class);
+
+    private static final Set<Prestamo.Estado> EN_CURSO =
+            EnumSet.of(Prestamo.Estado.ACTIVO, Prestamo.Estado.RETRASADO);
+
+    private final EventoPrestamoRepository eventoRepository;
+    private final InstantaneaPrestamoRepository instantaneaRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final LibroRepository libroRepository;
+    private final SocioRepository socioRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Número de particiones procesadas en paralelo en la reconstrucción.
+     */
+    private final int particiones;
+
+    /**
+     * Préstamos o eventos procesados por transacción.
+     */
+    private final int tamanioBloque;
+
+    /**
+     * Hace atómicos la asignación de ids de evento y su anotación como pendientes de confirmar.
+     */
+    private final ReentrantLock registrandoEventos = new ReentrantLock();
+
+    /**
+     * Menor id de evento de cada registro cuya transacción aún no ha terminado.
+     */
+    private final TreeSet<Long> eventosSinConfirmar = new TreeSet<>();
+
+    /**
+     * Mayor id de evento asignado por esta instancia.
+     */
+    private long ultimoEventoAsignado;
+
+    /**
+     * Evita dos actualizaciones de instantáneas simultáneas (sin fijar hilos virtuales durante la E/S).
+     */
+    private final ReentrantLock actualizandoInstantaneas = new ReentrantLock();
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param eventoRepository      repositorio del historial
+     * @param instantaneaRepository repositorio de instantáneas
+     * @param prestamoRepository    repositorio de préstamos
+     * @param libroRepository       repositorio de libros
+     * @param socioRepository       repositorio de socios
+     * @param transactionTemplate   plantilla para ejecutar cada bloque en su propia transacción
+     * @param particiones           particiones de la reconstrucción
+     * @param tamanioBloque         elementos por bloque
+     */
+    public HistorialPrestamosService(EventoPrestamoRepository eventoRepository,
+                                     InstantaneaPrestamoRepository instantaneaRepository,
+                                     PrestamoRepository prestamoRepository,
+                                     LibroRepository libroRepository,
+                                     SocioRepository socioRepository,
+                                     TransactionTemplate transactionTemplate,
+                                     @Value("${biblio.historial.particiones:4}") int particiones,
+                                     @Value("${biblio.historial.tamanio-bloque:1000}") int tamanioBloque) {
+        this.eventoRepository = eventoRepository;
+        this.instantaneaRepository = instantaneaRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.libroRepository = libroRepository;
+        this.socioRepository = socioRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.particiones = Math.max(1, particiones);
+        this.tamanioBloque = tamanioBloque;
+    }
+
+    /* =======================
+       ======= REGISTRO ======
+       ======================= */
+
+    /**
+     * Registra el alta de uno o varios préstamos ya guardados.
+     *
+     * <p>
+     * Un préstamo dado de alta directamente como retrasado o devuelto añade
+     * también el evento correspondiente.
+     * </p>
+     *
+     * @param prestamos préstamos recién creados (con id)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarAltas(Collection<Prestamo> prestamos) {
+        LocalDate hoy = LocalDate.now();
+        List<EventoPrestamo> eventos = new ArrayList<>();
+        for (Prestamo p : prestamos) {
+            eventos.add(evento(p, EventoPrestamo.Tipo.ALTA, p.getFechaPrestamo()));
+            if (p.getEstado() == Prestamo.Estado.RETRASADO) {
+                eventos.add(evento(p, EventoPrestamo.Tipo.RETRASO, hoy));
+            } else if (p.getEstado() == Prestamo.Estado.DEVUELTO) {
+                eventos.add(evento(p, EventoPrestamo.Tipo.DEVOLUCION, p.getFechaDevolucion()));
+            }
+        }
+        guardar(eventos);
+    }
+
+    /**
+     * Registra la renovación de un préstamo, con su nueva fecha fin.
+     *
+     * @param prestamo préstamo renovado
+     * @param fecha    fecha de la renovación
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarRenovacion(Prestamo prestamo, LocalDate fecha) {
+        guardar(List.of(evento(prestamo, EventoPrestamo.Tipo.RENOVACION, fecha)));
+    }
+
+    /**
+     * Registra que varios préstamos han pasado a estar retrasados.
+     *
+     * @param prestamos estado de los préstamos marcados
+     * @param fecha     fecha del barrido
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarRetrasos(Collection<EstadoPrestamo> prestamos, LocalDate fecha) {
+        guardar(prestamos.stream()
+                .map(p -> new EventoPrestamo(p.prestamoId(), p.libroId(), p.socioId(),
+                        EventoPrestamo.Tipo.RETRASO, fecha, p.fechaFin()))
+                .toList());
+    }
+
+    /**
+     * Registra la devolución de uno o varios préstamos.
+     *
+     * @param prestamos préstamos devueltos, con {@code fechaDevolucion} informada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarDevoluciones(Collection<Prestamo> prestamos) {
+        guardar(prestamos.stream()
+                .map(p -> evento(p, EventoPrestamo.Tipo.DEVOLUCION, p.getFechaDevolucion()))
+                .toList());
+    }
+
+    /**
+     * Registra los cambios hechos al modificar un préstamo existente.
+     *
+     * <p>
+     * Un cambio de fecha fin se registra como renovación y un cambio de estado
+     * como retraso o devolución, de modo que la reconstrucción respete las
+     * modificaciones hechas desde el formulario.
+     * </p>
+     *
+     * <p>
+     * Ningún evento cambia el libro ni el socio de un préstamo, así que esos
+     * cambios se rechazan: registrados sin evento, la reconstrucción los
+     * desharía. {@link PrestamoService} ya los rechaza antes de llegar aquí.
+     * </p>
+     *
+     * @param anterior estado del préstamo antes de la modificación
+     * @param prestamo préstamo modificado
+     * @param fecha    fecha de la modificación
+     * @throws IllegalArgumentException si el préstamo ha cambiado de libro o de socio
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarCambios(EstadoPrestamo anterior, Prestamo prestamo, LocalDate fecha) {
+        if (!anterior.libroId().equals(prestamo.getLibro().getId())
+                || !anterior.socioId().equals(prestamo.getSocio().getId())) {
+            throw new IllegalArgumentException(
+                    "El préstamo " + prestamo.getId() + " no puede cambiar de libro ni de socio");
+        }
+        List<EventoPrestamo> eventos = new ArrayList<>();
+        if (!Objects.equals(anterior.fechaFin(), prestamo.getFechaFin())) {
+            eventos.add(evento(prestamo, EventoPrestamo.Tipo.RENOVACION, fecha));
+        }
+        if (anterior.estado() != prestamo.getEstado()) {
+            if (prestamo.getEstado() == Prestamo.Estado.RETRASADO) {
+                eventos.add(evento(prestamo, EventoPrestamo.Tipo.RETRASO, fecha));
+            } else if (prestamo.getEstado() == Prestamo.Estado.DEVUELTO) {
+                eventos.add(evento(prestamo, EventoPrestamo.Tipo.DEVOLUCION, prestamo.getFechaDevolucion()));
+            }
+        }
+        guardar(eventos);
+    }
+
+    /**
+     * Registra la baja de un préstamo.
+     *
+     * @param prestamo préstamo eliminado
+     * @param fecha    fecha de la baja
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrarBaja(Prestamo prestamo, LocalDate fecha) {
+        guardar(List.of(evento(prestamo, EventoPrestamo.Tipo.BAJA, fecha)));
+    }
+
+    /**
+     * Guarda eventos y los anota como pendientes hasta que termine la transacción.
+     *
+     * <p>
+     * Los ids se asignan al guardar, dentro del bloqueo, de modo que cualquier
+     * id asignado después es mayor que los ya anotados.
+     * </p>
+     */
+    private void guardar(List<EventoPrestamo> eventos) {
+        if (eventos.isEmpty()) {
+            return;
+        }
+        long primero;
+        registrandoEventos.lock();
+        try {
+            eventoRepository.saveAll(eventos);
+            primero = eventos.stream().mapToLong(EventoPrestamo::getId).min().orElseThrow();
+            long ultimo = eventos.stream().mapToLong(EventoPrestamo::getId).max().orElseThrow();
+            ultimoEventoAsignado = Math.max(ultimoEventoAsignado, ultimo);
+            eventosSinConfirmar.add(primero);
+        } finally {
+            registrandoEventos.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int estado) {
+                registrandoEventos.lock();
+                try {
+                    eventosSinConfirmar.remove(primero);
+                } finally {
+                    registrandoEventos.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Obtiene el historial completo de un préstamo.
+     *
+     * @param prestamoId identificador del préstamo
+     * @return eventos en orden
+     */
+    public List<EventoPrestamo> listarEventos(Long prestamoId) {
+        return eventoRepository.findByPrestamoIdOrderByIdAsc(prestamoId);
+    }
+
+    /**
+     * Cuenta las renovaciones de un préstamo.
+     *
+     * @param prestamoId identificador del préstamo
+     * @return número de renovaciones registradas
+     */
+    public long contarRenovaciones(Long prestamoId) {
+        return eventoRepository.countByPrestamoIdAndTipo(prestamoId, EventoPrestamo.Tipo.RENOVACION);
+    }
+
+    /**
+     * Registra el estado actual de los préstamos que aún no tienen historial.
+     *
+     * <p>
+     * Se ejecuta una vez tras desplegar el historial en una base de datos con
+     * préstamos: para cada préstamo sin eventos se añade su alta y, si procede,
+     * su retraso o devolución. Cada bloque bloquea sus préstamos para que una
+     * devolución simultánea no quede registrada antes que el alta.
+     * </p>
+     *
+     * @return número de préstamos registrados
+     */
+    public long registrarPrestamosSinHistorial() {
+        long total = 0;
+        long desde = 0;
+        while (true) {
+            long cursor = desde;
+            long[] bloque = transactionTemplate.execute(estado -> registrarBloqueSinHistorial(cursor));
+            if (bloque == null) {
+                log.info("Préstamos anteriores al historial registrados: {}", total);
+                return total;
+            }
+            desde = bloque[0];
+            total += bloque[1];
+        }
+    }
+
+    private long[] registrarBloqueSinHistorial(long desde) {
+        List<Long> ids = prestamoRepository.findIdsSinHistorial(desde, Limit.of(tamanioBloque));
+        if (ids.isEmpty()) {
+            return null;
+        }
+        List<Prestamo> prestamos = prestamoRepository.findAllParaActualizar(ids);
+        // Tras el bloqueo, un préstamo puede haber recibido ya su primer evento
+        Set<Long> conHistorial = eventoRepository.findPrestamosConHistorial(ids);
+        List<Prestamo> pendientes = prestamos.stream()
+                .filter(p -> !conHistorial.contains(p.getId()))
+                .toList();
+        registrarAltas(pendientes);
+        return new long[]{ids.get(ids.size() - 1), pendientes.size()};
+    }
+
+    /* =======================
+       ===== INSTANTÁNEAS ====
+       ======================= */
+
+    /**
+     * Incorpora a las instantáneas los eventos registrados desde la última actualización.
+     *
+     * <p>
+     * Los eventos se leen en orden de id por bloques, cada uno en su propia
+     * transacción. Solo se incluyen eventos hasta el último id confirmado (ver
+     * {@code ultimoEventoConfirmado}), de modo que una transacción lenta que
+     * confirme un evento con un id anterior no quede fuera.
+     * </p>
+     *
+     * @return número de eventos incorporados
+     */
+    public long actualizarInstantaneas() {
+        actualizandoInstantaneas.lock();
+        try {
+            return actualizarInstantaneasPendientes();
+        } finally {
+            actualizandoInstantaneas.unlock();
+        }
+    }
+
+    private long actualizarInstantaneasPendientes() {
+        long inicio = System.nanoTime();
+        long desde = instantaneaRepository.findUltimoEvento();
+        long hasta = ultimoEventoConfirmado(eventoRepository.findUltimoId());
+        long total = 0;
+        while (true) {
+            long cursor = desde;
+            long[] bloque = transactionTemplate.execute(estado -> actualizarBloqueInstantaneas(cursor, hasta));
+            if (bloque == null) {
+                break;
+            }
+            desde = bloque[0];
+            total += bloque[1];
+        }
+        log.info("Instantáneas de préstamos actualizadas: {} eventos hasta el {} ({} ms)",
+                total, desde, (System.nanoTime() - inicio) / 1_000_000);
+        return total;
+    }
+
+    /**
+     * Obtiene el último id de evento por debajo del cual todas las transacciones han terminado.
+     *
+     * <p>
+     * Si hay registros pendientes, es el anterior al menor de ellos. Si no, es
+     * el mayor id asignado o guardado: los ids que se asignen después serán
+     * mayores. {@code ultimoGuardado} debe leerse antes de llamar a este método.
+     * </p>
+     *
+     * @param ultimoGuardado mayor id de evento en la base de datos
+     * @return último id de evento que pueden incluir las instantáneas
+     */
+    private long ultimoEventoConfirmado(long ultimoGuardado) {
+        registrandoEventos.lock();
+        try {
+            return eventosSinConfirmar.isEmpty()
+                    ? Math.max(ultimoEventoAsignado, ultimoGuardado)
+                    : eventosSinConfirmar.first() - 1;
+        } finally {
+            registrandoEventos.unlock();
+        }
+    }
+
+    /**
+     * @return {@code [último evento, eventos aplicados]}, o {@code null} si no hay más eventos
+     */
+    private long[] actualizarBloqueInstantaneas(long desde, long hasta) {
+        List<EventoPrestamo> eventos = eventoRepository.findParaInstantanea(desde, hasta, Limit.of(tamanioBloque));
+        if (eventos.isEmpty()) {
+            return null;
+        }
+        Set<Long> prestamoIds = eventos.stream().map(EventoPrestamo::getPrestamoId).collect(Collectors.toSet());
+        Map<Long, InstantaneaPrestamo> instantaneas = instantaneaRepository.findAllById(prestamoIds).stream()
+                .collect(Collectors.toMap(InstantaneaPrestamo::getId, Function.identity()));
+
+        Map<Long, Historia> historias = new HashMap<>();
+        for (EventoPrestamo evento : eventos) {
+            historias.computeIfAbsent(evento.getPrestamoId(), id -> Historia.desde(instantaneas.get(id)))
+                    .aplicar(evento);
+        }
+
+        List<InstantaneaPrestamo> cambios = new ArrayList<>();
+        historias.forEach((id, historia) -> {
+            if (historia.completa()) {
+                InstantaneaPrestamo instantanea = instantaneas.computeIfAbsent(id, InstantaneaPrestamo::new);
+                instantanea.actualizar(historia.estado, historia.eliminado, historia.ultimoEvento);
+                cambios.add(instantanea);
+            }
+        });
+        instantaneaRepository.saveAll(cambios);
+        return new long[]{eventos.get(eventos.size() - 1).getId(), eventos.size()};
+    }
+
+    /* =======================
+       ==== RECONSTRUCCIÓN ===
+       ======================= */
+
+    /**
+     * Reconstruye el estado de todos los préstamos a partir del historial.
+     *
+     * <p>
+     * El rango de ids de préstamo se divide en particiones que se procesan en
+     * paralelo. Cada partición avanza por bloques: por cada bloque se leen las
+     * instantáneas, los eventos posteriores a ellas y el estado actual de la
+     * tabla, con una consulta para cada cosa.
+     * </p>
+     *
+     * <p>
+     * Con {@code aplicar = false} solo se cuentan las diferencias. Con
+     * {@code aplicar = true} se corrigen las filas (incluidas las que faltan o
+     * sobran) y al final se recalculan la disponibilidad de los libros y los
+     * contadores de los socios.
+     * </p>
+     *
+     * @param aplicar si se deben corregir las diferencias encontradas
+     * @return resumen de la reconstrucción
+     */
+    public ResultadoReconstruccion reconstruir(boolean aplicar) {
+        long inicio = System.nanoTime();
+
+        Object[] rango = eventoRepository.findRangoPrestamos().get(0);
+        if (rango[0] == null) {
+            return new ResultadoReconstruccion(0, 0, 0, 0, 0, 0);
+        }
+        long min = ((Number) rango[0]).longValue();
+        long max = ((Number) rango[1]).longValue();
+        int numero = (int) Math.min(particiones, max - min + 1);
+        long ancho = (max - min + numero) / numero;
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(numero);
+        long[] total = new long[4];
+        try {
+            List<Future<long[]>> resultados = new ArrayList<>();
+            for (int i = 0; i < numero; i++) {
+                long desde = min - 1 + i * ancho;
+                long hasta = Math.min(max, desde + ancho);
+                resultados.add(ejecutor.submit(() -> reconstruirParticion(desde, hasta, aplicar)));
+            }
+            for (Future<long[]> resultado : resultados) {
+                long[] parcial = resultado.get();
+                for (int i = 0; i < total.length; i++) {
+                    total[i] += parcial[i];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reconstrucción de préstamos interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en la reconstrucción de préstamos", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        if (total[3] > 0) {
+            transactionTemplate.executeWithoutResult(estado -> {
+                libroRepository.recalcularDisponibilidad(EN_CURSO);
+                socioRepository.recalcularPrestamosActivos(EN_CURSO);
+            });
+        }
+
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Reconstrucción de préstamos: {} revisados, {} incompletos, {} diferencias, {} corregidos, "
+                + "{} particiones ({} ms)", total[0], total[1], total[2], total[3], numero, milisegundos);
+        return new ResultadoReconstruccion(total[0], total[1], total[2], total[3], numero, milisegundos);
+    }
+
+    /**
+     * Reconstruye los préstamos con id en {@code (desde, hasta]}.
+     *
+     * @return {@code [revisados, incompletos, diferencias, corregidos]}
+     */
+    private long[] reconstruirParticion(long desde, long hasta, boolean aplicar) {
+        long[] total = new long[4];
+        long ultimo = desde;
+        while (true) {
+            long cursor = ultimo;
+            long[] bloque = transactionTemplate.execute(estado -> reconstruirBloque(cursor, hasta, aplicar));
+            if (bloque == null) {
+                return total;
+            }
+            ultimo = bloque[0];
+            for (int i = 0; i < total.length; i++) {
+                total[i] += bloque[i + 1];
+            }
+        }
+    }
+
+    /**
+     * @return {@code [último id, revisados, incompletos, diferencias, corregidos]},
+     * o {@code null} si la partición está terminada
+     */
+    private long[] reconstruirBloque(long desde, long hasta, boolean aplicar) {
+        List<Long> ids = eventoRepository.findPrestamosEnRango(desde, hasta, Limit.of(tamanioBloque));
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        Map<Long, Historia> historias = new HashMap<>();
+        for (InstantaneaPrestamo instantanea : instantaneaRepository.findAllById(ids)) {
+            historias.put(instantanea.getId(), Historia.desde(instantanea));
+        }
+        // Basta con leer desde la instantánea más antigua del bloque; cada historia descarta lo que ya tenía
+        long desdeEvento = ids.stream()
+                .mapToLong(id -> historias.containsKey(id) ? historias.get(id).ultimoEvento : 0)
+                .min()
+                .orElse(0);
+        for (EventoPrestamo evento : eventoRepository.findPorPrestamosDesde(ids, desdeEvento)) {
+            historias.computeIfAbsent(evento.getPrestamoId(), id -> Historia.desde(null)).aplicar(evento);
+        }
+
+        Map<Long, EstadoPrestamo> actuales = prestamoRepository.findEstados(ids).stream()
+                .collect(Collectors.toMap(EstadoPrestamo::prestamoId, Function.identity()));
+
+        long incompletos = 0;
+        long diferencias = 0;
+        long corregidos = 0;
+        for (Long id : ids) {
+            Historia historia = historias.get(id);
+            if (historia == null || !historia.completa()) {
+                incompletos++;
+                continue;
+            }
+            EstadoPrestamo esperado = historia.eliminado ? null : historia.estado;
+            EstadoPrestamo actual = actuales.get(id);
+            if (Objects.equals(esperado, actual)) {
+                continue;
+            }
+            diferencias++;
+            if (aplicar) {
+                corregir(id, esperado, actual);
+                corregidos++;
+            }
+        }
+        return new long[]{ids.get(ids.size() - 1), ids.size(), incompletos, diferencias, corregidos};
+    }
+
+    /**
+     * Deja la fila de un préstamo como indica su historial.
+     */
+    private void corregir(Long id, EstadoPrestamo esperado, EstadoPrestamo actual) {
+        if (esperado == null) {
+            prestamoRepository.deleteById(id);
+            return;
+        }
+        Long libroActivo = EN_CURSO.contains(esperado.estado()) ? esperado.libroId() : null;
+        if (actual == null) {
+            prestamoRepository.insertarConId(id, esperado.libroId(), esperado.socioId(), esperado.estado().name(),
+                    esperado.fechaPrestamo(), esperado.fechaFin(), esperado.fechaDevolucion(), libroActivo);
+            return;
+        }
+        Prestamo prestamo = prestamoRepository.getReferenceById(id);
+        prestamo.setEstado(esperado.estado());
+        prestamo.setFechaPrestamo(esperado.fechaPrestamo());
+        prestamo.setFechaFin(esperado.fechaFin());
+        prestamo.setFechaDevolucion(esperado.fechaDevolucion());
+        prestamo.setLibroActivo(libroActivo);
+    }
+
+    private static EventoPrestamo evento(Prestamo prestamo, EventoPrestamo.Tipo tipo, LocalDate fecha) {
+        return new EventoPrestamo(prestamo.getId(), prestamo.getLibro().getId(), prestamo.getSocio().getId(),
+                tipo, fecha, prestamo.getFechaFin());
+    }
+
+    /**
+     * Estado de un préstamo mientras se aplican sus eventos.
+     */
+    private static final class Historia {
+
+        private EstadoPrestamo estado;
+        private boolean eliminado;
+        private long ultimoEvento;
+
+        /**
+         * El historial no empieza por el alta: préstamo anterior al historial.
+         */
+        private boolean incompleta;
+
+        static Historia desde(InstantaneaPrestamo instantanea) {
+            Historia historia = new Historia();
+            if (instantanea != null) {
+                historia.estado = instantanea.getEstadoPrestamo();
+                historia.eliminado = instantanea.isEliminado();
+                historia.ultimoEvento = instantanea.getUltimoEvento();
+            }
+            return historia;
+        }
+
+        void aplicar(EventoPrestamo evento) {
+            if (evento.getId() <= ultimoEvento) {
+                return;
+            }
+            ultimoEvento = evento.getId();
+            switch (evento.getTipo()) {
+                case ALTA -> {
+                    estado = EstadoPrestamo.alta(evento);
+                    eliminado = false;
+                }
+                case BAJA -> eliminado = true;
+                default -> {
+                    if (estado == null) {
+                        incompleta = true;
+                    } else {
+                        estado = estado.aplicar(evento);
+                    }
+                }
+            }
+            if (estado == null) {
+                incompleta = true;
+            }
+        }
+
+        boolean completa() {
+            return estado != null && !incompleta;
+        }
+    }
+}
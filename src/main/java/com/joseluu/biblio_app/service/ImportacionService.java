@@ -0,0 +1,404 @@
+package com.joseluu.biblio_app.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joseluu.biblio_app.dto.ErrorFila;
+import com.joseluu.biblio_app.dto.ResultadoImportacion;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.PersistenceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Servicio de importación masiva de libros y socios.
+ *
+ * <p>
+ * Lee la entrada (array JSON o CSV) de forma incremental y guarda las filas en
+ * lotes de tamaño configurable, cada uno en su propia transacción y con
+ * inserciones agrupadas en lotes JDBC. Las filas erróneas (datos obligatorios
+ * ausentes, ISBN o email duplicados...) se informan individualmente sin
+ * abortar el resto de la importación.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Importación masiva de catálogos y socios.</li>
+ *   <li><b>V7</b> – Los libros importados se añaden al índice de búsqueda.</li>
+ *   <li><b>V7</b> – Los libros y socios importados se añaden al autocompletado.</li>
+ *   <li><b>V7</b> – ISBN y emails se guardan normalizados.</li>
+ * </ul>
+ *
+ * <p>
+ * Cada lote usa un {@link EntityManager} propio que se cierra al terminar, de
+ * modo que la memoria usada depende del tamaño de lote y no del tamaño del fichero.
+ * </p>
+ */
+@Service
+public class ImportacionService {
+
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final LibroRepository libroRepository;
+    private final SocioRepository socioRepository;
+    private final BusquedaService busquedaService;
+    private final SugerenciasService sugerenciasService;
+
+    /**
+     * Número de filas que se guardan en cada transacción.
+     *
+     * V7 - Configurable mediante {@code biblio.importacion.tamanio-lote}.
+     */
+    private final int tamanioLote;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param objectMapper         lector JSON
+     * @param entityManagerFactory factoría para crear un contexto de persistencia por lote
+     * @param libroRepository      repositorio de libros
+     * @param socioRepository      repositorio de socios
+     * @param busquedaService      índice de búsqueda del catálogo
+     * @param sugerenciasService   índice de autocompletado
+     * @param tamanioLote          filas por transacción
+     */
+    public ImportacionService(ObjectMapper objectMapper,
+                              EntityManagerFactory entityManagerFactory,
+                              LibroRepository libroRepository,
+                              SocioRepository socioRepository,
+                              BusquedaService busquedaService,
+                              SugerenciasService sugerenciasService,
+                              @Value("${biblio.importacion.tamanio-lote:500}") int tamanioLote) {
+        this.objectMapper = objectMapper;
+        this.entityManagerFactory = entityManagerFactory;
+        this.libroRepository = libroRepository;
+        this.socioRepository = socioRepository;
+        this.busquedaService = busquedaService;
+        this.sugerenciasService = sugerenciasService;
+        this.tamanioLote = tamanioLote;
+    }
+
+    /* =======================
+       ========== LIBROS =====
+       ======================= */
+
+    /**
+     * Importa libros desde un array JSON.
+     *
+     * @param entrada cuerpo con un array JSON de libros
+     * @return resumen de la importación
+     * @throws IOException si falla la lectura de la entrada
+     */
+    public ResultadoImportacion importarLibrosJson(InputStream entrada) throws IOException {
+        return importar(destino -> leerJson(entrada, Libro.class, destino), importadorLibros());
+    }
+
+    /**
+     * Importa libros desde CSV con cabecera {@code titulo,autor,isbn,categoria}.
+     *
+     * @param entrada cuerpo CSV
+     * @return resumen de la importación
+     * @throws IOException si falla la lectura de la entrada
+     */
+    public ResultadoImportacion importarLibrosCsv(InputStream entrada) throws IOException {
+        return importar(destino -> leerCsv(entrada, this::libroDesdeCsv, destino), importadorLibros());
+    }
+
+    private Importador<Libro> importadorLibros() {
+        return new Importador<>(
+                Libro::getIsbn,
+                libro -> {
+                    if (esVacio(libro.getTitulo()) || esVacio(libro.getAutor()) || esVacio(libro.getIsbn())) {
+                        return "Título, autor e ISBN son obligatorios";
+                    }
+                    if (libro.getIsbn().length() > 13) {
+                        return "El ISBN no puede superar los 13 caracteres";
+                    }
+                    return null;
+                },
+                libroRepository::findIsbnsExistentes,
+                libro -> {
+                    libro.setId(null);
+                    libro.setIsbn(Isbn.normalizar(libro.getIsbn()));
+                },
+                libro -> {
+                    busquedaService.indexar(libro);
+                    sugerenciasService.indexarLibro(libro);
+                },
+                "Ya existe un libro con ese ISBN");
+    }
+
+    private Libro libroDesdeCsv(Map<String, String> fila) {
+        Libro libro = new Libro();
+        libro.setTitulo(fila.get("titulo"));
+        libro.setAutor(fila.get("autor"));
+        libro.setIsbn(fila.get("isbn"));
+        libro.setCategoria(fila.get("categoria"));
+        return libro;
+    }
+
+    /* =======================
+       ========== SOCIOS =====
+       ======================= */
+
+    /**
+     * Importa socios desde un array JSON.
+     *
+     * @param entrada cuerpo con un array JSON de socios
+     * @return resumen de la importación
+     * @throws IOException si falla la lectura de la entrada
+     */
+    public ResultadoImportacion importarSociosJson(InputStream entrada) throws IOException {
+        return importar(destino -> leerJson(entrada, Socio.class, destino), importadorSocios());
+    }
+
+    /**
+     * Importa socios desde CSV con cabecera {@code nombre,email}.
+     *
+     * @param entrada cuerpo CSV
+     * @return resumen de la importación
+     * @throws IOException si falla la lectura de la entrada
+     */
+    public ResultadoImportacion importarSociosCsv(InputStream entrada) throws IOException {
+        return importar(destino -> leerCsv(entrada, this::socioDesdeCsv, destino), importadorSocios());
+    }
+
+    private Importador<Socio> importadorSocios() {
+        return new Importador<>(
+                Socio::getEmail,
+                socio -> esVacio(socio.getNombre()) || esVacio(socio.getEmail())
+                        ? "Nombre y email son obligatorios"
+                        : null,
+                socioRepository::findEmailsExistentes,
+                socio -> {
+                    socio.setId(null);
+                    socio.setEmail(SocioService.normalizarEmail(socio.getEmail()));
+                },
+                sugerenciasService::indexarSocio,
+                "Ya existe un socio con ese email");
+    }
+
+    private Socio socioDesdeCsv(Map<String, String> fila) {
+        Socio socio = new Socio();
+        socio.setNombre(fila.get("nombre"));
+        socio.setEmail(fila.get("email"));
+        return socio;
+    }
+
+    /* =========================
+       ========== PROCESO ======
+       ========================= */
+
+    private <T> ResultadoImportacion importar(LectorFilas<T> lector, Importador<T> importador) throws IOException {
+        Proceso<T> proceso = new Proceso<>(importador);
+        try {
+            lector.leer(proceso::aniadir);
+        } catch (JsonProcessingException | FormatoNoValidoException ex) {
+            // Se conserva lo ya importado y se informa de dónde se detuvo la lectura
+            proceso.detener(ex.getMessage());
+        }
+        proceso.escribirPendientes();
+        return proceso.resultado();
+    }
+
+    private <T> void leerJson(InputStream entrada, Class<T> tipo, Consumer<T> destino) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new FormatoNoValidoException("Se esperaba un array JSON");
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new FormatoNoValidoException("Se esperaba un objeto JSON en cada posición del array");
+                }
+                destino.accept(objectMapper.readValue(parser, tipo));
+            }
+        }
+    }
+
+    private <T> void leerCsv(InputStream entrada, Function<Map<String, String>, T> conversor,
+                             Consumer<T> destino) throws IOException {
+        LectorCsv lector = new LectorCsv(entrada);
+        Map<String, String> fila;
+        while ((fila = lector.siguiente()) != null) {
+            destino.accept(conversor.apply(fila));
+        }
+    }
+
+    /**
+     * Guarda un lote en una transacción propia.
+     *
+     * @param entidades entidades a insertar
+     * @return {@code null} si se confirmó la transacción o la causa del fallo
+     */
+    private String persistir(Collection<?> entidades) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            entidades.forEach(em::persist);
+            tx.commit();
+            return null;
+        } catch (PersistenceException ex) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            return NestedExceptionUtils.getMostSpecificCause(ex).getMessage();
+        } finally {
+            em.close();
+        }
+    }
+
+    private static boolean esVacio(String valor) {
+        return valor == null || valor.isBlank();
+    }
+
+    /**
+     * Fuente de filas que se entregan una a una al destino.
+     */
+    @FunctionalInterface
+    private interface LectorFilas<T> {
+        void leer(Consumer<T> destino) throws IOException;
+    }
+
+    /**
+     * Reglas de importación de un tipo de entidad.
+     *
+     * @param clave          obtiene la clave única de la fila
+     * @param validar        devuelve un mensaje de error o {@code null} si la fila es válida
+     * @param existentes     devuelve las claves que ya existen en la base de datos
+     * @param preparar       descarta cualquier id recibido o asignado en un intento fallido y normaliza la clave
+     * @param alGuardar      se ejecuta con cada entidad ya confirmada en la base de datos
+     * @param mensajeExiste  mensaje para claves ya registradas
+     */
+    private record Importador<T>(Function<T, String> clave,
+                                 Function<T, String> validar,
+                                 Function<Collection<String>, Set<String>> existentes,
+                                 Consumer<T> preparar,
+                                 Consumer<T> alGuardar,
+                                 String mensajeExiste) {
+    }
+
+    /**
+     * Error de formato de la entrada que impide seguir leyendo.
+     */
+    private static class FormatoNoValidoException extends RuntimeException {
+        FormatoNoValidoException(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    /**
+     * Estado de una importación en curso.
+     */
+    private final class Proceso<T> {
+
+        private final Importador<T> importador;
+        private final List<T> pendientes = new ArrayList<>();
+        private final List<Integer> filasPendientes = new ArrayList<>();
+        private final Set<String> clavesVistas = new HashSet<>();
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private int procesadas;
+        private int importadas;
+
+        private Proceso(Importador<T> importador) {
+            this.importador = importador;
+        }
+
+        void aniadir(T entidad) {
+            int fila = ++procesadas;
+            importador.preparar().accept(entidad);
+            String clave = importador.clave().apply(entidad);
+
+            String error = importador.validar().apply(entidad);
+            if (error != null) {
+                errores.add(new ErrorFila(fila, clave, error));
+                return;
+            }
+            if (!clavesVistas.add(clave)) {
+                errores.add(new ErrorFila(fila, clave, "Clave repetida en la entrada"));
+                return;
+            }
+
+            pendientes.add(entidad);
+            filasPendientes.add(fila);
+            if (pendientes.size() >= tamanioLote) {
+                escribirPendientes();
+            }
+        }
+
+        void detener(String motivo) {
+            errores.add(new ErrorFila(procesadas + 1, null, "Importación detenida: " + motivo));
+        }
+
+        void escribirPendientes() {
+            if (pendientes.isEmpty()) {
+                return;
+            }
+
+            // Se descartan de antemano las claves que ya existen (una consulta por lote)
+            Set<String> existentes = importador.existentes().apply(
+                    pendientes.stream().map(importador.clave()).toList());
+            List<T> nuevas = new ArrayList<>();
+            List<Integer> filasNuevas = new ArrayList<>();
+            for (int i = 0; i < pendientes.size(); i++) {
+                T entidad = pendientes.get(i);
+                String clave = importador.clave().apply(entidad);
+                if (existentes.contains(clave)) {
+                    errores.add(new ErrorFila(filasPendientes.get(i), clave, importador.mensajeExiste()));
+                } else {
+                    nuevas.add(entidad);
+                    filasNuevas.add(filasPendientes.get(i));
+                }
+            }
+            pendientes.clear();
+            filasPendientes.clear();
+
+            if (nuevas.isEmpty()) {
+                return;
+            }
+            if (persistir(nuevas) == null) {
+                importadas += nuevas.size();
+                nuevas.forEach(importador.alGuardar());
+                return;
+            }
+
+            // Si el lote falla (p. ej. una clave insertada en paralelo), se aísla la fila culpable
+            for (int i = 0; i < nuevas.size(); i++) {
+                T entidad = nuevas.get(i);
+                importador.preparar().accept(entidad);
+                String error = persistir(List.of(entidad));
+                if (error == null) {
+                    importadas++;
+                    importador.alGuardar().accept(entidad);
+                } else {
+                    errores.add(new ErrorFila(filasNuevas.get(i), importador.clave().apply(entidad),
+                            "No se pudo guardar: " + error));
+                }
+            }
+        }
+
+        ResultadoImportacion resultado() {
+            return new ResultadoImportacion(procesadas, importadas, errores);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.Sugerencia;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice ordenado de claves de texto para autocompletado por prefijo.
+ *
+ * <p>
+ * Cada elemento se registra con varias claves normalizadas: el texto completo
+ * y el texto a partir de cada palabra, de modo que {@code "anillos"} encuentra
+ * "El Señor de los Anillos". Las claves se guardan ordenadas y una búsqueda es
+ * un recorrido de rango que se detiene al reunir las sugerencias pedidas: su
+ * coste no depende del número de elementos indexados.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Autocompletado de libros y socios.</li>
+ * </ul>
+ */
+class IndicePrefijos {
+
+    /**
+     * Separa la clave del id para permitir claves repetidas.
+     */
+    private static final char SEPARADOR = '\u0000';
+
+    /**
+     * Número máximo de palabras desde las que se puede empezar a escribir un texto.
+     */
+    private static final int MAX_PALABRAS = 8;
+
+    private final ConcurrentSkipListMap<String, Sugerencia> claves = new ConcurrentSkipListMap<>();
+    private final Map<Long, List<String>> clavesPorId = new ConcurrentHashMap<>();
+
+    /**
+     * Añade o sustituye un elemento.
+     *
+     * @param sugerencia sugerencia que se devolverá
+     * @param textos     textos por los que se puede encontrar (título, ISBN, nombre, email...)
+     */
+    synchronized void poner(Sugerencia sugerencia, Collection<String> textos) {
+        quitar(sugerencia.id());
+
+        List<String> nuevas = new ArrayList<>();
+        for (String texto : textos) {
+            List<String> palabras = BusquedaService.terminosDe(texto);
+            for (int i = 0; i < palabras.size() && i < MAX_PALABRAS; i++) {
+                String clave = String.join(" ", palabras.subList(i, palabras.size()))
+                        + SEPARADOR + sugerencia.id();
+                claves.put(clave, sugerencia);
+                nuevas.add(clave);
+            }
+        }
+        clavesPorId.put(sugerencia.id(), nuevas);
+    }
+
+    /**
+     * Quita un elemento.
+     *
+     * @param id identificador del elemento
+     */
+    synchronized void quitar(Long id) {
+        List<String> anteriores = clavesPorId.remove(id);
+        if (anteriores != null) {
+            anteriores.forEach(claves::remove);
+        }
+    }
+
+    /**
+     * Obtiene los elementos con alguna clave que empieza por el texto indicado.
+     *
+     * @param prefijo texto escrito por el usuario
+     * @param limite  número máximo de sugerencias
+     * @return sugerencias sin repetir, en orden alfabético de la clave
+     */
+    List<Sugerencia> buscar(String prefijo, int limite) {
+        String normalizado = String.join(" ", BusquedaService.terminosDe(prefijo));
+        if (normalizado.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Sugerencia> encontradas = new LinkedHashMap<>();
+        for (Sugerencia sugerencia : claves.subMap(normalizado, normalizado + Character.MAX_VALUE).values()) {
+            encontradas.putIfAbsent(sugerencia.id(), sugerencia);
+            if (encontradas.size() >= limite) {
+                break;
+            }
+        }
+        return new ArrayList<>(encontradas.values());
+    }
+}
@@ -0,0 +1,63 @@
+package com.joseluu.biblio_app.service;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalización de ISBN a su forma canónica de 13 dígitos.
+ *
+ * <p>
+ * Se eliminan guiones, espacios y cualquier otro separador, y un ISBN-10 se
+ * convierte a ISBN-13 con el prefijo {@code 978} y su dígito de control
+ * EAN-13. Así {@code 84-376-0494-X}, {@code 8437604947} y
+ * {@code 978-84-376-0494-7} son la misma clave.
+ * </p>
+ *
+ * <p>
+ * No se valida el dígito de control del valor recibido: la normalización no
+ * rechaza datos ya registrados, solo los lleva a una forma comparable.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Clave normalizada para búsquedas por ISBN.</li>
+ * </ul>
+ */
+public final class Isbn {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^0-9Xx]");
+    private static final Pattern ISBN_10 = Pattern.compile("\\d{9}[\\dX]");
+
+    private Isbn() {
+    }
+
+    /**
+     * Normaliza un ISBN.
+     *
+     * @param isbn ISBN tal como se ha escrito o leído (puede ser {@code null})
+     * @return ISBN-13 sin separadores, o el valor sin separadores si no tiene
+     * formato de ISBN-10; {@code null} si se recibe {@code null}
+     */
+    public static String normalizar(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String limpio = SEPARADORES.matcher(isbn).replaceAll("").toUpperCase();
+        if (ISBN_10.matcher(limpio).matches()) {
+            String base = "978" + limpio.substring(0, 9);
+            return base + digitoControl(base);
+        }
+        return limpio;
+    }
+
+    /**
+     * Dígito de control EAN-13 de los 12 primeros dígitos.
+     */
+    private static int digitoControl(String doceDigitos) {
+        int suma = 0;
+        for (int i = 0; i < 12; i++) {
+            int digito = doceDigitos.charAt(i) - '0';
+            suma += i % 2 == 0 ? digito : digito * 3;
+        }
+        return (10 - suma % 10) % 10;
+    }
+}
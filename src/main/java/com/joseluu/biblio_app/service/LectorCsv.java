@@ -0,0 +1,111 @@
+package com.joseluu.biblio_app.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lector sencillo de ficheros CSV, fila a fila.
+ *
+ * <p>
+ * La primera línea es la cabecera con los nombres de las columnas. Los campos
+ * se separan por comas y pueden ir entre comillas dobles (las comillas dentro
+ * de un campo se escriben duplicadas). No se admiten saltos de línea dentro de
+ * un campo.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Importación masiva de libros y socios desde CSV.</li>
+ * </ul>
+ *
+ * <p>
+ * Nunca carga el fichero completo: cada llamada a {@link #siguiente()} lee una línea.
+ * </p>
+ */
+class LectorCsv {
+
+    private final BufferedReader lector;
+    private final List<String> cabecera;
+
+    /**
+     * Abre el lector y lee la cabecera.
+     *
+     * @param entrada flujo CSV codificado en UTF-8
+     * @throws IOException si falla la lectura
+     */
+    LectorCsv(InputStream entrada) throws IOException {
+        this.lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String primera = lector.readLine();
+        if (primera == null) {
+            this.cabecera = List.of();
+        } else {
+            // Se ignora la marca BOM que añaden algunas hojas de cálculo
+            if (primera.startsWith("\uFEFF")) {
+                primera = primera.substring(1);
+            }
+            this.cabecera = separar(primera).stream()
+                    .map(c -> c.trim().toLowerCase())
+                    .toList();
+        }
+    }
+
+    /**
+     * Lee la siguiente fila no vacía.
+     *
+     * @return valores de la fila indexados por nombre de columna, o {@code null} al final
+     * @throws IOException si falla la lectura
+     */
+    Map<String, String> siguiente() throws IOException {
+        String linea;
+        do {
+            linea = lector.readLine();
+            if (linea == null) {
+                return null;
+            }
+        } while (linea.isBlank());
+
+        List<String> valores = separar(linea);
+        Map<String, String> fila = new HashMap<>();
+        for (int i = 0; i < cabecera.size() && i < valores.size(); i++) {
+            String valor = valores.get(i).trim();
+            fila.put(cabecera.get(i), valor.isEmpty() ? null : valor);
+        }
+        return fila;
+    }
+
+    private static List<String> separar(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+}
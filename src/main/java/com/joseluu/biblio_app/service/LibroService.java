@@ -1,9 +1,18 @@
 package com.joseluu.biblio_app.service;
 
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.dto.Pagina;
 import com.joseluu.biblio_app.entity.Libro;
 import com.joseluu.biblio_app.exception.LibroNoEncontradoException;
+import com.joseluu.biblio_app.exception.PrestamoNoPermitidoException;
 import com.joseluu.biblio_app.repository.LibroRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -20,6 +29,13 @@ import java.util.List;
  *   <li><b>V1</b> – Acceso básico a datos y repositorios JPA.</li>
  *   <li><b>V4</b> – CRUD completo de libros.</li>
  *   <li><b>V6</b> – Gestión de errores mediante excepciones personalizadas.</li>
+ *   <li><b>V7</b> – Listado paginado por cursor para catálogos grandes.</li>
+ *   <li><b>V7</b> – Consulta de libros disponibles basada en el índice de disponibilidad.</li>
+ *   <li><b>V7</b> – Caché de libros por id, invalidada en modificaciones y bajas.</li>
+ *   <li><b>V7</b> – Actualización de los índices de búsqueda y autocompletado en altas, modificaciones y bajas.</li>
+ *   <li><b>V7</b> – Búsqueda por ISBN normalizado; los ISBN se guardan normalizados.</li>
+ *   <li><b>V7</b> – La baja de un libro da de baja sus préstamos y se rechaza si tiene alguno en curso.</li>
+ *   <li><b>V7</b> – Las modificaciones se aplican sobre el libro guardado.</li>
  * </ul>
  *
  * <p>
@@ -40,13 +56,63 @@ public class LibroService {
      */
     private final LibroRepository libroRepository;
 
+    /**
+     * Índice de búsqueda del catálogo.
+     *
+     * V7 - Se actualiza con cada alta, modificación y baja.
+     */
+    private final BusquedaService busquedaService;
+
+    /**
+     * Índice de autocompletado de libros.
+     *
+     * V7 - Se actualiza con cada alta, modificación y baja.
+     */
+    private final SugerenciasService sugerenciasService;
+
+    /**
+     * Servicio de préstamos.
+     *
+     * V7 - Da de baja los préstamos de un libro antes de eliminarlo.
+     */
+    private final PrestamoService prestamoService;
+
+    /**
+     * Tamaño de página usado cuando el cliente no indica ninguno.
+     *
+     * V7 - Configurable mediante {@code biblio.paginacion.tamanio-defecto}.
+     */
+    private final int tamanioPorDefecto;
+
+    /**
+     * Tamaño de página máximo que puede solicitar un cliente.
+     *
+     * V7 - Configurable mediante {@code biblio.paginacion.tamanio-maximo}.
+     */
+    private final int tamanioMaximo;
+
     /**
      * Constructor con inyección de dependencias.
      *
-     * @param libroRepository repositorio de libros
+     * @param libroRepository    repositorio de libros
+     * @param busquedaService    índice de búsqueda del catálogo
+     * @param sugerenciasService índice de autocompletado
+     * @param prestamoService    servicio de préstamos
+     * @param tamanioPorDefecto  tamaño de página por defecto
+     * @param tamanioMaximo      tamaño de página máximo
      */
-    public LibroService(LibroRepository libroRepository) {
+    public LibroService(LibroRepository libroRepository,
+                        BusquedaService busquedaService,
+                        SugerenciasService sugerenciasService,
+                        PrestamoService prestamoService,
+                        @Value("${biblio.paginacion.tamanio-defecto:50}") int tamanioPorDefecto,
+                        @Value("${biblio.paginacion.tamanio-maximo:500}") int tamanioMaximo) {
         this.libroRepository = libroRepository;
+        this.busquedaService = busquedaService;
+        this.sugerenciasService = sugerenciasService;
+        this.prestamoService = prestamoService;
+        this.tamanioPorDefecto = tamanioPorDefecto;
+        this.tamanioMaximo = tamanioMaximo;
     }
 
     /**
@@ -62,6 +128,61 @@ public class LibroService {
         return libroRepository.findAll();
     }
 
+    /**
+     * Obtiene una página del catálogo a partir de un cursor de continuación.
+     *
+     * <p>
+     * V7 - Paginación por clave sobre el id: cada llamada lee como mucho
+     * {@code tamanio + 1} filas, sea cual sea el tamaño del catálogo. La fila
+     * adicional solo se usa para saber si existe una página siguiente.
+     * </p>
+     *
+     * @param cursor  cursor devuelto por la página anterior o {@code null} para la primera
+     * @param tamanio tamaño de página solicitado o {@code null} para el valor por defecto
+     * @return página de libros ordenados por id
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public Pagina<Libro> listarLibrosPaginados(String cursor, Integer tamanio) {
+        int limite = Pagina.ajustarTamanio(tamanio, tamanioPorDefecto, tamanioMaximo);
+        long desde = Pagina.decodificarCursor(cursor);
+        List<Libro> filas = libroRepository.findByIdGreaterThanOrderByIdAsc(desde, Limit.of(limite + 1));
+        return Pagina.de(filas, limite, Libro::getId);
+    }
+
+    /**
+     * Obtiene todos los libros disponibles para préstamo.
+     *
+     * <p>
+     * V7 - Usa la columna {@code disponible}, mantenida por {@link PrestamoService},
+     * en lugar de recorrer los préstamos de cada libro.
+     * </p>
+     *
+     * @return libros sin préstamo en curso
+     */
+    public List<Libro> listarLibrosDisponibles() {
+        return libroRepository.findByDisponibleTrueOrderByIdAsc();
+    }
+
+    /**
+     * Obtiene una página de libros disponibles para préstamo.
+     *
+     * <p>
+     * V7 - Paginación por cursor sobre el índice de disponibilidad.
+     * </p>
+     *
+     * @param cursor  cursor devuelto por la página anterior o {@code null} para la primera
+     * @param tamanio tamaño de página solicitado o {@code null} para el valor por defecto
+     * @return página de libros disponibles ordenados por id
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public Pagina<Libro> listarLibrosDisponiblesPaginados(String cursor, Integer tamanio) {
+        int limite = Pagina.ajustarTamanio(tamanio, tamanioPorDefecto, tamanioMaximo);
+        long desde = Pagina.decodificarCursor(cursor);
+        List<Libro> filas = libroRepository.findByDisponibleTrueAndIdGreaterThanOrderByIdAsc(
+                desde, Limit.of(limite + 1));
+        return Pagina.de(filas, limite, Libro::getId);
+    }
+
     /**
      * Obtiene un libro a partir de su identificador.
      *
@@ -71,17 +192,42 @@ public class LibroService {
      * <p>
      * V6 - Control de errores mediante excepción personalizada.
      * </p>
+     * <p>
+     * V7 - El resultado se guarda en la caché {@code libros}; los libros
+     * inexistentes no se cachean.
+     * </p>
      *
      * @param id identificador del libro
      * @return libro encontrado
      * @throws LibroNoEncontradoException si no existe un libro con ese id
      */
+    @Cacheable(cacheNames = CacheConfig.LIBROS, key = "#id")
     public Libro obtenerLibroPorId(Long id) {
         return libroRepository.findById(id)
                 .orElseThrow(() ->
                         new LibroNoEncontradoException("Libro con id " + id + " no encontrado"));
     }
 
+    /**
+     * Obtiene el id de un libro a partir de su ISBN.
+     *
+     * <p>
+     * V7 - El ISBN se normaliza antes de buscarlo ({@link Isbn#normalizar}),
+     * así que se aceptan guiones y la forma ISBN-10. La búsqueda usa la caché
+     * {@code isbn-libros}; el libro se obtiene después con
+     * {@link #obtenerLibroPorId(Long)} y su propia caché.
+     * </p>
+     *
+     * @param isbn ISBN tal como lo lee el escáner o lo escribe el usuario
+     * @return id del libro
+     * @throws LibroNoEncontradoException si no existe un libro con ese ISBN
+     */
+    public Long obtenerIdPorIsbn(String isbn) {
+        return libroRepository.findIdByIsbn(Isbn.normalizar(isbn))
+                .orElseThrow(() ->
+                        new LibroNoEncontradoException("Libro con ISBN " + isbn + " no encontrado"));
+    }
+
     /**
      * Guarda o actualiza un libro en la base de datos.
      *
@@ -93,12 +239,43 @@ public class LibroService {
      * <p>
      * V4 - Alta y modificación de libros.
      * </p>
+     * <p>
+     * V7 - El ISBN se guarda normalizado. Como una modificación puede cambiar
+     * el ISBN, se vacía la caché {@code isbn-libros}. Los ISBN guardados antes
+     * de normalizarlos los corrige la migración {@code V4__NormalizarIsbnYEmail}.
+     * </p>
+     * <p>
+     * V7 - Una modificación copia los datos del formulario sobre el libro
+     * guardado en lugar de fusionar el objeto recibido, que no trae sus
+     * préstamos: fusionarlo dejaba huérfana la colección y la edición fallaba.
+     * </p>
      *
      * @param libro libro a guardar
      * @return libro persistido
+     * @throws LibroNoEncontradoException si se modifica un libro inexistente
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.LIBROS, key = "#libro.id", condition = "#libro.id != null"),
+            @CacheEvict(cacheNames = CacheConfig.ISBN_LIBROS, allEntries = true, condition = "#libro.id != null")
+    })
+    @Transactional
     public Libro guardarLibro(Libro libro) {
-        return libroRepository.save(libro);
+        libro.setIsbn(Isbn.normalizar(libro.getIsbn()));
+        Libro guardado;
+        if (libro.getId() == null) {
+            guardado = libroRepository.save(libro);
+        } else {
+            guardado = libroRepository.findById(libro.getId())
+                    .orElseThrow(() ->
+                            new LibroNoEncontradoException("Libro con id " + libro.getId() + " no encontrado"));
+            guardado.setTitulo(libro.getTitulo());
+            guardado.setAutor(libro.getAutor());
+            guardado.setCategoria(libro.getCategoria());
+            guardado.setIsbn(libro.getIsbn());
+        }
+        busquedaService.indexar(guardado);
+        sugerenciasService.indexarLibro(guardado);
+        return guardado;
     }
 
     /**
@@ -115,13 +292,29 @@ public class LibroService {
      * <p>
      * V6 - Gestión de errores si el libro no existe.
      * </p>
+     * <p>
+     * V7 - El libro se bloquea, de modo que no puede recibir un préstamo
+     * mientras se elimina, y sus préstamos se dan de baja con
+     * {@link PrestamoService#eliminarPrestamosDeLibro(Long)}: si tiene alguno
+     * en curso no se elimina.
+     * </p>
      *
      * @param id identificador del libro a eliminar
-     * @throws LibroNoEncontradoException si el libro no existe
+     * @throws LibroNoEncontradoException   si el libro no existe
+     * @throws PrestamoNoPermitidoException si el libro tiene préstamos en curso
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.LIBROS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.ISBN_LIBROS, allEntries = true)
+    })
+    @Transactional
     public void eliminarLibro(Long id) {
         // V6 - Validación de existencia previa
-        Libro libro = obtenerLibroPorId(id);
+        Libro libro = libroRepository.findAllParaActualizar(List.of(id)).stream().findFirst()
+                .orElseThrow(() -> new LibroNoEncontradoException("Libro con id " + id + " no encontrado"));
+        prestamoService.eliminarPrestamosDeLibro(id);
         libroRepository.delete(libro);
+        busquedaService.eliminar(id);
+        sugerenciasService.eliminarLibro(id);
     }
 }
@@ -0,0 +1,323 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.MensajeNotificacion;
+import com.joseluu.biblio_app.entity.Notificacion;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.repository.NotificacionRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bandeja de salida de notificaciones a los socios.
+ *
+ * <p>
+ * Las operaciones de préstamo solo insertan o actualizan filas de
+ * {@link Notificacion} dentro de su propia transacción, sin esperar a ningún
+ * servidor de correo: el coste para la petición es el de una inserción más.
+ * El envío lo hace el despachador en segundo plano, que reclama bloques de
+ * notificaciones con {@link #reclamar}, las entrega con el
+ * {@link EmisorNotificaciones} configurado y confirma o reprograma cada una.
+ * </p>
+ *
+ * <p>
+ * Cada alta de préstamo genera una confirmación inmediata y un recordatorio
+ * programado {@code biblio.notificaciones.recordatorio.dias-antelacion} días
+ * antes de la fecha fin. Las renovaciones mueven el recordatorio y las
+ * devoluciones y bajas lo descartan.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Bandeja de salida transaccional y recordatorios de vencimiento.</li>
+ * </ul>
+ */
+@Service
+public class NotificacionService {
+
+    private final NotificacionRepository notificacionRepository;
+    private final PrestamoRepository prestamoRepository;
+
+    /**
+     * Días antes de la fecha fin en que se envía el recordatorio.
+     */
+    private final int diasAntelacion;
+
+    /**
+     * Hora del día (zona del servidor) a la que se programan los recordatorios.
+     */
+    private final int horaRecordatorio;
+
+    /**
+     * Intentos de envío antes de dar una notificación por fallida.
+     */
+    private final int maximoIntentos;
+
+    /**
+     * Espera tras el primer fallo; se duplica en cada fallo siguiente.
+     */
+    private final Duration esperaInicial;
+
+    /**
+     * Espera máxima entre dos intentos.
+     */
+    private final Duration esperaMaxima;
+
+    /**
+     * Tiempo que una notificación reclamada queda reservada para su despachador.
+     */
+    private final Duration plazoReserva;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param notificacionRepository repositorio de la bandeja de salida
+     * @param prestamoRepository     repositorio de préstamos
+     * @param diasAntelacion         días de antelación de los recordatorios
+     * @param horaRecordatorio       hora del día de los recordatorios
+     * @param maximoIntentos         intentos de envío por notificación
+     * @param esperaInicial          espera tras el primer fallo
+     * @param esperaMaxima           espera máxima entre intentos
+     * @param plazoReserva           plazo de reserva de una notificación reclamada
+     */
+    public NotificacionService(NotificacionRepository notificacionRepository,
+                               PrestamoRepository prestamoRepository,
+                               @Value("${biblio.notificaciones.recordatorio.dias-antelacion:2}") int diasAntelacion,
+                               @Value("${biblio.notificaciones.recordatorio.hora:9}") int horaRecordatorio,
+                               @Value("${biblio.notificaciones.maximo-intentos:8}") int maximoIntentos,
+                               @Value("${biblio.notificaciones.espera-inicial:30s}") Duration esperaInicial,
+                               @Value("${biblio.notificaciones.espera-maxima:1h}") Duration esperaMaxima,
+                               @Value("${biblio.notificaciones.plazo-reserva:5m}") Duration plazoReserva) {
+        this.notificacionRepository = notificacionRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.diasAntelacion = diasAntelacion;
+        this.horaRecordatorio = horaRecordatorio;
+        this.maximoIntentos = maximoIntentos;
+        this.esperaInicial = esperaInicial;
+        this.esperaMaxima = esperaMaxima;
+        this.plazoReserva = plazoReserva;
+    }
+
+    /* =======================
+       ====== ENCOLADO =======
+       ======================= */
+
+    /**
+     * Encola la confirmación y el recordatorio de uno o varios préstamos recién creados.
+     *
+     * <p>
+     * Los préstamos ya devueltos o vencidos no reciben recordatorio.
+     * </p>
+     *
+     * @param prestamos préstamos creados (con id)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void encolarAltas(Collection<Prestamo> prestamos) {
+        Instant ahora = Instant.now();
+        LocalDate hoy = LocalDate.now();
+        List<Notificacion> notificaciones = new ArrayList<>();
+        for (Prestamo p : prestamos) {
+            notificaciones.add(new Notificacion(p.getId(), Notificacion.Tipo.CONFIRMACION_PRESTAMO, ahora));
+            if (p.getEstado() == Prestamo.Estado.ACTIVO && !p.getFechaFin().isBefore(hoy)) {
+                notificaciones.add(new Notificacion(p.getId(), Notificacion.Tipo.RECORDATORIO_VENCIMIENTO,
+                        momentoRecordatorio(p.getFechaFin(), ahora)));
+            }
+        }
+        notificacionRepository.saveAll(notificaciones);
+    }
+
+    /**
+     * Ajusta el recordatorio de un préstamo a su nueva fecha fin.
+     *
+     * <p>
+     * Si el recordatorio anterior ya se había enviado o descartado se encola
+     * uno nuevo.
+     * </p>
+     *
+     * @param prestamo préstamo con la fecha fin actualizada
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reprogramarRecordatorio(Prestamo prestamo) {
+        Instant momento = momentoRecordatorio(prestamo.getFechaFin(), Instant.now());
+        int actualizadas = notificacionRepository.reprogramar(prestamo.getId(),
+                Notificacion.Tipo.RECORDATORIO_VENCIMIENTO, Notificacion.Estado.PENDIENTE, momento);
+        if (actualizadas == 0) {
+            notificacionRepository.save(new Notificacion(prestamo.getId(),
+                    Notificacion.Tipo.RECORDATORIO_VENCIMIENTO, momento));
+        }
+    }
+
+    /**
+     * Descarta los recordatorios pendientes de préstamos devueltos o eliminados.
+     *
+     * @param prestamoIds préstamos
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void descartarRecordatorios(Collection<Long> prestamoIds) {
+        notificacionRepository.descartar(prestamoIds, Notificacion.Tipo.RECORDATORIO_VENCIMIENTO,
+                Notificacion.Estado.PENDIENTE, Notificacion.Estado.DESCARTADA, Instant.now());
+    }
+
+    /* =======================
+       ======== ENVÍO ========
+       ======================= */
+
+    /**
+     * Reclama el siguiente bloque de notificaciones listas y compone sus mensajes.
+     *
+     * <p>
+     * Las notificaciones reclamadas suman un intento y quedan reservadas
+     * durante {@code biblio.notificaciones.plazo-reserva}; si el despachador no
+     * confirma el envío en ese plazo (por ejemplo, porque la aplicación se ha
+     * detenido) se vuelven a reclamar. Los recordatorios de préstamos que ya no
+     * están activos se descartan aquí.
+     * </p>
+     *
+     * @param maximo número máximo de notificaciones
+     * @return mensajes a enviar
+     */
+    @Transactional
+    public List<MensajeNotificacion> reclamar(int maximo) {
+        Instant ahora = Instant.now();
+        List<Notificacion> bloque = notificacionRepository.findParaEnviar(
+                Notificacion.Estado.PENDIENTE, ahora, Limit.of(maximo));
+        if (bloque.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Prestamo> prestamos = prestamoRepository.findAllConLibroYSocio(
+                        bloque.stream().map(Notificacion::getPrestamoId).collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Prestamo::getId, Function.identity()));
+
+        Instant reserva = ahora.plus(plazoReserva);
+        List<MensajeNotificacion> mensajes = new ArrayList<>();
+        for (Notificacion n : bloque) {
+            Prestamo p = prestamos.get(n.getPrestamoId());
+            boolean vigente = p != null
+                    && p.getSocio().getEmail() != null
+                    && (n.getTipo() != Notificacion.Tipo.RECORDATORIO_VENCIMIENTO
+                    || p.getEstado() == Prestamo.Estado.ACTIVO);
+            if (!vigente) {
+                n.descartar();
+                continue;
+            }
+            n.reclamar(reserva);
+            mensajes.add(componer(n, p));
+        }
+        return mensajes;
+    }
+
+    /**
+     * Marca como enviadas varias notificaciones.
+     *
+     * @param ids notificaciones entregadas
+     */
+    @Transactional
+    public void confirmarEnvios(Collection<Long> ids) {
+        notificacionRepository.marcar(ids, Notificacion.Estado.ENVIADA, Instant.now());
+    }
+
+    /**
+     * Registra un envío fallido y programa el siguiente intento.
+     *
+     * @param id    notificación
+     * @param error descripción del error
+     * @return {@code true} si se volverá a intentar, {@code false} si se da por fallida
+     */
+    @Transactional
+    public boolean registrarFallo(Long id, String error) {
+        Notificacion n = notificacionRepository.findById(id).orElse(null);
+        if (n == null || n.getEstado() != Notificacion.Estado.PENDIENTE) {
+            return false;
+        }
+        if (n.getIntentos() >= maximoIntentos) {
+            n.registrarFallo(error, null);
+            return false;
+        }
+        Duration espera = calcularEspera(n.getIntentos(), esperaInicial, esperaMaxima);
+        // Hasta un 20 % de variación para que los reintentos no lleguen todos a la vez
+        long variacion = ThreadLocalRandom.current().nextLong(espera.toMillis() / 5 + 1);
+        n.registrarFallo(error, Instant.now().plus(espera).plusMillis(variacion));
+        return true;
+    }
+
+    /**
+     * Borra las notificaciones procesadas hace más de {@code retencion}.
+     *
+     * @param retencion antigüedad mínima de las notificaciones borradas
+     * @return número de notificaciones borradas
+     */
+    @Transactional
+    public int purgar(Duration retencion) {
+        return notificacionRepository.borrarProcesadas(
+                EnumSet.of(Notificacion.Estado.ENVIADA, Notificacion.Estado.DESCARTADA, Notificacion.Estado.FALLIDA),
+                Instant.now().minus(retencion));
+    }
+
+    /**
+     * Cuenta las notificaciones pendientes de envío.
+     *
+     * @return notificaciones pendientes (programadas o listas)
+     */
+    public long contarPendientes() {
+        return notificacionRepository.countByEstado(Notificacion.Estado.PENDIENTE);
+    }
+
+    /**
+     * Espera antes del siguiente intento tras {@code intentos} intentos fallidos.
+     *
+     * @param intentos intentos ya realizados (al menos 1)
+     * @param inicial  espera tras el primer fallo
+     * @param maxima   espera máxima
+     * @return {@code inicial * 2^(intentos - 1)}, como mucho {@code maxima}
+     */
+    public static Duration calcularEspera(int intentos, Duration inicial, Duration maxima) {
+        int exponente = Math.min(Math.max(intentos - 1, 0), 30);
+        Duration espera = inicial.multipliedBy(1L << exponente);
+        return espera.compareTo(maxima) > 0 ? maxima : espera;
+    }
+
+    /**
+     * Momento de envío del recordatorio de un préstamo; nunca anterior a {@code ahora}.
+     */
+    private Instant momentoRecordatorio(LocalDate fechaFin, Instant ahora) {
+        Instant momento = fechaFin.minusDays(diasAntelacion)
+                .atTime(horaRecordatorio, 0)
+                .atZone(ZoneId.systemDefault())
+                .toInstant();
+        return momento.isBefore(ahora) ? ahora : momento;
+    }
+
+    private static MensajeNotificacion componer(Notificacion n, Prestamo p) {
+        String titulo = p.getLibro().getTitulo();
+        String asunto;
+        String cuerpo;
+        if (n.getTipo() == Notificacion.Tipo.CONFIRMACION_PRESTAMO) {
+            asunto = "Préstamo de «" + titulo + "»";
+            cuerpo = "Hola, " + p.getSocio().getNombre() + ".\n\n"
+                    + "Has tomado prestado «" + titulo + "» el " + p.getFechaPrestamo() + ".\n"
+                    + "Fecha límite de devolución: " + p.getFechaFin() + ".";
+        } else {
+            asunto = "Recordatorio: devuelve «" + titulo + "» antes del " + p.getFechaFin();
+            cuerpo = "Hola, " + p.getSocio().getNombre() + ".\n\n"
+                    + "El préstamo de «" + titulo + "» vence el " + p.getFechaFin() + ".\n"
+                    + "Las devoluciones con retraso generan días de penalización.";
+        }
+        return new MensajeNotificacion(n.getId(), n.getTipo(), p.getSocio().getEmail(), asunto, cuerpo);
+    }
+}
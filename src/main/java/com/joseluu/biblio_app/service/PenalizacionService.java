@@ -0,0 +1,252 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.dto.DevolucionTardia;
+import com.joseluu.biblio_app.dto.ResultadoRecalculo;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Servicio encargado del cálculo de las penalizaciones de los socios.
+ *
+ * <p>
+ * Regla: cada día de retraso en una devolución suma {@code diasPorDiaRetraso}
+ * días de penalización, contados desde la fecha de devolución o desde el fin
+ * de la penalización vigente si es posterior (las penalizaciones se encadenan).
+ * </p>
+ *
+ * <p>
+ * Ofrece dos modos de cálculo que aplican la misma regla:
+ * </p>
+ * <ul>
+ *   <li><b>Incremental</b>: en cada devolución se parte de la fecha de fin de
+ *   penalización guardada en el socio, sin recorrer su histórico.</li>
+ *   <li><b>Recálculo masivo</b>: reconstruye las penalizaciones de todos los
+ *   socios a partir de las devoluciones tardías, repartiendo los socios en
+ *   particiones por rango de id que se procesan en paralelo. Pensado para
+ *   rellenar datos o aplicar un cambio de regla.</li>
+ * </ul>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Cálculo de penalizaciones incremental y por particiones.</li>
+ *   <li><b>V7</b> – Invalidación de la caché de socios al cambiar las penalizaciones.</li>
+ * </ul>
+ */
+@Service
+public class PenalizacionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PenalizacionService.class);
+
+    private final SocioRepository socioRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Días de penalización por cada día de retraso.
+     */
+    private final int diasPorDiaRetraso;
+
+    /**
+     * Número de particiones procesadas en paralelo en el recálculo masivo.
+     */
+    private final int particiones;
+
+    /**
+     * Socios procesados por transacción en el recálculo masivo.
+     */
+    private final int tamanioBloque;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param socioRepository     repositorio de socios
+     * @param prestamoRepository  repositorio de préstamos
+     * @param transactionTemplate plantilla para ejecutar cada bloque en su propia transacción
+     * @param diasPorDiaRetraso   días de penalización por día de retraso
+     * @param particiones         particiones del recálculo masivo
+     * @param tamanioBloque       socios por bloque en el recálculo masivo
+     */
+    public PenalizacionService(SocioRepository socioRepository,
+                               PrestamoRepository prestamoRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${biblio.penalizacion.dias-por-dia-retraso:1}") int diasPorDiaRetraso,
+                               @Value("${biblio.penalizacion.particiones:4}") int particiones,
+                               @Value("${biblio.penalizacion.tamanio-bloque:1000}") int tamanioBloque) {
+        this.socioRepository = socioRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.diasPorDiaRetraso = diasPorDiaRetraso;
+        this.particiones = Math.max(1, particiones);
+        this.tamanioBloque = tamanioBloque;
+    }
+
+    /**
+     * Calcula el nuevo fin de penalización tras una devolución.
+     *
+     * @param finActual       fin de la penalización vigente (puede ser {@code null})
+     * @param fechaFin        fecha límite del préstamo
+     * @param fechaDevolucion fecha real de devolución
+     * @param factor          días de penalización por día de retraso
+     * @return nuevo fin de penalización, o {@code finActual} si no hubo retraso
+     */
+    public static LocalDate calcularFin(LocalDate finActual, LocalDate fechaFin,
+                                        LocalDate fechaDevolucion, int factor) {
+        if (fechaFin == null || fechaDevolucion == null || !fechaDevolucion.isAfter(fechaFin)) {
+            return finActual;
+        }
+        long diasRetraso = ChronoUnit.DAYS.between(fechaFin, fechaDevolucion);
+        LocalDate base = finActual != null && finActual.isAfter(fechaDevolucion) ? finActual : fechaDevolucion;
+        return base.plusDays(diasRetraso * factor);
+    }
+
+    /**
+     * Actualiza la penalización del socio a partir de un préstamo recién devuelto.
+     *
+     * <p>
+     * Debe llamarse dentro de la transacción de la devolución: el socio es la
+     * entidad gestionada del préstamo y el cambio se guarda al confirmar.
+     * </p>
+     *
+     * @param prestamo préstamo devuelto, con {@code fechaDevolucion} informada
+     * @return fin de penalización resultante del socio
+     */
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.SOCIOS, key = "#prestamo.socio.id")
+    public LocalDate aplicarDevolucion(Prestamo prestamo) {
+        Socio socio = prestamo.getSocio();
+        LocalDate nuevoFin = calcularFin(socio.getFinPenalizacion(), prestamo.getFechaFin(),
+                prestamo.getFechaDevolucion(), diasPorDiaRetraso);
+        if (!Objects.equals(nuevoFin, socio.getFinPenalizacion())) {
+            socio.setFinPenalizacion(nuevoFin);
+        }
+        return nuevoFin;
+    }
+
+    /**
+     * Reconstruye la penalización de todos los socios.
+     *
+     * <p>
+     * El rango de ids de socio se divide en particiones que se procesan en
+     * paralelo. Cada partición avanza por bloques de {@code tamanioBloque}
+     * socios; cada bloque se resuelve con una consulta de devoluciones tardías y
+     * se guarda en su propia transacción.
+     * </p>
+     *
+     * @return resumen del recálculo
+     */
+    @CacheEvict(cacheNames = CacheConfig.SOCIOS, allEntries = true)
+    public ResultadoRecalculo recalcularTodas() {
+        long inicio = System.nanoTime();
+
+        Object[] rango = socioRepository.findRangoIds().get(0);
+        if (rango[0] == null) {
+            return new ResultadoRecalculo(0, 0, 0, 0);
+        }
+        long min = ((Number) rango[0]).longValue();
+        long max = ((Number) rango[1]).longValue();
+        int numero = (int) Math.min(particiones, max - min + 1);
+        long ancho = (max - min + numero) / numero;
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(numero);
+        long socios = 0;
+        long actualizados = 0;
+        try {
+            List<Future<long[]>> resultados = new ArrayList<>();
+            for (int i = 0; i < numero; i++) {
+                long desde = min - 1 + i * ancho;
+                long hasta = Math.min(max, desde + ancho);
+                resultados.add(ejecutor.submit(() -> recalcularParticion(desde, hasta)));
+            }
+            for (Future<long[]> resultado : resultados) {
+                long[] parcial = resultado.get();
+                socios += parcial[0];
+                actualizados += parcial[1];
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recálculo de penalizaciones interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en el recálculo de penalizaciones", e.getCause());
+        } finally {
+            ejecutor.shutdownNow();
+        }
+
+        long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+        log.info("Recálculo de penalizaciones: {} socios, {} actualizados, {} particiones ({} ms)",
+                socios, actualizados, numero, milisegundos);
+        return new ResultadoRecalculo(socios, actualizados, numero, milisegundos);
+    }
+
+    /**
+     * Recalcula los socios con id en {@code (desde, hasta]}.
+     *
+     * @return {@code [socios procesados, socios actualizados]}
+     */
+    private long[] recalcularParticion(long desde, long hasta) {
+        long[] total = new long[2];
+        long ultimo = desde;
+        while (true) {
+            long cursor = ultimo;
+            long[] bloque = transactionTemplate.execute(estado -> recalcularBloque(cursor, hasta));
+            if (bloque == null) {
+                return total;
+            }
+            ultimo = bloque[0];
+            total[0] += bloque[1];
+            total[1] += bloque[2];
+        }
+    }
+
+    /**
+     * Recalcula el siguiente bloque de socios de una partición.
+     *
+     * @return {@code [último id, socios procesados, socios actualizados]},
+     * o {@code null} si la partición está terminada
+     */
+    private long[] recalcularBloque(long desde, long hasta) {
+        List<Long> ids = socioRepository.findIdsEnRango(desde, hasta, Limit.of(tamanioBloque));
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        // Las devoluciones llegan ordenadas por socio y fecha: se aplica la regla en el mismo orden que en vivo
+        Map<Long, LocalDate> fines = new HashMap<>();
+        for (DevolucionTardia d : prestamoRepository.findDevolucionesTardias(ids, Prestamo.Estado.DEVUELTO)) {
+            fines.put(d.socioId(), calcularFin(fines.get(d.socioId()), d.fechaFin(),
+                    d.fechaDevolucion(), diasPorDiaRetraso));
+        }
+
+        long actualizados = 0;
+        for (Socio socio : socioRepository.findAllById(ids)) {
+            LocalDate nuevoFin = fines.get(socio.getId());
+            if (!Objects.equals(nuevoFin, socio.getFinPenalizacion())) {
+                socio.setFinPenalizacion(nuevoFin);
+                actualizados++;
+            }
+        }
+        return new long[]{ids.get(ids.size() - 1), ids.size(), actualizados};
+    }
+}
@@ -1,11 +1,39 @@
 package com.joseluu.biblio_app.service;
 
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.dto.ErrorFila;
+import com.joseluu.biblio_app.dto.EstadoPrestamo;
+import com.joseluu.biblio_app.dto.PrestamoResumen;
+import com.joseluu.biblio_app.dto.ResultadoLote;
+import com.joseluu.biblio_app.entity.Libro;
 import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.exception.LibroNoEncontradoException;
+import com.joseluu.biblio_app.exception.PrestamoNoEncontradoException;
+import com.joseluu.biblio_app.exception.PrestamoNoPermitidoException;
+import com.joseluu.biblio_app.exception.SocioNoEncontradoException;
+import com.joseluu.biblio_app.repository.LibroRepository;
 import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Servicio encargado de la gestión de la lógica de negocio de los préstamos.
@@ -20,6 +48,15 @@ import java.util.List;
  *   <li><b>V1</b> – Gestión básica de préstamos (alta, listado y baja).</li>
  *   <li><b>V3</b> – Inicio de reglas de negocio: cálculo de fechas límite.</li>
  *   <li><b>V6</b> – Validación básica de datos y control de errores.</li>
+ *   <li><b>V7</b> – Listado resumido sin consultas N+1.</li>
+ *   <li><b>V7</b> – Mantenimiento transaccional de la disponibilidad de los libros.</li>
+ *   <li><b>V7</b> – Consultas de préstamos en curso y vencidos sin recorrer todo el histórico.</li>
+ *   <li><b>V7</b> – Fecha real de devolución y cálculo incremental de penalizaciones.</li>
+ *   <li><b>V7</b> – Reglas de préstamo con contador de préstamos en curso por socio.</li>
+ *   <li><b>V7</b> – Alta, devolución y baja seguras ante peticiones concurrentes.</li>
+ *   <li><b>V7</b> – Préstamos y devoluciones en lote en una sola transacción.</li>
+ *   <li><b>V7</b> – Historial de eventos de cada préstamo y renovaciones.</li>
+ *   <li><b>V7</b> – Notificaciones a los socios encoladas en la misma transacción.</li>
  * </ul>
  *
  * Se marca con {@link Service} para permitir la inyección automática
@@ -28,6 +65,17 @@ import java.util.List;
 @Service
 public class PrestamoService {
 
+    /**
+     * Estados en los que el libro sigue en poder del socio.
+     */
+    private static final Set<Prestamo.Estado> EN_CURSO =
+            EnumSet.of(Prestamo.Estado.ACTIVO, Prestamo.Estado.RETRASADO);
+
+    /**
+     * Duración por defecto de un préstamo, en días.
+     */
+    private static final int DIAS_PRESTAMO = 14;
+
     /**
      * Repositorio JPA para la entidad {@link Prestamo}.
      *
@@ -35,13 +83,89 @@ public class PrestamoService {
      */
     private final PrestamoRepository prestamoRepository;
 
+    /**
+     * Repositorio JPA para la entidad {@link com.joseluu.biblio_app.entity.Libro}.
+     *
+     * V7 - Actualización de la disponibilidad del libro prestado o devuelto.
+     */
+    private final LibroRepository libroRepository;
+
+    /**
+     * Repositorio JPA para la entidad {@link Socio}.
+     *
+     * V7 - Contador de préstamos en curso del socio.
+     */
+    private final SocioRepository socioRepository;
+
+    /**
+     * Servicio de penalizaciones.
+     *
+     * V7 - Actualiza la penalización del socio en cada devolución.
+     */
+    private final PenalizacionService penalizacionService;
+
+    /**
+     * Historial de eventos de los préstamos.
+     *
+     * V7 - Cada cambio de un préstamo añade un evento en la misma transacción.
+     */
+    private final HistorialPrestamosService historialService;
+
+    /**
+     * Bandeja de salida de notificaciones.
+     *
+     * V7 - Confirmaciones y recordatorios se encolan sin esperar al envío.
+     */
+    private final NotificacionService notificacionService;
+
+    /**
+     * Caché de libros por id.
+     *
+     * V7 - Los préstamos y devoluciones en lote expulsan solo los libros afectados.
+     */
+    private final Cache cacheLibros;
+
+    /**
+     * Número máximo de préstamos en curso por socio.
+     */
+    private final int maximoActivos;
+
+    /**
+     * Número máximo de renovaciones de un préstamo.
+     */
+    private final int maximoRenovaciones;
+
     /**
      * Constructor con inyección de dependencias.
      *
-     * @param prestamoRepository repositorio de préstamos
+     * @param prestamoRepository  repositorio de préstamos
+     * @param libroRepository     repositorio de libros
+     * @param socioRepository     repositorio de socios
+     * @param penalizacionService servicio de penalizaciones
+     * @param historialService    historial de eventos de los préstamos
+     * @param notificacionService bandeja de salida de notificaciones
+     * @param cacheManager        gestor de cachés, del que se toma la de libros
+     * @param maximoActivos       máximo de préstamos en curso por socio
+     * @param maximoRenovaciones  máximo de renovaciones por préstamo
      */
-    public PrestamoService(PrestamoRepository prestamoRepository) {
+    public PrestamoService(PrestamoRepository prestamoRepository,
+                           LibroRepository libroRepository,
+                           SocioRepository socioRepository,
+                           PenalizacionService penalizacionService,
+                           HistorialPrestamosService historialService,
+                           NotificacionService notificacionService,
+                           CacheManager cacheManager,
+                           @Value("${biblio.prestamos.maximo-activos:3}") int maximoActivos,
+                           @Value("${biblio.prestamos.maximo-renovaciones:2}") int maximoRenovaciones) {
         this.prestamoRepository = prestamoRepository;
+        this.libroRepository = libroRepository;
+        this.socioRepository = socioRepository;
+        this.penalizacionService = penalizacionService;
+        this.historialService = historialService;
+        this.notificacionService = notificacionService;
+        this.cacheLibros = cacheManager.getCache(CacheConfig.LIBROS);
+        this.maximoActivos = maximoActivos;
+        this.maximoRenovaciones = maximoRenovaciones;
     }
 
     /**
@@ -57,6 +181,62 @@ public class PrestamoService {
         return prestamoRepository.findAll();
     }
 
+    /**
+     * Obtiene el listado resumido de préstamos para las vistas.
+     *
+     * <p>
+     * V7 - Carga préstamos, título del libro y nombre del socio en una sola
+     * consulta, en lugar de una consulta adicional por cada libro y socio.
+     * </p>
+     *
+     * @return resumen de préstamos ordenados por id
+     */
+    public List<PrestamoResumen> listarResumenPrestamos() {
+        return prestamoRepository.findAllResumen();
+    }
+
+    /**
+     * Obtiene los préstamos en curso (activos o retrasados) de un socio.
+     *
+     * <p>
+     * V7 - Consulta indexada por socio y estado.
+     * </p>
+     *
+     * @param socioId identificador del socio
+     * @return préstamos en curso del socio
+     */
+    public List<Prestamo> listarPrestamosEnCursoDeSocio(Long socioId) {
+        return prestamoRepository.findBySocioIdAndEstadoIn(socioId, EN_CURSO);
+    }
+
+    /**
+     * Obtiene el histórico de préstamos de un libro.
+     *
+     * <p>
+     * V7 - Consulta indexada por libro.
+     * </p>
+     *
+     * @param libroId identificador del libro
+     * @return préstamos del libro, del más reciente al más antiguo
+     */
+    public List<Prestamo> listarPrestamosDeLibro(Long libroId) {
+        return prestamoRepository.findByLibroIdOrderByFechaPrestamoDesc(libroId);
+    }
+
+    /**
+     * Obtiene los préstamos vencidos a fecha de hoy.
+     *
+     * <p>
+     * V7 - Consulta indexada por estado y fecha fin.
+     * </p>
+     *
+     * @return préstamos retrasados o activos con la fecha fin ya superada
+     */
+    public List<Prestamo> listarPrestamosVencidos() {
+        return prestamoRepository.findVencidos(
+                Prestamo.Estado.RETRASADO, Prestamo.Estado.ACTIVO, LocalDate.now());
+    }
+
     /**
      * Guarda o actualiza un préstamo en la base de datos.
      *
@@ -77,16 +257,45 @@ public class PrestamoService {
      * <p>
      * V6 - Validación de datos de entrada.
      * </p>
+     * <p>
+     * V7 - Un préstamo nuevo sin estado se da de alta como {@link Prestamo.Estado#ACTIVO}
+     * y el libro se marca como no disponible en la misma transacción.
+     * </p>
+     * <p>
+     * V7 - Antes del alta se comprueban las reglas de préstamo: el libro no
+     * puede estar prestado, el socio no puede tener una penalización vigente
+     * ni superar el máximo de préstamos en curso.
+     * </p>
+     * <p>
+     * V7 - El libro se reserva con una actualización condicional, de modo que
+     * dos altas simultáneas del mismo libro no pueden prosperar. La restricción
+     * única {@code libro_activo} de la tabla de préstamos actúa como garantía
+     * adicional en base de datos.
+     * </p>
+     * <p>
+     * V7 - El alta se registra en el historial del préstamo y encola la
+     * confirmación y el recordatorio de vencimiento del socio.
+     * </p>
+     * <p>
+     * V7 - Un préstamo con id no se fusiona tal como llega: se lee y bloquea el
+     * guardado y solo se copia la fecha fin (ver {@link #actualizarPrestamo}).
+     * </p>
      *
      * @param prestamo préstamo a guardar o actualizar
      * @return préstamo persistido
-     * @throws IllegalArgumentException si el préstamo es nulo
+     * @throws IllegalArgumentException      si el préstamo es nulo
+     * @throws PrestamoNoEncontradoException si se modifica un préstamo inexistente
+     * @throws PrestamoNoPermitidoException  si el préstamo incumple alguna regla
      */
+    @Transactional
     public Prestamo guardarPrestamo(Prestamo prestamo) {
         // V6 - Validación básica de entrada
         if (prestamo == null) {
             throw new IllegalArgumentException("El préstamo no puede ser nulo");
         }
+        if (prestamo.getId() != null) {
+            return actualizarPrestamo(prestamo);
+        }
 
         // V3 - Asignación de fecha de inicio por defecto
         if (prestamo.getFechaPrestamo() == null) {
@@ -95,10 +304,223 @@ public class PrestamoService {
 
         // V3 - Cálculo de fecha límite (14 días por defecto)
         if (prestamo.getFechaFin() == null) {
-            prestamo.setFechaFin(LocalDate.now().plusDays(14));
+            prestamo.setFechaFin(LocalDate.now().plusDays(DIAS_PRESTAMO));
+        }
+
+        if (prestamo.getEstado() == null) {
+            prestamo.setEstado(Prestamo.Estado.ACTIVO);
+        }
+
+        // V7 - Reglas de préstamo: primero el libro y después el socio; si algo falla se deshace todo
+        if (estaEnCurso(prestamo)) {
+            Long libroId = prestamo.getLibro().getId();
+            reservarLibro(libroId);
+            reservarPrestamo(prestamo.getSocio().getId());
+            prestamo.setLibroActivo(libroId);
+        }
+
+        Prestamo guardado;
+        try {
+            // Con ids de secuencia el INSERT no sale hasta el flush: se fuerza para capturar aquí la restricción única
+            guardado = prestamoRepository.saveAndFlush(prestamo);
+        } catch (DataIntegrityViolationException e) {
+            throw new PrestamoNoPermitidoException("El libro " + prestamo.getLibro().getId() + " ya está prestado");
+        }
+        historialService.registrarAltas(List.of(guardado));
+        notificacionService.encolarAltas(List.of(guardado));
+        return guardado;
+    }
+
+    /**
+     * Aplica a un préstamo existente los cambios recibidos.
+     *
+     * <p>
+     * V7 - El préstamo recibido no trae {@code libroActivo} (no se expone) y
+     * fusionarlo tal cual vaciaba la restricción única; además un cambio de
+     * estado, libro o socio dejaba sin actualizar la disponibilidad, el
+     * contador del socio y la penalización. Por eso el préstamo guardado se
+     * lee bloqueado y solo se copia la fecha fin, que se registra como
+     * renovación y mueve el recordatorio. Marcarlo como devuelto equivale a
+     * {@link #devolverPrestamo(Long)}; cualquier otro cambio de estado, libro,
+     * socio o fecha de préstamo se rechaza. Los campos nulos se dejan como
+     * estaban.
+     * </p>
+     *
+     * @param datos préstamo recibido, con id
+     * @return préstamo actualizado
+     * @throws PrestamoNoEncontradoException si el préstamo no existe
+     * @throws PrestamoNoPermitidoException  si se intenta un cambio no permitido
+     */
+    private Prestamo actualizarPrestamo(Prestamo datos) {
+        Long id = datos.getId();
+        Prestamo prestamo = prestamoRepository.findParaActualizar(id)
+                .orElseThrow(() -> new PrestamoNoEncontradoException("Préstamo con id " + id + " no encontrado"));
+
+        if (cambia(datos.getLibro() == null ? null : datos.getLibro().getId(), prestamo.getLibro().getId())
+                || cambia(datos.getSocio() == null ? null : datos.getSocio().getId(), prestamo.getSocio().getId())) {
+            throw new PrestamoNoPermitidoException(
+                    "No se puede cambiar el libro ni el socio de un préstamo: hay que devolverlo y crear otro");
+        }
+        if (cambia(datos.getFechaPrestamo(), prestamo.getFechaPrestamo())) {
+            throw new PrestamoNoPermitidoException("No se puede cambiar la fecha de un préstamo ya registrado");
+        }
+        boolean devolucion = datos.getEstado() == Prestamo.Estado.DEVUELTO && estaEnCurso(prestamo);
+        if (cambia(datos.getEstado(), prestamo.getEstado()) && !devolucion) {
+            throw new PrestamoNoPermitidoException("El estado de un préstamo solo cambia al devolverlo");
+        }
+
+        if (cambia(datos.getFechaFin(), prestamo.getFechaFin())) {
+            if (!estaEnCurso(prestamo)) {
+                throw new PrestamoNoPermitidoException("Un préstamo devuelto no se puede modificar");
+            }
+            EstadoPrestamo anterior = EstadoPrestamo.de(prestamo);
+            prestamo.setFechaFin(datos.getFechaFin());
+            historialService.registrarCambios(anterior, prestamo, LocalDate.now());
+            notificacionService.reprogramarRecordatorio(prestamo);
+        }
+        if (devolucion) {
+            devolverPrestamo(id);
+        }
+        return prestamo;
+    }
+
+    /**
+     * Presta varios libros a un mismo socio en una sola transacción.
+     *
+     * <p>
+     * V7 - Pensado para el mostrador, donde un socio se lleva varios libros a
+     * la vez. Todos los libros se leen y bloquean con una consulta, el socio
+     * con otra, y después se hacen una actualización de disponibilidad, una
+     * del contador del socio y las inserciones de los préstamos en lote JDBC.
+     * </p>
+     * <p>
+     * Los libros que no se pueden prestar (inexistentes, ya prestados,
+     * repetidos o por encima del máximo de préstamos del socio) se informan
+     * en el resultado y el resto se presta. Si el problema es del socio (no
+     * existe o está penalizado) no se presta ninguno.
+     * </p>
+     *
+     * @param socioId  socio que se lleva los libros
+     * @param libroIds libros a prestar, en el orden en que se atienden
+     * @return préstamos creados y libros rechazados
+     * @throws IllegalArgumentException     si falta el socio o la lista de libros está vacía
+     * @throws SocioNoEncontradoException   si el socio no existe
+     * @throws PrestamoNoPermitidoException si el socio está penalizado
+     */
+    @Transactional
+    public ResultadoLote prestarLibros(Long socioId, List<Long> libroIds) {
+        if (socioId == null || libroIds == null || libroIds.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita un socio y al menos un libro");
+        }
+
+        // Mismo orden de bloqueo que el alta individual: primero los libros y después el socio
+        Map<Long, Libro> libros = libroRepository.findAllParaActualizar(new HashSet<>(libroIds)).stream()
+                .collect(Collectors.toMap(Libro::getId, Function.identity()));
+        Socio socio = socioRepository.findParaActualizar(socioId)
+                .orElseThrow(() -> new SocioNoEncontradoException("Socio con id " + socioId + " no encontrado"));
+        LocalDate hoy = LocalDate.now();
+        comprobarPenalizacion(socio, hoy);
+        int huecos = maximoActivos - socio.getPrestamosActivos();
+
+        List<Prestamo> nuevos = new ArrayList<>();
+        List<ErrorFila> errores = new ArrayList<>();
+        Set<Long> vistos = new HashSet<>();
+        for (int i = 0; i < libroIds.size(); i++) {
+            Long libroId = libroIds.get(i);
+            Libro libro = libroId == null ? null : libros.get(libroId);
+            String error;
+            if (libro == null) {
+                error = "Libro con id " + libroId + " no encontrado";
+            } else if (!vistos.add(libroId)) {
+                error = "Libro repetido en la petición";
+            } else if (!libro.isDisponible()) {
+                error = "El libro " + libroId + " ya está prestado";
+            } else if (nuevos.size() >= huecos) {
+                error = "El socio ha alcanzado el máximo de " + maximoActivos + " préstamos en curso";
+            } else {
+                nuevos.add(nuevoPrestamo(libro, socio, hoy));
+                continue;
+            }
+            errores.add(new ErrorFila(i + 1, String.valueOf(libroId), error));
+        }
+
+        if (!nuevos.isEmpty()) {
+            actualizarDisponibilidad(nuevos.stream().map(p -> p.getLibro().getId()).toList(), false);
+            socioRepository.sumarPrestamos(socioId, nuevos.size());
+            try {
+                prestamoRepository.saveAllAndFlush(nuevos);
+            } catch (DataIntegrityViolationException e) {
+                throw new PrestamoNoPermitidoException("Alguno de los libros ya está prestado");
+            }
+            historialService.registrarAltas(nuevos);
+            notificacionService.encolarAltas(nuevos);
+        }
+        return new ResultadoLote(libroIds.size(), nuevos.stream().map(Prestamo::getId).toList(), errores);
+    }
+
+    /**
+     * Devuelve varios préstamos en una sola transacción.
+     *
+     * <p>
+     * V7 - Todos los préstamos se leen y bloquean, junto con su libro y su
+     * socio, en una sola consulta. Los libros se marcan como disponibles con
+     * una única actualización y el contador de cada socio con una por socio.
+     * Las penalizaciones se aplican en el mismo orden que si se devolvieran
+     * uno a uno.
+     * </p>
+     * <p>
+     * Los préstamos inexistentes, repetidos o ya devueltos se informan en el
+     * resultado y no impiden devolver el resto.
+     * </p>
+     *
+     * @param prestamoIds préstamos a devolver
+     * @return préstamos devueltos y préstamos rechazados
+     * @throws IllegalArgumentException si la lista está vacía
+     */
+    @Transactional
+    public ResultadoLote devolverPrestamos(List<Long> prestamoIds) {
+        if (prestamoIds == null || prestamoIds.isEmpty()) {
+            throw new IllegalArgumentException("Se necesita al menos un préstamo");
         }
 
-        return prestamoRepository.save(prestamo);
+        Map<Long, Prestamo> prestamos = prestamoRepository.findAllParaActualizar(new HashSet<>(prestamoIds)).stream()
+                .collect(Collectors.toMap(Prestamo::getId, Function.identity()));
+        LocalDate hoy = LocalDate.now();
+
+        List<Prestamo> devueltos = new ArrayList<>();
+        List<ErrorFila> errores = new ArrayList<>();
+        Set<Long> vistos = new HashSet<>();
+        for (int i = 0; i < prestamoIds.size(); i++) {
+            Long id = prestamoIds.get(i);
+            Prestamo p = id == null ? null : prestamos.get(id);
+            String error;
+            if (p == null) {
+                error = "Préstamo con id " + id + " no encontrado";
+            } else if (!vistos.add(id)) {
+                error = "Préstamo repetido en la petición";
+            } else if (!estaEnCurso(p)) {
+                error = "El préstamo " + id + " ya está devuelto";
+            } else {
+                p.setEstado(Prestamo.Estado.DEVUELTO);
+                p.setFechaDevolucion(hoy);
+                p.setLibroActivo(null);
+                devueltos.add(p);
+                continue;
+            }
+            errores.add(new ErrorFila(i + 1, String.valueOf(id), error));
+        }
+
+        if (!devueltos.isEmpty()) {
+            actualizarDisponibilidad(devueltos.stream().map(p -> p.getLibro().getId()).toList(), true);
+            // Orden de id de socio: dos lotes con los mismos socios los bloquean en el mismo orden
+            Map<Long, Long> porSocio = devueltos.stream()
+                    .collect(Collectors.groupingBy(p -> p.getSocio().getId(), TreeMap::new, Collectors.counting()));
+            porSocio.forEach((socioId, numero) -> socioRepository.sumarPrestamos(socioId, -numero.intValue()));
+            devueltos.forEach(penalizacionService::aplicarDevolucion);
+            historialService.registrarDevoluciones(devueltos);
+            notificacionService.descartarRecordatorios(devueltos.stream().map(Prestamo::getId).toList());
+        }
+        return new ResultadoLote(prestamoIds.size(), devueltos.stream().map(Prestamo::getId).toList(), errores);
     }
 
     /**
@@ -124,10 +546,56 @@ public class PrestamoService {
      *
      * @param id identificador del préstamo a eliminar
      */
+    @Transactional
     public void eliminarPrestamo(Long id) {
-        if (prestamoRepository.existsById(id)) {
-            prestamoRepository.deleteById(id);
-        }
+        prestamoRepository.findParaActualizar(id).ifPresent(p -> {
+            // V7 - Si el préstamo seguía en curso, el libro vuelve a estar disponible
+            if (estaEnCurso(p)) {
+                libroRepository.actualizarDisponibilidad(p.getLibro().getId(), true);
+                socioRepository.liberarPrestamo(p.getSocio().getId());
+            }
+            prestamoRepository.delete(p);
+            historialService.registrarBaja(p, LocalDate.now());
+            notificacionService.descartarRecordatorios(List.of(id));
+        });
+    }
+
+    /**
+     * Da de baja los préstamos de un libro que se va a eliminar.
+     *
+     * <p>
+     * V7 - La eliminación en cascada del libro borraba sus préstamos sin pasar
+     * por {@link #eliminarPrestamo(Long)}: los préstamos en curso dejaban
+     * desajustados el contador del socio, los recordatorios seguían
+     * pendientes y, sin evento de baja, la reconstrucción volvía a insertar
+     * préstamos de un libro inexistente. Ahora un libro con préstamos en
+     * curso no se puede eliminar y los devueltos se dan de baja en el
+     * historial.
+     * </p>
+     *
+     * @param libroId libro que se va a eliminar, ya bloqueado por el llamador
+     * @throws PrestamoNoPermitidoException si el libro tiene algún préstamo en curso
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void eliminarPrestamosDeLibro(Long libroId) {
+        darDeBaja(prestamoRepository.findByLibroIdAndEstadoIn(libroId, EnumSet.allOf(Prestamo.Estado.class)),
+                "El libro " + libroId);
+    }
+
+    /**
+     * Da de baja los préstamos de un socio que se va a eliminar.
+     *
+     * <p>
+     * V7 - Mismo motivo que {@link #eliminarPrestamosDeLibro(Long)}.
+     * </p>
+     *
+     * @param socioId socio que se va a eliminar, ya bloqueado por el llamador
+     * @throws PrestamoNoPermitidoException si el socio tiene algún préstamo en curso
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void eliminarPrestamosDeSocio(Long socioId) {
+        darDeBaja(prestamoRepository.findBySocioIdAndEstadoIn(socioId, EnumSet.allOf(Prestamo.Estado.class)),
+                "El socio " + socioId);
     }
 
     /**
@@ -135,21 +603,207 @@ public class PrestamoService {
      *
      * <p>
      * Cambia el estado del préstamo a {@link Prestamo.Estado#DEVUELTO}
-     * y actualiza la fecha de fin con la fecha real de devolución.
+     * y registra la fecha real de devolución.
      * </p>
      *
      * <p>
      * V1 - Funcionalidad básica de devolución de préstamos.
      * </p>
+     * <p>
+     * V7 - El libro vuelve a marcarse como disponible. Devolver un préstamo ya
+     * devuelto no tiene efecto.
+     * </p>
+     * <p>
+     * V7 - La fecha fin se conserva y la devolución se guarda en
+     * {@code fechaDevolucion}; si hay retraso se amplía la penalización del
+     * socio en la misma transacción.
+     * </p>
      *
      * @param id identificador del préstamo a devolver
      */
+    @Transactional
     public void devolverPrestamo(Long id) {
-        Prestamo p = obtenerPrestamoPorId(id);
-        if (p != null) {
+        Prestamo p = prestamoRepository.findParaActualizar(id).orElse(null);
+        if (p != null && estaEnCurso(p)) {
             p.setEstado(Prestamo.Estado.DEVUELTO);
-            p.setFechaFin(LocalDate.now()); // V1 - Fecha real de devolución
+            p.setFechaDevolucion(LocalDate.now());
+            p.setLibroActivo(null);
             prestamoRepository.save(p);
+            libroRepository.actualizarDisponibilidad(p.getLibro().getId(), true);
+            socioRepository.liberarPrestamo(p.getSocio().getId());
+            penalizacionService.aplicarDevolucion(p);
+            historialService.registrarDevoluciones(List.of(p));
+            notificacionService.descartarRecordatorios(List.of(id));
+        }
+    }
+
+    /**
+     * Amplía la fecha fin de un préstamo en curso.
+     *
+     * <p>
+     * V7 - La fecha fin se alarga {@value #DIAS_PRESTAMO} días. Solo se pueden
+     * renovar préstamos activos que no hayan vencido, y como máximo
+     * {@code biblio.prestamos.maximo-renovaciones} veces; las renovaciones
+     * anteriores se cuentan en el historial del préstamo.
+     * </p>
+     *
+     * @param id identificador del préstamo
+     * @return préstamo renovado
+     * @throws PrestamoNoEncontradoException si el préstamo no existe
+     * @throws PrestamoNoPermitidoException  si el préstamo no se puede renovar
+     */
+    @Transactional
+    public Prestamo renovarPrestamo(Long id) {
+        Prestamo p = prestamoRepository.findParaActualizar(id)
+                .orElseThrow(() -> new PrestamoNoEncontradoException("Préstamo con id " + id + " no encontrado"));
+        LocalDate hoy = LocalDate.now();
+        if (p.getEstado() != Prestamo.Estado.ACTIVO || p.getFechaFin().isBefore(hoy)) {
+            throw new PrestamoNoPermitidoException("Solo se pueden renovar préstamos activos sin vencer");
+        }
+        if (historialService.contarRenovaciones(id) >= maximoRenovaciones) {
+            throw new PrestamoNoPermitidoException(
+                    "El préstamo ya se ha renovado el máximo de " + maximoRenovaciones + " veces");
+        }
+        p.setFechaFin(p.getFechaFin().plusDays(DIAS_PRESTAMO));
+        historialService.registrarRenovacion(p, hoy);
+        notificacionService.reprogramarRecordatorio(p);
+        return p;
+    }
+
+    /**
+     * Recalcula el contador de préstamos en curso de todos los socios.
+     *
+     * <p>
+     * V7 - Reparación de datos, por ejemplo tras añadir el contador a una base
+     * de datos con préstamos ya registrados.
+     * </p>
+     *
+     * @return número de socios actualizados
+     */
+    @Transactional
+    public int recalcularContadores() {
+        return socioRepository.recalcularPrestamosActivos(EN_CURSO);
+    }
+
+    /**
+     * Elimina préstamos ya devueltos registrando su baja, o falla si alguno sigue en curso.
+     *
+     * @param prestamos préstamos del libro o socio
+     * @param titular   libro o socio, para el mensaje de error
+     */
+    private void darDeBaja(List<Prestamo> prestamos, String titular) {
+        if (prestamos.stream().anyMatch(PrestamoService::estaEnCurso)) {
+            throw new PrestamoNoPermitidoException(
+                    titular + " tiene préstamos en curso: hay que devolverlos antes de darlo de baja");
+        }
+        if (prestamos.isEmpty()) {
+            return;
+        }
+        LocalDate hoy = LocalDate.now();
+        prestamoRepository.deleteAll(prestamos);
+        prestamos.forEach(p -> historialService.registrarBaja(p, hoy));
+        notificacionService.descartarRecordatorios(prestamos.stream().map(Prestamo::getId).toList());
+    }
+
+    /**
+     * Marca varios libros como disponibles o prestados y los expulsa de la caché.
+     *
+     * <p>
+     * La expulsión es por id, de modo que un lote no vacía la caché del resto
+     * de libros. Como el gestor de cachés es transaccional, se aplica al
+     * confirmar la transacción.
+     * </p>
+     *
+     * @param libroIds   identificadores de los libros
+     * @param disponible nuevo valor de disponibilidad
+     */
+    private void actualizarDisponibilidad(Collection<Long> libroIds, boolean disponible) {
+        libroRepository.actualizarDisponibilidad(libroIds, disponible);
+        libroIds.forEach(cacheLibros::evict);
+    }
+
+    /**
+     * Marca el libro como prestado si sigue disponible.
+     *
+     * @param libroId identificador del libro
+     * @throws LibroNoEncontradoException   si el libro no existe
+     * @throws PrestamoNoPermitidoException si el libro ya está prestado
+     */
+    private void reservarLibro(Long libroId) {
+        if (libroRepository.reservarLibro(libroId) == 0) {
+            if (!libroRepository.existsById(libroId)) {
+                throw new LibroNoEncontradoException("Libro con id " + libroId + " no encontrado");
+            }
+            throw new PrestamoNoPermitidoException("El libro " + libroId + " ya está prestado");
         }
     }
+
+    /**
+     * Reserva un préstamo en el contador del socio o explica por qué no es posible.
+     *
+     * <p>
+     * La comprobación y el incremento son una sola sentencia; solo si falla se
+     * lee el socio para construir el mensaje de error.
+     * </p>
+     *
+     * @param socioId identificador del socio
+     * @throws SocioNoEncontradoException   si el socio no existe
+     * @throws PrestamoNoPermitidoException si el socio no puede recibir más préstamos
+     */
+    private void reservarPrestamo(Long socioId) {
+        LocalDate hoy = LocalDate.now();
+        if (socioRepository.reservarPrestamo(socioId, maximoActivos, hoy) == 1) {
+            return;
+        }
+        Socio socio = socioRepository.findById(socioId)
+                .orElseThrow(() -> new SocioNoEncontradoException("Socio con id " + socioId + " no encontrado"));
+        comprobarPenalizacion(socio, hoy);
+        throw new PrestamoNoPermitidoException(
+                "El socio ha alcanzado el máximo de " + maximoActivos + " préstamos en curso");
+    }
+
+    /**
+     * Comprueba que el socio no tenga una penalización vigente.
+     *
+     * @param socio socio a comprobar
+     * @param hoy   fecha actual
+     * @throws PrestamoNoPermitidoException si la penalización no ha terminado
+     */
+    private static void comprobarPenalizacion(Socio socio, LocalDate hoy) {
+        if (socio.getFinPenalizacion() != null && !socio.getFinPenalizacion().isBefore(hoy)) {
+            throw new PrestamoNoPermitidoException(
+                    "El socio está penalizado hasta el " + socio.getFinPenalizacion());
+        }
+    }
+
+    /**
+     * Crea un préstamo en curso con las fechas por defecto.
+     */
+    private static Prestamo nuevoPrestamo(Libro libro, Socio socio, LocalDate hoy) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(libro);
+        prestamo.setSocio(socio);
+        prestamo.setFechaPrestamo(hoy);
+        prestamo.setFechaFin(hoy.plusDays(DIAS_PRESTAMO));
+        prestamo.setEstado(Prestamo.Estado.ACTIVO);
+        prestamo.setLibroActivo(libro.getId());
+        return prestamo;
+    }
+
+    /**
+     * Indica si un campo recibido cambia el valor guardado; un campo nulo no cambia nada.
+     */
+    private static boolean cambia(Object recibido, Object guardado) {
+        return recibido != null && !recibido.equals(guardado);
+    }
+
+    /**
+     * Indica si un préstamo mantiene el libro fuera de la biblioteca.
+     *
+     * @param prestamo préstamo a comprobar
+     * @return {@code true} si está activo o retrasado
+     */
+    private static boolean estaEnCurso(Prestamo prestamo) {
+        return EN_CURSO.contains(prestamo.getEstado());
+    }
 }
@@ -1,11 +1,18 @@
 package com.joseluu.biblio_app.service;
 
+import com.joseluu.biblio_app.config.CacheConfig;
 import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.exception.PrestamoNoPermitidoException;
 import com.joseluu.biblio_app.exception.SocioNoEncontradoException;
 import com.joseluu.biblio_app.repository.SocioRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Servicio encargado de la gestión de socios del sistema.
@@ -20,6 +27,11 @@ import java.util.List;
  *   <li><b>V1</b> – Acceso básico a datos mediante repositorios JPA.</li>
  *   <li><b>V4</b> – Implementación del CRUD completo de socios.</li>
  *   <li><b>V6</b> – Gestión de errores mediante excepciones personalizadas.</li>
+ *   <li><b>V7</b> – Caché de socios por id, invalidada en altas, modificaciones y bajas.</li>
+ *   <li><b>V7</b> – Actualización del índice de autocompletado en altas, modificaciones y bajas.</li>
+ *   <li><b>V7</b> – Búsqueda por email normalizado; los emails se guardan normalizados.</li>
+ *   <li><b>V7</b> – Las modificaciones se aplican sobre el socio guardado.</li>
+ *   <li><b>V7</b> – La baja de un socio da de baja sus préstamos y se rechaza si tiene alguno en curso.</li>
  * </ul>
  *
  * <p>
@@ -40,13 +52,32 @@ public class SocioService {
      */
     private final SocioRepository socioRepository;
 
+    /**
+     * Índice de autocompletado de socios.
+     *
+     * V7 - Se actualiza con cada alta, modificación y baja.
+     */
+    private final SugerenciasService sugerenciasService;
+
+    /**
+     * Servicio de préstamos.
+     *
+     * V7 - Da de baja los préstamos de un socio antes de eliminarlo.
+     */
+    private final PrestamoService prestamoService;
+
     /**
      * Constructor con inyección de dependencias.
      *
-     * @param socioRepository repositorio de socios
+     * @param socioRepository    repositorio de socios
+     * @param sugerenciasService índice de autocompletado
+     * @param prestamoService    servicio de préstamos
      */
-    public SocioService(SocioRepository socioRepository) {
+    public SocioService(SocioRepository socioRepository, SugerenciasService sugerenciasService,
+                        PrestamoService prestamoService) {
         this.socioRepository = socioRepository;
+        this.sugerenciasService = sugerenciasService;
+        this.prestamoService = prestamoService;
     }
 
     /**
@@ -71,17 +102,51 @@ public class SocioService {
      * <p>
      * V6 - Lanza una excepción controlada si el socio no existe.
      * </p>
+     * <p>
+     * V7 - El resultado se guarda en la caché {@code socios}; los socios
+     * inexistentes no se cachean.
+     * </p>
      *
      * @param id identificador del socio
      * @return socio encontrado
      * @throws SocioNoEncontradoException si no existe un socio con ese id
      */
+    @Cacheable(cacheNames = CacheConfig.SOCIOS, key = "#id")
     public Socio obtenerSocioPorId(Long id) {
         return socioRepository.findById(id)
                 .orElseThrow(() ->
                         new SocioNoEncontradoException("Socio con id " + id + " no encontrado"));
     }
 
+    /**
+     * Normaliza un email para guardarlo y buscarlo: sin espacios alrededor y en minúsculas.
+     *
+     * @param email email original (puede ser {@code null})
+     * @return email normalizado, o {@code null} si se recibe {@code null}
+     */
+    public static String normalizarEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Obtiene el id de un socio a partir de su email.
+     *
+     * <p>
+     * V7 - El email se normaliza antes de buscarlo. La búsqueda usa la caché
+     * {@code email-socios}; el socio se obtiene después con
+     * {@link #obtenerSocioPorId(Long)} y su propia caché.
+     * </p>
+     *
+     * @param email email del socio
+     * @return id del socio
+     * @throws SocioNoEncontradoException si no existe un socio con ese email
+     */
+    public Long obtenerIdPorEmail(String email) {
+        return socioRepository.findIdByEmail(normalizarEmail(email))
+                .orElseThrow(() ->
+                        new SocioNoEncontradoException("Socio con email " + email + " no encontrado"));
+    }
+
     /**
      * Guarda un socio en la base de datos.
      *
@@ -93,12 +158,41 @@ public class SocioService {
      * <p>
      * V4 - Alta y modificación de socios.
      * </p>
+     * <p>
+     * V7 - El email se guarda normalizado. Como una modificación puede cambiar
+     * el email, se vacía la caché {@code email-socios}. Los emails guardados
+     * antes de normalizarlos los corrige la migración {@code V4__NormalizarIsbnYEmail}.
+     * </p>
+     * <p>
+     * V7 - Una modificación copia los datos del formulario sobre el socio
+     * guardado en lugar de fusionar el objeto recibido, que no trae sus
+     * préstamos: fusionarlo dejaba huérfana la colección y la edición fallaba.
+     * </p>
      *
      * @param socio socio a guardar
      * @return socio persistido
+     * @throws SocioNoEncontradoException si se modifica un socio inexistente
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SOCIOS, key = "#socio.id", condition = "#socio.id != null"),
+            @CacheEvict(cacheNames = CacheConfig.EMAIL_SOCIOS, allEntries = true, condition = "#socio.id != null")
+    })
+    @Transactional
     public Socio guardarSocio(Socio socio) {
-        return socioRepository.save(socio);
+        socio.setEmail(normalizarEmail(socio.getEmail()));
+        Socio guardado;
+        if (socio.getId() == null) {
+            guardado = socioRepository.save(socio);
+        } else {
+            guardado = socioRepository.findById(socio.getId())
+                    .orElseThrow(() ->
+                            new SocioNoEncontradoException("Socio con id " + socio.getId() + " no encontrado"));
+            guardado.setNombre(socio.getNombre());
+            guardado.setEmail(socio.getEmail());
+            guardado.setFinPenalizacion(socio.getFinPenalizacion());
+        }
+        sugerenciasService.indexarSocio(guardado);
+        return guardado;
     }
 
     /**
@@ -110,15 +204,28 @@ public class SocioService {
      * <p>
      * V6 - Control de errores si el socio no existe.
      * </p>
+     * <p>
+     * V7 - El socio se bloquea, de modo que no puede recibir un préstamo
+     * mientras se elimina, y sus préstamos se dan de baja con
+     * {@link PrestamoService#eliminarPrestamosDeSocio(Long)}: si tiene alguno
+     * en curso no se elimina.
+     * </p>
      *
      * @param id identificador del socio a eliminar
-     * @throws SocioNoEncontradoException si no existe el socio
+     * @throws SocioNoEncontradoException   si no existe el socio
+     * @throws PrestamoNoPermitidoException si el socio tiene préstamos en curso
      */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.SOCIOS, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.EMAIL_SOCIOS, allEntries = true)
+    })
+    @Transactional
     public void eliminarSocio(Long id) {
         // V6 - Validación de existencia antes de eliminar
-        if (!socioRepository.existsById(id)) {
-            throw new SocioNoEncontradoException("No existe socio con id " + id);
-        }
-        socioRepository.deleteById(id);
+        Socio socio = socioRepository.findParaActualizar(id)
+                .orElseThrow(() -> new SocioNoEncontradoException("No existe socio con id " + id));
+        prestamoService.eliminarPrestamosDeSocio(id);
+        socioRepository.delete(socio);
+        sugerenciasService.eliminarSocio(id);
     }
 }
@@ -0,0 +1,201 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.Sugerencia;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Servicio de autocompletado de libros y socios.
+ *
+ * <p>
+ * Mantiene en memoria un {@link IndicePrefijos} para libros (por título e
+ * ISBN) y otro para socios (por nombre y email). Se construyen al arrancar y
+ * se actualizan en cada alta, modificación, baja e importación, así que
+ * responder a una pulsación de teclado no consulta la base de datos (salvo el
+ * filtro opcional de libros disponibles, que es una consulta por clave
+ * primaria sobre las sugerencias encontradas).
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Autocompletado para el formulario de préstamos.</li>
+ * </ul>
+ */
+@Service
+public class SugerenciasService {
+
+    private static final Logger log = LoggerFactory.getLogger(SugerenciasService.class);
+
+    /**
+     * Número de filas leídas por consulta al construir los índices.
+     */
+    private static final int BLOQUE_CARGA = 1000;
+
+    /**
+     * Número máximo de sugerencias que puede pedir un cliente.
+     */
+    private static final int LIMITE_MAXIMO = 50;
+
+    private final IndicePrefijos libros = new IndicePrefijos();
+    private final IndicePrefijos socios = new IndicePrefijos();
+
+    private final LibroRepository libroRepository;
+    private final SocioRepository socioRepository;
+    private final int limitePorDefecto;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param libroRepository  repositorio de libros
+     * @param socioRepository  repositorio de socios
+     * @param limitePorDefecto número de sugerencias por defecto
+     */
+    public SugerenciasService(LibroRepository libroRepository,
+                              SocioRepository socioRepository,
+                              @Value("${biblio.sugerencias.limite:10}") int limitePorDefecto) {
+        this.libroRepository = libroRepository;
+        this.socioRepository = socioRepository;
+        this.limitePorDefecto = limitePorDefecto;
+    }
+
+    /**
+     * Construye los índices de libros y socios al arrancar la aplicación.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construir() {
+        long inicio = System.nanoTime();
+        int numeroLibros = cargar(libroRepository::findByIdGreaterThanOrderByIdAsc, Libro::getId, this::indexarLibro);
+        int numeroSocios = cargar(socioRepository::findByIdGreaterThanOrderByIdAsc, Socio::getId, this::indexarSocio);
+        log.info("Índices de autocompletado construidos: {} libros, {} socios ({} ms)",
+                numeroLibros, numeroSocios, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Añade o actualiza un libro.
+     *
+     * @param libro libro guardado
+     */
+    public void indexarLibro(Libro libro) {
+        libros.poner(new Sugerencia(libro.getId(), libro.getTitulo(), libro.getAutor() + " · ISBN " + libro.getIsbn()),
+                textos(libro.getTitulo(), libro.getIsbn()));
+    }
+
+    /**
+     * Quita un libro.
+     *
+     * @param id identificador del libro
+     */
+    public void eliminarLibro(Long id) {
+        libros.quitar(id);
+    }
+
+    /**
+     * Añade o actualiza un socio.
+     *
+     * @param socio socio guardado
+     */
+    public void indexarSocio(Socio socio) {
+        socios.poner(new Sugerencia(socio.getId(), socio.getNombre(), socio.getEmail()),
+                textos(socio.getNombre(), socio.getEmail()));
+    }
+
+    /**
+     * Quita un socio.
+     *
+     * @param id identificador del socio
+     */
+    public void eliminarSocio(Long id) {
+        socios.quitar(id);
+    }
+
+    /**
+     * Sugiere libros cuyo título o ISBN empieza por el texto indicado.
+     *
+     * @param texto           texto escrito
+     * @param limite          número máximo de sugerencias o {@code null} para el valor por defecto
+     * @param soloDisponibles si es {@code true}, descarta los libros con un préstamo en curso
+     * @return sugerencias de libros
+     */
+    public List<Sugerencia> sugerirLibros(String texto, Integer limite, boolean soloDisponibles) {
+        int maximo = ajustarLimite(limite);
+        if (!soloDisponibles) {
+            return libros.buscar(texto, maximo);
+        }
+        // Se piden más candidatos de los necesarios porque parte de ellos pueden estar prestados
+        List<Sugerencia> candidatas = libros.buscar(texto, maximo * 4);
+        if (candidatas.isEmpty()) {
+            return candidatas;
+        }
+        Set<Long> disponibles = libroRepository.findIdsDisponibles(
+                candidatas.stream().map(Sugerencia::id).toList());
+        return candidatas.stream()
+                .filter(s -> disponibles.contains(s.id()))
+                .limit(maximo)
+                .toList();
+    }
+
+    /**
+     * Sugiere socios cuyo nombre o email empieza por el texto indicado.
+     *
+     * @param texto  texto escrito
+     * @param limite número máximo de sugerencias o {@code null} para el valor por defecto
+     * @return sugerencias de socios
+     */
+    public List<Sugerencia> sugerirSocios(String texto, Integer limite) {
+        return socios.buscar(texto, ajustarLimite(limite));
+    }
+
+    private int ajustarLimite(Integer limite) {
+        if (limite == null || limite < 1) {
+            return limitePorDefecto;
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    private static List<String> textos(String... valores) {
+        List<String> textos = new ArrayList<>();
+        for (String valor : valores) {
+            if (valor != null) {
+                textos.add(valor);
+            }
+        }
+        return textos;
+    }
+
+    /**
+     * Recorre una tabla por bloques ordenados por id.
+     *
+     * @return número de filas cargadas
+     */
+    private static <T> int cargar(BiFunction<Long, Limit, List<T>> bloqueDesde, Function<T, Long> id,
+                                  Consumer<T> destino) {
+        int total = 0;
+        long desde = 0;
+        List<T> bloque;
+        do {
+            bloque = bloqueDesde.apply(desde, Limit.of(BLOQUE_CARGA));
+            bloque.forEach(destino);
+            total += bloque.size();
+            if (!bloque.isEmpty()) {
+                desde = id.apply(bloque.get(bloque.size() - 1));
+            }
+        } while (bloque.size() == BLOQUE_CARGA);
+        return total;
+    }
+}
@@ -0,0 +1,177 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.TramoRegistrado;
+import com.joseluu.biblio_app.dto.TrazaRegistrada;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Traza en curso de la petición atendida por el hilo actual.
+ *
+ * <p>
+ * La abre y la cierra el filtro de trazas; entre medias, el aspecto de
+ * trazas abre un tramo por cada llamada a controladores, servicios y
+ * repositorios. Los tramos se anidan con una pila, así que cada uno queda
+ * como hijo del que estaba abierto al empezar. Todo ocurre en el hilo de la
+ * petición: no hay sincronización y el trabajo que se lanza a otros hilos no
+ * aparece en la traza.
+ * </p>
+ *
+ * <p>
+ * Una petición puede llamar a un repositorio miles de veces (una importación,
+ * por ejemplo): a partir de {@code maximoTramos} solo se cuentan los
+ * descartados para acotar la memoria.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas de peticiones con tramos por capa.</li>
+ * </ul>
+ */
+public final class Traza {
+
+    private static final ThreadLocal<Traza> ACTUAL = new ThreadLocal<>();
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final String traceId;
+    private final boolean muestreoSolicitado;
+    private final int maximoTramos;
+    private final Instant inicio = Instant.now();
+    private final long inicioNanos = System.nanoTime();
+    private final List<Tramo> tramos = new ArrayList<>();
+    private final ArrayDeque<Tramo> abiertos = new ArrayDeque<>();
+    private int descartados;
+
+    private Traza(String traceId, boolean muestreoSolicitado, int maximoTramos) {
+        this.traceId = traceId;
+        this.muestreoSolicitado = muestreoSolicitado;
+        this.maximoTramos = maximoTramos;
+    }
+
+    /**
+     * Abre una traza en el hilo actual con su tramo raíz.
+     *
+     * @param traceId            identificador recibido del cliente, o {@code null} para generar uno
+     * @param muestreoSolicitado si el cliente pide que se exporte
+     * @param nombre             nombre del tramo raíz
+     * @param maximoTramos       tramos registrados como máximo
+     * @return traza abierta
+     */
+    public static Traza abrir(String traceId, boolean muestreoSolicitado, String nombre, int maximoTramos) {
+        Traza traza = new Traza(traceId != null ? traceId : nuevoId(32), muestreoSolicitado, maximoTramos);
+        traza.iniciarTramo(nombre, "http");
+        ACTUAL.set(traza);
+        return traza;
+    }
+
+    /**
+     * Traza abierta en el hilo actual.
+     *
+     * @return traza en curso, o {@code null} si el hilo no atiende una petición trazada
+     */
+    public static Traza actual() {
+        return ACTUAL.get();
+    }
+
+    /**
+     * Cierra el tramo raíz y desvincula la traza del hilo.
+     *
+     * @param nombre  nombre definitivo de la raíz (la ruta solo se conoce al final)
+     * @param error   clase de la excepción que terminó la petición, o {@code null}
+     * @param decidir decide si la traza se exporta a partir de su id
+     * @return traza terminada
+     */
+    public TrazaRegistrada cerrar(String nombre, String error, Predicate<String> decidir) {
+        ACTUAL.remove();
+        Tramo raiz = tramos.get(0);
+        raiz.nombre = nombre;
+        while (!abiertos.isEmpty()) {
+            terminarTramo(abiertos.peek(), abiertos.size() == 1 ? error : null);
+        }
+        List<TramoRegistrado> registrados = new ArrayList<>(tramos.size());
+        for (Tramo t : tramos) {
+            registrados.add(new TramoRegistrado(t.id, t.padre, t.nombre, t.capa,
+                    (t.inicioNanos - inicioNanos) / 1000, (t.finNanos - t.inicioNanos) / 1000, t.error));
+        }
+        return new TrazaRegistrada(traceId, nombre, inicio, (raiz.finNanos - raiz.inicioNanos) / 1_000_000,
+                muestreoSolicitado || decidir.test(traceId), registrados, descartados);
+    }
+
+    /**
+     * Abre un tramo hijo del tramo abierto más reciente.
+     *
+     * @param nombre operación
+     * @param capa   capa de la aplicación
+     * @return tramo abierto, o {@code null} si se ha alcanzado el máximo
+     */
+    public Tramo iniciarTramo(String nombre, String capa) {
+        if (tramos.size() >= maximoTramos) {
+            descartados++;
+            return null;
+        }
+        Tramo padre = abiertos.peek();
+        Tramo tramo = new Tramo(nuevoId(16), padre == null ? null : padre.id, nombre, capa);
+        tramos.add(tramo);
+        abiertos.push(tramo);
+        return tramo;
+    }
+
+    /**
+     * Cierra un tramo y los hijos que hubieran quedado abiertos.
+     *
+     * @param tramo tramo devuelto por {@link #iniciarTramo}; {@code null} no hace nada
+     * @param error clase de la excepción, o {@code null}
+     */
+    public void terminarTramo(Tramo tramo, String error) {
+        if (tramo == null || !abiertos.contains(tramo)) {
+            return;
+        }
+        long fin = System.nanoTime();
+        Tramo cerrado;
+        do {
+            cerrado = abiertos.pop();
+            cerrado.finNanos = fin;
+        } while (cerrado != tramo);
+        tramo.error = error;
+    }
+
+    /**
+     * Identificador de la traza.
+     */
+    public String traceId() {
+        return traceId;
+    }
+
+    private static String nuevoId(int caracteres) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        String id = HEX.toHexDigits(azar.nextLong());
+        return caracteres == 16 ? id : id + HEX.toHexDigits(azar.nextLong());
+    }
+
+    /**
+     * Tramo en curso; solo lo manipula el hilo de la petición.
+     */
+    public static final class Tramo {
+
+        private final String id;
+        private final String padre;
+        private final String capa;
+        private final long inicioNanos = System.nanoTime();
+        private String nombre;
+        private long finNanos;
+        private String error;
+
+        private Tramo(String id, String padre, String nombre, String capa) {
+            this.id = id;
+            this.padre = padre;
+            this.nombre = nombre;
+            this.capa = capa;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.joseluu.biblio_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.joseluu.biblio_app.dto.TramoRegistrado;
+import com.joseluu.biblio_app.dto.TrazaRegistrada;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Registro de las trazas de peticiones terminadas.
+ *
+ * <p>
+ * Cada traza terminada pasa por aquí:
+ * </p>
+ * <ul>
+ *   <li>Si dura al menos {@code biblio.trazas.umbral-lentas} se guarda en un
+ *   buffer circular de {@code biblio.trazas.capacidad-lentas} trazas, que se
+ *   consulta desde la API de administración.</li>
+ *   <li>Si está muestreada (una fracción {@code biblio.trazas.muestreo} de los
+ *   ids, o porque el cliente lo pide en {@code traceparent}) o es lenta, se
+ *   exporta en formato OTLP/JSON a {@code biblio.trazas.archivo} (una línea
+ *   por traza) y/o a un colector OTLP/HTTP en {@code biblio.trazas.otlp.url}.</li>
+ * </ul>
+ *
+ * <p>
+ * La decisión de muestreo depende solo del id de la traza, de modo que todas
+ * las instancias que vean el mismo id deciden lo mismo. La exportación se hace
+ * en un hilo propio con una cola acotada: si el destino es lento, las trazas
+ * que no caben se descartan (métrica {@code biblio.trazas.descartadas}) y las
+ * peticiones no esperan.
+ * </p>
+ *
+ * <h3>Versionado del proyecto</h3>
+ * <ul>
+ *   <li><b>V7</b> – Trazas lentas en memoria y exportación muestreada en OTLP/JSON.</li>
+ * </ul>
+ */
+@Service
+public class TrazasService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrazasService.class);
+
+    private final ObjectMapper objectMapper;
+    private final String servicio;
+    private final double muestreo;
+    private final long umbralLentasMs;
+    private final int maximoTramos;
+    private final Path archivo;
+    private final URI colector;
+    private final Counter descartadas;
+
+    /**
+     * Buffer circular de trazas lentas; la siguiente posición a sobrescribir es
+     * {@code registradasLentas % lentas.length}.
+     */
+    private final TrazaRegistrada[] lentas;
+    private final ReentrantLock cerrojoLentas = new ReentrantLock();
+    private long registradasLentas;
+
+    private final ThreadPoolExecutor exportador;
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private BufferedWriter escritor;
+
+    /**
+     * Constructor con inyección de dependencias.
+     *
+     * @param objectMapper    serializador JSON
+     * @param registry        registro de métricas
+     * @param servicio        nombre del servicio en las trazas exportadas
+     * @param muestreo        fracción de trazas exportadas (0 a 1)
+     * @param umbralLentas    duración a partir de la cual una traza se guarda como lenta
+     * @param capacidadLentas trazas lentas guardadas como máximo
+     * @param maximoTramos    tramos por traza como máximo
+     * @param archivo         archivo de exportación (vacío para no exportar a archivo)
+     * @param colector        URL OTLP/HTTP de trazas (vacía para no enviar)
+     * @param colaExportacion trazas pendientes de exportar como máximo
+     */
+    public TrazasService(ObjectMapper objectMapper,
+                         MeterRegistry registry,
+                         @Value("${spring.application.name:biblio_app}") String servicio,
+                         @Value("${biblio.trazas.muestreo:0.01}") double muestreo,
+                         @Value("${biblio.trazas.umbral-lentas:500ms}") Duration umbralLentas,
+                         @Value("${biblio.trazas.capacidad-lentas:100}") int capacidadLentas,
+                         @Value("${biblio.trazas.maximo-tramos:500}") int maximoTramos,
+                         @Value("${biblio.trazas.archivo:}") String archivo,
+                         @Value("${biblio.trazas.otlp.url:}") String colector,
+                         @Value("${biblio.trazas.cola-exportacion:1000}") int colaExportacion) {
+        this.objectMapper = objectMapper;
+        this.servicio = servicio;
+        this.muestreo = muestreo;
+        this.umbralLentasMs = umbralLentas.toMillis();
+        this.lentas = new TrazaRegistrada[Math.max(1, capacidadLentas)];
+        this.maximoTramos = maximoTramos;
+        this.archivo = archivo.isBlank() ? null : Path.of(archivo);
+        this.colector = colector.isBlank() ? null : URI.create(colector);
+        this.descartadas = Counter.builder("biblio.trazas.descartadas")
+                .description("Trazas no exportadas por tener la cola de exportación llena")
+                .register(registry);
+        this.exportador = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaExportacion),
+                runnable -> {
+                    Thread hilo = new Thread(runnable, "exportador-trazas");
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                (tarea, ejecutor) -> descartadas.increment());
+    }
+
+    /**
+     * Tramos por traza como máximo.
+     *
+     * @return límite configurado
+     */
+    public int maximoTramos() {
+        return maximoTramos;
+    }
+
+    /**
+     * Indica si una traza se exporta según su id.
+     *
+     * <p>
+     * Se usan los 53 bits bajos del id como número uniforme en [0, 1).
+     * </p>
+     *
+     * @param traceId id de 32 caracteres hexadecimales
+     * @return {@code true} si entra en la fracción de muestreo
+     */
+    public boolean muestrear(String traceId) {
+        long bajos = Long.parseUnsignedLong(traceId.substring(16), 16);
+        return (bajos >>> 11) * 0x1.0p-53 < muestreo;
+    }
+
+    /**
+     * Registra una traza terminada.
+     *
+     * @param traza traza cerrada por el filtro de trazas
+     */
+    public void registrar(TrazaRegistrada traza) {
+        boolean lenta = traza.duracionMs() >= umbralLentasMs;
+        if (lenta) {
+            cerrojoLentas.lock();
+            try {
+                lentas[(int) (registradasLentas++ % lentas.length)] = traza;
+            } finally {
+                cerrojoLentas.unlock();
+            }
+        }
+        if ((lenta || traza.muestreada()) && (archivo != null || colector != null)) {
+            exportador.execute(() -> exportar(traza));
+        }
+    }
+
+    /**
+     * Obtiene las trazas lentas guardadas, de la más reciente a la más antigua.
+     *
+     * @param limite número máximo de trazas
+     * @return trazas lentas
+     */
+    public List<TrazaRegistrada> listarLentas(int limite) {
+        cerrojoLentas.lock();
+        try {
+            List<TrazaRegistrada> resultado = new ArrayList<>();
+            long guardadas = Math.min(registradasLentas, lentas.length);
+            for (long i = 1; i <= guardadas && resultado.size() < limite; i++) {
+                resultado.add(lentas[(int) ((registradasLentas - i) % lentas.length)]);
+            }
+            return resultado;
+        } finally {
+            cerrojoLentas.unlock();
+        }
+    }
+
+    /**
+     * Busca una traza lenta por su id.
+     *
+     * @param traceId id de la traza
+     * @return traza, si sigue en el buffer
+     */
+    public Optional<TrazaRegistrada> obtenerLenta(String traceId) {
+        return listarLentas(lentas.length).stream()
+                .filter(t -> t.traceId().equals(traceId))
+                .findFirst();
+    }
+
+    @PreDestroy
+    void detener() throws InterruptedException, IOException {
+        exportador.shutdown();
+        exportador.awaitTermination(5, TimeUnit.SECONDS);
+        if (escritor != null) {
+            escritor.close();
+        }
+    }
+
+    // ====================== EXPORTACIÓN ======================
+
+    /**
+     * Escribe la traza en el archivo y la envía al colector. Solo se ejecuta en el hilo exportador.
+     */
+    private void exportar(TrazaRegistrada traza) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(aOtlp(traza));
+        } catch (IOException e) {
+            log.warn("No se pudo serializar la traza {}: {}", traza.traceId(), e.getMessage());
+            return;
+        }
+        if (archivo != null) {
+            try {
+                if (escritor == null) {
+                    escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                escritor.write(json);
+                escritor.newLine();
+                escritor.flush();
+            } catch (IOException e) {
+                log.warn("No se pudo escribir la traza {} en {}: {}", traza.traceId(), archivo, e.getMessage());
+            }
+        }
+        if (colector != null) {
+            try {
+                HttpResponse<Void> respuesta = http.send(HttpRequest.newBuilder(colector)
+                                .timeout(Duration.ofSeconds(5))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(json))
+                                .build(),
+                        HttpResponse.BodyHandlers.discarding());
+                if (respuesta.statusCode() >= 300) {
+                    log.warn("El colector de trazas respondió {} a la traza {}", respuesta.statusCode(), traza.traceId());
+                }
+            } catch (IOException e) {
+                log.warn("No se pudo enviar la traza {} a {}: {}", traza.traceId(), colector, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Convierte una traza al formato OTLP/JSON ({@code ExportTraceServiceRequest}).
+     */
+    private ObjectNode aOtlp(TrazaRegistrada traza) {
+        long inicioNanos = traza.inicio().getEpochSecond() * 1_000_000_000L + traza.inicio().getNano();
+        ObjectNode peticion = objectMapper.createObjectNode();
+        ObjectNode recurso = peticion.putArray("resourceSpans").addObject();
+        atributo(recurso.putObject("resource").putArray("attributes"), "service.name", servicio);
+        ObjectNode ambito = recurso.putArray("scopeSpans").addObject();
+        ambito.putObject("scope").put("name", "biblio_app.trazas");
+        ArrayNode spans = ambito.putArray("spans");
+        for (TramoRegistrado tramo : traza.tramos()) {
+            ObjectNode span = spans.addObject();
+            span.put("traceId", traza.traceId());
+            span.put("spanId", tramo.id());
+            if (tramo.padre() != null) {
+                span.put("parentSpanId", tramo.padre());
+            }
+            span.put("name", tramo.nombre());
+            // 2 = SERVER para la raíz, 1 = INTERNAL para el resto
+            span.put("kind", tramo.padre() == null ? 2 : 1);
+            long inicio = inicioNanos + tramo.inicioMicros() * 1000;
+            span.put("startTimeUnixNano", Long.toString(inicio));
+            span.put("endTimeUnixNano", Long.toString(inicio + tramo.duracionMicros() * 1000));
+            ArrayNode atributos = span.putArray("attributes");
+            atributo(atributos, "biblio.capa", tramo.capa());
+            if (tramo.error() != null) {
+                atributo(atributos, "exception.type", tramo.error());
+                // 2 = STATUS_CODE_ERROR
+                span.putObject("status").put("code", 2);
+            }
+        }
+        return peticion;
+    }
+
+    private static void atributo(ArrayNode atributos, String clave, String valor) {
+        ObjectNode atributo = atributos.addObject();
+        atributo.put("key", clave);
+        atributo.putObject("value").put("stringValue", valor);
+    }
+}
@@ -0,0 +1,74 @@
+package db.migration;
+
+import com.joseluu.biblio_app.service.Isbn;
+import com.joseluu.biblio_app.service.SocioService;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * V4 - Normaliza los ISBN y emails guardados antes de que se normalizaran al escribirlos.
+ *
+ * <p>
+ * Las búsquedas por ISBN y por email comparan con el valor normalizado, así
+ * que una fila antigua como {@code 84-376-0494-X} o {@code Ana@Email.com} no
+ * se encontraba. Es una migración Java para aplicar exactamente
+ * {@link Isbn#normalizar} y {@link SocioService#normalizarEmail}.
+ * </p>
+ *
+ * <p>
+ * Antes de modificar nada se comprueba que dos filas no quedan con el mismo
+ * valor (por ejemplo {@code 8437604947} y {@code 9788437604947}). Si ocurre,
+ * la migración falla indicando los ids: hay que fusionar o corregir esas
+ * filas a mano y volver a migrar. Como la normalización es idempotente, un
+ * valor ya normalizado no cambia, de modo que ninguna actualización choca
+ * con el índice único a mitad de camino si no hay duplicados al final.
+ * </p>
+ */
+public class V4__NormalizarIsbnYEmail extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        normalizar(jdbc, "libro", "isbn", Isbn::normalizar);
+        normalizar(jdbc, "socio", "email", SocioService::normalizarEmail);
+    }
+
+    private static void normalizar(JdbcTemplate jdbc, String tabla, String columna, UnaryOperator<String> normalizacion) {
+        Map<Long, String> normalizados = new LinkedHashMap<>();
+        List<Object[]> cambios = new ArrayList<>();
+        jdbc.query("select id, " + columna + " from " + tabla + " order by id", fila -> {
+            long id = fila.getLong(1);
+            String valor = fila.getString(2);
+            String normalizado = normalizacion.apply(valor);
+            normalizados.put(id, normalizado);
+            if (!Objects.equals(valor, normalizado)) {
+                cambios.add(new Object[]{normalizado, id});
+            }
+        });
+
+        String duplicados = normalizados.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, LinkedHashMap::new,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .entrySet().stream()
+                .filter(grupo -> grupo.getValue().size() > 1)
+                .map(grupo -> grupo.getKey() + " (ids " + grupo.getValue() + ")")
+                .collect(Collectors.joining(", "));
+        if (!duplicados.isEmpty()) {
+            throw new FlywayException("Hay filas de " + tabla + " con el mismo " + columna
+                    + " una vez normalizado: " + duplicados + ". Hay que fusionarlas o corregirlas antes de migrar");
+        }
+
+        jdbc.batchUpdate("update " + tabla + " set " + columna + " = ? where id = ?", cambios);
+    }
+}
@@ -0,0 +1,51 @@
+-- V1 - Esquema inicial: libros, socios y prestamos.
+--
+-- Es el esquema que generaba Hibernate con ddl-auto=update para la primera version de las entidades, antes
+-- de pasar a Flyway. Las bases de datos ya existentes no lo ejecutan: Flyway las marca como version 1
+-- (spring.flyway.baseline-on-migrate) y les aplica las migraciones siguientes, igual que a una base nueva.
+--
+-- No debe modificarse: cualquier cambio de esquema va en una migracion nueva.
+
+create table libro (
+    id bigint not null auto_increment,
+    isbn varchar(13) not null,
+    autor varchar(255) not null,
+    categoria varchar(255),
+    titulo varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table prestamo (
+    fecha_fin date,
+    fecha_inicio date not null,
+    fecha_prestamo date,
+    id bigint not null auto_increment,
+    libro_id bigint not null,
+    socio_id bigint not null,
+    estado enum ('ACTIVO','DEVUELTO','RETRASADO') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table socio (
+    fecha_fin_penalizacion date,
+    id bigint not null auto_increment,
+    email varchar(255) not null,
+    nombre varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+alter table libro
+    add constraint UK_ehuya6b4bxgkc4ru5wcf5njgr unique (isbn);
+
+alter table socio
+    add constraint UK_rqwfwnsha1nrjimqucf8xtf0 unique (email);
+
+alter table prestamo
+    add constraint FKk7uwwn2ov4su2plcn1jh4dbi0
+    foreign key (libro_id)
+    references libro (id);
+
+alter table prestamo
+    add constraint FKnnfrndxihs48ch9j7t7y6t9to
+    foreign key (socio_id)
+    references socio (id);
@@ -0,0 +1,100 @@
+-- V2 - Columnas desnormalizadas, historial de eventos, instantaneas, notificaciones e indices.
+--
+-- Solo cambia la estructura; los datos de las columnas nuevas y de las tablas de secuencia los rellena V3.
+--
+-- Las columnas se anaden al final de cada tabla, que MySQL 8 resuelve sin copiarla (ALGORITHM=INSTANT).
+-- Los indices se crean con ${en_linea} (ALGORITHM=INPLACE LOCK=NONE en MySQL): si MySQL no puede crear un
+-- indice sin bloquear las escrituras, la migracion falla en lugar de dejar la tabla bloqueada mientras se
+-- construye.
+--
+-- Los identificadores pasan a tablas de secuencia (MySQL no tiene secuencias) con asignacion de 50 en 50.
+-- Las columnas id conservan su auto_increment, que deja de usarse: quitarlo obligaria a copiar la tabla.
+
+alter table libro
+    add column disponible bit default true not null;
+
+alter table socio
+    add column prestamos_activos integer default 0 not null;
+
+alter table prestamo
+    add column fecha_devolucion date;
+
+alter table prestamo
+    add column libro_activo bigint;
+
+create table libro_seq (
+    next_val bigint
+) engine=InnoDB;
+
+create table socio_seq (
+    next_val bigint
+) engine=InnoDB;
+
+create table prestamo_seq (
+    next_val bigint
+) engine=InnoDB;
+
+create table evento_prestamo (
+    fecha date,
+    fecha_fin date,
+    id bigint not null,
+    libro_id bigint not null,
+    prestamo_id bigint not null,
+    registrado datetime(6) not null,
+    socio_id bigint not null,
+    tipo enum ('ALTA','RENOVACION','RETRASO','DEVOLUCION','BAJA') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table evento_prestamo_seq (
+    next_val bigint
+) engine=InnoDB;
+
+create table instantanea_prestamo (
+    eliminado bit not null,
+    fecha_devolucion date,
+    fecha_fin date,
+    fecha_prestamo date,
+    libro_id bigint not null,
+    prestamo_id bigint not null,
+    socio_id bigint not null,
+    ultimo_evento bigint not null,
+    estado enum ('ACTIVO','DEVUELTO','RETRASADO') not null,
+    primary key (prestamo_id)
+) engine=InnoDB;
+
+create table notificacion (
+    intentos integer not null,
+    creada datetime(6) not null,
+    id bigint not null,
+    prestamo_id bigint not null,
+    procesada datetime(6),
+    programada datetime(6) not null,
+    ultimo_error varchar(500),
+    estado enum ('PENDIENTE','ENVIADA','FALLIDA','DESCARTADA') not null,
+    tipo enum ('CONFIRMACION_PRESTAMO','RECORDATORIO_VENCIMIENTO') not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table notificacion_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into notificacion_seq values (1);
+
+-- Disponibilidad de libros para el catalogo y el autocompletado
+create index idx_libro_disponible on libro (disponible, id) ${en_linea};
+
+-- Prestamos en curso por socio y por libro; barrido de vencidos
+create index idx_prestamo_socio_estado on prestamo (socio_id, estado) ${en_linea};
+create index idx_prestamo_libro_estado on prestamo (libro_id, estado) ${en_linea};
+create index idx_prestamo_estado_fecha_fin on prestamo (estado, fecha_fin) ${en_linea};
+
+-- Historial de eventos por prestamo y reconstruccion incremental
+create index idx_evento_prestamo on evento_prestamo (prestamo_id, id) ${en_linea};
+create index idx_evento_registrado on evento_prestamo (registrado) ${en_linea};
+create index idx_instantanea_ultimo_evento on instantanea_prestamo (ultimo_evento) ${en_linea};
+
+-- Bandeja de salida de notificaciones
+create index idx_notificacion_pendiente on notificacion (estado, programada) ${en_linea};
+create index idx_notificacion_prestamo on notificacion (prestamo_id) ${en_linea};
@@ -0,0 +1,77 @@
+-- V3 - Datos de las columnas y tablas creadas en V2 para los libros, socios y prestamos existentes.
+--
+-- Todas las sentencias se pueden repetir: si la migracion falla a medias (MySQL no deshace el DDL), basta
+-- con corregir la causa, ejecutar flyway repair y volver a migrar.
+
+-- Tablas de secuencia por encima del mayor id existente. Hibernate reserva los ids de 50 en 50 y toma el
+-- valor leido como el ultimo del bloque, asi que el primer id asignado sera max(id) + 1
+delete from libro_seq;
+insert into libro_seq select coalesce(max(id), 0) + 50 from libro;
+
+delete from socio_seq;
+insert into socio_seq select coalesce(max(id), 0) + 50 from socio;
+
+delete from prestamo_seq;
+insert into prestamo_seq select coalesce(max(id), 0) + 50 from prestamo;
+
+-- Disponibilidad de los libros y contador de prestamos en curso de los socios
+-- (lo mismo que LibroRepository.recalcularDisponibilidad y SocioRepository.recalcularPrestamosActivos)
+update libro l
+set disponible = not exists (
+    select 1 from prestamo p
+    where p.libro_id = l.id and p.estado in ('ACTIVO', 'RETRASADO'));
+
+update socio s
+set prestamos_activos = (
+    select count(*) from prestamo p
+    where p.socio_id = s.id and p.estado in ('ACTIVO', 'RETRASADO'));
+
+-- Historial de los prestamos existentes: su alta y, si procede, su retraso o devolucion (lo mismo que
+-- HistorialPrestamosService.registrarPrestamosSinHistorial). El evento del prestamo n recibe los ids
+-- 2n - 1 (alta) y 2n (retraso o devolucion), por encima de los eventos ya registrados
+insert into evento_prestamo (id, prestamo_id, libro_id, socio_id, tipo, fecha, fecha_fin, registrado)
+select p.base + 2 * p.n - 1 + t.orden,
+       p.id,
+       p.libro_id,
+       p.socio_id,
+       t.tipo,
+       case t.tipo
+           when 'ALTA' then p.fecha_prestamo
+           when 'RETRASO' then current_date
+           else p.fecha_devolucion
+       end,
+       p.fecha_fin,
+       current_timestamp(6)
+from (
+    select pr.id, pr.libro_id, pr.socio_id, pr.estado, pr.fecha_prestamo, pr.fecha_fin, pr.fecha_devolucion,
+           row_number() over (order by pr.id) as n,
+           (select coalesce(max(e.id), 0) from evento_prestamo e) as base
+    from prestamo pr
+    where not exists (select 1 from evento_prestamo e where e.prestamo_id = pr.id)
+) p
+join (
+    select 0 as orden, 'ALTA' as tipo, null as estado
+    union all select 1, 'RETRASO', 'RETRASADO'
+    union all select 1, 'DEVOLUCION', 'DEVUELTO'
+) t on t.orden = 0 or t.estado = p.estado;
+
+delete from evento_prestamo_seq;
+insert into evento_prestamo_seq select coalesce(max(id), 0) + 50 from evento_prestamo;
+
+-- Instantaneas con el estado actual de cada prestamo, que es el que resulta de aplicar esos eventos
+insert into instantanea_prestamo (prestamo_id, libro_id, socio_id, estado, fecha_prestamo, fecha_fin,
+                                  fecha_devolucion, eliminado, ultimo_evento)
+select p.id, p.libro_id, p.socio_id, p.estado, p.fecha_prestamo, p.fecha_fin, p.fecha_devolucion, false,
+       (select max(e.id) from evento_prestamo e where e.prestamo_id = p.id)
+from prestamo p
+where not exists (select 1 from instantanea_prestamo i where i.prestamo_id = p.id);
+
+-- Un solo prestamo en curso por libro. Si la creacion del indice falla con "Duplicate entry 'N'", el libro N
+-- tiene varios prestamos en curso; se localizan con
+--   select libro_activo, count(*) from prestamo where libro_activo is not null
+--   group by libro_activo having count(*) > 1;
+-- y hay que devolver o eliminar los sobrantes antes de repetir la migracion
+update prestamo
+set libro_activo = case when estado in ('ACTIVO', 'RETRASADO') then libro_id end;
+
+create unique index uk_prestamo_libro_activo on prestamo (libro_activo) ${en_linea};
@@ -0,0 +1,122 @@
+package com.joseluu.biblio_app;
+
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.EventoPrestamoRepository;
+import com.joseluu.biblio_app.repository.InstantaneaPrestamoRepository;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.NotificacionRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Datos de prueba compartidos por los tests que arrancan la aplicación.
+ *
+ * <p>
+ * Crea libros y socios con ISBN y email únicos en el contexto y deja la base
+ * de datos vacía al terminar cada test. Se añade al contexto con
+ * {@code @Import(DatosPrueba.class)}.
+ * </p>
+ */
+@TestComponent
+public class DatosPrueba {
+
+    private final LibroRepository libroRepository;
+    private final SocioRepository socioRepository;
+    private final PrestamoRepository prestamoRepository;
+    private final EventoPrestamoRepository eventoRepository;
+    private final InstantaneaPrestamoRepository instantaneaRepository;
+    private final NotificacionRepository notificacionRepository;
+    private final CacheManager cacheManager;
+
+    /**
+     * Numerador de libros y socios: no se reinicia al limpiar, así que los ISBN
+     * y emails no se repiten aunque otro hilo siga creando datos.
+     */
+    private final AtomicLong secuencia = new AtomicLong();
+
+    public DatosPrueba(LibroRepository libroRepository,
+                       SocioRepository socioRepository,
+                       PrestamoRepository prestamoRepository,
+                       EventoPrestamoRepository eventoRepository,
+                       InstantaneaPrestamoRepository instantaneaRepository,
+                       NotificacionRepository notificacionRepository,
+                       CacheManager cacheManager) {
+        this.libroRepository = libroRepository;
+        this.socioRepository = socioRepository;
+        this.prestamoRepository = prestamoRepository;
+        this.eventoRepository = eventoRepository;
+        this.instantaneaRepository = instantaneaRepository;
+        this.notificacionRepository = notificacionRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * Libro sin guardar con título, autor e ISBN únicos.
+     *
+     * @return libro nuevo
+     */
+    public Libro nuevoLibro() {
+        long n = secuencia.incrementAndGet();
+        Libro libro = new Libro();
+        libro.setTitulo("Libro " + n);
+        libro.setAutor("Autor " + n);
+        libro.setIsbn(String.format("979%010d", n));
+        return libro;
+    }
+
+    /**
+     * Guarda un libro nuevo.
+     *
+     * @return libro guardado
+     */
+    public Libro crearLibro() {
+        return libroRepository.save(nuevoLibro());
+    }
+
+    /**
+     * Socio sin guardar con nombre y email únicos.
+     *
+     * @return socio nuevo
+     */
+    public Socio nuevoSocio() {
+        long n = secuencia.incrementAndGet();
+        Socio socio = new Socio();
+        socio.setNombre("Socio " + n);
+        socio.setEmail("socio" + n + "@email.com");
+        return socio;
+    }
+
+    /**
+     * Guarda un socio nuevo.
+     *
+     * @return socio guardado
+     */
+    public Socio crearSocio() {
+        return socioRepository.save(nuevoSocio());
+    }
+
+    /**
+     * Vacía las tablas, de las que dependen de otras a las que no dependen de
+     * ninguna, y las cachés de libros y socios.
+     */
+    public void limpiar() {
+        notificacionRepository.deleteAllInBatch();
+        instantaneaRepository.deleteAllInBatch();
+        eventoRepository.deleteAllInBatch();
+        prestamoRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+        for (String nombre : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(nombre);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+}
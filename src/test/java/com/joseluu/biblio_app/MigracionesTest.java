@@ -0,0 +1,177 @@
+package com.joseluu.biblio_app;
+
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Comprueba que las migraciones de Flyway crean el esquema que esperan las entidades.
+ *
+ * <p>
+ * Las migraciones se ejecutan sobre H2 en modo MySQL con el dialecto de
+ * MySQL, y Hibernate valida el esquema resultante al arrancar
+ * ({@code ddl-auto=validate}): una columna, tabla o secuencia que falte o
+ * no coincida con su entidad hace fallar el contexto. En producción
+ * Hibernate no valida ({@code ddl-auto=none}) para no inspeccionar el
+ * esquema en cada arranque.
+ * </p>
+ *
+ * <p>
+ * Además se migra una base de datos de la primera versión (solo V1, sin
+ * historial de Flyway y con datos) como lo haría producción, con
+ * {@code baseline-on-migrate}, y se comprueban los datos que rellenan V3 y V4.
+ * </p>
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:migraciones;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.flyway.enabled=true",
+        "spring.flyway.placeholders.en_linea="
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MigracionesTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void lasMigracionesCreanElEsquemaDeLasEntidades() {
+        assertThat(flyway.info().current()).isNotNull();
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void lasTablasDeSecuenciaAsignanIdentificadores() {
+        Libro libro = new Libro();
+        libro.setTitulo("Título");
+        libro.setAutor("Autor");
+        libro.setIsbn("9780000000001");
+        entityManager.persist(libro);
+
+        Socio socio = new Socio();
+        socio.setNombre("Socio");
+        socio.setEmail("migraciones@email.com");
+        entityManager.persist(socio);
+
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(libro);
+        prestamo.setSocio(socio);
+        prestamo.setFechaPrestamo(LocalDate.now());
+        prestamo.setFechaFin(LocalDate.now().plusDays(15));
+        prestamo.setEstado(Prestamo.Estado.ACTIVO);
+        entityManager.persistAndFlush(prestamo);
+
+        assertThat(libro.getId()).isNotNull();
+        assertThat(socio.getId()).isNotNull();
+        assertThat(prestamo.getId()).isNotNull();
+    }
+
+    @Test
+    void unaBaseDeDatosDeLaPrimeraVersionRecibeLasMigracionesYSusDatos() {
+        DriverManagerDataSource dataSource = baseDeDatosPrimeraVersion("migraciones_v1");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // Los libros 3 y 7 y el socio 2 se guardaron antes de normalizar ISBN y emails
+        jdbc.update("insert into libro (id, isbn, titulo, autor) values (1, '9780000000001', 'A', 'A'), "
+                + "(2, '9780000000002', 'B', 'B'), (3, '84-376-0494-X', 'C', 'C'), (7, '0 306 40615 2', 'D', 'D')");
+        jdbc.update("insert into socio (id, nombre, email) values (1, 'Ana', 'ana@email.com'), "
+                + "(2, 'Luis', ' Luis@Email.com')");
+        jdbc.update("insert into prestamo (id, libro_id, socio_id, estado, fecha_inicio, fecha_prestamo, fecha_fin) values "
+                + "(1, 1, 1, 'ACTIVO', current_date, current_date, current_date + 15), "
+                + "(2, 2, 1, 'RETRASADO', current_date, current_date - 20, current_date - 5), "
+                + "(3, 3, 2, 'DEVUELTO', current_date, current_date - 30, current_date - 15), "
+                + "(4, 1, 2, 'DEVUELTO', current_date, current_date - 60, current_date - 45)");
+
+        migrar(dataSource);
+
+        assertThat(jdbc.queryForList("select id from libro where disponible = false order by id", Long.class))
+                .containsExactly(1L, 2L);
+        assertThat(jdbc.queryForList("select prestamos_activos from socio order by id", Integer.class))
+                .containsExactly(2, 0);
+        assertThat(jdbc.queryForList("select libro_activo from prestamo order by id", Long.class))
+                .containsExactly(1L, 2L, null, null);
+
+        assertThat(jdbc.queryForList("select prestamo_id || ':' || tipo from evento_prestamo order by id", String.class))
+                .containsExactly("1:ALTA", "2:ALTA", "2:RETRASO", "3:ALTA", "3:DEVOLUCION", "4:ALTA", "4:DEVOLUCION");
+        assertThat(jdbc.queryForList("select estado from instantanea_prestamo order by prestamo_id", String.class))
+                .containsExactly("ACTIVO", "RETRASADO", "DEVUELTO", "DEVUELTO");
+        assertThat(jdbc.queryForObject("select count(*) from instantanea_prestamo i where i.ultimo_evento = "
+                + "(select max(e.id) from evento_prestamo e where e.prestamo_id = i.prestamo_id)", Long.class))
+                .isEqualTo(4);
+
+        // Hibernate toma next_val como el último id del bloque de 50: el siguiente id es max(id) + 1
+        assertThat(jdbc.queryForObject("select next_val from libro_seq", Long.class)).isEqualTo(7 + 50);
+        assertThat(jdbc.queryForObject("select next_val from socio_seq", Long.class)).isEqualTo(2 + 50);
+        assertThat(jdbc.queryForObject("select next_val from prestamo_seq", Long.class)).isEqualTo(4 + 50);
+        assertThat(jdbc.queryForObject("select next_val from evento_prestamo_seq", Long.class))
+                .isEqualTo(jdbc.queryForObject("select max(id) from evento_prestamo", Long.class) + 50);
+
+        // Un segundo préstamo en curso del mismo libro choca con el índice único
+        assertThatThrownBy(() -> jdbc.update("update prestamo set libro_activo = 1 where id = 2"))
+                .isInstanceOf(DuplicateKeyException.class);
+
+        assertThat(jdbc.queryForList("select isbn from libro order by id", String.class))
+                .containsExactly("9780000000001", "9780000000002", "9788437604947", "9780306406157");
+        assertThat(jdbc.queryForList("select email from socio order by id", String.class))
+                .containsExactly("ana@email.com", "luis@email.com");
+    }
+
+    @Test
+    void laNormalizacionSeDetieneSiDosFilasQuedanConElMismoValor() {
+        DriverManagerDataSource dataSource = baseDeDatosPrimeraVersion("migraciones_duplicados");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("insert into libro (id, isbn, titulo, autor) values (1, '9788437604947', 'A', 'A'), "
+                + "(2, '84-376-0494-X', 'A', 'A')");
+
+        assertThatThrownBy(() -> migrar(dataSource))
+                .isInstanceOf(FlywayException.class)
+                .rootCause()
+                .hasMessageContaining("9788437604947 (ids [1, 2])");
+        assertThat(jdbc.queryForList("select isbn from libro order by id", String.class))
+                .containsExactly("9788437604947", "84-376-0494-X");
+    }
+
+    /**
+     * Base de datos con el esquema que creaba la primera versión con ddl-auto=update, sin historial de Flyway.
+     */
+    private static DriverManagerDataSource baseDeDatosPrimeraVersion(String nombre) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + nombre + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__esquema_inicial.sql")).execute(dataSource);
+        return dataSource;
+    }
+
+    /**
+     * Migra como en producción: la base de datos existente se marca como versión 1.
+     */
+    private static void migrar(DriverManagerDataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .placeholders(Map.of("en_linea", ""))
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,18 @@
+package com.joseluu.biblio_app.carga;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Carga con el pool de hilos de plataforma de Tomcat (modo por defecto).
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=false"
+)
+class CargaHilosPlataformaTest extends CargaModoHilos {
+
+    @Override
+    String modo() {
+        return "hilos de plataforma";
+    }
+}
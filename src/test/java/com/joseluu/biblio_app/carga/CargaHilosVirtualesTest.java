@@ -0,0 +1,18 @@
+package com.joseluu.biblio_app.carga;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Carga con hilos virtuales y el límite de concurrencia delante del pool de conexiones.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true"
+)
+class CargaHilosVirtualesTest extends CargaModoHilos {
+
+    @Override
+    String modo() {
+        return "hilos virtuales";
+    }
+}
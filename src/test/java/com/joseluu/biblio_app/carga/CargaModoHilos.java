@@ -0,0 +1,218 @@
+package com.joseluu.biblio_app.carga;
+
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Prueba de carga que mide el rendimiento de un modo de ejecución de peticiones.
+ *
+ * <p>
+ * Arranca la aplicación en un puerto aleatorio y lanza {@code carga.clientes}
+ * clientes concurrentes durante {@code carga.segundos}, cada uno con una
+ * mezcla de consultas de préstamos por libro y por socio y de préstamos y
+ * devoluciones en lote. Al terminar imprime peticiones por segundo, p50, p99,
+ * máximo y errores. Las subclases fijan el modo (hilos de plataforma o
+ * virtuales) para comparar las dos líneas del informe.
+ * </p>
+ *
+ * <p>
+ * Se ejecuta con {@code gradle cargaTest} y no forma parte de {@code test}.
+ * </p>
+ */
+@Tag("carga")
+abstract class CargaModoHilos {
+
+    private static final int LIBROS = 2000;
+    private static final int SOCIOS = 200;
+
+    private final int clientes = Integer.getInteger("carga.clientes", 400);
+    private final int segundos = Integer.getInteger("carga.segundos", 10);
+
+    @LocalServerPort
+    private int puerto;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    /**
+     * Nombre del modo para el informe.
+     */
+    abstract String modo();
+
+    @AfterEach
+    void limpiar() {
+        prestamoRepository.deleteAllInBatch();
+        libroRepository.deleteAllInBatch();
+        socioRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void medirRendimiento() throws Exception {
+        long[] libros = crearLibros();
+        long[] socios = crearSocios();
+        HttpClient cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        String base = "http://localhost:" + puerto + "/api/prestamos";
+
+        // Calentamiento corto para que el JIT y las cachés no cuenten en la medida
+        ejecutar(cliente, base, libros, socios, Math.min(clientes, 50), System.nanoTime() + 2_000_000_000L);
+
+        long inicio = System.nanoTime();
+        Resultado total = ejecutar(cliente, base, libros, socios, clientes,
+                inicio + Duration.ofSeconds(segundos).toNanos());
+        double duracion = (System.nanoTime() - inicio) / 1e9;
+
+        long[] latencias = total.latencias();
+        Arrays.sort(latencias);
+        System.out.printf("Carga [%s]: %d clientes, %d peticiones en %.1f s (%.0f pet/s), "
+                        + "p50 %.1f ms, p99 %.1f ms, max %.1f ms, %d rechazos 503, %d errores%n",
+                modo(), clientes, latencias.length, duracion, latencias.length / duracion,
+                percentil(latencias, 0.50), percentil(latencias, 0.99), percentil(latencias, 1.0),
+                total.rechazos(), total.errores());
+
+        assertThat(total.errores()).isZero();
+    }
+
+    private Resultado ejecutar(HttpClient cliente, String base, long[] libros, long[] socios,
+                               int concurrencia, long fin) throws Exception {
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Resultado>> futuros = new ArrayList<>();
+            for (int i = 0; i < concurrencia; i++) {
+                futuros.add(ejecutor.submit(() -> cliente(cliente, base, libros, socios, fin)));
+            }
+            Resultado total = new Resultado(new long[0], 0, 0);
+            for (Future<Resultado> futuro : futuros) {
+                total = total.sumar(futuro.get());
+            }
+            return total;
+        }
+    }
+
+    private Resultado cliente(HttpClient cliente, String base, long[] libros, long[] socios, long fin) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        long[] latencias = new long[1024];
+        int n = 0;
+        int rechazos = 0;
+        int errores = 0;
+        while (System.nanoTime() < fin) {
+            int tipo = azar.nextInt(10);
+            HttpRequest peticion;
+            if (tipo < 7) {
+                peticion = get(base + "/libro/" + libros[azar.nextInt(libros.length)]);
+            } else if (tipo < 9) {
+                peticion = get(base + "/socio/" + socios[azar.nextInt(socios.length)] + "/en-curso");
+            } else {
+                peticion = post(base + "/lote", "{\"socioId\":" + socios[azar.nextInt(socios.length)]
+                        + ",\"libroIds\":[" + libros[azar.nextInt(libros.length)] + "]}");
+            }
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<String> respuesta = cliente.send(peticion, HttpResponse.BodyHandlers.ofString());
+                if (respuesta.statusCode() == 503) {
+                    rechazos++;
+                } else if (respuesta.statusCode() >= 500) {
+                    errores++;
+                } else if (tipo == 9 && respuesta.statusCode() == 200) {
+                    // Devuelve lo prestado para que los libros sigan circulando
+                    String cuerpo = respuesta.body();
+                    int desde = cuerpo.indexOf("\"prestamos\":[") + 13;
+                    String ids = cuerpo.substring(desde, cuerpo.indexOf(']', desde));
+                    if (!ids.isEmpty()) {
+                        cliente.send(post(base + "/devoluciones", "[" + ids + "]"),
+                                HttpResponse.BodyHandlers.discarding());
+                    }
+                }
+            } catch (Exception e) {
+                errores++;
+            }
+            if (n == latencias.length) {
+                latencias = Arrays.copyOf(latencias, n * 2);
+            }
+            latencias[n++] = System.nanoTime() - inicio;
+        }
+        return new Resultado(Arrays.copyOf(latencias, n), rechazos, errores);
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static double percentil(long[] ordenadas, double p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.min(ordenadas.length - 1, Math.ceil(p * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, i)] / 1e6;
+    }
+
+    private long[] crearLibros() {
+        List<Libro> libros = new ArrayList<>();
+        for (int i = 0; i < LIBROS; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Libro de carga " + i);
+            libro.setAutor("Autor " + (i % 100));
+            libro.setIsbn(String.format("978%010d", i));
+            libros.add(libro);
+        }
+        return libroRepository.saveAll(libros).stream().mapToLong(Libro::getId).toArray();
+    }
+
+    private long[] crearSocios() {
+        List<Socio> socios = new ArrayList<>();
+        for (int i = 0; i < SOCIOS; i++) {
+            Socio socio = new Socio();
+            socio.setNombre("Socio de carga " + i);
+            socio.setEmail("carga" + i + "@email.com");
+            socios.add(socio);
+        }
+        return socioRepository.saveAll(socios).stream().mapToLong(Socio::getId).toArray();
+    }
+
+    private record Resultado(long[] latencias, int rechazos, int errores) {
+
+        Resultado sumar(Resultado otro) {
+            long[] todas = Arrays.copyOf(latencias, latencias.length + otro.latencias.length);
+            System.arraycopy(otro.latencias, 0, todas, latencias.length, otro.latencias.length);
+            return new Resultado(todas, rechazos + otro.rechazos, errores + otro.errores);
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.joseluu.biblio_app.carga;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joseluu.biblio_app.BiblioAppApplication;
+import com.joseluu.biblio_app.dto.Pagina;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga HTTP reproducible con una mezcla sintética de uso de la biblioteca.
+ *
+ * <p>
+ * Arranca la aplicación en un puerto libre con la base de datos H2 del perfil
+ * {@code test}, siembra el catálogo y los socios a través de los endpoints de
+ * importación CSV y reproduce durante {@code carga.segundos} una mezcla fija
+ * de operaciones: navegación del catálogo (vista MVC y API), búsquedas,
+ * autocompletado, consultas de préstamos, préstamos desde el formulario
+ * {@code /prestamos/guardar}, devoluciones y ediciones de libros y socios.
+ * </p>
+ *
+ * <p>
+ * Cada cliente usa un generador aleatorio con semilla {@code carga.semilla + n},
+ * así que dos ejecuciones con la misma configuración lanzan la misma secuencia
+ * de peticiones. Con {@code carga.ritmo} mayor que 0 los clientes siguen un
+ * calendario fijo (modelo abierto) y la latencia se mide desde el instante
+ * previsto de cada petición, de modo que las esperas del servidor no se
+ * esconden al frenar al cliente; con 0 cada cliente lanza la siguiente
+ * petición al recibir la respuesta (modelo cerrado).
+ * </p>
+ *
+ * <p>
+ * Al terminar imprime por endpoint peticiones, peticiones por segundo,
+ * rechazos de negocio, errores y percentiles de latencia, y guarda en
+ * {@code carga.informe} el informe y la distribución completa de cada
+ * histograma ({@code .hgrm}).
+ * </p>
+ *
+ * <p>
+ * Se ejecuta con {@code gradle cargaHttp [-Dcarga.clientes=50 -Dcarga.segundos=30 ...]}.
+ * </p>
+ */
+public class GeneradorCarga {
+
+    private static final String[] PALABRAS = {
+            "historia", "ciudad", "noche", "jardin", "guerra", "silencio", "viaje", "mar", "sombra",
+            "tiempo", "camino", "memoria", "fuego", "isla", "reino", "secreto", "invierno", "luz",
+            "rio", "montana", "palabra", "sueno", "bosque", "destino"};
+    private static final String[] AUTORES = {
+            "Garcia", "Martinez", "Lopez", "Sanchez", "Romero", "Navarro", "Torres", "Dominguez",
+            "Vazquez", "Ramos", "Gil", "Serrano", "Molina", "Blanco", "Castro", "Ortega"};
+    private static final String[] CATEGORIAS = {
+            "Novela", "Ensayo", "Poesia", "Historia", "Ciencia", "Infantil", "Teatro", "Biografia"};
+    private static final String[] NOMBRES = {
+            "Ana", "Luis", "Marta", "Pablo", "Lucia", "Javier", "Elena", "Carlos", "Sara", "Diego"};
+
+    /**
+     * Filas por petición de importación al sembrar los datos.
+     */
+    private static final int LOTE_SIEMBRA = 5000;
+
+    private final int clientes = Integer.getInteger("carga.clientes", 50);
+    private final int segundos = Integer.getInteger("carga.segundos", 30);
+    private final int calentamiento = Integer.getInteger("carga.calentamiento", 10);
+    private final int ritmo = Integer.getInteger("carga.ritmo", 0);
+    private final long semilla = Long.getLong("carga.semilla", 42);
+    private final int numeroLibros = Integer.getInteger("carga.libros", 20_000);
+    private final int numeroSocios = Integer.getInteger("carga.socios", 2_000);
+    private final Path informe = Path.of(System.getProperty("carga.informe", "build/reports/carga"));
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+
+    private String base;
+    private long[] libros;
+    private String[] isbns;
+    private long[] socios;
+
+    /**
+     * Operaciones de la mezcla, con su peso sobre 100 y el estado HTTP que indica éxito.
+     */
+    enum Operacion {
+        CATALOGO_MVC("GET /libros", 16, 200),
+        CATALOGO_API("GET /api/libros", 10, 200),
+        BUSQUEDA("GET /api/libros/buscar", 15, 200),
+        SUGERENCIAS("GET /api/libros/sugerencias", 10, 200),
+        PRESTAMOS_LIBRO("GET /api/prestamos/libro/{id}", 5, 200),
+        PRESTAMOS_SOCIO("GET /api/prestamos/socio/{id}/en-curso", 12, 200),
+        PRESTAMO("POST /prestamos/guardar", 12, 302),
+        DEVOLUCION("POST /api/prestamos/{id}/devolucion", 0, 204),
+        FORMULARIO_SOCIO("GET /socios/editar/{id}", 8, 200),
+        EDICION_SOCIO("POST /socios/guardar", 8, 302),
+        EDICION_LIBRO("POST /libros/guardar", 4, 302);
+
+        final String endpoint;
+        final int peso;
+        final int exito;
+
+        Operacion(String endpoint, int peso, int exito) {
+            this.endpoint = endpoint;
+            this.peso = peso;
+            this.exito = exito;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new GeneradorCarga().ejecutar();
+    }
+
+    private void ejecutar() throws Exception {
+        try (ConfigurableApplicationContext contexto = arrancar()) {
+            int puerto = ((WebServerApplicationContext) contexto).getWebServer().getPort();
+            base = "http://localhost:" + puerto;
+            sembrar(contexto.getBean(JdbcTemplate.class));
+
+            System.out.printf("Calentamiento: %d s con %d clientes%n", calentamiento, clientes);
+            // Otra semilla: si repitiera la secuencia de la medida, esta pediría libros ya prestados
+            lanzar(calentamiento, ~semilla);
+
+            System.out.printf("Medida: %d s con %d clientes (%s)%n", segundos, clientes,
+                    ritmo > 0 ? ritmo + " pet/s" : "modelo cerrado");
+            long inicio = System.nanoTime();
+            Map<Operacion, Estadisticas> resultado = lanzar(segundos, semilla);
+            double duracion = (System.nanoTime() - inicio) / 1e9;
+
+            Files.createDirectories(informe);
+            try (PrintStream fichero = new PrintStream(Files.newOutputStream(informe.resolve("informe.txt")),
+                    true, StandardCharsets.UTF_8)) {
+                imprimir(resultado, duracion, System.out);
+                imprimir(resultado, duracion, fichero);
+            }
+            for (Map.Entry<Operacion, Estadisticas> entrada : resultado.entrySet()) {
+                try (PrintStream hgrm = new PrintStream(Files.newOutputStream(
+                        informe.resolve(entrada.getKey().name().toLowerCase() + ".hgrm")), true, StandardCharsets.UTF_8)) {
+                    entrada.getValue().latencias.outputPercentileDistribution(hgrm, 1000.0);
+                }
+            }
+            System.out.println("Informe guardado en " + informe.toAbsolutePath());
+        }
+    }
+
+    // ====================== PREPARACIÓN ======================
+
+    private ConfigurableApplicationContext arrancar() {
+        return new SpringApplicationBuilder(BiblioAppApplication.class)
+                .run("--spring.profiles.active=test",
+                        "--server.port=0",
+                        "--biblio.retrasos.habilitado=false",
+                        "--biblio.historial.instantaneas.habilitado=false",
+                        "--logging.level.root=WARN");
+    }
+
+    /**
+     * Importa libros y socios por la API, como haría una carga inicial real, y
+     * lee sus ids para repartir las operaciones.
+     */
+    private void sembrar(JdbcTemplate jdbc) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        SplittableRandom azar = new SplittableRandom(semilla);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < numeroLibros; i++) {
+            if (csv.isEmpty()) {
+                csv.append("titulo,autor,isbn,categoria\n");
+            }
+            csv.append(capitalizar(PALABRAS[azar.nextInt(PALABRAS.length)])).append(" de ")
+                    .append(PALABRAS[azar.nextInt(PALABRAS.length)]).append(' ').append(i).append(',')
+                    .append(AUTORES[azar.nextInt(AUTORES.length)]).append(',')
+                    .append(String.format("978%010d", i)).append(',')
+                    .append(CATEGORIAS[azar.nextInt(CATEGORIAS.length)]).append('\n');
+            if ((i + 1) % LOTE_SIEMBRA == 0 || i == numeroLibros - 1) {
+                importar("/api/libros/lote", csv);
+            }
+        }
+        for (int i = 0; i < numeroSocios; i++) {
+            if (csv.isEmpty()) {
+                csv.append("nombre,email\n");
+            }
+            csv.append(NOMBRES[azar.nextInt(NOMBRES.length)]).append(' ')
+                    .append(AUTORES[azar.nextInt(AUTORES.length)]).append(',')
+                    .append("carga").append(i).append("@biblio.local\n");
+            if ((i + 1) % LOTE_SIEMBRA == 0 || i == numeroSocios - 1) {
+                importar("/api/socios/lote", csv);
+            }
+        }
+        List<Map<String, Object>> filas = jdbc.queryForList("select id, isbn from libro order by id");
+        libros = filas.stream().mapToLong(fila -> ((Number) fila.get("id")).longValue()).toArray();
+        isbns = filas.stream().map(fila -> (String) fila.get("isbn")).toArray(String[]::new);
+        socios = jdbc.queryForList("select id from socio order by id", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        System.out.printf("Datos sembrados: %d libros, %d socios (%d ms)%n",
+                libros.length, socios.length, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void importar(String ruta, StringBuilder csv) throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = http.send(HttpRequest.newBuilder(URI.create(base + ruta))
+                        .header("Content-Type", "text/csv")
+                        .POST(HttpRequest.BodyPublishers.ofString(csv.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("Importación fallida en " + ruta + ": " + respuesta.statusCode());
+        }
+        csv.setLength(0);
+    }
+
+    // ====================== EJECUCIÓN ======================
+
+    private Map<Operacion, Estadisticas> lanzar(int duracion, long semillaFase) throws Exception {
+        long fin = System.nanoTime() + Duration.ofSeconds(duracion).toNanos();
+        Map<Operacion, Estadisticas> total = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            total.put(operacion, new Estadisticas());
+        }
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<Operacion, Estadisticas>>> futuros = new ArrayList<>();
+            for (int n = 0; n < clientes; n++) {
+                SplittableRandom azar = new SplittableRandom(semillaFase + n);
+                futuros.add(ejecutor.submit(() -> cliente(azar, fin)));
+            }
+            for (Future<Map<Operacion, Estadisticas>> futuro : futuros) {
+                futuro.get().forEach((operacion, parcial) -> total.get(operacion).sumar(parcial));
+            }
+        }
+        return total;
+    }
+
+    private Map<Operacion, Estadisticas> cliente(SplittableRandom azar, long fin) {
+        Map<Operacion, Estadisticas> estadisticas = new EnumMap<>(Operacion.class);
+        for (Operacion operacion : Operacion.values()) {
+            estadisticas.put(operacion, new Estadisticas());
+        }
+        ArrayDeque<Long> prestatarios = new ArrayDeque<>();
+        long intervalo = ritmo > 0 ? 1_000_000_000L * clientes / ritmo : 0;
+        // Arranque escalonado para que los clientes del modelo abierto no coincidan
+        long previsto = System.nanoTime() + (intervalo > 0 ? azar.nextLong(intervalo) : 0);
+        while (previsto < fin) {
+            if (intervalo > 0) {
+                LockSupport.parkNanos(previsto - System.nanoTime());
+            } else {
+                previsto = System.nanoTime();
+            }
+            Operacion operacion = elegir(azar.nextInt(100));
+            if (operacion == Operacion.PRESTAMOS_SOCIO && azar.nextInt(2) == 0) {
+                // La mitad de las consultas de préstamos de un socio terminan en una devolución
+                devolver(azar, prestatarios, estadisticas, previsto);
+            } else {
+                int indiceLibro = azar.nextInt(libros.length);
+                int indiceSocio = azar.nextInt(socios.length);
+                String cuerpo = medir(estadisticas.get(operacion), operacion,
+                        peticion(operacion, indiceLibro, indiceSocio, azar), previsto);
+                if (cuerpo != null && operacion == Operacion.PRESTAMO) {
+                    prestatarios.add(socios[indiceSocio]);
+                }
+            }
+            previsto += intervalo;
+        }
+        return estadisticas;
+    }
+
+    private static Operacion elegir(int tirada) {
+        int acumulado = 0;
+        for (Operacion operacion : Operacion.values()) {
+            acumulado += operacion.peso;
+            if (tirada < acumulado) {
+                return operacion;
+            }
+        }
+        throw new IllegalStateException("Los pesos de la mezcla no suman 100");
+    }
+
+    private HttpRequest peticion(Operacion operacion, int indiceLibro, int indiceSocio, SplittableRandom azar) {
+        long libro = libros[indiceLibro];
+        long socio = socios[indiceSocio];
+        return switch (operacion) {
+            case CATALOGO_MVC -> get("/libros?tamanio=50&cursor=" + Pagina.codificarCursor(libro));
+            case CATALOGO_API -> get("/api/libros?tamanio=50&cursor=" + Pagina.codificarCursor(libro));
+            case BUSQUEDA -> get("/api/libros/buscar?q=" + codificar(PALABRAS[azar.nextInt(PALABRAS.length)]
+                    + " " + PALABRAS[azar.nextInt(PALABRAS.length)]));
+            case SUGERENCIAS -> {
+                String palabra = PALABRAS[azar.nextInt(PALABRAS.length)];
+                yield get("/api/libros/sugerencias?q=" + palabra.substring(0, Math.min(palabra.length(), 3)));
+            }
+            case PRESTAMOS_LIBRO -> get("/api/prestamos/libro/" + libro);
+            case PRESTAMOS_SOCIO -> get("/api/prestamos/socio/" + socio + "/en-curso");
+            case PRESTAMO -> formulario("/prestamos/guardar", "libro.id=" + libro + "&socio.id=" + socio);
+            case FORMULARIO_SOCIO -> get("/socios/editar/" + socio);
+            case EDICION_SOCIO -> formulario("/socios/guardar", "id=" + socio
+                    + "&nombre=" + codificar(NOMBRES[azar.nextInt(NOMBRES.length)] + " "
+                    + AUTORES[azar.nextInt(AUTORES.length)])
+                    + "&email=carga" + indiceSocio + "@biblio.local");
+            // Mantiene el ISBN para no chocar con otro libro, pero cambia título y categoría
+            case EDICION_LIBRO -> formulario("/libros/guardar", "id=" + libro
+                    + "&titulo=" + codificar(capitalizar(PALABRAS[azar.nextInt(PALABRAS.length)]) + " de "
+                    + PALABRAS[azar.nextInt(PALABRAS.length)] + " " + indiceLibro)
+                    + "&autor=" + codificar(AUTORES[azar.nextInt(AUTORES.length)])
+                    + "&categoria=" + codificar(CATEGORIAS[azar.nextInt(CATEGORIAS.length)])
+                    + "&isbn=" + isbns[indiceLibro]);
+            case DEVOLUCION -> throw new IllegalArgumentException("La devolución parte de una consulta previa");
+        };
+    }
+
+    /**
+     * Consulta los préstamos en curso de un socio y devuelve el primero, como en el mostrador.
+     *
+     * <p>
+     * El socio es el más antiguo de los que este cliente ha prestado y aún no
+     * ha devuelto, o uno al azar si no queda ninguno.
+     * </p>
+     */
+    private void devolver(SplittableRandom azar, ArrayDeque<Long> prestatarios,
+                          Map<Operacion, Estadisticas> estadisticas, long previsto) {
+        Long pendiente = prestatarios.poll();
+        long socio = pendiente != null ? pendiente : socios[azar.nextInt(socios.length)];
+        String cuerpo = medir(estadisticas.get(Operacion.PRESTAMOS_SOCIO), Operacion.PRESTAMOS_SOCIO,
+                get("/api/prestamos/socio/" + socio + "/en-curso"), previsto);
+        if (cuerpo == null) {
+            return;
+        }
+        try {
+            JsonNode prestamos = mapper.readTree(cuerpo);
+            if (prestamos.isArray() && !prestamos.isEmpty()) {
+                medir(estadisticas.get(Operacion.DEVOLUCION), Operacion.DEVOLUCION,
+                        HttpRequest.newBuilder(URI.create(base + "/api/prestamos/"
+                                        + prestamos.get(0).get("id").asLong() + "/devolucion"))
+                                .timeout(Duration.ofSeconds(30))
+                                .POST(HttpRequest.BodyPublishers.noBody())
+                                .build(),
+                        System.nanoTime());
+            }
+        } catch (IOException e) {
+            estadisticas.get(Operacion.DEVOLUCION).errores++;
+        }
+    }
+
+    /**
+     * Envía una petición y registra su latencia desde {@code previsto}.
+     *
+     * @return cuerpo de la respuesta si tuvo éxito, o {@code null}
+     */
+    private String medir(Estadisticas estadisticas, Operacion operacion, HttpRequest peticion, long previsto) {
+        String cuerpo = null;
+        try {
+            HttpResponse<String> respuesta = http.send(peticion, HttpResponse.BodyHandlers.ofString());
+            if (respuesta.statusCode() == operacion.exito) {
+                cuerpo = respuesta.body();
+            } else if (respuesta.statusCode() >= 500) {
+                estadisticas.errores++;
+            } else {
+                // Préstamo rechazado por las reglas (vista de error), socio inexistente...
+                estadisticas.rechazos++;
+            }
+        } catch (IOException e) {
+            estadisticas.errores++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            estadisticas.errores++;
+        }
+        estadisticas.latencias.recordValue(Math.max(0, System.nanoTime() - previsto) / 1000);
+        return cuerpo;
+    }
+
+    private HttpRequest get(String ruta) {
+        return HttpRequest.newBuilder(URI.create(base + ruta)).timeout(Duration.ofSeconds(30)).GET().build();
+    }
+
+    private HttpRequest formulario(String ruta, String campos) {
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(campos))
+                .build();
+    }
+
+    private static String codificar(String texto) {
+        return URLEncoder.encode(texto, StandardCharsets.UTF_8);
+    }
+
+    private static String capitalizar(String palabra) {
+        return Character.toUpperCase(palabra.charAt(0)) + palabra.substring(1);
+    }
+
+    // ====================== INFORME ======================
+
+    private void imprimir(Map<Operacion, Estadisticas> resultado, double duracion, PrintStream salida) {
+        salida.printf("Carga HTTP: %d clientes, %.1f s, semilla %d, %d libros, %d socios%n",
+                clientes, duracion, semilla, libros.length, socios.length);
+        salida.printf("%-40s %9s %9s %9s %8s %9s %9s %9s %9s %9s%n", "Endpoint", "Peticiones",
+                "Pet/s", "Rechazos", "Errores", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Estadisticas total = new Estadisticas();
+        for (Map.Entry<Operacion, Estadisticas> entrada : resultado.entrySet()) {
+            linea(salida, entrada.getKey().endpoint, entrada.getValue(), duracion);
+            total.sumar(entrada.getValue());
+        }
+        linea(salida, "TOTAL", total, duracion);
+        salida.printf("Tasa de error: %.3f %%%n", total.latencias.getTotalCount() == 0 ? 0.0
+                : 100.0 * total.errores / total.latencias.getTotalCount());
+    }
+
+    private static void linea(PrintStream salida, String nombre, Estadisticas e, double duracion) {
+        Histogram h = e.latencias;
+        salida.printf("%-40s %9d %9.1f %9d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n", nombre, h.getTotalCount(),
+                h.getTotalCount() / duracion, e.rechazos, e.errores,
+                h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+                h.getValueAtPercentile(99) / 1000.0, h.getValueAtPercentile(99.9) / 1000.0,
+                h.getMaxValue() / 1000.0);
+    }
+
+    /**
+     * Latencias en microsegundos y contadores de una operación.
+     */
+    private static final class Estadisticas {
+
+        final Histogram latencias = new Histogram(3);
+        long rechazos;
+        long errores;
+
+        void sumar(Estadisticas otra) {
+            latencias.add(otra.latencias);
+            rechazos += otra.rechazos;
+            errores += otra.errores;
+        }
+    }
+}
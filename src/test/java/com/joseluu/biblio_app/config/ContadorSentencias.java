@@ -0,0 +1,31 @@
+package com.joseluu.biblio_app.config;
+
+/**
+ * Sentencias SQL ejecutadas por el hilo actual desde una marca.
+ *
+ * <p>
+ * Se obtiene como parámetro de un test con {@link ContadorSentenciasExtension}.
+ * Lo normal es preparar los datos, llamar a {@link #reiniciar()} y lanzar la
+ * petición que se quiere medir.
+ * </p>
+ */
+public final class ContadorSentencias {
+
+    private long inicio = SentenciasSqlConfig.sentencias();
+
+    /**
+     * Empieza a contar desde ahora.
+     */
+    public void reiniciar() {
+        inicio = SentenciasSqlConfig.sentencias();
+    }
+
+    /**
+     * Sentencias ejecutadas desde la marca.
+     *
+     * @return número de sentencias
+     */
+    public long sentencias() {
+        return SentenciasSqlConfig.sentencias() - inicio;
+    }
+}
@@ -0,0 +1,58 @@
+package com.joseluu.biblio_app.config;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.jupiter.api.extension.ParameterContext;
+import org.junit.jupiter.api.extension.ParameterResolver;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Extensión JUnit que cuenta las sentencias SQL de cada test.
+ *
+ * <p>
+ * Inyecta un {@link ContadorSentencias} en los tests que lo declaran como
+ * parámetro y, si el test o su clase llevan {@link MaximoSentencias}, falla
+ * cuando al terminar se ha superado el límite. La cuenta empieza justo antes
+ * del método de test, después de los {@code @BeforeEach}.
+ * </p>
+ */
+public class ContadorSentenciasExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback,
+        ParameterResolver {
+
+    private static final ExtensionContext.Namespace ESPACIO =
+            ExtensionContext.Namespace.create(ContadorSentenciasExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        contador(context).reiniciar();
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        Optional<MaximoSentencias> maximo = AnnotationSupport.findAnnotation(context.getElement(), MaximoSentencias.class)
+                .or(() -> AnnotationSupport.findAnnotation(context.getRequiredTestClass(), MaximoSentencias.class));
+        maximo.ifPresent(limite -> assertThat(contador(context).sentencias())
+                .as("Sentencias SQL de %s", context.getDisplayName())
+                .isLessThanOrEqualTo(limite.value()));
+    }
+
+    @Override
+    public boolean supportsParameter(ParameterContext parametro, ExtensionContext context) {
+        return parametro.getParameter().getType() == ContadorSentencias.class;
+    }
+
+    @Override
+    public Object resolveParameter(ParameterContext parametro, ExtensionContext context) {
+        return contador(context);
+    }
+
+    private static ContadorSentencias contador(ExtensionContext context) {
+        return context.getStore(ESPACIO).getOrComputeIfAbsent(context.getUniqueId(),
+                clave -> new ContadorSentencias(), ContadorSentencias.class);
+    }
+}
@@ -0,0 +1,29 @@
+package com.joseluu.biblio_app.config;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Número máximo de sentencias SQL que puede ejecutar un test.
+ *
+ * <p>
+ * Se cuentan las sentencias del hilo del test desde su inicio, o desde la
+ * última llamada a {@link ContadorSentencias#reiniciar()}, hasta su final.
+ * Las peticiones de {@code MockMvc} se ejecutan en ese mismo hilo. En una
+ * clase se aplica a todos sus tests que no tengan su propio límite.
+ * </p>
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(ContadorSentenciasExtension.class)
+public @interface MaximoSentencias {
+
+    /**
+     * Sentencias permitidas.
+     */
+    long value();
+}
@@ -0,0 +1,116 @@
+package com.joseluu.biblio_app.config;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.exception.PrestamoNoEncontradoException;
+import com.joseluu.biblio_app.service.PrestamoService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Etiquetas de las métricas de servicios ({@link MetricasServiciosAspect}) y
+ * de peticiones ({@link MetricasConfig}).
+ *
+ * <p>
+ * El registro es el del contexto y conserva las medidas de otros tests, así
+ * que se comparan recuentos antes y después de cada llamada.
+ * </p>
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(DatosPrueba.class)
+class MetricasTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    // ====================== SERVICIOS ======================
+
+    @Test
+    void cadaLlamadaSeRegistraPorServicioYMetodo() {
+        Libro libro = datos.crearLibro();
+        long antes = recuento(servicio("listarPrestamosDeLibro", "none"));
+
+        prestamoService.listarPrestamosDeLibro(libro.getId());
+        prestamoService.listarPrestamosDeLibro(libro.getId());
+
+        assertThat(recuento(servicio("listarPrestamosDeLibro", "none"))).isEqualTo(antes + 2);
+    }
+
+    @Test
+    void lasExcepcionesSeRegistranConSuClase() {
+        long antes = recuento(servicio("renovarPrestamo", "PrestamoNoEncontradoException"));
+        long correctasAntes = recuento(servicio("renovarPrestamo", "none"));
+
+        assertThatThrownBy(() -> prestamoService.renovarPrestamo(Long.MAX_VALUE))
+                .isInstanceOf(PrestamoNoEncontradoException.class);
+
+        assertThat(recuento(servicio("renovarPrestamo", "PrestamoNoEncontradoException"))).isEqualTo(antes + 1);
+        assertThat(recuento(servicio("renovarPrestamo", "none"))).isEqualTo(correctasAntes);
+    }
+
+    // ====================== PETICIONES ======================
+
+    @Test
+    void lasPeticionesLlevanElManejadorQueLasAtendio() throws Exception {
+        Libro libro = datos.crearLibro();
+        long antes = recuento(peticion("PrestamoRestController#listarDeLibro"));
+
+        mockMvc.perform(get("/api/prestamos/libro/{libroId}", libro.getId())).andExpect(status().isOk());
+
+        Timer timer = peticion("PrestamoRestController#listarDeLibro");
+        assertThat(recuento(timer)).isEqualTo(antes + 1);
+        assertThat(timer.getId().getTag("uri")).isEqualTo("/api/prestamos/libro/{libroId}");
+        assertThat(timer.getId().getTag("method")).isEqualTo("GET");
+    }
+
+    @Test
+    void sinManejadorLaEtiquetaEsNone() throws Exception {
+        mockMvc.perform(get("/api/no-existe")).andExpect(status().isNotFound());
+
+        assertThat(registry.find("http.server.requests").tag("controlador", "none").tag("status", "404").timers())
+                .isNotEmpty();
+    }
+
+    // ====================== AUXILIARES ======================
+
+    private Timer servicio(String metodo, String excepcion) {
+        return registry.find(MetricasServiciosAspect.METRICA)
+                .tags("servicio", "PrestamoService", "metodo", metodo, "excepcion", excepcion)
+                .timer();
+    }
+
+    private Timer peticion(String controlador) {
+        return registry.find("http.server.requests").tag("controlador", controlador).timer();
+    }
+
+    private static long recuento(Timer timer) {
+        return timer == null ? 0 : timer.count();
+    }
+}
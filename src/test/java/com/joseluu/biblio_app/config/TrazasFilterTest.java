@@ -0,0 +1,157 @@
+package com.joseluu.biblio_app.config;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.dto.TramoRegistrado;
+import com.joseluu.biblio_app.dto.TrazaRegistrada;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.service.Traza;
+import com.joseluu.biblio_app.service.TrazasService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Trazas de peticiones: filtro de trazas y tramos del aspecto de trazas.
+ *
+ * <p>
+ * Con umbral cero todas las trazas quedan como lentas, así que cada test
+ * recupera la suya por el id de la cabecera {@value TrazasFilter#CABECERA_TRAZA}.
+ * Sin muestreo configurado, solo el cliente puede pedir que se exporte.
+ * </p>
+ */
+@SpringBootTest(properties = {
+        "biblio.trazas.umbral-lentas=0ms",
+        "biblio.trazas.muestreo=0"
+})
+@AutoConfigureMockMvc
+@Import(DatosPrueba.class)
+class TrazasFilterTest {
+
+    private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TrazasService trazasService;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    // ====================== TRACEPARENT ======================
+
+    @Test
+    void usaElIdDeUnTraceparentValido() throws Exception {
+        TrazaRegistrada traza = trazar(get("/api/prestamos/vencidos")
+                .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-01"));
+
+        assertThat(traza.traceId()).isEqualTo(TRACE_ID);
+        assertThat(traza.muestreada()).isTrue();
+    }
+
+    @Test
+    void sinIndicadorDeMuestreoNoSeExporta() throws Exception {
+        TrazaRegistrada traza = trazar(get("/api/prestamos/vencidos")
+                .header("traceparent", "00-" + TRACE_ID + "-00f067aa0ba902b7-00"));
+
+        assertThat(traza.traceId()).isEqualTo(TRACE_ID);
+        assertThat(traza.muestreada()).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "00-00000000000000000000000000000000-00f067aa0ba902b7-01",
+            "00-4BF92F3577B34DA6A3CE929D0E0E4736-00f067aa0ba902b7-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e47-00f067aa0ba902b7-01",
+            "00-4bf92f3577b34da6a3ce929d0e0e4736-01",
+            "basura"
+    })
+    void unTraceparentNoValidoGeneraUnIdNuevo(String traceparent) throws Exception {
+        TrazaRegistrada traza = trazar(get("/api/prestamos/vencidos").header("traceparent", traceparent));
+
+        assertThat(traza.traceId()).matches("[0-9a-f]{32}").isNotEqualTo(TRACE_ID)
+                .isNotEqualTo("00000000000000000000000000000000");
+        assertThat(traza.muestreada()).isFalse();
+    }
+
+    @Test
+    void elIdNoQuedaEnElHiloAlTerminar() throws Exception {
+        String traceId = mockMvc.perform(get("/api/prestamos/vencidos"))
+                .andReturn().getResponse().getHeader(TrazasFilter.CABECERA_TRAZA);
+
+        assertThat(traceId).matches("[0-9a-f]{32}");
+        // MockMvc atiende la petición en el hilo del test
+        assertThat(MDC.get(TrazasFilter.MDC_TRAZA)).isNull();
+        assertThat(Traza.actual()).isNull();
+    }
+
+    // ====================== TRAMOS ======================
+
+    @Test
+    void losTramosSeAnidanPorCapa() throws Exception {
+        Libro libro = datos.crearLibro();
+
+        TrazaRegistrada traza = trazar(get("/api/prestamos/libro/{libroId}", libro.getId()));
+
+        assertThat(traza.nombre()).isEqualTo("GET /api/prestamos/libro/{libroId}");
+        List<TramoRegistrado> tramos = traza.tramos();
+        assertThat(tramos).extracting(TramoRegistrado::nombre).containsExactly(
+                "GET /api/prestamos/libro/{libroId}",
+                "PrestamoRestController.listarDeLibro",
+                "PrestamoService.listarPrestamosDeLibro",
+                "PrestamoRepository.findByLibroIdOrderByFechaPrestamoDesc");
+        assertThat(tramos).extracting(TramoRegistrado::capa)
+                .containsExactly("http", "controlador", "servicio", "repositorio");
+        assertThat(tramos.get(0).padre()).isNull();
+        for (int i = 1; i < tramos.size(); i++) {
+            assertThat(tramos.get(i).padre()).isEqualTo(tramos.get(i - 1).id());
+        }
+        assertThat(tramos).extracting(TramoRegistrado::error).containsOnlyNulls();
+        assertThat(traza.descartados()).isZero();
+    }
+
+    @Test
+    void unaExcepcionQuedaEnLosTramosQueAtraviesa() throws Exception {
+        TrazaRegistrada traza = trazar(post("/api/prestamos/{id}/renovacion", Long.MAX_VALUE));
+
+        assertThat(traza.tramos()).filteredOn(t -> t.capa().equals("servicio"))
+                .singleElement()
+                .satisfies(t -> {
+                    assertThat(t.nombre()).isEqualTo("PrestamoService.renovarPrestamo");
+                    assertThat(t.error()).isEqualTo("PrestamoNoEncontradoException");
+                });
+        assertThat(traza.tramos()).filteredOn(t -> t.capa().equals("controlador"))
+                .singleElement()
+                .extracting(TramoRegistrado::error)
+                .isEqualTo("PrestamoNoEncontradoException");
+        // El manejador de excepciones responde 404: la petición no termina con error
+        assertThat(traza.tramos().get(0).error()).isNull();
+    }
+
+    // ====================== AUXILIARES ======================
+
+    private TrazaRegistrada trazar(MockHttpServletRequestBuilder peticion) throws Exception {
+        String traceId = mockMvc.perform(peticion).andReturn().getResponse().getHeader(TrazasFilter.CABECERA_TRAZA);
+        assertThat(traceId).isNotNull();
+        return trazasService.obtenerLenta(traceId).orElseThrow();
+    }
+}
@@ -0,0 +1,50 @@
+package com.joseluu.biblio_app.controller;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Acceso a la API de administración sin token.
+ *
+ * <p>
+ * Sin {@code biblio.admin.token} la API queda cerrada. Las peticiones se
+ * envían con un cliente HTTP real para que lleguen a Tomcat tal cual, con
+ * parámetros de ruta y caracteres codificados que Spring MVC resuelve al
+ * mismo controlador.
+ * </p>
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class AdminRestControllerTest {
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @LocalServerPort
+    private int puerto;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "/api/admin/histograma",
+            "/api;x=1/admin/histograma",
+            "/api/admin;x=1/histograma",
+            "/api/%61dmin/histograma",
+            "/api/admin/%68istograma",
+            "/api/admin/trazas/lentas",
+            "/api/%61dmin/jfr/archivo"
+    })
+    void laApiDeAdministracionSinTokenEstaCerrada(String ruta) throws Exception {
+        HttpResponse<String> respuesta = http.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + puerto + ruta)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertThat(respuesta.statusCode()).isEqualTo(403);
+    }
+}
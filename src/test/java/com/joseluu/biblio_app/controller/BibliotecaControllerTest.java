@@ -0,0 +1,134 @@
+package com.joseluu.biblio_app.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.config.ContadorSentencias;
+import com.joseluu.biblio_app.config.MaximoSentencias;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.service.PrestamoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * API general de la biblioteca: listado de libros por cursor y exportación
+ * NDJSON de préstamos.
+ *
+ * <p>
+ * La exportación vacía el contexto de persistencia cada dos préstamos para
+ * que los tests pasen por la limpieza a mitad del recorrido.
+ * </p>
+ */
+@SpringBootTest(properties = "biblio.exportacion.intervalo-limpieza=2")
+@AutoConfigureMockMvc
+@Import(DatosPrueba.class)
+class BibliotecaControllerTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    // ====================== LIBROS ======================
+
+    @Test
+    void elCursorDeUnaPaginaDaLaSiguiente() throws Exception {
+        Libro primero = datos.crearLibro();
+        Libro segundo = datos.crearLibro();
+        Libro tercero = datos.crearLibro();
+
+        String respuesta = mockMvc.perform(get("/api/libros").param("tamanio", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido[*].id").value(contains(
+                        primero.getId().intValue(), segundo.getId().intValue())))
+                .andExpect(jsonPath("$.tamanio").value(2))
+                .andReturn().getResponse().getContentAsString();
+        String siguiente = JsonPath.read(respuesta, "$.siguiente");
+
+        mockMvc.perform(get("/api/libros").param("tamanio", "2").param("cursor", siguiente))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contenido.length()").value(1))
+                .andExpect(jsonPath("$.contenido[0].id").value(tercero.getId()))
+                .andExpect(jsonPath("$.siguiente").doesNotExist());
+    }
+
+    @Test
+    void unCursorNoValidoDevuelve400() throws Exception {
+        mockMvc.perform(get("/api/libros").param("cursor", "basura!"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cursor de paginación no válido"));
+    }
+
+    // ====================== EXPORTACIÓN ======================
+
+    @Test
+    @MaximoSentencias(1)
+    void laExportacionEscribeUnPrestamoPorLineaConSuLibroYSocio(ContadorSentencias contador) throws Exception {
+        Socio ana = datos.crearSocio();
+        Socio luis = datos.crearSocio();
+        List<Libro> libros = List.of(datos.crearLibro(), datos.crearLibro(), datos.crearLibro());
+        prestamoService.prestarLibros(ana.getId(), List.of(libros.get(0).getId(), libros.get(1).getId()));
+        prestamoService.prestarLibros(luis.getId(), List.of(libros.get(2).getId()));
+        contador.reiniciar();
+
+        MvcResult resultado = mockMvc.perform(get("/api/prestamos/exportacion"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn();
+
+        String cuerpo = resultado.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertThat(cuerpo).endsWith("\n");
+        List<String> lineas = cuerpo.lines().toList();
+        assertThat(lineas).hasSize(3);
+        for (int i = 0; i < lineas.size(); i++) {
+            JsonNode prestamo = objectMapper.readTree(lineas.get(i));
+            Libro libro = libros.get(i);
+            Socio socio = i < 2 ? ana : luis;
+            assertThat(prestamo.get("estado").asText()).isEqualTo("ACTIVO");
+            assertThat(prestamo.at("/libro/id").asLong()).isEqualTo(libro.getId());
+            assertThat(prestamo.at("/libro/titulo").asText()).isEqualTo(libro.getTitulo());
+            assertThat(prestamo.at("/libro/isbn").asText()).isEqualTo(libro.getIsbn());
+            assertThat(prestamo.at("/socio/id").asLong()).isEqualTo(socio.getId());
+            assertThat(prestamo.at("/socio/nombre").asText()).isEqualTo(socio.getNombre());
+            assertThat(prestamo.at("/socio/email").asText()).isEqualTo(socio.getEmail());
+        }
+        assertThat(lineas).extracting(l -> objectMapper.readTree(l).get("id").asLong()).isSorted();
+    }
+
+    @Test
+    void sinPrestamosLaExportacionEstaVacia() throws Exception {
+        mockMvc.perform(get("/api/prestamos/exportacion"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+}
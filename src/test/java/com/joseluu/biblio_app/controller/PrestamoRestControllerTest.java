@@ -0,0 +1,104 @@
+package com.joseluu.biblio_app.controller;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.config.ContadorSentencias;
+import com.joseluu.biblio_app.config.MaximoSentencias;
+import com.joseluu.biblio_app.config.PresupuestoSqlFilter;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.service.PrestamoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Número de sentencias SQL de las consultas de préstamos.
+ *
+ * <p>
+ * Cada préstamo carga su libro y su socio, y estos exponen sus propias listas
+ * de préstamos: un cambio en el mapeo o en la serialización puede convertir
+ * un listado en una consulta por fila. Las sentencias de cada petición no
+ * deben depender del número de préstamos devueltos.
+ * </p>
+ */
+@SpringBootTest(properties = "biblio.sql.cabeceras=true")
+@AutoConfigureMockMvc
+@Import(DatosPrueba.class)
+class PrestamoRestControllerTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 5, 20})
+    @MaximoSentencias(2)
+    void historialDeLibroNoCreceConLosPrestamos(int prestamos, ContadorSentencias contador) throws Exception {
+        Libro libro = datos.crearLibro();
+        for (int i = 0; i < prestamos; i++) {
+            Long id = prestamoService.prestarLibros(datos.crearSocio().getId(), List.of(libro.getId())).prestamos().get(0);
+            prestamoService.devolverPrestamo(id);
+        }
+        contador.reiniciar();
+
+        mockMvc.perform(get("/api/prestamos/libro/{id}", libro.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(prestamos));
+    }
+
+    @Test
+    @MaximoSentencias(2)
+    void prestamosEnCursoIndicanSusSentenciasEnCabecera(ContadorSentencias contador) throws Exception {
+        Socio socio = datos.crearSocio();
+        prestamoService.prestarLibros(socio.getId(), List.of(datos.crearLibro().getId(), datos.crearLibro().getId()));
+        contador.reiniciar();
+
+        MvcResult resultado = mockMvc.perform(get("/api/prestamos/socio/{id}/en-curso", socio.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andReturn();
+
+        assertThat(resultado.getResponse().getHeader(PresupuestoSqlFilter.CABECERA_SENTENCIAS))
+                .isEqualTo(Long.toString(contador.sentencias()));
+    }
+
+    @Test
+    void laExportacionSaleSinRetenerseNiCabeceras() throws Exception {
+        Socio socio = datos.crearSocio();
+        prestamoService.prestarLibros(socio.getId(), List.of(datos.crearLibro().getId(), datos.crearLibro().getId()));
+
+        MvcResult resultado = mockMvc.perform(get("/api/prestamos/exportacion"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Sin retener el cuerpo no hay forma de añadir las cabeceras al final
+        assertThat(resultado.getResponse().getHeader(PresupuestoSqlFilter.CABECERA_SENTENCIAS)).isNull();
+        assertThat(resultado.getResponse().getHeader(PresupuestoSqlFilter.CABECERA_TIEMPO)).isNull();
+        assertThat(resultado.getResponse().getContentAsString().lines()).hasSize(2);
+    }
+
+}
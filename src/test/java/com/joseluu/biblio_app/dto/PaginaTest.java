@@ -0,0 +1,75 @@
+package com.joseluu.biblio_app.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PaginaTest {
+
+    // ====================== CURSOR ======================
+
+    @Test
+    void elCursorDevuelveElMismoId() {
+        for (long id : new long[]{1L, 42L, Long.MAX_VALUE}) {
+            assertThat(Pagina.decodificarCursor(Pagina.codificarCursor(id))).isEqualTo(id);
+        }
+        assertThat(Pagina.codificarCursor(42L)).doesNotContain("=", "+", "/");
+    }
+
+    @Test
+    void sinCursorSeEmpiezaDesdeElPrincipio() {
+        assertThat(Pagina.decodificarCursor(null)).isZero();
+        assertThat(Pagina.decodificarCursor("  ")).isZero();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"basura!", "aWQ6", "aWQ6YWJj", "b3RybzoxMg"})
+    void unCursorNoValidoSeRechaza(String cursor) {
+        // "id:", "id:abc" y "otro:12" en Base64, y un texto que no es Base64
+        assertThatThrownBy(() -> Pagina.decodificarCursor(cursor))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor de paginación no válido");
+    }
+
+    @Test
+    void elCursorEsElIdCodificado() {
+        String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString("id:7".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(Pagina.decodificarCursor(cursor)).isEqualTo(7L);
+    }
+
+    // ====================== CONSTRUCCIÓN ======================
+
+    @Test
+    void laFilaDeMasIndicaQueHayPaginaSiguiente() {
+        Pagina<Long> pagina = Pagina.de(List.of(10L, 20L, 30L), 2, Function.identity());
+
+        assertThat(pagina.contenido()).containsExactly(10L, 20L);
+        assertThat(pagina.tamanio()).isEqualTo(2);
+        assertThat(Pagina.decodificarCursor(pagina.siguiente())).isEqualTo(20L);
+    }
+
+    @Test
+    void sinFilaDeMasNoHayPaginaSiguiente() {
+        assertThat(Pagina.de(List.of(10L, 20L), 2, Function.identity()).siguiente()).isNull();
+        assertThat(Pagina.de(List.of(10L), 2, Function.identity()).siguiente()).isNull();
+        assertThat(Pagina.<Long>de(List.of(), 2, Function.identity()).contenido()).isEmpty();
+    }
+
+    @Test
+    void elTamanioSeAjustaALosLimites() {
+        assertThat(Pagina.ajustarTamanio(null, 50, 500)).isEqualTo(50);
+        assertThat(Pagina.ajustarTamanio(null, 50, 20)).isEqualTo(20);
+        assertThat(Pagina.ajustarTamanio(0, 50, 500)).isEqualTo(1);
+        assertThat(Pagina.ajustarTamanio(-3, 50, 500)).isEqualTo(1);
+        assertThat(Pagina.ajustarTamanio(1000, 50, 500)).isEqualTo(500);
+    }
+}
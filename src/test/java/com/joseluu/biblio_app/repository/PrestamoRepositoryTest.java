@@ -0,0 +1,73 @@
+package com.joseluu.biblio_app.repository;
+
+import com.joseluu.biblio_app.dto.PrestamoResumen;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PrestamoRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void listadoResumidoUsaUnaUnicaSentencia(int numeroPrestamos) {
+        crearPrestamos(numeroPrestamos);
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        List<PrestamoResumen> prestamos = prestamoRepository.findAllResumen();
+        prestamos.forEach(p -> {
+            assertThat(p.getLibroTitulo()).isNotNull();
+            assertThat(p.getSocioNombre()).isNotNull();
+        });
+
+        assertThat(prestamos).hasSize(numeroPrestamos);
+        assertThat(estadisticas.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void crearPrestamos(int numero) {
+        for (int i = 0; i < numero; i++) {
+            Libro libro = new Libro();
+            libro.setTitulo("Libro " + i);
+            libro.setAutor("Autor " + i);
+            libro.setIsbn(String.format("978%010d", i));
+            entityManager.persist(libro);
+
+            Socio socio = new Socio();
+            socio.setNombre("Socio " + i);
+            socio.setEmail("socio" + i + "@email.com");
+            entityManager.persist(socio);
+
+            Prestamo prestamo = new Prestamo();
+            prestamo.setLibro(libro);
+            prestamo.setSocio(socio);
+            prestamo.setEstado(Prestamo.Estado.ACTIVO);
+            prestamo.setFechaFin(LocalDate.now().plusDays(14));
+            entityManager.persist(prestamo);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
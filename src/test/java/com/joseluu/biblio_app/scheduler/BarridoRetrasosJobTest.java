@@ -0,0 +1,95 @@
+package com.joseluu.biblio_app.scheduler;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.entity.EventoPrestamo;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.EventoPrestamoRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.service.HistorialPrestamosService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Barrido por bloques de {@link BarridoRetrasosJob}.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class BarridoRetrasosJobTest {
+
+    private static final LocalDate HOY = LocalDate.of(2026, 3, 1);
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private EventoPrestamoRepository eventoRepository;
+
+    @Autowired
+    private HistorialPrestamosService historialService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void marcaLosVencidosEnVariosBloques() {
+        Socio socio = datos.crearSocio();
+        List<Prestamo> vencidos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            vencidos.add(crearPrestamo(socio, Prestamo.Estado.ACTIVO, HOY.minusDays(i + 1)));
+        }
+        Prestamo venceHoy = crearPrestamo(socio, Prestamo.Estado.ACTIVO, HOY);
+        Prestamo devuelto = crearPrestamo(socio, Prestamo.Estado.DEVUELTO, HOY.minusDays(10));
+
+        // Bloques de dos: cinco vencidos necesitan tres sentencias UPDATE
+        SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+        BarridoRetrasosJob barrido =
+                new BarridoRetrasosJob(prestamoRepository, historialService, transactionTemplate, metricas, 2);
+
+        assertThat(barrido.marcarRetrasados(HOY)).isEqualTo(5);
+        assertThat(vencidos).allSatisfy(p -> assertThat(estado(p)).isEqualTo(Prestamo.Estado.RETRASADO));
+        assertThat(estado(venceHoy)).isEqualTo(Prestamo.Estado.ACTIVO);
+        assertThat(estado(devuelto)).isEqualTo(Prestamo.Estado.DEVUELTO);
+        assertThat(eventoRepository.findAll())
+                .extracting(EventoPrestamo::getPrestamoId)
+                .containsExactlyInAnyOrderElementsOf(vencidos.stream().map(Prestamo::getId).toList());
+        assertThat(metricas.get("biblio.retrasos.procesados").counter().count()).isEqualTo(5);
+
+        // Los marcados dejan de cumplir el filtro: un segundo barrido no hace nada
+        assertThat(barrido.marcarRetrasados(HOY)).isZero();
+        assertThat(eventoRepository.count()).isEqualTo(5);
+    }
+
+    private Prestamo crearPrestamo(Socio socio, Prestamo.Estado estado, LocalDate fechaFin) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(datos.crearLibro());
+        prestamo.setSocio(socio);
+        prestamo.setEstado(estado);
+        prestamo.setFechaPrestamo(fechaFin.minusDays(14));
+        prestamo.setFechaFin(fechaFin);
+        return prestamoRepository.save(prestamo);
+    }
+
+    private Prestamo.Estado estado(Prestamo prestamo) {
+        return prestamoRepository.findById(prestamo.getId()).orElseThrow().getEstado();
+    }
+}
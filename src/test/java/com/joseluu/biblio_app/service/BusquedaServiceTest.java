@@ -0,0 +1,94 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.LibroEncontrado;
+import com.joseluu.biblio_app.dto.ResultadoBusqueda;
+import com.joseluu.biblio_app.entity.Libro;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BusquedaServiceTest {
+
+    private BusquedaService busquedaService;
+
+    @BeforeEach
+    void preparar() {
+        busquedaService = new BusquedaService(null, 50, 500);
+        busquedaService.indexar(libro(1L, "El Señor de los Anillos", "J. R. R. Tolkien", "Fantasía"));
+        busquedaService.indexar(libro(2L, "El Hobbit", "J. R. R. Tolkien", "Fantasía"));
+        busquedaService.indexar(libro(3L, "Cien años de soledad", "Gabriel García Márquez", "Novela"));
+        busquedaService.indexar(libro(4L, "Anillos de Saturno", "Señorita Pérez", "Divulgación"));
+    }
+
+    @Test
+    void ignoraMayusculasYTildes() {
+        assertThat(ids(busquedaService.buscar("SENOR", null, null))).containsExactly(1L, 4L);
+        assertThat(ids(busquedaService.buscar("garcia marquez", null, null))).containsExactly(3L);
+    }
+
+    @Test
+    void buscaPorPrefijoYExigeTodasLasPalabras() {
+        assertThat(ids(busquedaService.buscar("tolk", null, null))).containsExactly(1L, 2L);
+        assertThat(ids(busquedaService.buscar("tolkien anill", null, null))).containsExactly(1L);
+        assertThat(busquedaService.buscar("tolkien soledad", null, null).total()).isZero();
+    }
+
+    @Test
+    void ordenaPorRelevancia() {
+        // "anillos" está en el título de ambos; "señor" es palabra completa en el título del 1 y prefijo en el autor del 4
+        assertThat(ids(busquedaService.buscar("anillos senor", null, null))).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void paginaLosResultados() {
+        ResultadoBusqueda<LibroEncontrado> primera = busquedaService.buscar("el", 0, 1);
+        ResultadoBusqueda<LibroEncontrado> segunda = busquedaService.buscar("el", 1, 1);
+
+        assertThat(primera.total()).isEqualTo(2);
+        assertThat(primera.haySiguiente()).isTrue();
+        assertThat(ids(primera)).containsExactly(1L);
+        assertThat(ids(segunda)).containsExactly(2L);
+        assertThat(segunda.haySiguiente()).isFalse();
+    }
+
+    @Test
+    void unaPaginaFueraDeRangoEstaVacia() {
+        ResultadoBusqueda<LibroEncontrado> tercera = busquedaService.buscar("el", 2, 1);
+        assertThat(tercera.resultados()).isEmpty();
+        assertThat(tercera.total()).isEqualTo(2);
+        assertThat(tercera.haySiguiente()).isFalse();
+
+        // El inicio de la página no cabe en un int
+        ResultadoBusqueda<LibroEncontrado> ultima = busquedaService.buscar("el", Integer.MAX_VALUE, 500);
+        assertThat(ultima.resultados()).isEmpty();
+        assertThat(ultima.total()).isEqualTo(2);
+        assertThat(ultima.pagina()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(ultima.haySiguiente()).isFalse();
+        assertThat(busquedaService.buscar("el", Integer.MAX_VALUE, 1).resultados()).isEmpty();
+    }
+
+    @Test
+    void actualizaElIndiceAlModificarYEliminar() {
+        busquedaService.indexar(libro(2L, "El Silmarillion", "J. R. R. Tolkien", "Fantasía"));
+        assertThat(busquedaService.buscar("hobbit", null, null).total()).isZero();
+        assertThat(ids(busquedaService.buscar("silma", null, null))).containsExactly(2L);
+
+        busquedaService.eliminar(1L);
+        assertThat(ids(busquedaService.buscar("tolkien", null, null))).containsExactly(2L);
+    }
+
+    private static Libro libro(Long id, String titulo, String autor, String categoria) {
+        Libro libro = new Libro();
+        libro.setId(id);
+        libro.setTitulo(titulo);
+        libro.setAutor(autor);
+        libro.setCategoria(categoria);
+        libro.setIsbn("978000000000" + id);
+        return libro;
+    }
+
+    private static java.util.List<Long> ids(ResultadoBusqueda<LibroEncontrado> resultado) {
+        return resultado.resultados().stream().map(LibroEncontrado::id).toList();
+    }
+}
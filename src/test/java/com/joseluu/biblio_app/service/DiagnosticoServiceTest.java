@@ -0,0 +1,59 @@
+package com.joseluu.biblio_app.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Grabaciones JFR de {@link DiagnosticoService}.
+ */
+class DiagnosticoServiceTest {
+
+    @TempDir
+    private Path directorio;
+
+    @Test
+    void sinGrabacionTerminadaNoHayArchivo() throws Exception {
+        DiagnosticoService servicio = new DiagnosticoService(directorio.toString(), Duration.ofMinutes(1));
+        try {
+            assertThat(servicio.abrirGrabacion()).isEmpty();
+            servicio.iniciarGrabacion("default", Duration.ofMinutes(1));
+            assertThat(servicio.abrirGrabacion()).isEmpty();
+        } finally {
+            servicio.detener();
+        }
+    }
+
+    @Test
+    void unaNuevaGrabacionNoCortaLaDescargaEnCurso() throws Exception {
+        DiagnosticoService servicio = new DiagnosticoService(directorio.toString(), Duration.ofMinutes(1));
+        try {
+            servicio.iniciarGrabacion("default", Duration.ofMinutes(1));
+            servicio.detenerGrabacion();
+            DiagnosticoService.ArchivoGrabacion archivo = servicio.abrirGrabacion().orElseThrow();
+            assertThat(archivo.nombre()).endsWith(".jfr");
+            assertThat(archivo.tamanio()).isPositive();
+
+            try (InputStream contenido = archivo.contenido()) {
+                byte[] inicio = contenido.readNBytes(4);
+                // La siguiente grabación descarta la anterior y borra su archivo
+                servicio.iniciarGrabacion("default", Duration.ofMinutes(1));
+                assertThat(directorio.resolve(archivo.nombre())).doesNotExist();
+                byte[] resto = contenido.readAllBytes();
+
+                assertThat(new String(inicio, StandardCharsets.US_ASCII)).isEqualTo("FLR\0");
+                assertThat(inicio.length + resto.length).isEqualTo(archivo.tamanio());
+                assertThat(Arrays.equals(resto, new byte[resto.length])).isFalse();
+            }
+        } finally {
+            servicio.detener();
+        }
+    }
+}
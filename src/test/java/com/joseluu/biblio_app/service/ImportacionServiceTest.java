@@ -0,0 +1,121 @@
+package com.joseluu.biblio_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.dto.ErrorFila;
+import com.joseluu.biblio_app.dto.ResultadoImportacion;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importación masiva de {@link ImportacionService} en lotes de dos filas.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class ImportacionServiceTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @Autowired
+    private BusquedaService busquedaService;
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    private ImportacionService importacionService;
+
+    @BeforeEach
+    void preparar() {
+        importacionService = new ImportacionService(objectMapper, entityManagerFactory, libroRepository,
+                socioRepository, busquedaService, sugerenciasService, 2);
+    }
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void lasFilasErroneasSeInformanSinDetenerLaImportacion() throws IOException {
+        Libro existente = new Libro();
+        existente.setTitulo("Existente");
+        existente.setAutor("Autor");
+        existente.setIsbn("9780306406157");
+        libroRepository.save(existente);
+
+        String csv = """
+                titulo,autor,isbn,categoria
+                Rayuela,Julio Cortázar,978-84-376-0494-7,Novela
+                Sin autor,,9781234567897,
+                Repetido,Autor,9788437604947,
+                Existente,Autor,0-306-40615-2,
+                %s,Autor,9780000000002,
+                Ficciones,Jorge Luis Borges,9780000000019,Cuento
+                """.formatted("T".repeat(300));
+
+        ResultadoImportacion resultado = importacionService.importarLibrosCsv(entrada(csv));
+
+        assertThat(resultado.procesadas()).isEqualTo(6);
+        assertThat(resultado.importadas()).isEqualTo(2);
+        assertThat(resultado.errores()).extracting(ErrorFila::fila).containsExactly(2, 3, 4, 5);
+        assertThat(resultado.errores().get(0).mensaje()).isEqualTo("Título, autor e ISBN son obligatorios");
+        assertThat(resultado.errores().get(1).mensaje()).isEqualTo("Clave repetida en la entrada");
+        assertThat(resultado.errores().get(2).mensaje()).isEqualTo("Ya existe un libro con ese ISBN");
+        // El título demasiado largo hace fallar su lote; la otra fila del lote se guarda igualmente
+        assertThat(resultado.errores().get(3).mensaje()).startsWith("No se pudo guardar");
+        assertThat(libroRepository.findAll()).extracting(Libro::getIsbn)
+                .containsExactlyInAnyOrder("9780306406157", "9788437604947", "9780000000019");
+    }
+
+    @Test
+    void unaEntradaMalFormadaConservaLoYaImportado() throws IOException {
+        String json = """
+                [{"nombre": "Ana", "email": " Ana@Email.com "},
+                 {"nombre": "", "email": "vacio@email.com"},
+                 {"nombre": "Luis", "email": "luis@email.com"},
+                 42]
+                """;
+
+        ResultadoImportacion resultado = importacionService.importarSociosJson(entrada(json));
+
+        assertThat(resultado.procesadas()).isEqualTo(3);
+        assertThat(resultado.importadas()).isEqualTo(2);
+        assertThat(resultado.errores()).extracting(ErrorFila::fila).containsExactly(2, 4);
+        assertThat(resultado.errores().get(1).mensaje()).startsWith("Importación detenida");
+        assertThat(socioRepository.findAll()).extracting(Socio::getEmail)
+                .containsExactlyInAnyOrder("ana@email.com", "luis@email.com");
+    }
+
+    private static InputStream entrada(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
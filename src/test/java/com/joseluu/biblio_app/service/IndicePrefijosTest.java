@@ -0,0 +1,83 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.dto.Sugerencia;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndicePrefijosTest {
+
+    private IndicePrefijos indice;
+
+    @BeforeEach
+    void preparar() {
+        indice = new IndicePrefijos();
+        poner(1L, "El Señor de los Anillos", "9788445071403");
+        poner(2L, "El Hobbit", "9788445071410");
+        poner(3L, "Anillos de Saturno", "9788433966520");
+    }
+
+    @Test
+    void encuentraDesdeCadaPalabra() {
+        assertThat(ids(indice.buscar("anillos", 10))).containsExactly(1L, 3L);
+        assertThat(ids(indice.buscar("los anill", 10))).containsExactly(1L);
+        assertThat(ids(indice.buscar("hob", 10))).containsExactly(2L);
+        assertThat(ids(indice.buscar("97884450714", 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void ignoraMayusculasTildesYSignos() {
+        assertThat(ids(indice.buscar("SENOR", 10))).containsExactly(1L);
+        assertThat(ids(indice.buscar("  el,  señor ", 10))).containsExactly(1L);
+        assertThat(indice.buscar("  ", 10)).isEmpty();
+        assertThat(indice.buscar(null, 10)).isEmpty();
+    }
+
+    @Test
+    void devuelveCadaElementoUnaSolaVez() {
+        // Tres de sus claves empiezan por "de": "de amor...", "de locura..." y "de muerte"
+        poner(4L, "Cuentos de amor de locura y de muerte", "9788437604183");
+
+        assertThat(ids(indice.buscar("de", 10))).containsExactly(4L, 1L, 3L);
+        assertThat(ids(indice.buscar("de", 2))).containsExactly(4L, 1L);
+    }
+
+    @Test
+    void respetaElLimite() {
+        assertThat(indice.buscar("el", 1)).hasSize(1);
+        assertThat(indice.buscar("978", 2)).hasSize(2);
+        assertThat(indice.buscar("978", 10)).hasSize(3);
+    }
+
+    @Test
+    void ponerSustituyeLasClavesAnteriores() {
+        poner(2L, "El Silmarillion", "9788445071427");
+
+        assertThat(indice.buscar("hobbit", 10)).isEmpty();
+        assertThat(indice.buscar("9788445071410", 10)).isEmpty();
+        assertThat(indice.buscar("silma", 10)).containsExactly(
+                new Sugerencia(2L, "El Silmarillion", "9788445071427"));
+        assertThat(ids(indice.buscar("el", 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void quitarEliminaTodasSusClaves() {
+        indice.quitar(1L);
+        indice.quitar(99L);
+
+        assertThat(ids(indice.buscar("anillos", 10))).containsExactly(3L);
+        assertThat(indice.buscar("senor", 10)).isEmpty();
+        assertThat(indice.buscar("9788445071403", 10)).isEmpty();
+    }
+
+    private void poner(Long id, String titulo, String isbn) {
+        indice.poner(new Sugerencia(id, titulo, isbn), List.of(titulo, isbn));
+    }
+
+    private static List<Long> ids(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::id).toList();
+    }
+}
@@ -0,0 +1,26 @@
+package com.joseluu.biblio_app.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IsbnTest {
+
+    @Test
+    void quitaSeparadores() {
+        assertThat(Isbn.normalizar(" 978-0-306-40615-7 ")).isEqualTo("9780306406157");
+        assertThat(Isbn.normalizar("978 84 376 0494 7")).isEqualTo("9788437604947");
+    }
+
+    @Test
+    void convierteIsbn10AIsbn13() {
+        assertThat(Isbn.normalizar("0-306-40615-2")).isEqualTo("9780306406157");
+        assertThat(Isbn.normalizar("84-376-0494-x")).isEqualTo("9788437604947");
+    }
+
+    @Test
+    void conservaValoresSinFormatoDeIsbn() {
+        assertThat(Isbn.normalizar("12345")).isEqualTo("12345");
+        assertThat(Isbn.normalizar(null)).isNull();
+    }
+}
@@ -0,0 +1,175 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.dto.LibroEncontrado;
+import com.joseluu.biblio_app.dto.Pagina;
+import com.joseluu.biblio_app.dto.Sugerencia;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.exception.LibroNoEncontradoException;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Alta, modificación y listado paginado de libros en {@link LibroService}.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class LibroServiceTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private LibroService libroService;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private BusquedaService busquedaService;
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void laModificacionDeUnLibroPrestadoConservaSusPrestamos() {
+        Libro libro = libroService.guardarLibro(libro(null, "Rayuela", "978-84-376-0494-7"));
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(libro);
+        prestamo.setSocio(datos.crearSocio());
+        prestamoService.guardarPrestamo(prestamo);
+
+        // El formulario envía un libro sin sus préstamos
+        Libro modificado = libroService.guardarLibro(libro(libro.getId(), "Rayuela (edición crítica)", "0-306-40615-2"));
+
+        assertThat(modificado.getTitulo()).isEqualTo("Rayuela (edición crítica)");
+        assertThat(modificado.getIsbn()).isEqualTo("9780306406157");
+        Libro guardado = libroRepository.findById(libro.getId()).orElseThrow();
+        assertThat(guardado.getTitulo()).isEqualTo("Rayuela (edición crítica)");
+        assertThat(guardado.getCategoria()).isEqualTo("Novela");
+        assertThat(guardado.getIsbn()).isEqualTo("9780306406157");
+        assertThat(guardado.isDisponible()).isFalse();
+        assertThat(prestamoRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void modificarUnLibroInexistenteFalla() {
+        assertThatThrownBy(() -> libroService.guardarLibro(libro(Long.MAX_VALUE, "Nadie", "9780306406157")))
+                .isInstanceOf(LibroNoEncontradoException.class);
+        assertThat(libroRepository.count()).isZero();
+    }
+
+    @Test
+    void trasCambiarElIsbnSoloSeEncuentraPorElNuevo() {
+        Libro libro = libroService.guardarLibro(libro(null, "Rayuela", "978-84-376-0494-7"));
+        // Deja en caché el id por ISBN y el libro por id
+        assertThat(libroService.obtenerIdPorIsbn("9788437604947")).isEqualTo(libro.getId());
+        libroService.obtenerLibroPorId(libro.getId());
+        assertThat(cacheManager.getCache(CacheConfig.ISBN_LIBROS).get("9788437604947")).isNotNull();
+        assertThat(cacheManager.getCache(CacheConfig.LIBROS).get(libro.getId())).isNotNull();
+
+        libroService.guardarLibro(libro(libro.getId(), "Ficciones", "0-306-40615-2"));
+
+        assertThatThrownBy(() -> libroService.obtenerIdPorIsbn("978-84-376-0494-7"))
+                .isInstanceOf(LibroNoEncontradoException.class);
+        assertThat(libroService.obtenerIdPorIsbn("978-0-306-40615-7")).isEqualTo(libro.getId());
+        Libro encontrado = libroService.obtenerLibroPorId(libro.getId());
+        assertThat(encontrado.getTitulo()).isEqualTo("Ficciones");
+        assertThat(encontrado.getIsbn()).isEqualTo("9780306406157");
+        assertThat(busquedaService.buscar("rayuela", 0, 50).resultados()).extracting(LibroEncontrado::id)
+                .doesNotContain(libro.getId());
+        assertThat(busquedaService.buscar("ficciones", 0, 50).resultados()).extracting(LibroEncontrado::id)
+                .contains(libro.getId());
+        assertThat(sugerenciasService.sugerirLibros("ray", null, false)).extracting(Sugerencia::id)
+                .doesNotContain(libro.getId());
+        assertThat(sugerenciasService.sugerirLibros("9788437", null, false)).extracting(Sugerencia::id)
+                .doesNotContain(libro.getId());
+        assertThat(sugerenciasService.sugerirLibros("fic", null, false)).extracting(Sugerencia::id)
+                .contains(libro.getId());
+        assertThat(sugerenciasService.sugerirLibros("9780306", null, false)).extracting(Sugerencia::id)
+                .contains(libro.getId());
+    }
+
+    @Test
+    void lasPaginasRecorrenElCatalogoSinRepetirNiSaltar() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(datos.crearLibro().getId());
+        }
+
+        Pagina<Libro> primera = libroService.listarLibrosPaginados(null, 2);
+        assertThat(primera.contenido()).extracting(Libro::getId).containsExactly(ids.get(0), ids.get(1));
+        assertThat(primera.tamanio()).isEqualTo(2);
+        assertThat(Pagina.decodificarCursor(primera.siguiente())).isEqualTo(ids.get(1));
+
+        Pagina<Libro> segunda = libroService.listarLibrosPaginados(primera.siguiente(), 2);
+        assertThat(segunda.contenido()).extracting(Libro::getId).containsExactly(ids.get(2), ids.get(3));
+        assertThat(segunda.siguiente()).isNotNull();
+
+        Pagina<Libro> ultima = libroService.listarLibrosPaginados(segunda.siguiente(), 2);
+        assertThat(ultima.contenido()).extracting(Libro::getId).containsExactly(ids.get(4));
+        assertThat(ultima.siguiente()).isNull();
+    }
+
+    @Test
+    void unaUltimaPaginaCompletaNoTieneSiguiente() {
+        datos.crearLibro();
+        datos.crearLibro();
+        datos.crearLibro();
+        datos.crearLibro();
+
+        Pagina<Libro> primera = libroService.listarLibrosPaginados(null, 2);
+        // La fila de más leída solo indica que hay otra página: no se devuelve
+        assertThat(primera.contenido()).hasSize(2);
+        Pagina<Libro> segunda = libroService.listarLibrosPaginados(primera.siguiente(), 2);
+        assertThat(segunda.contenido()).hasSize(2);
+        assertThat(segunda.siguiente()).isNull();
+        assertThat(libroService.listarLibrosPaginados(null, 4).siguiente()).isNull();
+        assertThat(libroService.listarLibrosPaginados(null, 3).siguiente()).isNotNull();
+    }
+
+    @Test
+    void unCursorNoValidoFalla() {
+        assertThatThrownBy(() -> libroService.listarLibrosPaginados("basura", 2))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Cursor de paginación no válido");
+    }
+
+    private static Libro libro(Long id, String titulo, String isbn) {
+        Libro libro = new Libro();
+        libro.setId(id);
+        libro.setTitulo(titulo);
+        libro.setAutor("Julio Cortázar");
+        libro.setCategoria("Novela");
+        libro.setIsbn(isbn);
+        return libro;
+    }
+}
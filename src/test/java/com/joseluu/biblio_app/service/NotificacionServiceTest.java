@@ -0,0 +1,201 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.dto.MensajeNotificacion;
+import com.joseluu.biblio_app.entity.Notificacion;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.repository.NotificacionRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.scheduler.DespachadorNotificacionesJob;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bandeja de salida de notificaciones y su despachador.
+ *
+ * <p>
+ * El perfil de tests no arranca el despachador programado: cada prueba crea
+ * el suyo con un emisor que controla.
+ * </p>
+ */
+@SpringBootTest(properties = {
+        "biblio.notificaciones.maximo-intentos=2",
+        "biblio.notificaciones.espera-inicial=200ms"
+})
+@Import(DatosPrueba.class)
+class NotificacionServiceTest {
+
+    private static final Duration INICIAL = Duration.ofSeconds(30);
+    private static final Duration MAXIMA = Duration.ofHours(1);
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private NotificacionService notificacionService;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private NotificacionRepository notificacionRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    // ====================== ESPERA ENTRE INTENTOS ======================
+
+    @Test
+    void duplicaLaEsperaEnCadaFallo() {
+        assertThat(NotificacionService.calcularEspera(1, INICIAL, MAXIMA)).isEqualTo(Duration.ofSeconds(30));
+        assertThat(NotificacionService.calcularEspera(2, INICIAL, MAXIMA)).isEqualTo(Duration.ofMinutes(1));
+        assertThat(NotificacionService.calcularEspera(5, INICIAL, MAXIMA)).isEqualTo(Duration.ofMinutes(8));
+    }
+
+    @Test
+    void noSuperaLaEsperaMaxima() {
+        assertThat(NotificacionService.calcularEspera(8, INICIAL, MAXIMA)).isEqualTo(MAXIMA);
+        assertThat(NotificacionService.calcularEspera(1000, INICIAL, MAXIMA)).isEqualTo(MAXIMA);
+    }
+
+    // ====================== BANDEJA DE SALIDA ======================
+
+    @Test
+    void lasNotificacionesSeDeshacenConElPrestamo() {
+        transactionTemplate.executeWithoutResult(estado -> {
+            prestamoService.guardarPrestamo(nuevoPrestamo());
+            // Confirmación y recordatorio, en la misma transacción que el préstamo
+            assertThat(notificacionRepository.countByEstado(Notificacion.Estado.PENDIENTE)).isEqualTo(2);
+            estado.setRollbackOnly();
+        });
+
+        assertThat(prestamoRepository.count()).isZero();
+        assertThat(notificacionRepository.count()).isZero();
+    }
+
+    @Test
+    void unEnvioFallidoSeReprogramaHastaAgotarLosIntentos() throws InterruptedException {
+        prestamoService.guardarPrestamo(nuevoPrestamo());
+        MensajeNotificacion mensaje = notificacionService.reclamar(10).get(0);
+
+        Instant antes = Instant.now();
+        assertThat(notificacionService.registrarFallo(mensaje.notificacionId(), "Servidor caído")).isTrue();
+        Notificacion reprogramada = notificacionRepository.findById(mensaje.notificacionId()).orElseThrow();
+        assertThat(reprogramada.getEstado()).isEqualTo(Notificacion.Estado.PENDIENTE);
+        assertThat(reprogramada.getUltimoError()).isEqualTo("Servidor caído");
+        assertThat(reprogramada.getProgramada()).isAfterOrEqualTo(antes.plusMillis(200));
+        assertThat(notificacionService.reclamar(10)).isEmpty();
+
+        esperarHasta(() -> !notificacionService.reclamar(10).isEmpty());
+        assertThat(notificacionService.registrarFallo(mensaje.notificacionId(), "Servidor caído")).isFalse();
+        Notificacion fallida = notificacionRepository.findById(mensaje.notificacionId()).orElseThrow();
+        assertThat(fallida.getEstado()).isEqualTo(Notificacion.Estado.FALLIDA);
+        assertThat(fallida.getIntentos()).isEqualTo(2);
+        assertThat(fallida.getProcesada()).isNotNull();
+    }
+
+    // ====================== DESPACHADOR ======================
+
+    @Test
+    void elDespachadorNoSuperaElMaximoEnVuelo() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            prestamoService.guardarPrestamo(nuevoPrestamo());
+        }
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger enCurso = new AtomicInteger();
+        AtomicInteger maximo = new AtomicInteger();
+        SimpleMeterRegistry metricas = new SimpleMeterRegistry();
+        DespachadorNotificacionesJob despachador = new DespachadorNotificacionesJob(notificacionService, mensaje -> {
+            maximo.accumulateAndGet(enCurso.incrementAndGet(), Math::max);
+            try {
+                liberar.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                enCurso.decrementAndGet();
+            }
+        }, metricas, 4, 1, 2, Duration.ofDays(7));
+
+        try {
+            assertThat(despachador.despachar()).isEqualTo(2);
+            // Con los dos huecos ocupados no reclama nada más
+            assertThat(despachador.despachar()).isZero();
+
+            // Los dos envíos tienen que estar dentro del emisor antes de liberarlos
+            esperarHasta(() -> enCurso.get() == 2);
+            liberar.countDown();
+            esperarHasta(() -> {
+                despachador.despachar();
+                return notificacionRepository.countByEstado(Notificacion.Estado.ENVIADA) == 5;
+            });
+        } finally {
+            despachador.detener();
+        }
+        assertThat(maximo.get()).isEqualTo(2);
+        assertThat(metricas.get("biblio.notificaciones.enviadas").counter().count()).isEqualTo(5);
+    }
+
+    @Test
+    void losEnviosCorrectosQuedanProcesados() throws InterruptedException {
+        prestamoService.guardarPrestamo(nuevoPrestamo());
+        DespachadorNotificacionesJob despachador = new DespachadorNotificacionesJob(notificacionService,
+                mensaje -> { }, new SimpleMeterRegistry(), 2, 10, 10, Duration.ofDays(7));
+
+        assertThat(despachador.despachar()).isEqualTo(1);
+        despachador.detener();
+
+        List<Notificacion> notificaciones = notificacionRepository.findAll();
+        assertThat(notificaciones).filteredOn(n -> n.getTipo() == Notificacion.Tipo.CONFIRMACION_PRESTAMO)
+                .singleElement()
+                .satisfies(n -> {
+                    assertThat(n.getEstado()).isEqualTo(Notificacion.Estado.ENVIADA);
+                    assertThat(n.getProcesada()).isNotNull();
+                    assertThat(n.getIntentos()).isEqualTo(1);
+                });
+        // El recordatorio sigue programado para antes de la fecha fin
+        assertThat(notificaciones).filteredOn(n -> n.getTipo() == Notificacion.Tipo.RECORDATORIO_VENCIMIENTO)
+                .singleElement()
+                .extracting(Notificacion::getEstado)
+                .isEqualTo(Notificacion.Estado.PENDIENTE);
+    }
+
+    // ====================== AUXILIARES ======================
+
+    private Prestamo nuevoPrestamo() {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(datos.crearLibro());
+        prestamo.setSocio(datos.crearSocio());
+        return prestamo;
+    }
+
+    private static void esperarHasta(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condicion.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Tiempo de espera agotado").isLessThan(limite);
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.dto.ResultadoRecalculo;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Regla de penalización de {@link PenalizacionService} y recálculo por particiones.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class PenalizacionServiceTest {
+
+    private static final LocalDate FIN = LocalDate.of(2026, 1, 10);
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    // ====================== REGLA ======================
+
+    @Test
+    void unaDevolucionATiempoNoPenaliza() {
+        assertThat(PenalizacionService.calcularFin(null, FIN, FIN, 1)).isNull();
+        assertThat(PenalizacionService.calcularFin(null, FIN, FIN.minusDays(3), 1)).isNull();
+        assertThat(PenalizacionService.calcularFin(FIN.plusDays(5), FIN, FIN, 1)).isEqualTo(FIN.plusDays(5));
+        assertThat(PenalizacionService.calcularFin(null, null, FIN, 1)).isNull();
+        assertThat(PenalizacionService.calcularFin(null, FIN, null, 1)).isNull();
+    }
+
+    @Test
+    void cadaDiaDeRetrasoSumaDiasDesdeLaDevolucion() {
+        assertThat(PenalizacionService.calcularFin(null, FIN, FIN.plusDays(3), 1)).isEqualTo(FIN.plusDays(6));
+        assertThat(PenalizacionService.calcularFin(null, FIN, FIN.plusDays(3), 2)).isEqualTo(FIN.plusDays(9));
+        // Una penalización ya terminada no cuenta
+        assertThat(PenalizacionService.calcularFin(FIN.minusDays(1), FIN, FIN.plusDays(3), 1))
+                .isEqualTo(FIN.plusDays(6));
+    }
+
+    @Test
+    void lasPenalizacionesSeEncadenan() {
+        assertThat(PenalizacionService.calcularFin(FIN.plusDays(20), FIN, FIN.plusDays(3), 1))
+                .isEqualTo(FIN.plusDays(23));
+    }
+
+    // ====================== RECÁLCULO ======================
+
+    @Test
+    void elRecalculoPorParticionesAplicaLaRegla() {
+        Libro libro = datos.crearLibro();
+        // Dos retrasos: el segundo (un día) se suma al final del primero (FIN + 6)
+        Socio encadenado = crearSocio(null);
+        devolver(libro, encadenado, FIN, FIN.plusDays(3));
+        devolver(libro, encadenado, FIN.plusDays(4), FIN.plusDays(5));
+        Socio sinPrestamos = crearSocio(FIN.plusDays(30));
+        Socio aTiempo = crearSocio(null);
+        devolver(libro, aTiempo, FIN, FIN.minusDays(1));
+        Socio alDia = crearSocio(FIN.plusDays(10));
+        devolver(libro, alDia, FIN, FIN.plusDays(5));
+        Socio desfasado = crearSocio(FIN.minusDays(9));
+        devolver(libro, desfasado, FIN, FIN.plusDays(2));
+
+        // Tres particiones de bloques de dos socios: cinco socios pasan por varias de cada
+        PenalizacionService penalizacionService =
+                new PenalizacionService(socioRepository, prestamoRepository, transactionTemplate, 1, 3, 2);
+        ResultadoRecalculo resultado = penalizacionService.recalcularTodas();
+
+        assertThat(resultado.socios()).isEqualTo(5);
+        assertThat(resultado.actualizados()).isEqualTo(3);
+        assertThat(resultado.particiones()).isEqualTo(3);
+        assertThat(finPenalizacion(encadenado)).isEqualTo(FIN.plusDays(7));
+        assertThat(finPenalizacion(sinPrestamos)).isNull();
+        assertThat(finPenalizacion(aTiempo)).isNull();
+        assertThat(finPenalizacion(alDia)).isEqualTo(FIN.plusDays(10));
+        assertThat(finPenalizacion(desfasado)).isEqualTo(FIN.plusDays(4));
+        assertThat(penalizacionService.recalcularTodas().actualizados()).isZero();
+    }
+
+    // ====================== AUXILIARES ======================
+
+    private Socio crearSocio(LocalDate finPenalizacion) {
+        Socio socio = datos.nuevoSocio();
+        socio.setFinPenalizacion(finPenalizacion);
+        return socioRepository.save(socio);
+    }
+
+    private void devolver(Libro libro, Socio socio, LocalDate fechaFin, LocalDate fechaDevolucion) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(libro);
+        prestamo.setSocio(socio);
+        prestamo.setEstado(Prestamo.Estado.DEVUELTO);
+        prestamo.setFechaPrestamo(fechaFin.minusDays(14));
+        prestamo.setFechaFin(fechaFin);
+        prestamo.setFechaDevolucion(fechaDevolucion);
+        prestamoRepository.save(prestamo);
+    }
+
+    private LocalDate finPenalizacion(Socio socio) {
+        return socioRepository.findById(socio.getId()).orElseThrow().getFinPenalizacion();
+    }
+}
@@ -0,0 +1,172 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.exception.PrestamoNoPermitidoException;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Banco de pruebas de concurrencia del alta de préstamos.
+ *
+ * <p>
+ * Varios hilos intentan prestar a la vez un conjunto pequeño de libros,
+ * devolviendo de vez en cuando alguno de los préstamos en curso. Al terminar
+ * no puede haber ningún libro con dos préstamos en curso, y la disponibilidad
+ * de los libros y los contadores de los socios deben coincidir con los
+ * préstamos registrados. El historial de eventos de cada préstamo debe
+ * reproducir exactamente su estado final.
+ * </p>
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class PrestamoConcurrenciaTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PrestamoConcurrenciaTest.class);
+
+    private static final int HILOS = 16;
+    private static final int INTENTOS_POR_HILO = 200;
+    private static final int LIBROS = 10;
+    private static final int SOCIOS = 20;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private HistorialPrestamosService historialService;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void altasSimultaneasNoPrestanDosVecesElMismoLibro() throws Exception {
+        List<Libro> libros = crearLibros();
+        List<Socio> socios = crearSocios();
+
+        AtomicInteger altas = new AtomicInteger();
+        AtomicInteger rechazos = new AtomicInteger();
+        ConcurrentLinkedQueue<Long> enCurso = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> errores = new ConcurrentLinkedQueue<>();
+        CountDownLatch salida = new CountDownLatch(1);
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+        for (int h = 0; h < HILOS; h++) {
+            ejecutor.submit(() -> {
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                salida.await();
+                for (int i = 0; i < INTENTOS_POR_HILO; i++) {
+                    Prestamo prestamo = new Prestamo();
+                    prestamo.setLibro(libros.get(azar.nextInt(LIBROS)));
+                    prestamo.setSocio(socios.get(azar.nextInt(SOCIOS)));
+                    try {
+                        // Uno de cada cuatro intentos devuelve antes un préstamo en curso para que los libros circulen
+                        Long devolver = azar.nextInt(4) == 0 ? enCurso.poll() : null;
+                        if (devolver != null) {
+                            prestamoService.devolverPrestamo(devolver);
+                        }
+                        enCurso.add(prestamoService.guardarPrestamo(prestamo).getId());
+                        altas.incrementAndGet();
+                    } catch (PrestamoNoPermitidoException e) {
+                        rechazos.incrementAndGet();
+                    } catch (Throwable e) {
+                        errores.add(e);
+                    }
+                }
+                return null;
+            });
+        }
+
+        long inicio = System.nanoTime();
+        salida.countDown();
+        ejecutor.shutdown();
+        assertThat(ejecutor.awaitTermination(2, TimeUnit.MINUTES)).isTrue();
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        int intentos = HILOS * INTENTOS_POR_HILO;
+        log.info("Altas concurrentes: {} intentos, {} altas, {} rechazos, {} errores en {} s ({} intentos/s)",
+                intentos, altas.get(), rechazos.get(), errores.size(),
+                String.format("%.2f", segundos), Math.round(intentos / segundos));
+
+        assertThat(errores).isEmpty();
+        assertThat(altas.get() + rechazos.get()).isEqualTo(intentos);
+        comprobarInvariantes();
+    }
+
+    private void comprobarInvariantes() {
+        List<Prestamo> enCurso = prestamoRepository.findAll().stream()
+                .filter(p -> p.getEstado() != Prestamo.Estado.DEVUELTO)
+                .toList();
+
+        Map<Long, Long> porLibro = enCurso.stream()
+                .collect(Collectors.groupingBy(p -> p.getLibro().getId(), Collectors.counting()));
+        assertThat(porLibro.values()).allMatch(n -> n == 1);
+
+        for (Libro libro : libroRepository.findAll()) {
+            assertThat(libro.isDisponible()).isEqualTo(!porLibro.containsKey(libro.getId()));
+        }
+
+        Map<Long, Long> porSocio = enCurso.stream()
+                .collect(Collectors.groupingBy(p -> p.getSocio().getId(), Collectors.counting()));
+        Map<Long, Socio> socios = socioRepository.findAll().stream()
+                .collect(Collectors.toMap(Socio::getId, Function.identity()));
+        socios.forEach((id, socio) ->
+                assertThat((long) socio.getPrestamosActivos()).isEqualTo(porSocio.getOrDefault(id, 0L)));
+
+        assertThat(historialService.reconstruir(false).diferencias()).isZero();
+    }
+
+    private List<Libro> crearLibros() {
+        List<Libro> libros = new ArrayList<>();
+        for (int i = 0; i < LIBROS; i++) {
+            libros.add(datos.nuevoLibro());
+        }
+        return libroRepository.saveAll(libros);
+    }
+
+    private List<Socio> crearSocios() {
+        List<Socio> socios = new ArrayList<>();
+        for (int i = 0; i < SOCIOS; i++) {
+            socios.add(datos.nuevoSocio());
+        }
+        return socioRepository.saveAll(socios);
+    }
+}
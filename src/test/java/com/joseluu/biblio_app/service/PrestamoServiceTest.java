@@ -0,0 +1,315 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.dto.ErrorFila;
+import com.joseluu.biblio_app.dto.ResultadoLote;
+import com.joseluu.biblio_app.entity.EventoPrestamo;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.exception.PrestamoNoPermitidoException;
+import com.joseluu.biblio_app.repository.EventoPrestamoRepository;
+import com.joseluu.biblio_app.repository.InstantaneaPrestamoRepository;
+import com.joseluu.biblio_app.repository.LibroRepository;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reglas de {@link PrestamoService} que mantienen coherentes el préstamo, la
+ * disponibilidad del libro, el contador del socio y el historial.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(DatosPrueba.class)
+class PrestamoServiceTest {
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private HistorialPrestamosService historialService;
+
+    @Autowired
+    private LibroService libroService;
+
+    @Autowired
+    private SocioService socioService;
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private LibroRepository libroRepository;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private EventoPrestamoRepository eventoRepository;
+
+    @Autowired
+    private InstantaneaPrestamoRepository instantaneaRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    // ====================== MODIFICACIÓN ======================
+
+    @Test
+    void modificarLaFechaFinConservaLaReservaDelLibro() {
+        Libro libro = datos.crearLibro();
+        Prestamo prestamo = prestamoService.guardarPrestamo(nuevoPrestamo(libro, datos.crearSocio()));
+
+        Prestamo cambios = copia(prestamo);
+        cambios.setFechaFin(prestamo.getFechaFin().plusDays(7));
+        prestamoService.guardarPrestamo(cambios);
+
+        Prestamo guardado = prestamoRepository.findById(prestamo.getId()).orElseThrow();
+        assertThat(guardado.getFechaFin()).isEqualTo(prestamo.getFechaFin().plusDays(7));
+        assertThat(guardado.getLibroActivo()).isEqualTo(libro.getId());
+        assertThat(historialService.contarRenovaciones(prestamo.getId())).isEqualTo(1);
+        assertThatThrownBy(() -> prestamoService.guardarPrestamo(nuevoPrestamo(libro, datos.crearSocio())))
+                .isInstanceOf(PrestamoNoPermitidoException.class);
+    }
+
+    @Test
+    void marcarComoDevueltoEsUnaDevolucion() {
+        Libro libro = datos.crearLibro();
+        Socio socio = datos.crearSocio();
+        Prestamo prestamo = prestamoService.guardarPrestamo(nuevoPrestamo(libro, socio));
+
+        Prestamo cambios = copia(prestamo);
+        cambios.setEstado(Prestamo.Estado.DEVUELTO);
+        prestamoService.guardarPrestamo(cambios);
+
+        Prestamo guardado = prestamoRepository.findById(prestamo.getId()).orElseThrow();
+        assertThat(guardado.getEstado()).isEqualTo(Prestamo.Estado.DEVUELTO);
+        assertThat(guardado.getFechaDevolucion()).isEqualTo(LocalDate.now());
+        assertThat(guardado.getLibroActivo()).isNull();
+        assertThat(libroRepository.findById(libro.getId()).orElseThrow().isDisponible()).isTrue();
+        assertThat(socioRepository.findById(socio.getId()).orElseThrow().getPrestamosActivos()).isZero();
+    }
+
+    @Test
+    void cambiarElLibroOElEstadoSeRechaza() {
+        Libro libro = datos.crearLibro();
+        Prestamo prestamo = prestamoService.guardarPrestamo(nuevoPrestamo(libro, datos.crearSocio()));
+
+        Prestamo otroLibro = copia(prestamo);
+        otroLibro.setLibro(datos.crearLibro());
+        Prestamo retrasado = copia(prestamo);
+        retrasado.setEstado(Prestamo.Estado.RETRASADO);
+
+        assertThatThrownBy(() -> prestamoService.guardarPrestamo(otroLibro))
+                .isInstanceOf(PrestamoNoPermitidoException.class);
+        assertThatThrownBy(() -> prestamoService.guardarPrestamo(retrasado))
+                .isInstanceOf(PrestamoNoPermitidoException.class);
+        Prestamo guardado = prestamoRepository.findById(prestamo.getId()).orElseThrow();
+        assertThat(guardado.getLibro().getId()).isEqualTo(libro.getId());
+        assertThat(guardado.getEstado()).isEqualTo(Prestamo.Estado.ACTIVO);
+    }
+
+    @Test
+    void elFormularioNoModificaPrestamosExistentes() throws Exception {
+        Libro libro = datos.crearLibro();
+        Prestamo prestamo = prestamoService.guardarPrestamo(nuevoPrestamo(libro, datos.crearSocio()));
+        Libro otro = datos.crearLibro();
+        Socio socio = datos.crearSocio();
+
+        mockMvc.perform(post("/prestamos/guardar")
+                        .param("id", prestamo.getId().toString())
+                        .param("estado", "DEVUELTO")
+                        .param("libro.id", otro.getId().toString())
+                        .param("socio.id", socio.getId().toString()))
+                .andExpect(status().is3xxRedirection());
+
+        assertThat(prestamoRepository.count()).isEqualTo(2);
+        Prestamo original = prestamoRepository.findById(prestamo.getId()).orElseThrow();
+        assertThat(original.getLibro().getId()).isEqualTo(libro.getId());
+        assertThat(original.getEstado()).isEqualTo(Prestamo.Estado.ACTIVO);
+    }
+
+    // ====================== LOTES ======================
+
+    @Test
+    void unLotePrestaLosLibrosValidosEInformaDelResto() {
+        Libro prestado = datos.crearLibro();
+        prestamoService.guardarPrestamo(nuevoPrestamo(prestado, datos.crearSocio()));
+        Socio socio = datos.crearSocio();
+        Libro primero = datos.crearLibro();
+        Libro segundo = datos.crearLibro();
+        Libro tercero = datos.crearLibro();
+        Libro cuarto = datos.crearLibro();
+
+        ResultadoLote resultado = prestamoService.prestarLibros(socio.getId(), List.of(
+                primero.getId(), prestado.getId(), -1L, primero.getId(),
+                segundo.getId(), tercero.getId(), cuarto.getId()));
+
+        assertThat(resultado.procesados()).isEqualTo(7);
+        assertThat(resultado.prestamos()).hasSize(3);
+        // Ya prestado, inexistente, repetido y por encima del máximo de tres préstamos en curso
+        assertThat(resultado.errores()).extracting(ErrorFila::fila).containsExactly(2, 3, 4, 7);
+        assertThat(socioRepository.findById(socio.getId()).orElseThrow().getPrestamosActivos()).isEqualTo(3);
+        assertThat(libroRepository.findById(cuarto.getId()).orElseThrow().isDisponible()).isTrue();
+        assertThat(prestamoRepository.findAllById(resultado.prestamos()))
+                .extracting(p -> p.getLibro().getId())
+                .containsExactlyInAnyOrder(primero.getId(), segundo.getId(), tercero.getId());
+    }
+
+    @Test
+    void unLoteDevuelveLosPrestamosEnCursoEInformaDelResto() {
+        Socio socio = datos.crearSocio();
+        Libro libro = datos.crearLibro();
+        Prestamo enCurso = prestamoService.guardarPrestamo(nuevoPrestamo(libro, socio));
+        Prestamo devuelto = prestamoService.guardarPrestamo(nuevoPrestamo(datos.crearLibro(), socio));
+        prestamoService.devolverPrestamo(devuelto.getId());
+
+        ResultadoLote resultado = prestamoService.devolverPrestamos(List.of(
+                enCurso.getId(), enCurso.getId(), devuelto.getId(), -1L));
+
+        assertThat(resultado.prestamos()).containsExactly(enCurso.getId());
+        assertThat(resultado.errores()).extracting(ErrorFila::fila).containsExactly(2, 3, 4);
+        assertThat(libroRepository.findById(libro.getId()).orElseThrow().isDisponible()).isTrue();
+        assertThat(socioRepository.findById(socio.getId()).orElseThrow().getPrestamosActivos()).isZero();
+    }
+
+    @Test
+    void unLoteSoloExpulsaDeLaCacheSusLibros() {
+        Libro prestado = datos.crearLibro();
+        Libro otro = datos.crearLibro();
+        libroService.obtenerLibroPorId(prestado.getId());
+        libroService.obtenerLibroPorId(otro.getId());
+
+        prestamoService.prestarLibros(datos.crearSocio().getId(), List.of(prestado.getId()));
+
+        assertThat(cacheManager.getCache(CacheConfig.LIBROS).get(prestado.getId())).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.LIBROS).get(otro.getId())).isNotNull();
+        assertThat(libroService.obtenerLibroPorId(prestado.getId()).isDisponible()).isFalse();
+    }
+
+    // ====================== BAJAS DE LIBROS Y SOCIOS ======================
+
+    @Test
+    void unLibroOSocioConPrestamosEnCursoNoSeElimina() {
+        Libro libro = datos.crearLibro();
+        Socio socio = datos.crearSocio();
+        prestamoService.guardarPrestamo(nuevoPrestamo(libro, socio));
+
+        assertThatThrownBy(() -> libroService.eliminarLibro(libro.getId()))
+                .isInstanceOf(PrestamoNoPermitidoException.class);
+        assertThatThrownBy(() -> socioService.eliminarSocio(socio.getId()))
+                .isInstanceOf(PrestamoNoPermitidoException.class);
+        assertThat(prestamoRepository.count()).isEqualTo(1);
+        assertThat(libroRepository.existsById(libro.getId())).isTrue();
+        assertThat(socioRepository.existsById(socio.getId())).isTrue();
+    }
+
+    @Test
+    void eliminarUnLibroDaDeBajaSusPrestamosDevueltos() {
+        Libro libro = datos.crearLibro();
+        Socio socio = datos.crearSocio();
+        Prestamo prestamo = prestamoService.guardarPrestamo(nuevoPrestamo(libro, socio));
+        prestamoService.devolverPrestamo(prestamo.getId());
+
+        libroService.eliminarLibro(libro.getId());
+
+        assertThat(libroRepository.existsById(libro.getId())).isFalse();
+        assertThat(prestamoRepository.count()).isZero();
+        assertThat(historialService.listarEventos(prestamo.getId()))
+                .extracting(EventoPrestamo::getTipo)
+                .containsExactly(EventoPrestamo.Tipo.ALTA, EventoPrestamo.Tipo.DEVOLUCION, EventoPrestamo.Tipo.BAJA);
+        // Con la baja registrada, la reconstrucción no vuelve a insertar el préstamo
+        assertThat(historialService.reconstruir(false).diferencias()).isZero();
+    }
+
+    // ====================== HISTORIAL ======================
+
+    @Test
+    void lasInstantaneasEsperanALasTransaccionesSinConfirmar() throws Exception {
+        Prestamo lento = prestamoService.guardarPrestamo(nuevoPrestamo(datos.crearLibro(), datos.crearSocio()));
+        Prestamo rapido = prestamoService.guardarPrestamo(nuevoPrestamo(datos.crearLibro(), datos.crearSocio()));
+        CountDownLatch registrado = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+
+        // La renovación del préstamo lento recibe el id menor pero se confirma la última
+        CompletableFuture<Void> transaccionLenta = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(estado -> {
+                    historialService.registrarRenovacion(lento, LocalDate.now());
+                    registrado.countDown();
+                    try {
+                        confirmar.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(registrado.await(10, TimeUnit.SECONDS)).isTrue();
+        transactionTemplate.executeWithoutResult(estado ->
+                historialService.registrarRenovacion(rapido, LocalDate.now()));
+
+        // Solo las dos altas: la renovación confirmada tiene un id posterior al pendiente
+        assertThat(historialService.actualizarInstantaneas()).isEqualTo(2);
+
+        confirmar.countDown();
+        transaccionLenta.get(10, TimeUnit.SECONDS);
+        assertThat(historialService.actualizarInstantaneas()).isEqualTo(2);
+        assertThat(instantaneaRepository.findUltimoEvento())
+                .isEqualTo(eventoRepository.findUltimoId());
+        assertThat(historialService.contarRenovaciones(lento.getId())).isEqualTo(1);
+    }
+
+    // ====================== AUXILIARES ======================
+
+    private static Prestamo nuevoPrestamo(Libro libro, Socio socio) {
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(libro);
+        prestamo.setSocio(socio);
+        return prestamo;
+    }
+
+    /**
+     * Préstamo tal como llega de un formulario o de JSON: sin {@code libroActivo}.
+     */
+    private static Prestamo copia(Prestamo prestamo) {
+        Prestamo copia = nuevoPrestamo(prestamo.getLibro(), prestamo.getSocio());
+        copia.setId(prestamo.getId());
+        copia.setEstado(prestamo.getEstado());
+        copia.setFechaPrestamo(prestamo.getFechaPrestamo());
+        copia.setFechaFin(prestamo.getFechaFin());
+        return copia;
+    }
+}
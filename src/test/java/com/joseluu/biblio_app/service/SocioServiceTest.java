@@ -0,0 +1,113 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.config.CacheConfig;
+import com.joseluu.biblio_app.dto.Sugerencia;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Prestamo;
+import com.joseluu.biblio_app.entity.Socio;
+import com.joseluu.biblio_app.exception.SocioNoEncontradoException;
+import com.joseluu.biblio_app.repository.PrestamoRepository;
+import com.joseluu.biblio_app.repository.SocioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Alta y modificación de socios en {@link SocioService}.
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class SocioServiceTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private SocioService socioService;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PrestamoRepository prestamoRepository;
+
+    @Autowired
+    private SocioRepository socioRepository;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void laModificacionDeUnSocioConPrestamosConservaSusPrestamos() {
+        Socio socio = socioService.guardarSocio(socio(null, "Ana", "ana@email.com"));
+        Prestamo prestamo = new Prestamo();
+        prestamo.setLibro(datos.crearLibro());
+        prestamo.setSocio(socio);
+        prestamoService.guardarPrestamo(prestamo);
+
+        // El formulario envía un socio sin sus préstamos
+        Socio modificado = socioService.guardarSocio(socio(socio.getId(), "Ana María", " AnaMaria@Email.com "));
+
+        assertThat(modificado.getNombre()).isEqualTo("Ana María");
+        assertThat(modificado.getEmail()).isEqualTo("anamaria@email.com");
+        Socio guardado = socioRepository.findById(socio.getId()).orElseThrow();
+        assertThat(guardado.getNombre()).isEqualTo("Ana María");
+        assertThat(guardado.getEmail()).isEqualTo("anamaria@email.com");
+        assertThat(guardado.getPrestamosActivos()).isEqualTo(1);
+        assertThat(prestamoRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void modificarUnSocioInexistenteFalla() {
+        assertThatThrownBy(() -> socioService.guardarSocio(socio(Long.MAX_VALUE, "Nadie", "nadie@email.com")))
+                .isInstanceOf(SocioNoEncontradoException.class);
+        assertThat(socioRepository.count()).isZero();
+    }
+
+    @Test
+    void trasCambiarElEmailSoloSeEncuentraPorElNuevo() {
+        Socio socio = socioService.guardarSocio(socio(null, "Ana Ruiz", "aruiz@email.com"));
+        // Deja en caché el id por email y el socio por id
+        assertThat(socioService.obtenerIdPorEmail("ARuiz@email.com")).isEqualTo(socio.getId());
+        socioService.obtenerSocioPorId(socio.getId());
+        assertThat(cacheManager.getCache(CacheConfig.EMAIL_SOCIOS).get("aruiz@email.com")).isNotNull();
+
+        socioService.guardarSocio(socio(socio.getId(), "Ana Vidal", "avidal@email.com"));
+
+        assertThatThrownBy(() -> socioService.obtenerIdPorEmail("aruiz@email.com"))
+                .isInstanceOf(SocioNoEncontradoException.class);
+        assertThat(socioService.obtenerIdPorEmail(" AVidal@Email.com ")).isEqualTo(socio.getId());
+        Socio encontrado = socioService.obtenerSocioPorId(socio.getId());
+        assertThat(encontrado.getNombre()).isEqualTo("Ana Vidal");
+        assertThat(encontrado.getEmail()).isEqualTo("avidal@email.com");
+        assertThat(sugerenciasService.sugerirSocios("ruiz", null)).extracting(Sugerencia::id)
+                .doesNotContain(socio.getId());
+        assertThat(sugerenciasService.sugerirSocios("aruiz", null)).extracting(Sugerencia::id)
+                .doesNotContain(socio.getId());
+        assertThat(sugerenciasService.sugerirSocios("vidal", null))
+                .contains(new Sugerencia(socio.getId(), "Ana Vidal", "avidal@email.com"));
+    }
+
+    private static Socio socio(Long id, String nombre, String email) {
+        Socio socio = new Socio();
+        socio.setId(id);
+        socio.setNombre(nombre);
+        socio.setEmail(email);
+        return socio;
+    }
+}
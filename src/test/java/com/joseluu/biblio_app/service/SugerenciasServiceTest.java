@@ -0,0 +1,95 @@
+package com.joseluu.biblio_app.service;
+
+import com.joseluu.biblio_app.DatosPrueba;
+import com.joseluu.biblio_app.dto.Sugerencia;
+import com.joseluu.biblio_app.entity.Libro;
+import com.joseluu.biblio_app.entity.Socio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Autocompletado de {@link SugerenciasService}.
+ *
+ * <p>
+ * Los índices viven mientras dura el contexto, así que cada test busca por
+ * una palabra que solo usan sus propios datos.
+ * </p>
+ */
+@SpringBootTest
+@Import(DatosPrueba.class)
+class SugerenciasServiceTest {
+
+    @Autowired
+    private DatosPrueba datos;
+
+    @Autowired
+    private SugerenciasService sugerenciasService;
+
+    @Autowired
+    private LibroService libroService;
+
+    @Autowired
+    private PrestamoService prestamoService;
+
+    @AfterEach
+    void limpiar() {
+        datos.limpiar();
+    }
+
+    @Test
+    void soloDisponiblesDescartaLosLibrosPrestados() {
+        List<Libro> libros = List.of(guardarLibro("Zafiro uno"), guardarLibro("Zafiro dos"),
+                guardarLibro("Zafiro tres"), guardarLibro("Zafiro cuatro"), guardarLibro("Zafiro cinco"));
+        Socio socio = datos.crearSocio();
+        prestamoService.prestarLibros(socio.getId(), List.of(libros.get(0).getId(), libros.get(2).getId()));
+
+        assertThat(ids(sugerenciasService.sugerirLibros("zafiro", null, false)))
+                .containsExactlyInAnyOrderElementsOf(libros.stream().map(Libro::getId).toList());
+        assertThat(ids(sugerenciasService.sugerirLibros("zafiro", null, true)))
+                .containsExactlyInAnyOrder(libros.get(1).getId(), libros.get(3).getId(), libros.get(4).getId());
+        // El límite se aplica después de filtrar
+        assertThat(sugerenciasService.sugerirLibros("zafiro", 2, true))
+                .hasSize(2)
+                .extracting(Sugerencia::id)
+                .doesNotContain(libros.get(0).getId(), libros.get(2).getId());
+        assertThat(sugerenciasService.sugerirLibros("nada que coincida", null, true)).isEmpty();
+    }
+
+    @Test
+    void elLimiteTieneValorPorDefectoYMaximo() {
+        for (long i = 1; i <= 60; i++) {
+            Socio socio = new Socio();
+            socio.setId(1_000_000 + i);
+            socio.setNombre("Quimera " + i);
+            socio.setEmail("quimera" + i + "@email.com");
+            sugerenciasService.indexarSocio(socio);
+        }
+
+        assertThat(sugerenciasService.sugerirSocios("quimera", null)).hasSize(10);
+        assertThat(sugerenciasService.sugerirSocios("quimera", 0)).hasSize(10);
+        assertThat(sugerenciasService.sugerirSocios("quimera", 3)).hasSize(3);
+        assertThat(sugerenciasService.sugerirSocios("quimera", 500)).hasSize(50);
+
+        for (long i = 1; i <= 60; i++) {
+            sugerenciasService.eliminarSocio(1_000_000 + i);
+        }
+        assertThat(sugerenciasService.sugerirSocios("quimera", null)).isEmpty();
+    }
+
+    private Libro guardarLibro(String titulo) {
+        Libro libro = datos.nuevoLibro();
+        libro.setTitulo(titulo);
+        return libroService.guardarLibro(libro);
+    }
+
+    private static List<Long> ids(List<Sugerencia> sugerencias) {
+        return sugerencias.stream().map(Sugerencia::id).toList();
+    }
+}
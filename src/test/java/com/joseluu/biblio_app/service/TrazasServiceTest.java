@@ -0,0 +1,102 @@
+package com.joseluu.biblio_app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joseluu.biblio_app.dto.TrazaRegistrada;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Buffer de trazas lentas y decisión de muestreo de {@link TrazasService}.
+ */
+class TrazasServiceTest {
+
+    // ====================== TRAZAS LENTAS ======================
+
+    @Test
+    void soloSeGuardanLasTrazasLentas() throws Exception {
+        TrazasService servicio = nuevoServicio(0, 3);
+        try {
+            servicio.registrar(traza("1", 99));
+            servicio.registrar(traza("2", 100));
+
+            assertThat(servicio.listarLentas(10)).extracting(TrazaRegistrada::traceId).containsExactly("2");
+            assertThat(servicio.obtenerLenta("1")).isEmpty();
+        } finally {
+            servicio.detener();
+        }
+    }
+
+    @Test
+    void elBufferDescartaLasMasAntiguas() throws Exception {
+        TrazasService servicio = nuevoServicio(0, 3);
+        try {
+            for (int i = 1; i <= 5; i++) {
+                servicio.registrar(traza(Integer.toString(i), 200));
+            }
+
+            assertThat(servicio.listarLentas(10)).extracting(TrazaRegistrada::traceId)
+                    .containsExactly("5", "4", "3");
+            assertThat(servicio.listarLentas(2)).extracting(TrazaRegistrada::traceId)
+                    .containsExactly("5", "4");
+            assertThat(servicio.obtenerLenta("3")).isPresent();
+            assertThat(servicio.obtenerLenta("2")).isEmpty();
+        } finally {
+            servicio.detener();
+        }
+    }
+
+    // ====================== MUESTREO ======================
+
+    @Test
+    void elMuestreoDependeSoloDeLosBitsBajosDelId() throws Exception {
+        TrazasService servicio = nuevoServicio(0.5, 1);
+        TrazasService otro = nuevoServicio(0.5, 1);
+        try {
+            // 53 bits bajos: 0 entra en cualquier fracción; todos a uno, en ninguna menor que 1
+            assertThat(servicio.muestrear("ffffffffffffffff0000000000000000")).isTrue();
+            assertThat(servicio.muestrear("0000000000000000ffffffffffffffff")).isFalse();
+            // Justo por debajo y justo en la mitad
+            assertThat(servicio.muestrear("00000000000000007ffffffffffff7ff")).isTrue();
+            assertThat(servicio.muestrear("00000000000000008000000000000000")).isFalse();
+
+            String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
+            assertThat(otro.muestrear(traceId)).isEqualTo(servicio.muestrear(traceId));
+        } finally {
+            servicio.detener();
+            otro.detener();
+        }
+    }
+
+    @Test
+    void losExtremosDelMuestreo() throws Exception {
+        TrazasService nunca = nuevoServicio(0, 1);
+        TrazasService siempre = nuevoServicio(1, 1);
+        try {
+            assertThat(nunca.muestrear("ffffffffffffffff0000000000000000")).isFalse();
+            assertThat(siempre.muestrear("0000000000000000ffffffffffffffff")).isTrue();
+        } finally {
+            nunca.detener();
+            siempre.detener();
+        }
+    }
+
+    // ====================== AUXILIARES ======================
+
+    /**
+     * Servicio sin exportación, con umbral de lentas de 100 ms.
+     */
+    private static TrazasService nuevoServicio(double muestreo, int capacidadLentas) {
+        return new TrazasService(new ObjectMapper(), new SimpleMeterRegistry(), "biblio_app", muestreo,
+                Duration.ofMillis(100), capacidadLentas, 500, "", "", 10);
+    }
+
+    private static TrazaRegistrada traza(String traceId, long duracionMs) {
+        return new TrazaRegistrada(traceId, "GET /", Instant.now(), duracionMs, false, List.of(), 0);
+    }
+}